@@ -0,0 +1,102 @@
+package com.digitalpetri.modbus.benchmarks;
+
+import com.digitalpetri.modbus.Crc16;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link Crc16} over RTU frames of 8 to 256 bytes.
+ *
+ * <p>{@link #byteAtATime()} is the table lookup per byte that {@link Crc16} did before
+ * slicing-by-8, and {@link #verifyByteAtATime()} is how the client used to verify a frame's CRC,
+ * with a new {@link Crc16} for every frame.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class Crc16Benchmark {
+
+  @Param({"8", "32", "128", "256"})
+  public int frameLength;
+
+  private byte[] frame;
+  private ByteBuffer heapPdu;
+  private ByteBuffer directPdu;
+  private ByteBuffer crc;
+  private int unitId;
+
+  private final Crc16 crc16 = new Crc16();
+
+  @Setup
+  public void setup() {
+    frame = new byte[frameLength];
+    for (int i = 0; i < frame.length - 2; i++) {
+      frame[i] = (byte) (i * 31 + 7);
+    }
+    int value = Crc16.compute(frame, 0, frame.length - 2);
+    frame[frame.length - 2] = (byte) value;
+    frame[frame.length - 1] = (byte) (value >> 8);
+
+    unitId = frame[0] & 0xFF;
+    heapPdu = ByteBuffer.wrap(frame, 1, frame.length - 3).slice();
+    directPdu = ByteBuffer.allocateDirect(heapPdu.remaining()).put(heapPdu.duplicate()).flip();
+    crc = ByteBuffer.wrap(frame, frame.length - 2, 2).slice();
+  }
+
+  @Benchmark
+  public int byteAtATime() {
+    crc16.reset();
+    crc16.update(unitId);
+    for (int i = heapPdu.position(); i < heapPdu.limit(); i++) {
+      crc16.update(heapPdu.get(i));
+    }
+    return crc16.getValue();
+  }
+
+  @Benchmark
+  public int slicingArray() {
+    return Crc16.compute(frame, 0, frame.length - 2);
+  }
+
+  @Benchmark
+  public int slicingHeapBuffer() {
+    return Crc16.compute(unitId, heapPdu);
+  }
+
+  @Benchmark
+  public int slicingDirectBuffer() {
+    return Crc16.compute(unitId, directPdu);
+  }
+
+  @Benchmark
+  public boolean verify() {
+    return Crc16.verify(unitId, heapPdu, crc);
+  }
+
+  @Benchmark
+  public boolean verifyByteAtATime() {
+    var crc16 = new Crc16();
+    crc16.update(unitId);
+    for (int i = heapPdu.position(); i < heapPdu.limit(); i++) {
+      crc16.update(heapPdu.get(i));
+    }
+
+    int reported = (crc.get(0) & 0xFF) | ((crc.get(1) & 0xFF) << 8);
+
+    return crc16.getValue() == reported;
+  }
+}
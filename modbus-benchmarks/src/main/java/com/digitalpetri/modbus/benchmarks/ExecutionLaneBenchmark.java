@@ -0,0 +1,144 @@
+package com.digitalpetri.modbus.benchmarks;
+
+import com.digitalpetri.modbus.client.ModbusTcpClient;
+import com.digitalpetri.modbus.exceptions.ModbusResponseException;
+import com.digitalpetri.modbus.exceptions.UnknownUnitIdException;
+import com.digitalpetri.modbus.pdu.ReadHoldingRegistersRequest;
+import com.digitalpetri.modbus.pdu.ReadHoldingRegistersResponse;
+import com.digitalpetri.modbus.server.ModbusRequestContext;
+import com.digitalpetri.modbus.server.ModbusTcpServer;
+import com.digitalpetri.modbus.server.ProcessImage;
+import com.digitalpetri.modbus.server.ReadWriteModbusServices;
+import com.digitalpetri.modbus.server.ServerExecutionModel;
+import com.digitalpetri.modbus.tcp.client.NettyTcpClientTransport;
+import com.digitalpetri.modbus.tcp.server.NettyTcpServerTransport;
+import java.net.ServerSocket;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.infra.ThreadParams;
+
+/**
+ * Request throughput of a {@link ModbusTcpServer} under each {@link ServerExecutionModel}.
+ *
+ * <p>Every benchmark thread is a separate client connection targeting its own unit id, and every
+ * request burns {@code workTokens} of CPU on the server to stand in for a handler that does real
+ * work. With {@link ServerExecutionModel#SERIAL} throughput stays flat as threads are added; with
+ * the per-connection and per-unit-id models it should scale with the number of lanes, up to the
+ * number of cores. Use {@code -t} to change the number of clients and {@code -p executionLanes=N}
+ * to hash requests onto a fixed number of lanes.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(16)
+public class ExecutionLaneBenchmark {
+
+  @State(Scope.Benchmark)
+  public static class ServerState {
+
+    @Param({"SERIAL", "PER_CONNECTION", "PER_UNIT_ID"})
+    public ServerExecutionModel executionModel;
+
+    @Param("0")
+    public int executionLanes;
+
+    @Param("1000")
+    public long workTokens;
+
+    ModbusTcpServer server;
+    int port;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+      try (var socket = new ServerSocket(0)) {
+        port = socket.getLocalPort();
+      }
+
+      var processImage = new ProcessImage();
+      var services =
+          new ReadWriteModbusServices() {
+            @Override
+            protected Optional<ProcessImage> getProcessImage(int unitId) {
+              return Optional.of(processImage);
+            }
+
+            @Override
+            public ReadHoldingRegistersResponse readHoldingRegisters(
+                ModbusRequestContext context, int unitId, ReadHoldingRegistersRequest request)
+                throws ModbusResponseException, UnknownUnitIdException {
+
+              Blackhole.consumeCPU(workTokens);
+
+              return super.readHoldingRegisters(context, unitId, request);
+            }
+          };
+
+      var transport =
+          NettyTcpServerTransport.create(
+              cfg -> {
+                cfg.bindAddress = "localhost";
+                cfg.port = port;
+                cfg.executionModel = executionModel;
+                cfg.executionLanes = executionLanes;
+              });
+
+      server = ModbusTcpServer.create(transport, services);
+      server.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() throws Exception {
+      server.stop();
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class ClientState {
+
+    ModbusTcpClient client;
+    int unitId;
+
+    @Setup(Level.Trial)
+    public void setup(ServerState server, ThreadParams threadParams) throws Exception {
+      var transport =
+          NettyTcpClientTransport.create(
+              cfg -> {
+                cfg.hostname = "localhost";
+                cfg.port = server.port;
+                cfg.connectPersistent = false;
+              });
+
+      client = ModbusTcpClient.create(transport);
+      client.connect();
+
+      unitId = 1 + threadParams.getThreadIndex() % 247;
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() throws Exception {
+      client.disconnect();
+    }
+  }
+
+  @Benchmark
+  public ReadHoldingRegistersResponse readHoldingRegisters(ClientState state) throws Exception {
+    return state.client.readHoldingRegisters(state.unitId, new ReadHoldingRegistersRequest(0, 10));
+  }
+}
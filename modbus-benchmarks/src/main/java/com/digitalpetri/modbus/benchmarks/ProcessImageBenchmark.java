@@ -0,0 +1,111 @@
+package com.digitalpetri.modbus.benchmarks;
+
+import com.digitalpetri.modbus.server.DenseProcessImage;
+import com.digitalpetri.modbus.server.ProcessImage;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Range reads and writes on the map-backed {@link ProcessImage} versus {@link DenseProcessImage}.
+ *
+ * <p>{@code quantity} registers, or 16 times as many coils, starting at address 0 are populated
+ * before the run. {@link #readHoldingRegistersPerAddress()} reads through the {@code Map} view one
+ * address at a time, the way the services did before the bulk range methods existed.
+ *
+ * <p>Run with {@code -prof gc} to compare allocation rates.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProcessImageBenchmark {
+
+  @Param({"map", "dense"})
+  public String image;
+
+  @Param("125")
+  public int quantity;
+
+  private ProcessImage processImage;
+  private byte[] registerValues;
+  private byte[] coilValues;
+
+  @Setup
+  public void setup() {
+    processImage =
+        switch (image) {
+          case "map" -> new ProcessImage();
+          case "dense" -> new DenseProcessImage();
+          default -> throw new IllegalArgumentException("image: " + image);
+        };
+
+    registerValues = new byte[quantity * 2];
+    for (int i = 0; i < registerValues.length; i++) {
+      registerValues[i] = (byte) i;
+    }
+
+    coilValues = new byte[quantity * 2];
+    for (int i = 0; i < coilValues.length; i++) {
+      coilValues[i] = (byte) 0x5A;
+    }
+
+    processImage.with(
+        tx -> {
+          tx.writeHoldingRegisters(0, quantity, registerValues);
+          tx.writeCoils(0, quantity * 16, coilValues);
+        });
+  }
+
+  @Benchmark
+  public byte[] readHoldingRegisters() {
+    return processImage.readHoldingRegisters(0, quantity);
+  }
+
+  @Benchmark
+  public byte[] readHoldingRegistersInTransaction() {
+    return processImage.get(tx -> tx.readHoldingRegisters(0, quantity));
+  }
+
+  @Benchmark
+  public byte[] readHoldingRegistersPerAddress() {
+    return processImage.get(
+        tx ->
+            tx.readHoldingRegisters(
+                registerMap -> {
+                  byte[] registers = new byte[quantity * 2];
+                  for (int i = 0; i < quantity; i++) {
+                    byte[] value = registerMap.getOrDefault(i, new byte[2]);
+                    registers[i * 2] = value[0];
+                    registers[i * 2 + 1] = value[1];
+                  }
+                  return registers;
+                }));
+  }
+
+  @Benchmark
+  public void writeHoldingRegisters() {
+    processImage.with(tx -> tx.writeHoldingRegisters(0, quantity, registerValues));
+  }
+
+  @Benchmark
+  public byte[] readCoils() {
+    return processImage.readCoils(0, quantity * 16);
+  }
+
+  @Benchmark
+  public void writeCoils() {
+    processImage.with(tx -> tx.writeCoils(0, quantity * 16, coilValues));
+  }
+}
@@ -0,0 +1,129 @@
+package com.digitalpetri.modbus.benchmarks;
+
+import com.digitalpetri.modbus.Crc16;
+import com.digitalpetri.modbus.ModbusRtuFrame;
+import com.digitalpetri.modbus.ModbusRtuFrameReader;
+import com.digitalpetri.modbus.ModbusRtuResponseFrameParser;
+import com.digitalpetri.modbus.ModbusRtuResponseFrameParser.Accumulated;
+import com.digitalpetri.modbus.ModbusRtuResponseFrameParser.Accumulating;
+import com.digitalpetri.modbus.ModbusRtuResponseFrameParser.ParserState;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Framing Read Holding Registers responses with {@link ModbusRtuFrameReader} versus {@link
+ * ModbusRtuResponseFrameParser}.
+ *
+ * <p>Each response arrives in reads of {@code chunkSize} bytes, or in a single read when it is 0.
+ * The parser is fed the way the transports used to feed it, with each read copied into a new {@code
+ * byte[]} and the parser reset after every frame. The reader verifies each frame's CRC itself, so
+ * the parser's frames are verified afterwards, as the client used to. {@link #readerBurst()} hands
+ * the reader 8 responses in one read, which the parser cannot handle at all.
+ *
+ * <p>Run with {@code -prof gc} to compare allocation rates.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RtuFrameReaderBenchmark {
+
+  private static final int BURST = 8;
+
+  @Param({"10", "125"})
+  public int registers;
+
+  @Param({"0", "8"})
+  public int chunkSize;
+
+  private final ModbusRtuFrameReader reader = ModbusRtuFrameReader.forResponses();
+  private final ModbusRtuResponseFrameParser parser = new ModbusRtuResponseFrameParser();
+  private final Consumer<ModbusRtuFrame> frameConsumer = frame -> lastFrame = frame;
+
+  private ByteBuffer[] chunks;
+  private ByteBuffer burst;
+  private ModbusRtuFrame lastFrame;
+
+  @Setup
+  public void setup() {
+    byte[] frame = responseFrame(registers);
+
+    int size = chunkSize == 0 ? frame.length : chunkSize;
+    chunks = new ByteBuffer[(frame.length + size - 1) / size];
+    for (int i = 0; i < chunks.length; i++) {
+      int offset = i * size;
+      chunks[i] = ByteBuffer.wrap(frame, offset, Math.min(size, frame.length - offset)).slice();
+    }
+
+    burst = ByteBuffer.allocate(frame.length * BURST);
+    for (int i = 0; i < BURST; i++) {
+      burst.put(frame);
+    }
+    burst.flip();
+  }
+
+  @Benchmark
+  public ModbusRtuFrame reader() {
+    for (ByteBuffer chunk : chunks) {
+      reader.read(chunk.rewind(), frameConsumer);
+    }
+    return lastFrame;
+  }
+
+  @Benchmark
+  public ModbusRtuFrame readerBurst() {
+    reader.read(burst.rewind(), frameConsumer);
+    return lastFrame;
+  }
+
+  @Benchmark
+  public ModbusRtuFrame parser() {
+    for (ByteBuffer chunk : chunks) {
+      chunk.rewind();
+      byte[] data = new byte[chunk.remaining()];
+      chunk.get(data);
+
+      ParserState state = parser.parse(data);
+      if (state instanceof Accumulated a) {
+        ModbusRtuFrame frame = a.frame();
+        if (Crc16.verify(frame.unitId(), frame.pdu(), frame.crc())) {
+          lastFrame = frame;
+        }
+        parser.reset();
+      } else if (!(state instanceof Accumulating)) {
+        parser.reset();
+      }
+    }
+    return lastFrame;
+  }
+
+  private static byte[] responseFrame(int registers) {
+    byte[] frame = new byte[3 + registers * 2 + 2];
+    frame[0] = 1;
+    frame[1] = 0x03;
+    frame[2] = (byte) (registers * 2);
+    for (int i = 3; i < frame.length - 2; i++) {
+      frame[i] = (byte) i;
+    }
+
+    int crc = Crc16.compute(frame, 0, frame.length - 2);
+    frame[frame.length - 2] = (byte) crc;
+    frame[frame.length - 1] = (byte) (crc >> 8);
+
+    return frame;
+  }
+}
@@ -0,0 +1,96 @@
+package com.digitalpetri.modbus.benchmarks;
+
+import com.digitalpetri.modbus.Modbus;
+import com.digitalpetri.modbus.TimeoutScheduler;
+import com.digitalpetri.modbus.TimeoutScheduler.Task;
+import com.digitalpetri.modbus.TimeoutScheduler.TimeoutHandle;
+import com.digitalpetri.modbus.WheelTimeoutScheduler;
+import com.digitalpetri.modbus.tcp.client.NettyTimeoutScheduler;
+import io.netty.util.HashedWheelTimer;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Scheduling and cancelling request timeouts with {@link WheelTimeoutScheduler}, {@link
+ * TimeoutScheduler#create} and {@link NettyTimeoutScheduler}.
+ *
+ * <p>Almost every request timeout is cancelled by its response long before it expires, so each
+ * operation schedules a timeout far in the future and cancels it straight away. The contended
+ * variant does the same from 4 threads at once.
+ *
+ * <p>Run with {@code -prof gc} to compare allocation rates.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TimeoutSchedulerBenchmark {
+
+  private static final Task TASK = handle -> {};
+
+  @Param({"wheel", "executor", "netty"})
+  public String scheduler;
+
+  private TimeoutScheduler timeoutScheduler;
+  private Runnable stop;
+
+  @Setup
+  public void setup() {
+    switch (scheduler) {
+      case "wheel" -> {
+        var wheel = new WheelTimeoutScheduler(Modbus.sharedExecutor());
+        timeoutScheduler = wheel;
+        stop = wheel::stop;
+      }
+      case "executor" -> {
+        ScheduledExecutorService scheduledExecutor = Executors.newSingleThreadScheduledExecutor();
+        timeoutScheduler = TimeoutScheduler.create(Modbus.sharedExecutor(), scheduledExecutor);
+        stop = scheduledExecutor::shutdownNow;
+      }
+      case "netty" -> {
+        var wheelTimer = new HashedWheelTimer();
+        timeoutScheduler = new NettyTimeoutScheduler(wheelTimer);
+        stop = wheelTimer::stop;
+      }
+      default -> throw new IllegalArgumentException("scheduler: " + scheduler);
+    }
+  }
+
+  @TearDown
+  public void teardown() {
+    stop.run();
+  }
+
+  @Benchmark
+  public TimeoutHandle scheduleAndCancel() {
+    return newTimeoutAndCancel();
+  }
+
+  @Benchmark
+  @Threads(4)
+  public TimeoutHandle scheduleAndCancelContended() {
+    return newTimeoutAndCancel();
+  }
+
+  private TimeoutHandle newTimeoutAndCancel() {
+    TimeoutHandle handle = timeoutScheduler.newTimeout(TASK, 5, TimeUnit.SECONDS);
+    handle.cancel();
+    return handle;
+  }
+}
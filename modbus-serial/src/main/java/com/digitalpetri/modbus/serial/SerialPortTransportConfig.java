@@ -1,8 +1,13 @@
 package com.digitalpetri.modbus.serial;
 
 import com.digitalpetri.modbus.Modbus;
+import com.digitalpetri.modbus.RtuFrameLengthResolver;
 import com.digitalpetri.modbus.serial.client.SerialPortClientTransport;
+import com.digitalpetri.modbus.serial.server.SerialPortServerTransport;
+import com.digitalpetri.modbus.server.ServerExecutionModel;
 import com.fazecast.jSerialComm.SerialPort;
+import java.time.Duration;
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.function.Consumer;
 
@@ -26,6 +31,14 @@ import java.util.function.Consumer;
  * @param rs485DelayAfter the time to wait in microseconds after sending the last data bit before
  *     disabling transmit mode. Effective only on Linux.
  * @param executor the {@link ExecutorService} to use when delivering frame received callbacks.
+ * @param executionModel the {@link ServerExecutionModel} used by a {@link
+ *     SerialPortServerTransport} to order request handling.
+ * @param executionLanes the number of lanes requests are hashed onto when the execution model is
+ *     {@link ServerExecutionModel#PER_UNIT_ID}, or 0 for one lane per unit id.
+ * @param frameSilenceTimeout how long the line must be silent before a partly received frame is
+ *     closed, or {@link Duration#ZERO} to delimit frames by their length alone.
+ * @param frameLengthResolvers additional {@link RtuFrameLengthResolver}s consulted when reading
+ *     frames.
  * @see SerialPortTransportConfig#create(Consumer)
  */
 public record SerialPortTransportConfig(
@@ -40,7 +53,38 @@ public record SerialPortTransportConfig(
     boolean rs485RxDuringTx,
     int rs485DelayBefore,
     int rs485DelayAfter,
-    ExecutorService executor) {
+    ExecutorService executor,
+    ServerExecutionModel executionModel,
+    int executionLanes,
+    Duration frameSilenceTimeout,
+    List<RtuFrameLengthResolver> frameLengthResolvers) {
+
+  /**
+   * Get the silent interval that delimits RTU frames: 3.5 character times at {@link #baudRate()},
+   * where a character is a start bit, {@link #dataBits()}, a parity bit unless {@link #parity()} is
+   * {@link SerialPort#NO_PARITY}, and {@link #stopBits()}.
+   *
+   * <p>Above 19200 baud the Modbus over Serial Line specification fixes this interval at 1.75ms.
+   *
+   * @return the inter-frame delay, or {@link Duration#ZERO} if the baud rate is not positive.
+   */
+  public Duration interFrameDelay() {
+    if (baudRate <= 0) {
+      return Duration.ZERO;
+    } else if (baudRate > 19200) {
+      return Duration.ofNanos(1_750_000L);
+    } else {
+      double stop =
+          switch (stopBits) {
+            case SerialPort.ONE_POINT_FIVE_STOP_BITS -> 1.5;
+            case SerialPort.TWO_STOP_BITS -> 2.0;
+            default -> 1.0;
+          };
+      double characterBits = 1 + dataBits + (parity != SerialPort.NO_PARITY ? 1 : 0) + stop;
+
+      return Duration.ofNanos((long) Math.ceil(3.5 * characterBits * 1e9 / baudRate));
+    }
+  }
 
   /**
    * Create a new {@link SerialPortTransportConfig}, using the callback to configure the builder as
@@ -143,6 +187,51 @@ public record SerialPortTransportConfig(
      */
     public ExecutorService executor;
 
+    /**
+     * The {@link ServerExecutionModel} used by a {@link SerialPortServerTransport} to order request
+     * handling.
+     *
+     * <p>A serial port is a single connection, so {@link ServerExecutionModel#PER_CONNECTION}
+     * behaves like {@link ServerExecutionModel#SERIAL}. Ignored by client transports.
+     */
+    public ServerExecutionModel executionModel = ServerExecutionModel.SERIAL;
+
+    /**
+     * The number of lanes requests are hashed onto when the execution model is {@link
+     * ServerExecutionModel#PER_UNIT_ID}, or 0 for one lane per unit id.
+     */
+    public int executionLanes = 0;
+
+    /**
+     * How long the line must be silent after data was received before a partly received frame is
+     * closed, or {@link Duration#ZERO} to delimit frames by their length alone.
+     *
+     * <p>Frames are normally delimited by the lengths their function codes imply, so noise or an
+     * unsupported function code leaves the frame parser waiting until a request timeout resets it.
+     * With a silence timeout the transports close whatever was received once the line goes quiet,
+     * and start the next frame from scratch.
+     *
+     * <p>The Modbus over Serial Line specification delimits frames with 3.5 character times of
+     * silence; see {@link SerialPortTransportConfig#interFrameDelay()}. USB serial adapters can
+     * deliver the bytes of one frame up to their latency timer (often 16ms) apart, so use at least
+     * that with them.
+     *
+     * <p>Defaults to {@link Duration#ZERO}.
+     */
+    public Duration frameSilenceTimeout = Duration.ZERO;
+
+    /**
+     * Additional {@link RtuFrameLengthResolver}s, consulted in order before the built-in length
+     * rules when reading frames: responses in a {@link SerialPortClientTransport}, requests in a
+     * {@link SerialPortServerTransport}.
+     *
+     * <p>Register resolvers for function codes the Modbus specification doesn't define, e.g. vendor
+     * specific ones, so their frames are delimited by length rather than by a CRC search.
+     *
+     * <p>Defaults to none.
+     */
+    public List<RtuFrameLengthResolver> frameLengthResolvers = List.of();
+
     /**
      * Set the OS/system-dependent serial port descriptor.
      *
@@ -296,6 +385,55 @@ public record SerialPortTransportConfig(
       return this;
     }
 
+    /**
+     * Set the {@link ServerExecutionModel} used by a {@link SerialPortServerTransport} to order
+     * request handling.
+     *
+     * @param executionModel the execution model.
+     * @return this {@link Builder}.
+     */
+    public Builder setExecutionModel(ServerExecutionModel executionModel) {
+      this.executionModel = executionModel;
+      return this;
+    }
+
+    /**
+     * Set the number of lanes requests are hashed onto when the execution model is {@link
+     * ServerExecutionModel#PER_UNIT_ID}.
+     *
+     * @param executionLanes the number of lanes, or 0 for one lane per unit id.
+     * @return this {@link Builder}.
+     */
+    public Builder setExecutionLanes(int executionLanes) {
+      this.executionLanes = executionLanes;
+      return this;
+    }
+
+    /**
+     * Set how long the line must be silent after data was received before a partly received frame
+     * is closed.
+     *
+     * @param frameSilenceTimeout the frame silence timeout, or {@link Duration#ZERO} to delimit
+     *     frames by their length alone.
+     * @return this {@link Builder}.
+     */
+    public Builder setFrameSilenceTimeout(Duration frameSilenceTimeout) {
+      this.frameSilenceTimeout = frameSilenceTimeout;
+      return this;
+    }
+
+    /**
+     * Set additional {@link RtuFrameLengthResolver}s, consulted in order before the built-in length
+     * rules when reading frames.
+     *
+     * @param frameLengthResolvers the additional resolvers.
+     * @return this {@link Builder}.
+     */
+    public Builder setFrameLengthResolvers(List<RtuFrameLengthResolver> frameLengthResolvers) {
+      this.frameLengthResolvers = frameLengthResolvers;
+      return this;
+    }
+
     /**
      * Build a new {@link SerialPortTransportConfig} from the current state of this builder.
      *
@@ -308,6 +446,21 @@ public record SerialPortTransportConfig(
       if (executor == null) {
         executor = Modbus.sharedExecutor();
       }
+      if (executionModel == null) {
+        throw new NullPointerException("executionModel must not be null");
+      }
+      if (executionLanes < 0) {
+        throw new IllegalArgumentException("executionLanes must be >= 0");
+      }
+      if (frameSilenceTimeout == null) {
+        throw new NullPointerException("frameSilenceTimeout must not be null");
+      }
+      if (frameSilenceTimeout.isNegative()) {
+        throw new IllegalArgumentException("frameSilenceTimeout must be >= 0");
+      }
+      if (frameLengthResolvers == null) {
+        throw new NullPointerException("frameLengthResolvers must not be null");
+      }
 
       return new SerialPortTransportConfig(
           serialPort,
@@ -321,7 +474,11 @@ public record SerialPortTransportConfig(
           rs485RxDuringTx,
           rs485DelayBefore,
           rs485DelayAfter,
-          executor);
+          executor,
+          executionModel,
+          executionLanes,
+          frameSilenceTimeout,
+          List.copyOf(frameLengthResolvers));
     }
   }
 }
@@ -1,9 +1,8 @@
 package com.digitalpetri.modbus.serial.client;
 
+import com.digitalpetri.modbus.Modbus;
 import com.digitalpetri.modbus.ModbusRtuFrame;
-import com.digitalpetri.modbus.ModbusRtuResponseFrameParser;
-import com.digitalpetri.modbus.ModbusRtuResponseFrameParser.Accumulated;
-import com.digitalpetri.modbus.ModbusRtuResponseFrameParser.ParserState;
+import com.digitalpetri.modbus.ModbusRtuFrameReader;
 import com.digitalpetri.modbus.client.ModbusRtuClientTransport;
 import com.digitalpetri.modbus.exceptions.ModbusConnectException;
 import com.digitalpetri.modbus.exceptions.ModbusException;
@@ -13,8 +12,10 @@ import com.fazecast.jSerialComm.SerialPort;
 import com.fazecast.jSerialComm.SerialPortDataListener;
 import com.fazecast.jSerialComm.SerialPortEvent;
 import java.nio.ByteBuffer;
+import java.time.Duration;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 
@@ -24,7 +25,7 @@ import java.util.function.Consumer;
  */
 public class SerialPortClientTransport implements ModbusRtuClientTransport {
 
-  private final ModbusRtuResponseFrameParser frameParser = new ModbusRtuResponseFrameParser();
+  private final ModbusRtuFrameReader frameReader;
   private final AtomicReference<Consumer<ModbusRtuFrame>> frameReceiver = new AtomicReference<>();
 
   private final ExecutionQueue executionQueue;
@@ -33,9 +34,18 @@ public class SerialPortClientTransport implements ModbusRtuClientTransport {
 
   private final SerialPortTransportConfig config;
 
+  // 0 when frames are delimited by length alone
+  private final long frameSilenceNanos;
+
+  // guarded by frameReader
+  private long lastReceivedNanos = System.nanoTime();
+
   public SerialPortClientTransport(SerialPortTransportConfig config) {
     this.config = config;
 
+    frameReader = ModbusRtuFrameReader.forResponses(config.frameLengthResolvers());
+    frameSilenceNanos = config.frameSilenceTimeout().toNanos();
+
     executionQueue = new ExecutionQueue(config.executor());
   }
 
@@ -97,7 +107,7 @@ public class SerialPortClientTransport implements ModbusRtuClientTransport {
       return CompletableFuture.completedFuture(null);
     } else {
       if (sp.openPort()) {
-        frameParser.reset();
+        frameReader.reset();
 
         // note: no-op if already added from previous connect()
         sp.addDataListener(new ModbusRtuDataListener());
@@ -123,7 +133,7 @@ public class SerialPortClientTransport implements ModbusRtuClientTransport {
     SerialPort sp = this.serialPort;
     if (sp != null && sp.isOpen()) {
       if (sp.closePort()) {
-        frameParser.reset();
+        frameReader.reset();
 
         return CompletableFuture.completedFuture(null);
       } else {
@@ -192,7 +202,17 @@ public class SerialPortClientTransport implements ModbusRtuClientTransport {
 
   @Override
   public void resetFrameParser() {
-    frameParser.reset();
+    frameReader.reset();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @return {@link SerialPortTransportConfig#interFrameDelay()}.
+   */
+  @Override
+  public Duration getInterFrameDelay() {
+    return config.interFrameDelay();
   }
 
   private class ModbusRtuDataListener implements SerialPortDataListener {
@@ -215,17 +235,50 @@ public class SerialPortClientTransport implements ModbusRtuClientTransport {
     private void onDataReceived(SerialPortEvent event) {
       byte[] receivedData = event.getReceivedData();
 
-      ParserState state = frameParser.parse(receivedData);
+      synchronized (frameReader) {
+        if (frameSilenceNanos > 0) {
+          long now = System.nanoTime();
+          if (now - lastReceivedNanos >= frameSilenceNanos) {
+            // the line went silent before this data, so what came before it was a whole frame
+            closeFrame();
+          }
+          lastReceivedNanos = now;
+        }
+
+        frameReader.read(ByteBuffer.wrap(receivedData), this::onFrameReceived);
+
+        if (frameSilenceNanos > 0 && frameReader.getBufferedByteCount() > 0) {
+          long receivedNanos = lastReceivedNanos;
+
+          Modbus.sharedScheduledExecutor()
+              .schedule(() -> onSilence(receivedNanos), frameSilenceNanos, TimeUnit.NANOSECONDS);
+        }
+      }
+    }
 
-      if (state instanceof Accumulated a) {
-        try {
-          onFrameReceived(a.frame());
-        } finally {
-          frameParser.reset();
+    private void onSilence(long receivedNanos) {
+      synchronized (frameReader) {
+        if (lastReceivedNanos == receivedNanos) {
+          closeFrame();
         }
       }
     }
 
+    /**
+     * Close the bytes received before the line went silent as a frame.
+     *
+     * <p>Anything long enough to hold a unit id, function code, and CRC is delivered; {@link
+     * com.digitalpetri.modbus.client.ModbusRtuClient} verifies the CRC and fails the outstanding
+     * request right away, instead of when it times out.
+     */
+    private void closeFrame() {
+      ModbusRtuFrame frame = frameReader.flush();
+
+      if (frame != null) {
+        onFrameReceived(frame);
+      }
+    }
+
     private void onFrameReceived(ModbusRtuFrame frame) {
       Consumer<ModbusRtuFrame> frameReceiver = SerialPortClientTransport.this.frameReceiver.get();
       if (frameReceiver != null) {
@@ -1,23 +1,25 @@
 package com.digitalpetri.modbus.serial.server;
 
+import com.digitalpetri.modbus.Modbus;
 import com.digitalpetri.modbus.ModbusRtuFrame;
-import com.digitalpetri.modbus.ModbusRtuRequestFrameParser;
-import com.digitalpetri.modbus.ModbusRtuRequestFrameParser.Accumulated;
-import com.digitalpetri.modbus.ModbusRtuRequestFrameParser.ParserState;
+import com.digitalpetri.modbus.ModbusRtuFrameReader;
 import com.digitalpetri.modbus.exceptions.ModbusConnectException;
 import com.digitalpetri.modbus.exceptions.ModbusException;
 import com.digitalpetri.modbus.exceptions.UnknownUnitIdException;
-import com.digitalpetri.modbus.internal.util.ExecutionQueue;
+import com.digitalpetri.modbus.internal.util.ExecutionLanes;
 import com.digitalpetri.modbus.serial.SerialPortTransportConfig;
 import com.digitalpetri.modbus.serial.SerialPortTransportConfig.Builder;
 import com.digitalpetri.modbus.server.ModbusRequestContext.ModbusRtuRequestContext;
 import com.digitalpetri.modbus.server.ModbusRtuServerTransport;
+import com.digitalpetri.modbus.server.ServerExecutionModel;
 import com.fazecast.jSerialComm.SerialPort;
 import com.fazecast.jSerialComm.SerialPortDataListener;
 import com.fazecast.jSerialComm.SerialPortEvent;
 import java.nio.ByteBuffer;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 import org.slf4j.Logger;
@@ -31,20 +33,41 @@ public class SerialPortServerTransport implements ModbusRtuServerTransport {
 
   private final Logger logger = LoggerFactory.getLogger(getClass());
 
-  private final ModbusRtuRequestFrameParser frameParser = new ModbusRtuRequestFrameParser();
+  private final ModbusRtuFrameReader frameReader;
   private final AtomicReference<FrameReceiver<ModbusRtuRequestContext, ModbusRtuFrame>>
       frameReceiver = new AtomicReference<>();
 
-  private final ExecutionQueue executionQueue;
+  private final Object writeLock = new Object();
+
+  // package visibility for testing
+  final ExecutionLanes executionLanes;
 
   private volatile SerialPort serialPort;
 
   private final SerialPortTransportConfig config;
 
+  // 0 when frames are delimited by length alone
+  private final long frameSilenceNanos;
+
+  // guarded by frameReader
+  private long lastReceivedNanos = System.nanoTime();
+
   public SerialPortServerTransport(SerialPortTransportConfig config) {
     this.config = config;
 
-    executionQueue = new ExecutionQueue(config.executor());
+    frameReader = ModbusRtuFrameReader.forRequests(config.frameLengthResolvers());
+    frameSilenceNanos = config.frameSilenceTimeout().toNanos();
+
+    // a serial port is a single connection, so PER_CONNECTION is effectively SERIAL, and RTU
+    // frames carry no transaction id, so PIPELINED is as well
+    int laneCount =
+        switch (config.executionModel()) {
+          case SERIAL, PER_CONNECTION, PIPELINED -> 1;
+          case PER_UNIT_ID ->
+              config.executionLanes() > 0 ? config.executionLanes() : ExecutionLanes.UNIT_ID_LANES;
+        };
+
+    executionLanes = new ExecutionLanes(config.executor(), laneCount);
   }
 
   /**
@@ -105,7 +128,7 @@ public class SerialPortServerTransport implements ModbusRtuServerTransport {
       return CompletableFuture.completedFuture(null);
     } else {
       if (sp.openPort()) {
-        frameParser.reset();
+        frameReader.reset();
 
         sp.addDataListener(new ModbusRtuDataListener());
 
@@ -130,7 +153,7 @@ public class SerialPortServerTransport implements ModbusRtuServerTransport {
     SerialPort sp = this.serialPort;
     if (sp != null && sp.isOpen()) {
       if (sp.closePort()) {
-        frameParser.reset();
+        frameReader.reset();
 
         return CompletableFuture.completedFuture(null);
       } else {
@@ -169,54 +192,105 @@ public class SerialPortServerTransport implements ModbusRtuServerTransport {
     private void onDataReceived(SerialPortEvent event) {
       byte[] receivedData = event.getReceivedData();
 
-      ParserState state = frameParser.parse(receivedData);
+      synchronized (frameReader) {
+        if (frameSilenceNanos > 0) {
+          long now = System.nanoTime();
+          if (now - lastReceivedNanos >= frameSilenceNanos) {
+            // the line went silent before this data, so what came before it was a whole frame
+            closeFrame();
+          }
+          lastReceivedNanos = now;
+        }
+
+        frameReader.read(ByteBuffer.wrap(receivedData), this::onFrameReceived);
+
+        if (frameSilenceNanos > 0 && frameReader.getBufferedByteCount() > 0) {
+          long receivedNanos = lastReceivedNanos;
 
-      if (state instanceof Accumulated a) {
-        try {
-          onFrameReceived(a.frame());
-        } finally {
-          frameParser.reset();
+          Modbus.sharedScheduledExecutor()
+              .schedule(() -> onSilence(receivedNanos), frameSilenceNanos, TimeUnit.NANOSECONDS);
         }
       }
     }
 
+    private void onSilence(long receivedNanos) {
+      synchronized (frameReader) {
+        if (lastReceivedNanos == receivedNanos) {
+          closeFrame();
+        }
+      }
+    }
+
+    /**
+     * Drop the bytes received before the line went silent; a frame with a valid CRC, even one with
+     * a function code the reader doesn't know, has already been delivered, so they are noise.
+     */
+    private void closeFrame() {
+      int buffered = frameReader.getBufferedByteCount();
+
+      if (buffered > 0) {
+        frameReader.reset();
+
+        logger.debug("Dropping {} bytes closed by silence", buffered);
+      }
+    }
+
     private void onFrameReceived(ModbusRtuFrame requestFrame) {
       FrameReceiver<ModbusRtuRequestContext, ModbusRtuFrame> frameReceiver =
           SerialPortServerTransport.this.frameReceiver.get();
 
       if (frameReceiver != null) {
-        executionQueue.submit(
-            () -> {
-              try {
-                ModbusRtuFrame responseFrame =
-                    frameReceiver.receive(new ModbusRtuRequestContext() {}, requestFrame);
-
-                int unitId = responseFrame.unitId();
-                ByteBuffer pdu = responseFrame.pdu();
-                ByteBuffer crc = responseFrame.crc();
-
-                byte[] data = new byte[1 + pdu.remaining() + crc.remaining()];
-                data[0] = (byte) unitId;
-                pdu.get(data, 1, pdu.remaining());
-                crc.get(data, data.length - 2, crc.remaining());
-
-                SerialPort sp = SerialPortServerTransport.this.serialPort;
-                int totalWritten = 0;
-                while (totalWritten < data.length) {
-                  int written = sp.writeBytes(data, data.length - totalWritten, totalWritten);
-                  if (written == -1) {
-                    logger.error("Error writing frame to serial port");
-
-                    return;
-                  }
-                  totalWritten += written;
-                }
-              } catch (UnknownUnitIdException e) {
-                logger.debug("Ignoring request for unknown unit id: {}", requestFrame.unitId());
-              } catch (Exception e) {
-                logger.error("Error handling frame: {}", e.getMessage(), e);
-              }
-            });
+        int key =
+            config.executionModel() == ServerExecutionModel.PER_UNIT_ID ? requestFrame.unitId() : 0;
+
+        executionLanes.submit(
+            key,
+            () ->
+                frameReceiver
+                    .receiveAsync(new ModbusRtuRequestContext() {}, requestFrame)
+                    .whenComplete(
+                        (responseFrame, ex) -> {
+                          if (ex == null) {
+                            writeResponseFrame(responseFrame);
+                            return;
+                          }
+
+                          Throwable cause = ex instanceof CompletionException ? ex.getCause() : ex;
+
+                          if (cause instanceof UnknownUnitIdException) {
+                            logger.debug(
+                                "Ignoring request for unknown unit id: {}", requestFrame.unitId());
+                          } else {
+                            logger.error("Error handling frame: {}", cause.getMessage(), cause);
+                          }
+                        }));
+      }
+    }
+
+    private void writeResponseFrame(ModbusRtuFrame responseFrame) {
+      int unitId = responseFrame.unitId();
+      ByteBuffer pdu = responseFrame.pdu();
+      ByteBuffer crc = responseFrame.crc();
+
+      byte[] data = new byte[1 + pdu.remaining() + crc.remaining()];
+      data[0] = (byte) unitId;
+      pdu.get(data, 1, pdu.remaining());
+      crc.get(data, data.length - 2, crc.remaining());
+
+      SerialPort sp = SerialPortServerTransport.this.serialPort;
+
+      // lanes and async services may complete concurrently; frames must not interleave on the wire
+      synchronized (writeLock) {
+        int totalWritten = 0;
+        while (totalWritten < data.length) {
+          int written = sp.writeBytes(data, data.length - totalWritten, totalWritten);
+          if (written == -1) {
+            logger.error("Error writing frame to serial port");
+
+            return;
+          }
+          totalWritten += written;
+        }
       }
     }
   }
@@ -0,0 +1,138 @@
+package com.digitalpetri.modbus.serial;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.digitalpetri.modbus.Crc16;
+import com.digitalpetri.modbus.ModbusRtuFrame;
+import com.digitalpetri.modbus.exceptions.UnknownUnitIdException;
+import com.digitalpetri.modbus.serial.client.SerialPortClientTransport;
+import com.digitalpetri.modbus.serial.server.SerialPortServerTransport;
+import com.fazecast.jSerialComm.SerialPort;
+import com.fazecast.jSerialComm.SerialPortDataListener;
+import com.fazecast.jSerialComm.SerialPortEvent;
+import java.lang.reflect.Constructor;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Feeds received data straight to the transports' private data listeners, using reflection, since
+ * no serial port is available to the tests.
+ */
+class FrameSilenceTimeoutTest {
+
+  private static final String TEST_PORT =
+      System.getProperty("os.name").toLowerCase().contains("win") ? "COM1" : "/dev/tty";
+
+  private static final SerialPort PORT = SerialPort.getCommPort(TEST_PORT);
+
+  @Test
+  void clientClosesUnparseableFrameOnSilence() throws Exception {
+    var transport =
+        SerialPortClientTransport.create(
+            cfg -> {
+              cfg.setSerialPort(TEST_PORT);
+              cfg.setFrameSilenceTimeout(Duration.ofMillis(20));
+            });
+
+    BlockingQueue<ModbusRtuFrame> frames = new LinkedBlockingQueue<>();
+    transport.receive(frames::add);
+
+    SerialPortDataListener listener = newListener(SerialPortClientTransport.class, transport);
+
+    // unsupported function code 0x55 leaves the length-based parser in ParseError
+    listener.serialEvent(dataReceived(0x01, 0x55, 0xAA, 0xBB));
+
+    ModbusRtuFrame closed = frames.poll(1, TimeUnit.SECONDS);
+    assertEquals(1, closed.unitId());
+    assertEquals(ByteBuffer.wrap(new byte[] {0x55}), closed.pdu());
+
+    // the parser is back in sync for the next response
+    listener.serialEvent(dataReceived(withCrc(0x01, 0x03, 0x02, 0x00, 0x2A)));
+
+    ModbusRtuFrame response = frames.poll(1, TimeUnit.SECONDS);
+    assertEquals(ByteBuffer.wrap(new byte[] {0x03, 0x02, 0x00, 0x2A}), response.pdu());
+  }
+
+  @Test
+  void serverDropsNoiseClosedBySilence() throws Exception {
+    var transport =
+        SerialPortServerTransport.create(
+            cfg -> {
+              cfg.setSerialPort(TEST_PORT);
+              cfg.setFrameSilenceTimeout(Duration.ofMillis(20));
+            });
+
+    BlockingQueue<ModbusRtuFrame> frames = new LinkedBlockingQueue<>();
+    transport.receive(
+        (context, frame) -> {
+          frames.add(frame);
+          throw new UnknownUnitIdException(frame.unitId());
+        });
+
+    SerialPortDataListener listener = newListener(SerialPortServerTransport.class, transport);
+
+    listener.serialEvent(dataReceived(0x01, 0x55, 0x12, 0x34));
+    assertNull(frames.poll(100, TimeUnit.MILLISECONDS));
+
+    // an unsupported function code with a valid CRC is delivered, without waiting for silence, so
+    // it can be answered
+    listener.serialEvent(dataReceived(withCrc(0x01, 0x55, 0x00)));
+    assertEquals(ByteBuffer.wrap(new byte[] {0x55, 0x00}), frames.poll(1, TimeUnit.SECONDS).pdu());
+
+    listener.serialEvent(dataReceived(withCrc(0x01, 0x03, 0x00, 0x00, 0x00, 0x01)));
+    assertEquals(
+        ByteBuffer.wrap(new byte[] {0x03, 0x00, 0x00, 0x00, 0x01}),
+        frames.poll(1, TimeUnit.SECONDS).pdu());
+  }
+
+  @Test
+  void responseAfterGarbageIsFoundWithoutSilenceTimeout() throws Exception {
+    var transport = SerialPortClientTransport.create(cfg -> cfg.setSerialPort(TEST_PORT));
+
+    BlockingQueue<ModbusRtuFrame> frames = new LinkedBlockingQueue<>();
+    transport.receive(frames::add);
+
+    SerialPortDataListener listener = newListener(SerialPortClientTransport.class, transport);
+
+    listener.serialEvent(dataReceived(0x01, 0x55, 0xAA, 0xBB));
+    listener.serialEvent(dataReceived(withCrc(0x01, 0x03, 0x02, 0x00, 0x2A)));
+
+    ModbusRtuFrame response = frames.poll(1, TimeUnit.SECONDS);
+    assertEquals(ByteBuffer.wrap(new byte[] {0x03, 0x02, 0x00, 0x2A}), response.pdu());
+    assertNull(frames.poll(100, TimeUnit.MILLISECONDS));
+  }
+
+  private static SerialPortDataListener newListener(Class<?> transportClass, Object transport)
+      throws Exception {
+
+    Class<?> listenerClass = Class.forName(transportClass.getName() + "$ModbusRtuDataListener");
+    Constructor<?> constructor = listenerClass.getDeclaredConstructor(transportClass);
+    constructor.setAccessible(true);
+    return (SerialPortDataListener) constructor.newInstance(transport);
+  }
+
+  private static SerialPortEvent dataReceived(int... data) {
+    var bytes = new byte[data.length];
+    for (int i = 0; i < data.length; i++) {
+      bytes[i] = (byte) data[i];
+    }
+    return new SerialPortEvent(PORT, SerialPort.LISTENING_EVENT_DATA_RECEIVED, bytes);
+  }
+
+  private static int[] withCrc(int... data) {
+    var crc16 = new Crc16();
+    for (int b : data) {
+      crc16.update(b);
+    }
+    int[] frame = new int[data.length + 2];
+    System.arraycopy(data, 0, frame, 0, data.length);
+    frame[data.length] = crc16.getValue() & 0xFF;
+    frame[data.length + 1] = (crc16.getValue() >> 8) & 0xFF;
+    return frame;
+  }
+}
@@ -0,0 +1,47 @@
+package com.digitalpetri.modbus.serial;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.fazecast.jSerialComm.SerialPort;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+class SerialPortTransportConfigTest {
+
+  @Test
+  void interFrameDelayIsThreeAndHalfCharacters() {
+    // 8E1: start + 8 data + parity + stop = 11 bits; 3.5 * 11 / 9600 s
+    var config =
+        SerialPortTransportConfig.create(
+            cfg -> {
+              cfg.setSerialPort("/dev/tty");
+              cfg.setBaudRate(9600);
+              cfg.setParity(SerialPort.EVEN_PARITY);
+            });
+
+    assertEquals(Duration.ofNanos(4_010_417), config.interFrameDelay());
+
+    // 8N2 is also 11 bits
+    var config8N2 =
+        SerialPortTransportConfig.create(
+            cfg -> {
+              cfg.setSerialPort("/dev/tty");
+              cfg.setBaudRate(9600);
+              cfg.setStopBits(SerialPort.TWO_STOP_BITS);
+            });
+
+    assertEquals(config.interFrameDelay(), config8N2.interFrameDelay());
+  }
+
+  @Test
+  void interFrameDelayIsFixedAbove19200Baud() {
+    var config =
+        SerialPortTransportConfig.create(
+            cfg -> {
+              cfg.setSerialPort("/dev/tty");
+              cfg.setBaudRate(115200);
+            });
+
+    assertEquals(Duration.ofNanos(1_750_000), config.interFrameDelay());
+  }
+}
@@ -0,0 +1,36 @@
+package com.digitalpetri.modbus.serial.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.digitalpetri.modbus.internal.util.ExecutionLanes;
+import com.digitalpetri.modbus.serial.SerialPortTransportConfig;
+import com.digitalpetri.modbus.server.ServerExecutionModel;
+import org.junit.jupiter.api.Test;
+
+class SerialPortServerTransportTest {
+
+  @Test
+  void perUnitIdUsesConfiguredExecutionLanes() {
+    assertEquals(4, laneCount(ServerExecutionModel.PER_UNIT_ID, 4));
+    assertEquals(ExecutionLanes.UNIT_ID_LANES, laneCount(ServerExecutionModel.PER_UNIT_ID, 0));
+  }
+
+  @Test
+  void otherModelsUseOneLane() {
+    assertEquals(1, laneCount(ServerExecutionModel.SERIAL, 4));
+    assertEquals(1, laneCount(ServerExecutionModel.PER_CONNECTION, 4));
+    assertEquals(1, laneCount(ServerExecutionModel.PIPELINED, 4));
+  }
+
+  private static int laneCount(ServerExecutionModel executionModel, int executionLanes) {
+    var config =
+        SerialPortTransportConfig.create(
+            cfg -> {
+              cfg.setSerialPort("/dev/tty");
+              cfg.setExecutionModel(executionModel);
+              cfg.setExecutionLanes(executionLanes);
+            });
+
+    return new SerialPortServerTransport(config).executionLanes.size();
+  }
+}
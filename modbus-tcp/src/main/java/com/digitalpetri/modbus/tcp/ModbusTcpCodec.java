@@ -5,6 +5,8 @@ import com.digitalpetri.modbus.ModbusTcpFrame;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.ByteToMessageCodec;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.util.AbstractReferenceCounted;
 import java.nio.ByteBuffer;
 import java.util.List;
 
@@ -13,31 +15,114 @@ public class ModbusTcpCodec extends ByteToMessageCodec<ModbusTcpFrame> {
   public static final int MBAP_TOTAL_LENGTH = 7;
   public static final int MBAP_LENGTH_FIELD_OFFSET = 4;
 
+  private final boolean retainedSlices;
+
+  /** Create a {@link ModbusTcpCodec} that decodes each frame into a newly allocated buffer. */
+  public ModbusTcpCodec() {
+    this(false);
+  }
+
+  /**
+   * Create a {@link ModbusTcpCodec}.
+   *
+   * @param retainedSlices whether to decode frames as {@link RetainedModbusTcpFrame}s, whose PDU is
+   *     a view of a retained slice of the inbound buffer, instead of copying each frame into a
+   *     newly allocated {@link ModbusTcpFrame}.
+   */
+  public ModbusTcpCodec(boolean retainedSlices) {
+    this.retainedSlices = retainedSlices;
+  }
+
   @Override
   protected void encode(ChannelHandlerContext ctx, ModbusTcpFrame msg, ByteBuf out) {
-    var buffer = ByteBuffer.allocate(MBAP_TOTAL_LENGTH + msg.pdu().limit() - msg.pdu().position());
-    MbapHeader.Serializer.encode(msg.header(), buffer);
-    buffer.put(msg.pdu());
+    MbapHeader header = msg.header();
+    ByteBuffer pdu = msg.pdu();
 
-    buffer.flip();
-    out.writeBytes(buffer);
+    out.ensureWritable(MBAP_TOTAL_LENGTH + pdu.remaining());
+    out.writeShort(header.transactionId());
+    out.writeShort(header.protocolId());
+    out.writeShort(header.length());
+    out.writeByte(header.unitId());
+    out.writeBytes(pdu);
   }
 
   @Override
   protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
     if (in.readableBytes() >= MBAP_TOTAL_LENGTH) {
-      int frameLength = in.getUnsignedShort(in.readerIndex() + MBAP_LENGTH_FIELD_OFFSET) + 6;
+      int length = in.getUnsignedShort(in.readerIndex() + MBAP_LENGTH_FIELD_OFFSET);
+
+      if (length < 1) {
+        // the length counts the unit id, so the frame would end inside its own header; there is
+        // no way to find the next frame in the stream after this
+        in.skipBytes(in.readableBytes());
+        throw new CorruptedFrameException("MBAP length must be >= 1: " + length);
+      }
+
+      int frameLength = length + 6;
 
       if (in.readableBytes() >= frameLength) {
-        ByteBuffer buffer = ByteBuffer.allocate(frameLength);
-        in.readBytes(buffer);
-        buffer.flip();
+        if (retainedSlices) {
+          int index = in.readerIndex();
+          var header =
+              new MbapHeader(
+                  in.getUnsignedShort(index),
+                  in.getUnsignedShort(index + 2),
+                  in.getUnsignedShort(index + 4),
+                  in.getUnsignedByte(index + 6));
+
+          ByteBuf slice = in.readRetainedSlice(frameLength);
+          ByteBuffer pdu = slice.nioBuffer(MBAP_TOTAL_LENGTH, frameLength - MBAP_TOTAL_LENGTH);
 
-        MbapHeader header = MbapHeader.Serializer.decode(buffer);
-        ByteBuffer pdu = buffer.slice();
+          out.add(new RetainedModbusTcpFrame(new ModbusTcpFrame(header, pdu), slice));
+        } else {
+          ByteBuffer buffer = ByteBuffer.allocate(frameLength);
+          in.readBytes(buffer);
+          buffer.flip();
 
-        out.add(new ModbusTcpFrame(header, pdu));
+          MbapHeader header = MbapHeader.Serializer.decode(buffer);
+          ByteBuffer pdu = buffer.slice();
+
+          out.add(new ModbusTcpFrame(header, pdu));
+        }
       }
     }
   }
+
+  /**
+   * A decoded {@link ModbusTcpFrame} whose PDU is a view of a retained slice of the inbound {@link
+   * ByteBuf} it was decoded from.
+   *
+   * <p>The frame, and its PDU in particular, is only valid until this is released. Whoever consumes
+   * it must {@link #release()} it once the frame is no longer needed.
+   */
+  public static final class RetainedModbusTcpFrame extends AbstractReferenceCounted {
+
+    private final ModbusTcpFrame frame;
+    private final ByteBuf content;
+
+    RetainedModbusTcpFrame(ModbusTcpFrame frame, ByteBuf content) {
+      this.frame = frame;
+      this.content = content;
+    }
+
+    /**
+     * Get the decoded frame.
+     *
+     * @return the decoded {@link ModbusTcpFrame}, valid until this is released.
+     */
+    public ModbusTcpFrame frame() {
+      return frame;
+    }
+
+    @Override
+    public RetainedModbusTcpFrame touch(Object hint) {
+      content.touch(hint);
+      return this;
+    }
+
+    @Override
+    protected void deallocate() {
+      content.release();
+    }
+  }
 }
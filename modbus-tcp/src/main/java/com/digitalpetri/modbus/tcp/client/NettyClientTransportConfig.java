@@ -1,12 +1,14 @@
 package com.digitalpetri.modbus.tcp.client;
 
 import com.digitalpetri.modbus.Modbus;
+import com.digitalpetri.modbus.RtuFrameLengthResolver;
 import com.digitalpetri.modbus.tcp.Netty;
 import com.digitalpetri.netty.fsm.ChannelFsmConfigBuilder;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.EventLoopGroup;
 import java.time.Duration;
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.ExecutorService;
 import java.util.function.Consumer;
@@ -29,6 +31,8 @@ import javax.net.ssl.TrustManagerFactory;
  *     ChannelPipeline}.
  * @param channelFsmCustomizer a {@link Consumer} that can be used to customize the {@link
  *     ChannelFsmConfigBuilder}.
+ * @param rtuFrameLengthResolvers additional {@link RtuFrameLengthResolver}s consulted when reading
+ *     response frames. Only used by {@link NettyRtuClientTransport}.
  * @param tlsEnabled whether to enable TLS (Modbus/TCP Security).
  * @param keyManagerFactory the {@link KeyManagerFactory} to use if TLS is enabled.
  * @param trustManagerFactory the {@link TrustManagerFactory} to use if TLS is enabled.
@@ -44,6 +48,7 @@ public record NettyClientTransportConfig(
     Consumer<Bootstrap> bootstrapCustomizer,
     Consumer<ChannelPipeline> pipelineCustomizer,
     Consumer<ChannelFsmConfigBuilder> channelFsmCustomizer,
+    List<RtuFrameLengthResolver> rtuFrameLengthResolvers,
     boolean tlsEnabled,
     Optional<KeyManagerFactory> keyManagerFactory,
     Optional<TrustManagerFactory> trustManagerFactory) {
@@ -101,6 +106,17 @@ public record NettyClientTransportConfig(
     /** A {@link Consumer} that can be used to customize the {@link ChannelFsmConfigBuilder}. */
     public Consumer<ChannelFsmConfigBuilder> channelFsmCustomizer = c -> {};
 
+    /**
+     * Additional {@link RtuFrameLengthResolver}s, consulted in order before the built-in length
+     * rules when reading response frames. Only used by {@link NettyRtuClientTransport}.
+     *
+     * <p>Register resolvers for function codes the Modbus specification doesn't define, e.g. vendor
+     * specific ones, so their frames are delimited by length rather than by a CRC search.
+     *
+     * <p>Defaults to none.
+     */
+    public List<RtuFrameLengthResolver> rtuFrameLengthResolvers = List.of();
+
     /** Whether to enable TLS (Modbus/TCP Security). */
     public boolean tlsEnabled = false;
 
@@ -225,6 +241,19 @@ public record NettyClientTransportConfig(
       return this;
     }
 
+    /**
+     * Set additional {@link RtuFrameLengthResolver}s, consulted in order before the built-in length
+     * rules when reading response frames. Only used by {@link NettyRtuClientTransport}.
+     *
+     * @param rtuFrameLengthResolvers the additional resolvers.
+     * @return this Builder.
+     */
+    public Builder setRtuFrameLengthResolvers(
+        List<RtuFrameLengthResolver> rtuFrameLengthResolvers) {
+      this.rtuFrameLengthResolvers = rtuFrameLengthResolvers;
+      return this;
+    }
+
     /**
      * Set whether to enable TLS (Modbus/TCP Security).
      *
@@ -271,6 +300,9 @@ public record NettyClientTransportConfig(
       if (executor == null) {
         executor = Modbus.sharedExecutor();
       }
+      if (rtuFrameLengthResolvers == null) {
+        throw new NullPointerException("rtuFrameLengthResolvers must not be null");
+      }
       if (tlsEnabled) {
         if (keyManagerFactory == null) {
           throw new NullPointerException("keyManagerFactory must not be null");
@@ -291,6 +323,7 @@ public record NettyClientTransportConfig(
           bootstrapCustomizer,
           pipelineCustomizer,
           channelFsmCustomizer,
+          List.copyOf(rtuFrameLengthResolvers),
           tlsEnabled,
           Optional.ofNullable(keyManagerFactory),
           Optional.ofNullable(trustManagerFactory));
@@ -2,10 +2,7 @@ package com.digitalpetri.modbus.tcp.client;
 
 import com.digitalpetri.fsm.FsmContext;
 import com.digitalpetri.modbus.ModbusRtuFrame;
-import com.digitalpetri.modbus.ModbusRtuResponseFrameParser;
-import com.digitalpetri.modbus.ModbusRtuResponseFrameParser.Accumulated;
-import com.digitalpetri.modbus.ModbusRtuResponseFrameParser.ParseError;
-import com.digitalpetri.modbus.ModbusRtuResponseFrameParser.ParserState;
+import com.digitalpetri.modbus.ModbusRtuFrameReader;
 import com.digitalpetri.modbus.client.ModbusRtuClientTransport;
 import com.digitalpetri.modbus.internal.util.ExecutionQueue;
 import com.digitalpetri.modbus.tcp.client.NettyTcpClientTransport.ConnectionListener;
@@ -44,7 +41,7 @@ public class NettyRtuClientTransport implements ModbusRtuClientTransport {
 
   private final Logger logger = LoggerFactory.getLogger(getClass());
 
-  private final ModbusRtuResponseFrameParser frameParser = new ModbusRtuResponseFrameParser();
+  private final ModbusRtuFrameReader frameReader;
   private final AtomicReference<Consumer<ModbusRtuFrame>> frameReceiver = new AtomicReference<>();
 
   private final List<ConnectionListener> connectionListeners = new CopyOnWriteArrayList<>();
@@ -57,6 +54,8 @@ public class NettyRtuClientTransport implements ModbusRtuClientTransport {
   public NettyRtuClientTransport(NettyClientTransportConfig config) {
     this.config = config;
 
+    frameReader = ModbusRtuFrameReader.forResponses(config.rtuFrameLengthResolvers());
+
     ChannelFsmConfigBuilder channelFsmConfigBuilder =
         ChannelFsmConfig.newBuilder()
             .setExecutor(config.executor())
@@ -173,30 +172,15 @@ public class NettyRtuClientTransport implements ModbusRtuClientTransport {
 
   @Override
   public void resetFrameParser() {
-    frameParser.reset();
+    frameReader.reset();
   }
 
   private class ModbusRtuClientFrameReceiver extends SimpleChannelInboundHandler<ByteBuf> {
 
     @Override
     protected void channelRead0(ChannelHandlerContext ctx, ByteBuf buffer) {
-      byte[] data = new byte[buffer.readableBytes()];
-      buffer.readBytes(data);
-
-      ParserState state = frameParser.parse(data);
-
-      if (state instanceof Accumulated a) {
-        try {
-          onFrameReceived(a.frame());
-        } finally {
-          frameParser.reset();
-        }
-      } else if (state instanceof ParseError e) {
-        logger.error("Error parsing frame: {}", e.error());
-
-        frameParser.reset();
-        ctx.close();
-      }
+      frameReader.read(buffer.nioBuffer(), this::onFrameReceived);
+      buffer.skipBytes(buffer.readableBytes());
     }
 
     private void onFrameReceived(ModbusRtuFrame frame) {
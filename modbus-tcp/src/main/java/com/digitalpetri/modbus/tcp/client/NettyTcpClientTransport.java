@@ -22,6 +22,7 @@ import io.netty.handler.ssl.SslContextBuilder;
 import io.netty.handler.ssl.SslHandler;
 import io.netty.handler.ssl.SslProtocols;
 import java.net.InetSocketAddress;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
@@ -121,6 +122,57 @@ public class NettyTcpClientTransport implements ModbusTcpClientTransport {
             });
   }
 
+  /**
+   * {@inheritDoc}
+   *
+   * <p>All frames are written on the channel's event loop and then flushed once, so a batch costs
+   * one socket write instead of one per frame.
+   */
+  @Override
+  public List<CompletionStage<Void>> sendBatch(List<ModbusTcpFrame> frames) {
+    var futures = new ArrayList<CompletableFuture<Void>>(frames.size());
+    for (int i = 0; i < frames.size(); i++) {
+      futures.add(new CompletableFuture<>());
+    }
+
+    channelFsm
+        .getChannel()
+        .whenComplete(
+            (channel, ex) -> {
+              if (ex != null) {
+                futures.forEach(f -> f.completeExceptionally(ex));
+              } else if (channel.eventLoop().inEventLoop()) {
+                writeAndFlush(channel, frames, futures);
+              } else {
+                channel.eventLoop().execute(() -> writeAndFlush(channel, frames, futures));
+              }
+            });
+
+    return List.copyOf(futures);
+  }
+
+  private static void writeAndFlush(
+      Channel channel, List<ModbusTcpFrame> frames, List<CompletableFuture<Void>> futures) {
+
+    for (int i = 0; i < frames.size(); i++) {
+      CompletableFuture<Void> future = futures.get(i);
+
+      channel
+          .write(frames.get(i))
+          .addListener(
+              (ChannelFutureListener)
+                  channelFuture -> {
+                    if (channelFuture.isSuccess()) {
+                      future.complete(null);
+                    } else {
+                      future.completeExceptionally(channelFuture.cause());
+                    }
+                  });
+    }
+
+    channel.flush();
+  }
+
   @Override
   public void receive(Consumer<ModbusTcpFrame> frameReceiver) {
     this.frameReceiver.set(frameReceiver);
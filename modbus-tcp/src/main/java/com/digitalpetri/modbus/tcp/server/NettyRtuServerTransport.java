@@ -1,14 +1,12 @@
 package com.digitalpetri.modbus.tcp.server;
 
 import com.digitalpetri.modbus.ModbusRtuFrame;
-import com.digitalpetri.modbus.ModbusRtuRequestFrameParser;
-import com.digitalpetri.modbus.ModbusRtuRequestFrameParser.Accumulated;
-import com.digitalpetri.modbus.ModbusRtuRequestFrameParser.ParseError;
-import com.digitalpetri.modbus.ModbusRtuRequestFrameParser.ParserState;
+import com.digitalpetri.modbus.ModbusRtuFrameReader;
 import com.digitalpetri.modbus.exceptions.UnknownUnitIdException;
-import com.digitalpetri.modbus.internal.util.ExecutionQueue;
+import com.digitalpetri.modbus.internal.util.ExecutionLanes;
 import com.digitalpetri.modbus.server.ModbusRequestContext.ModbusRtuRequestContext;
 import com.digitalpetri.modbus.server.ModbusRtuServerTransport;
+import com.digitalpetri.modbus.server.ServerExecutionModel;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
@@ -27,6 +25,7 @@ import io.netty.handler.ssl.SslContext;
 import io.netty.handler.ssl.SslContextBuilder;
 import io.netty.handler.ssl.SslProtocols;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.CompletionStage;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
@@ -43,19 +42,27 @@ public class NettyRtuServerTransport implements ModbusRtuServerTransport {
 
   private final AtomicReference<FrameReceiver<ModbusRtuRequestContext, ModbusRtuFrame>>
       frameReceiver = new AtomicReference<>();
-  private final ModbusRtuRequestFrameParser frameParser = new ModbusRtuRequestFrameParser();
 
   private final AtomicReference<ServerSocketChannel> serverChannel = new AtomicReference<>();
 
   private final AtomicReference<Channel> clientChannel = new AtomicReference<>();
 
-  private final ExecutionQueue executionQueue;
+  private final ExecutionLanes executionLanes;
   private final NettyServerTransportConfig config;
 
   public NettyRtuServerTransport(NettyServerTransportConfig config) {
     this.config = config;
 
-    executionQueue = new ExecutionQueue(config.executor(), 1);
+    // only one client channel is accepted at a time, so PER_CONNECTION is effectively SERIAL, and
+    // RTU frames carry no transaction id, so PIPELINED is as well
+    int laneCount =
+        switch (config.executionModel()) {
+          case SERIAL, PER_CONNECTION, PIPELINED -> 1;
+          case PER_UNIT_ID ->
+              config.executionLanes() > 0 ? config.executionLanes() : ExecutionLanes.UNIT_ID_LANES;
+        };
+
+    executionLanes = new ExecutionLanes(config.executor(), laneCount);
   }
 
   @Override
@@ -158,25 +165,14 @@ public class NettyRtuServerTransport implements ModbusRtuServerTransport {
 
   private class ModbusRtuServerFrameReceiver extends SimpleChannelInboundHandler<ByteBuf> {
 
+    // one per channel, so bytes from different connections are never mixed
+    private final ModbusRtuFrameReader frameReader =
+        ModbusRtuFrameReader.forRequests(config.rtuFrameLengthResolvers());
+
     @Override
     protected void channelRead0(ChannelHandlerContext ctx, ByteBuf buffer) {
-      byte[] data = new byte[buffer.readableBytes()];
-      buffer.readBytes(data);
-
-      ParserState state = frameParser.parse(data);
-
-      if (state instanceof Accumulated a) {
-        try {
-          onFrameReceived(ctx, a.frame());
-        } finally {
-          frameParser.reset();
-        }
-      } else if (state instanceof ParseError e) {
-        logger.error("Error parsing frame: {}", e.message());
-
-        frameParser.reset();
-        ctx.close();
-      }
+      frameReader.read(buffer.nioBuffer(), frame -> onFrameReceived(ctx, frame));
+      buffer.skipBytes(buffer.readableBytes());
     }
 
     private void onFrameReceived(ChannelHandlerContext ctx, ModbusRtuFrame requestFrame) {
@@ -184,26 +180,37 @@ public class NettyRtuServerTransport implements ModbusRtuServerTransport {
           NettyRtuServerTransport.this.frameReceiver.get();
 
       if (frameReceiver != null) {
-        executionQueue.submit(
-            () -> {
-              try {
-                ModbusRtuFrame responseFrame =
-                    frameReceiver.receive(new NettyRequestContext(ctx), requestFrame);
-
-                ByteBuf buffer = Unpooled.buffer();
-                buffer.writeByte(responseFrame.unitId());
-                buffer.writeBytes(responseFrame.pdu());
-                buffer.writeBytes(responseFrame.crc());
-
-                ctx.channel().writeAndFlush(buffer);
-              } catch (UnknownUnitIdException e) {
-                logger.debug("Ignoring request for unknown unit id: {}", requestFrame.unitId());
-              } catch (Exception e) {
-                logger.error("Error handling frame: {}", e.getMessage(), e);
-
-                ctx.close();
-              }
-            });
+        int key =
+            config.executionModel() == ServerExecutionModel.PER_UNIT_ID ? requestFrame.unitId() : 0;
+
+        executionLanes.submit(
+            key,
+            () ->
+                frameReceiver
+                    .receiveAsync(new NettyRequestContext(ctx), requestFrame)
+                    .whenComplete(
+                        (responseFrame, ex) -> {
+                          if (ex == null) {
+                            ByteBuf buffer = Unpooled.buffer();
+                            buffer.writeByte(responseFrame.unitId());
+                            buffer.writeBytes(responseFrame.pdu());
+                            buffer.writeBytes(responseFrame.crc());
+
+                            ctx.channel().writeAndFlush(buffer);
+                            return;
+                          }
+
+                          Throwable cause = ex instanceof CompletionException ? ex.getCause() : ex;
+
+                          if (cause instanceof UnknownUnitIdException) {
+                            logger.debug(
+                                "Ignoring request for unknown unit id: {}", requestFrame.unitId());
+                          } else {
+                            logger.error("Error handling frame: {}", cause.getMessage(), cause);
+
+                            ctx.close();
+                          }
+                        }));
       }
     }
   }
@@ -1,10 +1,13 @@
 package com.digitalpetri.modbus.tcp.server;
 
 import com.digitalpetri.modbus.Modbus;
+import com.digitalpetri.modbus.RtuFrameLengthResolver;
+import com.digitalpetri.modbus.server.ServerExecutionModel;
 import com.digitalpetri.modbus.tcp.Netty;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.EventLoopGroup;
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.ExecutorService;
 import java.util.function.Consumer;
@@ -22,6 +25,15 @@ import javax.net.ssl.TrustManagerFactory;
  *     ServerBootstrap}.
  * @param pipelineCustomizer a {@link Consumer} that can be used to customize the Netty {@link
  *     ChannelPipeline}.
+ * @param executionModel the {@link ServerExecutionModel} used to order request handling.
+ * @param executionLanes the number of lanes requests are hashed onto when the execution model is
+ *     not {@link ServerExecutionModel#SERIAL}, or 0 for one lane per connection or unit id.
+ * @param pipelineDepth the maximum number of requests from a single connection handled concurrently
+ *     when the execution model is {@link ServerExecutionModel#PIPELINED}.
+ * @param zeroCopyDecoding whether request frames are decoded as views of retained slices of the
+ *     inbound buffer rather than copied. Only used by {@link NettyTcpServerTransport}.
+ * @param rtuFrameLengthResolvers additional {@link RtuFrameLengthResolver}s consulted when reading
+ *     request frames. Only used by {@link NettyRtuServerTransport}.
  */
 public record NettyServerTransportConfig(
     String bindAddress,
@@ -30,6 +42,11 @@ public record NettyServerTransportConfig(
     ExecutorService executor,
     Consumer<ServerBootstrap> bootstrapCustomizer,
     Consumer<ChannelPipeline> pipelineCustomizer,
+    ServerExecutionModel executionModel,
+    int executionLanes,
+    int pipelineDepth,
+    boolean zeroCopyDecoding,
+    List<RtuFrameLengthResolver> rtuFrameLengthResolvers,
     boolean tlsEnabled,
     Optional<KeyManagerFactory> keyManagerFactory,
     Optional<TrustManagerFactory> trustManagerFactory) {
@@ -67,6 +84,47 @@ public record NettyServerTransportConfig(
     /** A {@link Consumer} that can be used to customize the Netty {@link ChannelPipeline}. */
     public Consumer<ChannelPipeline> pipelineCustomizer = p -> {};
 
+    /**
+     * The {@link ServerExecutionModel} used to order request handling.
+     *
+     * <p>Defaults to {@link ServerExecutionModel#SERIAL}.
+     */
+    public ServerExecutionModel executionModel = ServerExecutionModel.SERIAL;
+
+    /**
+     * The number of lanes requests are hashed onto when the execution model is not {@link
+     * ServerExecutionModel#SERIAL}, or 0 for one lane per connection or unit id.
+     */
+    public int executionLanes = 0;
+
+    /**
+     * The maximum number of requests from a single connection handled concurrently when the
+     * execution model is {@link ServerExecutionModel#PIPELINED}.
+     *
+     * <p>Defaults to 16.
+     */
+    public int pipelineDepth = 16;
+
+    /**
+     * Whether request frames are decoded as views of retained slices of the inbound buffer rather
+     * than copied into a newly allocated buffer. Only used by {@link NettyTcpServerTransport}.
+     *
+     * <p>A request frame's PDU is then only valid until handling of that request completes, so
+     * services must not retain it. Defaults to {@code false}.
+     */
+    public boolean zeroCopyDecoding = false;
+
+    /**
+     * Additional {@link RtuFrameLengthResolver}s, consulted in order before the built-in length
+     * rules when reading request frames. Only used by {@link NettyRtuServerTransport}.
+     *
+     * <p>Register resolvers for function codes the Modbus specification doesn't define, e.g. vendor
+     * specific ones, so their frames are delimited by length rather than by a CRC search.
+     *
+     * <p>Defaults to none.
+     */
+    public List<RtuFrameLengthResolver> rtuFrameLengthResolvers = List.of();
+
     public boolean tlsEnabled = false;
     public KeyManagerFactory keyManagerFactory = null;
     public TrustManagerFactory trustManagerFactory = null;
@@ -137,6 +195,76 @@ public record NettyServerTransportConfig(
       return this;
     }
 
+    /**
+     * Set the {@link ServerExecutionModel} used to order request handling.
+     *
+     * @param executionModel the {@link ServerExecutionModel} to use.
+     * @return this {@link Builder}.
+     */
+    public Builder setExecutionModel(ServerExecutionModel executionModel) {
+      this.executionModel = executionModel;
+      return this;
+    }
+
+    /**
+     * Set the number of lanes requests are hashed onto when the execution model is not {@link
+     * ServerExecutionModel#SERIAL}.
+     *
+     * <p>A value of 0 gives each connection (or unit id, depending on the execution model) its own
+     * lane.
+     *
+     * @param executionLanes the number of lanes, or 0 for one lane per connection or unit id.
+     * @return this {@link Builder}.
+     */
+    public Builder setExecutionLanes(int executionLanes) {
+      this.executionLanes = executionLanes;
+      return this;
+    }
+
+    /**
+     * Set the maximum number of requests from a single connection handled concurrently when the
+     * execution model is {@link ServerExecutionModel#PIPELINED}.
+     *
+     * <p>Once this many requests are outstanding on a connection the transport stops reading from
+     * it until one of them completes.
+     *
+     * @param pipelineDepth the maximum number of concurrently handled requests per connection.
+     * @return this {@link Builder}.
+     */
+    public Builder setPipelineDepth(int pipelineDepth) {
+      this.pipelineDepth = pipelineDepth;
+      return this;
+    }
+
+    /**
+     * Set whether request frames are decoded as views of retained slices of the inbound buffer
+     * rather than copied into a newly allocated buffer. Only used by {@link
+     * NettyTcpServerTransport}.
+     *
+     * <p>A request frame's PDU is then only valid until handling of that request completes, so
+     * services must not retain it.
+     *
+     * @param zeroCopyDecoding whether to decode request frames without copying.
+     * @return this {@link Builder}.
+     */
+    public Builder setZeroCopyDecoding(boolean zeroCopyDecoding) {
+      this.zeroCopyDecoding = zeroCopyDecoding;
+      return this;
+    }
+
+    /**
+     * Set additional {@link RtuFrameLengthResolver}s, consulted in order before the built-in length
+     * rules when reading request frames. Only used by {@link NettyRtuServerTransport}.
+     *
+     * @param rtuFrameLengthResolvers the additional resolvers.
+     * @return this {@link Builder}.
+     */
+    public Builder setRtuFrameLengthResolvers(
+        List<RtuFrameLengthResolver> rtuFrameLengthResolvers) {
+      this.rtuFrameLengthResolvers = rtuFrameLengthResolvers;
+      return this;
+    }
+
     /**
      * Set whether TLS is enabled.
      *
@@ -180,6 +308,19 @@ public record NettyServerTransportConfig(
       if (executor == null) {
         executor = Modbus.sharedExecutor();
       }
+      if (executionModel == null) {
+        throw new NullPointerException("executionModel must not be null");
+      }
+      if (executionLanes < 0) {
+        throw new IllegalArgumentException("executionLanes must be >= 0");
+      }
+      if (pipelineDepth < 1) {
+        throw new IllegalArgumentException("pipelineDepth must be >= 1");
+      }
+
+      if (rtuFrameLengthResolvers == null) {
+        throw new NullPointerException("rtuFrameLengthResolvers must not be null");
+      }
 
       return new NettyServerTransportConfig(
           bindAddress,
@@ -188,6 +329,11 @@ public record NettyServerTransportConfig(
           executor,
           bootstrapCustomizer,
           pipelineCustomizer,
+          executionModel,
+          executionLanes,
+          pipelineDepth,
+          zeroCopyDecoding,
+          List.copyOf(rtuFrameLengthResolvers),
           tlsEnabled,
           Optional.ofNullable(keyManagerFactory),
           Optional.ofNullable(trustManagerFactory));
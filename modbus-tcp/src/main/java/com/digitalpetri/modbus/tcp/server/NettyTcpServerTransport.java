@@ -2,10 +2,12 @@ package com.digitalpetri.modbus.tcp.server;
 
 import com.digitalpetri.modbus.ModbusTcpFrame;
 import com.digitalpetri.modbus.exceptions.UnknownUnitIdException;
-import com.digitalpetri.modbus.internal.util.ExecutionQueue;
+import com.digitalpetri.modbus.internal.util.ExecutionLanes;
 import com.digitalpetri.modbus.server.ModbusRequestContext.ModbusTcpRequestContext;
 import com.digitalpetri.modbus.server.ModbusTcpServerTransport;
+import com.digitalpetri.modbus.server.ServerExecutionModel;
 import com.digitalpetri.modbus.tcp.ModbusTcpCodec;
+import com.digitalpetri.modbus.tcp.ModbusTcpCodec.RetainedModbusTcpFrame;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFutureListener;
@@ -13,7 +15,6 @@ import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
-import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.channel.socket.ServerSocketChannel;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
@@ -21,9 +22,15 @@ import io.netty.handler.ssl.ClientAuth;
 import io.netty.handler.ssl.SslContext;
 import io.netty.handler.ssl.SslContextBuilder;
 import io.netty.handler.ssl.SslProtocols;
+import io.netty.util.ReferenceCountUtil;
+import java.util.ArrayDeque;
 import java.util.List;
+import java.util.Queue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 import org.slf4j.Logger;
@@ -43,13 +50,21 @@ public class NettyTcpServerTransport implements ModbusTcpServerTransport {
   private final AtomicReference<ServerSocketChannel> serverChannel = new AtomicReference<>();
   private final List<Channel> clientChannels = new CopyOnWriteArrayList<>();
 
-  private final ExecutionQueue executionQueue;
+  private final ExecutionLanes executionLanes;
   private final NettyServerTransportConfig config;
 
   public NettyTcpServerTransport(NettyServerTransportConfig config) {
     this.config = config;
 
-    executionQueue = new ExecutionQueue(config.executor(), 1);
+    int laneCount =
+        switch (config.executionModel()) {
+          case SERIAL, PIPELINED -> 1;
+          case PER_CONNECTION -> Math.max(config.executionLanes(), 1);
+          case PER_UNIT_ID ->
+              config.executionLanes() > 0 ? config.executionLanes() : ExecutionLanes.UNIT_ID_LANES;
+        };
+
+    executionLanes = new ExecutionLanes(config.executor(), laneCount);
   }
 
   @Override
@@ -57,6 +72,11 @@ public class NettyTcpServerTransport implements ModbusTcpServerTransport {
     this.frameReceiver.set(frameReceiver);
   }
 
+  @Override
+  public boolean reportsResponsesSent() {
+    return true;
+  }
+
   @Override
   public CompletableFuture<Void> bind() {
     final var future = new CompletableFuture<Void>();
@@ -89,10 +109,11 @@ public class NettyTcpServerTransport implements ModbusTcpServerTransport {
                           @Override
                           public void channelInactive(ChannelHandlerContext ctx) {
                             clientChannels.remove(ctx.channel());
+                            ctx.fireChannelInactive();
                           }
                         })
-                    .addLast(new ModbusTcpCodec())
-                    .addLast(new ModbusTcpFrameHandler());
+                    .addLast(new ModbusTcpCodec(config.zeroCopyDecoding()))
+                    .addLast(new ModbusTcpFrameHandler(channel));
 
                 config.pipelineCustomizer().accept(channel.pipeline());
               }
@@ -147,7 +168,31 @@ public class NettyTcpServerTransport implements ModbusTcpServerTransport {
     }
   }
 
-  private class ModbusTcpFrameHandler extends SimpleChannelInboundHandler<ModbusTcpFrame> {
+  /**
+   * Handles inbound {@link ModbusTcpFrame}s, or {@link RetainedModbusTcpFrame}s when {@link
+   * NettyServerTransportConfig#zeroCopyDecoding()} is enabled. Retained frames are released once
+   * handling them completes.
+   */
+  private class ModbusTcpFrameHandler extends ChannelInboundHandlerAdapter {
+
+    private final ExecutionLanes channelLanes;
+    private final int channelKey;
+
+    // PIPELINED state; only accessed from the channel's event loop
+    private final Queue<Object> pipelineBacklog = new ArrayDeque<>();
+    private int pipelineInFlight = 0;
+
+    ModbusTcpFrameHandler(Channel channel) {
+      if (config.executionModel() == ServerExecutionModel.PER_CONNECTION
+          && config.executionLanes() == 0) {
+        // dedicated lane for this channel
+        channelLanes = new ExecutionLanes(config.executor(), 1);
+      } else {
+        channelLanes = executionLanes;
+      }
+
+      channelKey = System.identityHashCode(channel);
+    }
 
     @Override
     public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
@@ -156,29 +201,133 @@ public class NettyTcpServerTransport implements ModbusTcpServerTransport {
     }
 
     @Override
-    protected void channelRead0(ChannelHandlerContext ctx, ModbusTcpFrame requestFrame) {
+    public void channelInactive(ChannelHandlerContext ctx) {
+      pipelineBacklog.forEach(ReferenceCountUtil::release);
+      pipelineBacklog.clear();
+
+      ctx.fireChannelInactive();
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+      if (!(msg instanceof ModbusTcpFrame) && !(msg instanceof RetainedModbusTcpFrame)) {
+        ctx.fireChannelRead(msg);
+        return;
+      }
+
       FrameReceiver<ModbusTcpRequestContext, ModbusTcpFrame> frameReceiver =
           NettyTcpServerTransport.this.frameReceiver.get();
 
       if (frameReceiver != null) {
-        executionQueue.submit(
-            () -> {
-              try {
-                ModbusTcpFrame responseFrame =
-                    frameReceiver.receive(new NettyRequestContext(ctx), requestFrame);
-
-                ctx.channel().writeAndFlush(responseFrame);
-              } catch (UnknownUnitIdException e) {
-                logger.debug(
-                    "Ignoring request for unknown unit id: {}", requestFrame.header().unitId());
-              } catch (Exception e) {
-                logger.error("Error handling frame: {}", e.getMessage(), e);
-
-                ctx.close();
-              }
-            });
+        if (config.executionModel() == ServerExecutionModel.PIPELINED) {
+          pipelineBacklog.add(msg);
+          drainPipeline(ctx);
+          return;
+        }
+
+        int key =
+            config.executionModel() == ServerExecutionModel.PER_UNIT_ID
+                ? frameOf(msg).header().unitId()
+                : channelKey;
+
+        channelLanes.submit(key, () -> handleFrame(ctx, frameReceiver, msg));
+      } else {
+        ReferenceCountUtil.release(msg);
+      }
+    }
+
+    /**
+     * Start handling backlogged frames until the pipeline is full, and stop reading from the
+     * channel while frames remain backlogged.
+     *
+     * <p>Must be called from the channel's event loop.
+     */
+    private void drainPipeline(ChannelHandlerContext ctx) {
+      FrameReceiver<ModbusTcpRequestContext, ModbusTcpFrame> frameReceiver =
+          NettyTcpServerTransport.this.frameReceiver.get();
+
+      while (frameReceiver != null
+          && pipelineInFlight < config.pipelineDepth()
+          && !pipelineBacklog.isEmpty()) {
+
+        Object msg = pipelineBacklog.poll();
+        pipelineInFlight++;
+
+        try {
+          config
+              .executor()
+              .execute(
+                  () ->
+                      handleFrame(ctx, frameReceiver, msg)
+                          .whenComplete(
+                              (v, ex) ->
+                                  ctx.executor()
+                                      .execute(
+                                          () -> {
+                                            pipelineInFlight--;
+                                            drainPipeline(ctx);
+                                          })));
+        } catch (RejectedExecutionException e) {
+          ReferenceCountUtil.release(msg);
+          pipelineInFlight--;
+
+          logger.error("Executor rejected frame, closing channel: {}", e.getMessage(), e);
+
+          // the remaining backlog is released when the channel goes inactive
+          ctx.close();
+          return;
+        }
+      }
+
+      boolean autoRead = pipelineBacklog.isEmpty();
+      if (ctx.channel().config().isAutoRead() != autoRead) {
+        ctx.channel().config().setAutoRead(autoRead);
       }
     }
+
+    private CompletionStage<ModbusTcpFrame> handleFrame(
+        ChannelHandlerContext ctx,
+        FrameReceiver<ModbusTcpRequestContext, ModbusTcpFrame> frameReceiver,
+        Object msg) {
+
+      ModbusTcpFrame requestFrame = frameOf(msg);
+
+      var context = new NettyRequestContext(ctx);
+
+      CompletionStage<ModbusTcpFrame> response;
+      try {
+        response = frameReceiver.receiveAsync(context, requestFrame);
+      } catch (Throwable t) {
+        response = CompletableFuture.failedFuture(t);
+      }
+
+      return response.whenComplete(
+          (responseFrame, ex) -> {
+            ReferenceCountUtil.release(msg);
+
+            if (ex == null) {
+              ctx.channel()
+                  .writeAndFlush(responseFrame)
+                  .addListener(f -> frameReceiver.onResponseSent(context, responseFrame));
+              return;
+            }
+
+            Throwable cause = ex instanceof CompletionException ? ex.getCause() : ex;
+
+            if (cause instanceof UnknownUnitIdException) {
+              logger.debug(
+                  "Ignoring request for unknown unit id: {}", requestFrame.header().unitId());
+            } else {
+              logger.error("Error handling frame: {}", cause.getMessage(), cause);
+
+              ctx.close();
+            }
+          });
+    }
+  }
+
+  private static ModbusTcpFrame frameOf(Object msg) {
+    return msg instanceof RetainedModbusTcpFrame retained ? retained.frame() : (ModbusTcpFrame) msg;
   }
 
   /**
@@ -1,13 +1,18 @@
 package com.digitalpetri.modbus.tcp;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import com.digitalpetri.modbus.MbapHeader;
 import com.digitalpetri.modbus.ModbusTcpFrame;
+import com.digitalpetri.modbus.tcp.ModbusTcpCodec.RetainedModbusTcpFrame;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.CorruptedFrameException;
 import java.nio.ByteBuffer;
 import org.junit.jupiter.api.Test;
 
@@ -47,4 +52,75 @@ class ModbusTcpCodecTest {
     System.out.println(frame);
     assertEquals(0, frame.pdu().remaining());
   }
+
+  @Test
+  void encodeWritesHeaderAndPdu() {
+    var channel = new EmbeddedChannel(new ModbusTcpCodec());
+
+    channel.writeOutbound(
+        new ModbusTcpFrame(
+            new MbapHeader(0x1234, 0, 3, 0x11), ByteBuffer.wrap(new byte[] {0x03, 0x04})));
+    ByteBuf encoded = channel.readOutbound();
+
+    assertEquals("1234000000031103" + "04", ByteBufUtil.hexDump(encoded));
+    encoded.release();
+  }
+
+  @Test
+  void retainedSliceDecodeMatchesCopyingDecode() {
+    byte[] bytes = ByteBufUtil.decodeHexDump("000100000006010300000001" + "5FFD0000000101");
+
+    var copyingChannel = new EmbeddedChannel(new ModbusTcpCodec());
+    copyingChannel.writeInbound(Unpooled.wrappedBuffer(bytes));
+
+    ByteBuf rx = PooledByteBufAllocator.DEFAULT.directBuffer();
+    rx.writeBytes(bytes);
+    var retainingChannel = new EmbeddedChannel(new ModbusTcpCodec(true));
+    retainingChannel.writeInbound(rx);
+
+    RetainedModbusTcpFrame first = retainingChannel.readInbound();
+    RetainedModbusTcpFrame second = retainingChannel.readInbound();
+    assertNull(retainingChannel.readInbound());
+
+    assertEquals(copyingChannel.<ModbusTcpFrame>readInbound(), first.frame());
+    assertEquals(copyingChannel.<ModbusTcpFrame>readInbound(), second.frame());
+    assertEquals(0, second.frame().pdu().remaining());
+
+    // the inbound buffer stays alive until every frame decoded from it is released
+    assertEquals(2, rx.refCnt());
+    first.release();
+    assertEquals(1, rx.refCnt());
+    second.release();
+    assertEquals(0, rx.refCnt());
+  }
+
+  @Test
+  void zeroLengthFieldIsRejectedWithoutLeaking() {
+    for (boolean retainedSlices : new boolean[] {false, true}) {
+      ByteBuf rx = PooledByteBufAllocator.DEFAULT.directBuffer();
+      rx.writeBytes(ByteBufUtil.decodeHexDump("00010000000001" + "0300000001"));
+      var channel = new EmbeddedChannel(new ModbusTcpCodec(retainedSlices));
+
+      assertThrows(CorruptedFrameException.class, () -> channel.writeInbound(rx));
+
+      assertNull(channel.readInbound());
+      assertEquals(0, rx.refCnt());
+    }
+  }
+
+  @Test
+  void lengthFieldOfOneIsAnEmptyPdu() {
+    ByteBuf rx = PooledByteBufAllocator.DEFAULT.directBuffer();
+    rx.writeBytes(ByteBufUtil.decodeHexDump("00010000000101"));
+    var channel = new EmbeddedChannel(new ModbusTcpCodec(true));
+
+    channel.writeInbound(rx);
+    RetainedModbusTcpFrame frame = channel.readInbound();
+
+    assertEquals(new MbapHeader(1, 0, 1, 1), frame.frame().header());
+    assertEquals(0, frame.frame().pdu().remaining());
+
+    frame.release();
+    assertEquals(0, rx.refCnt());
+  }
 }
@@ -1,7 +1,16 @@
 package com.digitalpetri.modbus.test;
 
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.digitalpetri.modbus.ExceptionCode;
+import com.digitalpetri.modbus.FunctionCode;
 import com.digitalpetri.modbus.client.ModbusClient;
 import com.digitalpetri.modbus.client.ModbusRtuClient;
+import com.digitalpetri.modbus.exceptions.ModbusResponseException;
+import com.digitalpetri.modbus.exceptions.UnknownUnitIdException;
+import com.digitalpetri.modbus.pdu.ReadHoldingRegistersRequest;
+import com.digitalpetri.modbus.pdu.ReadHoldingRegistersResponse;
+import com.digitalpetri.modbus.server.ModbusRequestContext;
 import com.digitalpetri.modbus.server.ModbusRtuServer;
 import com.digitalpetri.modbus.server.ModbusServer;
 import com.digitalpetri.modbus.server.ProcessImage;
@@ -11,9 +20,12 @@ import com.digitalpetri.modbus.tcp.server.NettyRtuServerTransport;
 import java.util.Optional;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
 
 public class ModbusRtuTcpClientServerIT extends ClientServerIT {
 
+  private static final int ILLEGAL_ADDRESS = 1000;
+
   ModbusRtuClient client;
   ModbusRtuServer server;
 
@@ -26,6 +38,18 @@ public class ModbusRtuTcpClientServerIT extends ClientServerIT {
           protected Optional<ProcessImage> getProcessImage(int unitId) {
             return Optional.of(processImage);
           }
+
+          @Override
+          public ReadHoldingRegistersResponse readHoldingRegisters(
+              ModbusRequestContext context, int unitId, ReadHoldingRegistersRequest request)
+              throws ModbusResponseException, UnknownUnitIdException {
+
+            if (request.address() >= ILLEGAL_ADDRESS) {
+              throw new ModbusResponseException(
+                  FunctionCode.READ_HOLDING_REGISTERS, ExceptionCode.ILLEGAL_DATA_ADDRESS);
+            }
+            return super.readHoldingRegisters(context, unitId, request);
+          }
         };
 
     int serverPort = -1;
@@ -77,6 +101,14 @@ public class ModbusRtuTcpClientServerIT extends ClientServerIT {
     }
   }
 
+  @Test
+  void exceptionResponse() {
+    // the exception response must carry a valid CRC to reach the caller as a response exception
+    assertThrows(
+        ModbusResponseException.class,
+        () -> client.readHoldingRegisters(1, new ReadHoldingRegistersRequest(ILLEGAL_ADDRESS, 1)));
+  }
+
   @Override
   ModbusClient getClient() {
     return client;
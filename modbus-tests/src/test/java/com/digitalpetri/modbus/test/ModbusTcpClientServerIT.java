@@ -1,12 +1,16 @@
 package com.digitalpetri.modbus.test;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import com.digitalpetri.modbus.ModbusPduSerializer.DefaultRequestSerializer;
 import com.digitalpetri.modbus.client.ModbusClient;
+import com.digitalpetri.modbus.client.ModbusClient.UnitRequest;
 import com.digitalpetri.modbus.client.ModbusTcpClient;
 import com.digitalpetri.modbus.internal.util.Hex;
+import com.digitalpetri.modbus.pdu.ModbusResponsePdu;
 import com.digitalpetri.modbus.pdu.ReadHoldingRegistersRequest;
+import com.digitalpetri.modbus.pdu.ReadHoldingRegistersResponse;
 import com.digitalpetri.modbus.server.ModbusServer;
 import com.digitalpetri.modbus.server.ModbusTcpServer;
 import com.digitalpetri.modbus.server.ProcessImage;
@@ -17,6 +21,8 @@ import com.digitalpetri.modbus.tcp.client.NettyTcpClientTransport.ConnectionList
 import com.digitalpetri.modbus.tcp.client.NettyTimeoutScheduler;
 import com.digitalpetri.modbus.tcp.server.NettyTcpServerTransport;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
@@ -121,6 +127,23 @@ public class ModbusTcpClientServerIT extends ClientServerIT {
     System.out.println("responsePduBytes: " + Hex.format(responsePduBytes));
   }
 
+  @Test
+  void sendBatch() throws Exception {
+    var requests = new ArrayList<UnitRequest>();
+    for (int i = 0; i < 10; i++) {
+      requests.add(new UnitRequest(1, new ReadHoldingRegistersRequest(i, 1 + i)));
+    }
+
+    List<ModbusResponsePdu> responses =
+        client.sendBatchAsync(requests).allResponses().toCompletableFuture().get();
+
+    assertEquals(10, responses.size());
+    for (int i = 0; i < 10; i++) {
+      var response = (ReadHoldingRegistersResponse) responses.get(i);
+      assertEquals(2 * (1 + i), response.registers().length);
+    }
+  }
+
   @Test
   void connectionListener() throws Exception {
     var onConnection = new CountDownLatch(1);
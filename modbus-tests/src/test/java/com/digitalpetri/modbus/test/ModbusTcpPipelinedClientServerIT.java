@@ -0,0 +1,148 @@
+package com.digitalpetri.modbus.test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.digitalpetri.modbus.client.ModbusTcpClient;
+import com.digitalpetri.modbus.pdu.ReadHoldingRegistersRequest;
+import com.digitalpetri.modbus.pdu.ReadHoldingRegistersResponse;
+import com.digitalpetri.modbus.server.ModbusRequestContext;
+import com.digitalpetri.modbus.server.ModbusServices;
+import com.digitalpetri.modbus.server.ModbusTcpServer;
+import com.digitalpetri.modbus.server.ServerExecutionModel;
+import com.digitalpetri.modbus.tcp.Netty;
+import com.digitalpetri.modbus.tcp.client.NettyTcpClientTransport;
+import com.digitalpetri.modbus.tcp.client.NettyTimeoutScheduler;
+import com.digitalpetri.modbus.tcp.server.NettyTcpServerTransport;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class ModbusTcpPipelinedClientServerIT {
+
+  ModbusTcpClient client;
+  ModbusTcpServer server;
+
+  final CountDownLatch slowRequestReleased = new CountDownLatch(1);
+
+  @AfterEach
+  void teardown() throws Exception {
+    slowRequestReleased.countDown();
+
+    if (client != null) {
+      client.disconnect();
+    }
+    if (server != null) {
+      server.stop();
+    }
+  }
+
+  @Test
+  void fastRequestCompletesBeforeSlowRequestOnSameConnection() throws Exception {
+    startClientServer(16);
+
+    CompletableFuture<ReadHoldingRegistersResponse> slow =
+        client
+            .readHoldingRegistersAsync(1, new ReadHoldingRegistersRequest(0, 1))
+            .toCompletableFuture();
+    CompletableFuture<ReadHoldingRegistersResponse> fast =
+        client
+            .readHoldingRegistersAsync(1, new ReadHoldingRegistersRequest(1, 1))
+            .toCompletableFuture();
+
+    assertArrayEquals(new byte[] {0x00, 0x01}, fast.get(5, TimeUnit.SECONDS).registers());
+    assertFalse(slow.isDone());
+
+    slowRequestReleased.countDown();
+
+    assertArrayEquals(new byte[] {0x00, 0x00}, slow.get(5, TimeUnit.SECONDS).registers());
+  }
+
+  @Test
+  void pipelineDepthLimitsConcurrentRequests() throws Exception {
+    startClientServer(1);
+
+    CompletableFuture<ReadHoldingRegistersResponse> slow =
+        client
+            .readHoldingRegistersAsync(1, new ReadHoldingRegistersRequest(0, 1))
+            .toCompletableFuture();
+    CompletableFuture<ReadHoldingRegistersResponse> fast =
+        client
+            .readHoldingRegistersAsync(1, new ReadHoldingRegistersRequest(1, 1))
+            .toCompletableFuture();
+
+    Thread.sleep(250);
+    assertFalse(fast.isDone());
+
+    slowRequestReleased.countDown();
+
+    slow.get(5, TimeUnit.SECONDS);
+    fast.get(5, TimeUnit.SECONDS);
+    assertTrue(slow.isDone() && fast.isDone());
+  }
+
+  private void startClientServer(int pipelineDepth) throws Exception {
+    var services =
+        new ModbusServices() {
+          @Override
+          public ReadHoldingRegistersResponse readHoldingRegisters(
+              ModbusRequestContext context, int unitId, ReadHoldingRegistersRequest request) {
+
+            if (request.address() == 0) {
+              try {
+                slowRequestReleased.await(5, TimeUnit.SECONDS);
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+              }
+            }
+
+            return new ReadHoldingRegistersResponse(new byte[] {0x00, (byte) request.address()});
+          }
+        };
+
+    int serverPort = -1;
+
+    for (int i = 50200; i < 65536; i++) {
+      try {
+        final var port = i;
+        var serverTransport =
+            NettyTcpServerTransport.create(
+                cfg -> {
+                  cfg.bindAddress = "localhost";
+                  cfg.port = port;
+                  cfg.executionModel = ServerExecutionModel.PIPELINED;
+                  cfg.pipelineDepth = pipelineDepth;
+                });
+
+        server = ModbusTcpServer.create(serverTransport, services);
+        server.start();
+        serverPort = port;
+        break;
+      } catch (Exception e) {
+        server = null;
+      }
+    }
+
+    if (server == null) {
+      throw new Exception("Failed to start server");
+    }
+
+    final var port = serverPort;
+    var clientTransport =
+        NettyTcpClientTransport.create(
+            cfg -> {
+              cfg.hostname = "localhost";
+              cfg.port = port;
+              cfg.connectPersistent = false;
+            });
+
+    client =
+        ModbusTcpClient.create(
+            clientTransport,
+            cfg -> cfg.timeoutScheduler = new NettyTimeoutScheduler(Netty.sharedWheelTimer()));
+    client.connect();
+  }
+}
@@ -0,0 +1,125 @@
+package com.digitalpetri.modbus.test;
+
+import com.digitalpetri.modbus.BufferPool.DirectBufferPool;
+import com.digitalpetri.modbus.BufferPool.HeapBufferPool;
+import com.digitalpetri.modbus.client.ModbusClient;
+import com.digitalpetri.modbus.client.ModbusTcpClient;
+import com.digitalpetri.modbus.server.ModbusServer;
+import com.digitalpetri.modbus.server.ModbusTcpServer;
+import com.digitalpetri.modbus.server.ProcessImage;
+import com.digitalpetri.modbus.server.ReadWriteModbusServices;
+import com.digitalpetri.modbus.server.ServerExecutionModel;
+import com.digitalpetri.modbus.tcp.Netty;
+import com.digitalpetri.modbus.tcp.client.NettyTcpClientTransport;
+import com.digitalpetri.modbus.tcp.client.NettyTimeoutScheduler;
+import com.digitalpetri.modbus.tcp.server.NettyTcpServerTransport;
+import io.netty.util.ResourceLeakDetector;
+import java.util.Optional;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+
+/**
+ * Runs the {@link ClientServerIT} suite against a server using {@link
+ * com.digitalpetri.modbus.tcp.server.NettyServerTransportConfig#zeroCopyDecoding()}, with leak
+ * detection at {@link ResourceLeakDetector.Level#PARANOID}. Client and server both encode PDUs into
+ * pooled buffers.
+ */
+public class ModbusTcpZeroCopyClientServerIT extends ClientServerIT {
+
+  static ResourceLeakDetector.Level previousLevel;
+
+  ModbusTcpClient client;
+  ModbusTcpServer server;
+
+  @BeforeAll
+  static void enableLeakDetection() {
+    previousLevel = ResourceLeakDetector.getLevel();
+    ResourceLeakDetector.setLevel(ResourceLeakDetector.Level.PARANOID);
+  }
+
+  @AfterAll
+  static void restoreLeakDetection() {
+    ResourceLeakDetector.setLevel(previousLevel);
+  }
+
+  @BeforeEach
+  void setup() throws Exception {
+    var processImage = new ProcessImage();
+    var modbusServices =
+        new ReadWriteModbusServices() {
+          @Override
+          protected Optional<ProcessImage> getProcessImage(int unitId) {
+            return Optional.of(processImage);
+          }
+        };
+
+    int serverPort = -1;
+
+    for (int i = 50200; i < 65536; i++) {
+      try {
+        final var port = i;
+        var serverTransport =
+            NettyTcpServerTransport.create(
+                cfg -> {
+                  cfg.bindAddress = "localhost";
+                  cfg.port = port;
+                  cfg.executionModel = ServerExecutionModel.PIPELINED;
+                  cfg.zeroCopyDecoding = true;
+                });
+
+        server =
+            ModbusTcpServer.create(
+                serverTransport, modbusServices, b -> b.setBufferPool(new DirectBufferPool()));
+        server.start();
+        serverPort = port;
+        break;
+      } catch (Exception e) {
+        server = null;
+      }
+    }
+
+    if (server == null) {
+      throw new Exception("Failed to start server");
+    }
+
+    final var port = serverPort;
+    var clientTransport =
+        NettyTcpClientTransport.create(
+            cfg -> {
+              cfg.hostname = "localhost";
+              cfg.port = port;
+              cfg.connectPersistent = false;
+            });
+
+    client =
+        ModbusTcpClient.create(
+            clientTransport,
+            cfg -> {
+              cfg.timeoutScheduler = new NettyTimeoutScheduler(Netty.sharedWheelTimer());
+              cfg.bufferPool = new HeapBufferPool();
+            });
+    client.connect();
+  }
+
+  @AfterEach
+  void teardown() throws Exception {
+    if (client != null) {
+      client.disconnect();
+    }
+    if (server != null) {
+      server.stop();
+    }
+  }
+
+  @Override
+  ModbusClient getClient() {
+    return client;
+  }
+
+  @Override
+  ModbusServer getServer() {
+    return server;
+  }
+}
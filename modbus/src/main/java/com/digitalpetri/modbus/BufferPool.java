@@ -1,4 +1,4 @@
-package com.digitalpetri.modbus.internal.util;
+package com.digitalpetri.modbus;
 
 import java.nio.ByteBuffer;
 import java.util.Deque;
@@ -9,6 +9,12 @@ import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * A pool of {@link ByteBuffer}s that request and response PDUs are encoded into.
+ *
+ * <p>Buffers are pooled by capacity, a few of each, and {@link #take(int)} returns the smallest
+ * pooled buffer that's large enough, limited to the requested capacity.
+ */
 public abstract class BufferPool implements AutoCloseable {
 
   private static final int QUEUE_SIZE = 3;
@@ -18,6 +24,12 @@ public abstract class BufferPool implements AutoCloseable {
 
   private final NavigableMap<Integer, Deque<ByteBuffer>> buffers = new ConcurrentSkipListMap<>();
 
+  /**
+   * Give {@code buffer} back to the pool. It's dropped if the pool already holds enough buffers of
+   * its capacity.
+   *
+   * @param buffer the buffer to give back.
+   */
   public void give(ByteBuffer buffer) {
     Deque<ByteBuffer> queue =
         buffers.computeIfAbsent(buffer.capacity(), k -> new LinkedBlockingDeque<>(QUEUE_SIZE));
@@ -26,6 +38,13 @@ public abstract class BufferPool implements AutoCloseable {
     }
   }
 
+  /**
+   * Take a buffer with at least {@code capacity} bytes from the pool, allocating one if none is
+   * pooled.
+   *
+   * @param capacity the number of bytes needed.
+   * @return a cleared buffer whose limit is {@code capacity}.
+   */
   public ByteBuffer take(int capacity) {
     var entry = buffers.ceilingEntry(capacity);
 
@@ -50,10 +69,20 @@ public abstract class BufferPool implements AutoCloseable {
     rejectionCounts.clear();
   }
 
+  /**
+   * Get the number of buffers allocated, by capacity.
+   *
+   * @return the number of buffers allocated, by capacity.
+   */
   public Map<Integer, AtomicLong> getAllocationCounts() {
     return allocationCounts;
   }
 
+  /**
+   * Get the number of buffers given back but dropped because the pool was full, by capacity.
+   *
+   * @return the number of buffers dropped, by capacity.
+   */
   public Map<Integer, AtomicLong> getRejectionCounts() {
     return rejectionCounts;
   }
@@ -65,6 +94,7 @@ public abstract class BufferPool implements AutoCloseable {
 
   protected abstract ByteBuffer create(int capacity);
 
+  /** A {@link BufferPool} of heap buffers. */
   public static class HeapBufferPool extends BufferPool {
 
     @Override
@@ -79,6 +109,7 @@ public abstract class BufferPool implements AutoCloseable {
     }
   }
 
+  /** A {@link BufferPool} of direct buffers. */
   public static class DirectBufferPool extends BufferPool {
 
     @Override
@@ -93,6 +124,7 @@ public abstract class BufferPool implements AutoCloseable {
     }
   }
 
+  /** A {@link BufferPool} that pools nothing and allocates a new heap buffer for every take. */
   public static class NoOpBufferPool extends BufferPool {
 
     @Override
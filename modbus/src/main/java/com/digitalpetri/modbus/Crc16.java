@@ -1,7 +1,15 @@
 package com.digitalpetri.modbus;
 
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 
+/**
+ * CRC-16/Modbus, as used by RTU frames.
+ *
+ * <p>Bulk updates use slicing-by-8: eight lookup tables let eight bytes be folded into the CRC per
+ * step instead of one. The static {@code compute} and {@code verify} methods work on a frame's
+ * parts in place and allocate nothing.
+ */
 public class Crc16 {
 
   /** CRC-16/Modbus lookup table. */
@@ -40,6 +48,23 @@ public class Crc16 {
     0x8201, 0x42C0, 0x4380, 0x8341, 0x4100, 0x81C1, 0x8081, 0x4040
   };
 
+  /**
+   * Slicing-by-8 tables; {@code TABLES[k][b]} is the CRC contribution of byte {@code b} followed by
+   * {@code k} zero bytes.
+   */
+  private static final int[][] TABLES = new int[8][];
+
+  static {
+    TABLES[0] = TABLE;
+    for (int k = 1; k < TABLES.length; k++) {
+      TABLES[k] = new int[256];
+      for (int b = 0; b < 256; b++) {
+        int v = TABLES[k - 1][b];
+        TABLES[k][b] = (v >>> 8) ^ TABLE[v & 0xFF];
+      }
+    }
+  }
+
   private int sum = 0xFFFF;
 
   /**
@@ -63,15 +88,136 @@ public class Crc16 {
     sum = (sum >> 8) ^ TABLE[((sum) ^ (b & 0xFF)) & 0xFF];
   }
 
+  /**
+   * Updates the CRC-16 with {@code length} bytes of {@code bytes}, starting at {@code offset}.
+   *
+   * @param bytes the bytes to update the CRC-16 with.
+   * @param offset the index of the first byte.
+   * @param length the number of bytes.
+   */
+  public void update(byte[] bytes, int offset, int length) {
+    sum = updateSlicing(sum, bytes, offset, length);
+  }
+
   /**
    * Updates the CRC-16 with the given {@link ByteBuffer}.
    *
+   * <p>The bytes from the buffer's position to its limit are used; the position is not changed.
+   *
    * @param buffer the {@link ByteBuffer} to update the CRC-16 with.
    */
   public void update(ByteBuffer buffer) {
-    int offset = buffer.position();
-    for (int i = offset; i < buffer.limit(); i++) {
-      update(buffer.get(i));
+    sum = updateSlicing(sum, buffer);
+  }
+
+  /**
+   * Compute the CRC-16 of {@code length} bytes of {@code bytes}, starting at {@code offset}.
+   *
+   * @param bytes the bytes.
+   * @param offset the index of the first byte.
+   * @param length the number of bytes.
+   * @return the CRC-16 value.
+   */
+  public static int compute(byte[] bytes, int offset, int length) {
+    return updateSlicing(0xFFFF, bytes, offset, length);
+  }
+
+  /**
+   * Compute the CRC-16 of an RTU frame's unit id and PDU, without allocating.
+   *
+   * @param unitId the unit id.
+   * @param pdu the PDU, from its position to its limit; the position is not changed.
+   * @return the CRC-16 value.
+   */
+  public static int compute(int unitId, ByteBuffer pdu) {
+    int crc = 0xFFFF;
+    crc = (crc >> 8) ^ TABLE[(crc ^ unitId) & 0xFF];
+    return updateSlicing(crc, pdu);
+  }
+
+  /**
+   * Verify the CRC-16 reported by an RTU frame matches the one calculated from its unit id and PDU,
+   * without allocating.
+   *
+   * @param unitId the unit id.
+   * @param pdu the PDU, from its position to its limit; the position is not changed.
+   * @param crc the reported CRC-16, low byte first at its position; the position is not changed.
+   * @return {@code true} if the CRC-16 matches.
+   */
+  public static boolean verify(int unitId, ByteBuffer pdu, ByteBuffer crc) {
+    int offset = crc.position();
+    int reported = (crc.get(offset) & 0xFF) | ((crc.get(offset + 1) & 0xFF) << 8);
+
+    return compute(unitId, pdu) == reported;
+  }
+
+  private static int updateSlicing(int crc, byte[] bytes, int offset, int length) {
+    int i = offset;
+    int end = offset + length;
+
+    int[] t0 = TABLES[0];
+    int[] t1 = TABLES[1];
+    int[] t2 = TABLES[2];
+    int[] t3 = TABLES[3];
+    int[] t4 = TABLES[4];
+    int[] t5 = TABLES[5];
+    int[] t6 = TABLES[6];
+    int[] t7 = TABLES[7];
+
+    for (; i + 8 <= end; i += 8) {
+      crc =
+          t7[(crc ^ bytes[i]) & 0xFF]
+              ^ t6[((crc >> 8) ^ bytes[i + 1]) & 0xFF]
+              ^ t5[bytes[i + 2] & 0xFF]
+              ^ t4[bytes[i + 3] & 0xFF]
+              ^ t3[bytes[i + 4] & 0xFF]
+              ^ t2[bytes[i + 5] & 0xFF]
+              ^ t1[bytes[i + 6] & 0xFF]
+              ^ t0[bytes[i + 7] & 0xFF];
+    }
+
+    for (; i < end; i++) {
+      crc = (crc >> 8) ^ t0[(crc ^ bytes[i]) & 0xFF];
     }
+
+    return crc;
+  }
+
+  private static int updateSlicing(int crc, ByteBuffer buffer) {
+    int position = buffer.position();
+    int limit = buffer.limit();
+
+    if (buffer.hasArray()) {
+      return updateSlicing(crc, buffer.array(), buffer.arrayOffset() + position, limit - position);
+    }
+
+    // direct or read-only: read 8 bytes at a time as a little-endian long
+    boolean swap = buffer.order() == ByteOrder.BIG_ENDIAN;
+    int i = position;
+
+    for (; i + 8 <= limit; i += 8) {
+      long v = buffer.getLong(i);
+      if (swap) {
+        v = Long.reverseBytes(v);
+      }
+      int lo = (int) v;
+      int hi = (int) (v >>> 32);
+
+      crc =
+          TABLES[7][(crc ^ lo) & 0xFF]
+              ^ TABLES[6][((crc >> 8) ^ (lo >>> 8)) & 0xFF]
+              ^ TABLES[5][(lo >>> 16) & 0xFF]
+              ^ TABLES[4][lo >>> 24]
+              ^ TABLES[3][hi & 0xFF]
+              ^ TABLES[2][(hi >>> 8) & 0xFF]
+              ^ TABLES[1][(hi >>> 16) & 0xFF]
+              ^ TABLES[0][hi >>> 24];
+    }
+
+    for (; i < limit; i++) {
+      crc = (crc >> 8) ^ TABLE[(crc ^ buffer.get(i)) & 0xFF];
+    }
+
+    return crc;
   }
 }
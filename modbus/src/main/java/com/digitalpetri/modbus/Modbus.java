@@ -39,6 +39,7 @@ public final class Modbus {
 
   private static ExecutorService EXECUTOR_SERVICE;
   private static ScheduledExecutorService SCHEDULED_EXECUTOR_SERVICE;
+  private static WheelTimeoutScheduler TIMEOUT_SCHEDULER;
 
   /**
    * @return a shared {@link ExecutorService}.
@@ -103,6 +104,20 @@ public final class Modbus {
     return SCHEDULED_EXECUTOR_SERVICE;
   }
 
+  /**
+   * Get the shared {@link WheelTimeoutScheduler}, creating it if needed.
+   *
+   * @return a shared {@link WheelTimeoutScheduler} that runs expired timeouts on {@link
+   *     #sharedExecutor()}.
+   */
+  public static synchronized TimeoutScheduler sharedTimeoutScheduler() {
+    if (TIMEOUT_SCHEDULER == null) {
+      TIMEOUT_SCHEDULER = new WheelTimeoutScheduler(sharedExecutor());
+    }
+
+    return TIMEOUT_SCHEDULER;
+  }
+
   /**
    * Release shared resources, waiting at most 5 seconds for each of the shared resources to shut
    * down gracefully.
@@ -121,6 +136,11 @@ public final class Modbus {
    * @param unit the unit of the timeout duration.
    */
   public static synchronized void releaseSharedResources(long timeout, TimeUnit unit) {
+    if (TIMEOUT_SCHEDULER != null) {
+      TIMEOUT_SCHEDULER.stop();
+      TIMEOUT_SCHEDULER = null;
+    }
+
     if (EXECUTOR_SERVICE != null) {
       EXECUTOR_SERVICE.shutdown();
     }
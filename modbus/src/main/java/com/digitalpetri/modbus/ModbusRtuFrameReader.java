@@ -0,0 +1,384 @@
+package com.digitalpetri.modbus;
+
+import static com.digitalpetri.modbus.RtuFrameLengthResolver.NEED_MORE;
+import static com.digitalpetri.modbus.RtuFrameLengthResolver.UNKNOWN;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Reads {@link ModbusRtuFrame}s out of a stream of received bytes.
+ *
+ * <p>Received bytes are copied into a fixed ring buffer, so reading allocates nothing but the
+ * frames it emits, and one read can emit several frames. Frame boundaries come from the lengths
+ * implied by each function code, as determined by {@link RtuFrameLengthResolver}s, and every
+ * frame's CRC is verified before it is emitted.
+ *
+ * <p>When the bytes at the start of the buffer are not a valid frame, because the CRC doesn't
+ * match, the implied length is impossible, or no length can be determined from {@link
+ * #MAX_FRAME_LENGTH} bytes, the reader slides forward one byte and tries again, until it finds the
+ * start of a valid frame. For a function code it has no length rule for, it looks for the shortest
+ * length at which the CRC matches.
+ *
+ * <p>Garbage can also imply a length longer than what has been received, e.g. a corrupted byte
+ * count. While waiting for the rest of such a frame, a valid frame that ends exactly where the
+ * received data ends is taken as the next frame, and the bytes before it are discarded, so a
+ * response that follows noise isn't held back until enough further bytes arrive.
+ *
+ * <p>Instances are safe for use by multiple threads, e.g. a transport's receive thread and a client
+ * resetting the reader after a timeout.
+ */
+public final class ModbusRtuFrameReader {
+
+  /** The maximum size of an RTU frame: unit id, PDU, and CRC. */
+  public static final int MAX_FRAME_LENGTH = 256;
+
+  /** The minimum size of an RTU frame: unit id, function code, and CRC. */
+  static final int MIN_FRAME_LENGTH = 4;
+
+  private static final int CAPACITY = 2 * MAX_FRAME_LENGTH;
+  private static final int MASK = CAPACITY - 1;
+
+  // frames starting in the buffer end less than CAPACITY + MAX_FRAME_LENGTH bytes after head
+  private static final int END_MASK = 2 * CAPACITY - 1;
+
+  private final byte[] ring = new byte[CAPACITY];
+  private final Crc16 crc16 = new Crc16();
+  private final IntUnaryOperator byteAt = this::byteAt;
+
+  // absolute read and write positions; the buffered bytes are [head, tail)
+  private long head = 0L;
+  private long tail = 0L;
+
+  // offset from head that byteAt() indexes from, while looking past the frame at head
+  private int base = 0;
+
+  private long discarded = 0L;
+
+  // the earliest start resolved for a frame ending at each absolute position, by position
+  private final long[] trailingStarts = new long[END_MASK + 1];
+  private final long[] trailingEnds = new long[END_MASK + 1];
+
+  // absolute position of the first frame start skipToTrailingFrame() has yet to resolve
+  private long resolvedTo = 0L;
+
+  private final RtuFrameLengthResolver lengthResolver;
+
+  private ModbusRtuFrameReader(RtuFrameLengthResolver lengthResolver) {
+    this.lengthResolver = lengthResolver;
+  }
+
+  /**
+   * Read {@code data}, from its position to its limit, and emit each complete frame to {@code
+   * frameConsumer}.
+   *
+   * <p>{@code data} is fully consumed. Bytes that don't complete a frame yet are buffered until the
+   * next read.
+   *
+   * @param data the received data.
+   * @param frameConsumer the {@link Consumer} complete frames are emitted to, on the calling
+   *     thread.
+   */
+  public synchronized void read(ByteBuffer data, Consumer<ModbusRtuFrame> frameConsumer) {
+    while (data.hasRemaining()) {
+      int free = CAPACITY - (int) (tail - head);
+      if (free == 0) {
+        // emitFrames() leaves less than a frame buffered; never spin if it somehow didn't
+        slide();
+        continue;
+      }
+      int length = Math.min(free, data.remaining());
+
+      int offset = (int) (tail & MASK);
+      int first = Math.min(length, CAPACITY - offset);
+      data.get(ring, offset, first);
+      data.get(ring, 0, length - first);
+      tail += length;
+
+      emitFrames(frameConsumer);
+    }
+  }
+
+  /**
+   * Close the buffered bytes as one frame, valid or not, and clear the buffer.
+   *
+   * <p>Used when something other than the data, e.g. a silent line, says the frame is over.
+   *
+   * @return the buffered bytes as a frame whose CRC has not been verified, or {@code null} if fewer
+   *     than 4 bytes were buffered.
+   */
+  public synchronized ModbusRtuFrame flush() {
+    int available = (int) (tail - head);
+
+    ModbusRtuFrame frame = null;
+    if (available >= MIN_FRAME_LENGTH) {
+      frame = copyFrame(Math.min(available, MAX_FRAME_LENGTH));
+    } else {
+      discarded += available;
+    }
+
+    head = tail;
+    return frame;
+  }
+
+  /** Discard any buffered bytes. */
+  public synchronized void reset() {
+    discarded += tail - head;
+    head = tail;
+  }
+
+  /**
+   * Get the number of bytes buffered that don't complete a frame yet.
+   *
+   * @return the number of bytes buffered that don't complete a frame yet.
+   */
+  public synchronized int getBufferedByteCount() {
+    return (int) (tail - head);
+  }
+
+  /**
+   * Get the number of bytes discarded while looking for the start of a valid frame.
+   *
+   * @return the number of bytes discarded while looking for the start of a valid frame, or by
+   *     {@link #reset()}.
+   */
+  public synchronized long getDiscardedByteCount() {
+    return discarded;
+  }
+
+  private void emitFrames(Consumer<ModbusRtuFrame> frameConsumer) {
+    while (true) {
+      int available = (int) (tail - head);
+      if (available < MIN_FRAME_LENGTH) {
+        return;
+      }
+
+      int length = lengthResolver.resolve(byteAt, available);
+
+      if (length == NEED_MORE) {
+        if (available < MAX_FRAME_LENGTH) {
+          return;
+        }
+        // a resolver that can't tell from a whole frame's worth of bytes never will
+        slide();
+        continue;
+      } else if (length == UNKNOWN) {
+        length = scanForCrc(available);
+
+        if (length == NEED_MORE) {
+          if (available < MAX_FRAME_LENGTH) {
+            if (skipToTrailingFrame(available)) {
+              continue;
+            }
+            return;
+          }
+          // no frame of any length starts here
+          slide();
+          continue;
+        }
+      } else if (length < MIN_FRAME_LENGTH || length > MAX_FRAME_LENGTH) {
+        slide();
+        continue;
+      } else if (available < length) {
+        if (skipToTrailingFrame(available)) {
+          continue;
+        }
+        return;
+      } else if (!crcMatches(length)) {
+        slide();
+        continue;
+      }
+
+      ModbusRtuFrame frame = copyFrame(length);
+      head += length;
+
+      frameConsumer.accept(frame);
+    }
+  }
+
+  /**
+   * Find the shortest buffered frame whose CRC matches.
+   *
+   * @return the shortest length at which the buffered bytes have a matching CRC, or {@link
+   *     RtuFrameLengthResolver#NEED_MORE} if there is none.
+   */
+  private int scanForCrc(int available) {
+    crc16.reset();
+    crc16.update(byteAt(0));
+    crc16.update(byteAt(1));
+
+    int limit = Math.min(available, MAX_FRAME_LENGTH);
+
+    for (int length = MIN_FRAME_LENGTH; length <= limit; length++) {
+      int reported = byteAt(length - 2) | (byteAt(length - 1) << 8);
+      if (crc16.getValue() == reported) {
+        return length;
+      }
+      crc16.update(byteAt(length - 2));
+    }
+
+    return NEED_MORE;
+  }
+
+  /**
+   * Look for a valid frame of known length that ends exactly at the end of the buffered bytes and
+   * starts after the frame at head, and discard the bytes before it if there is one.
+   *
+   * <p>A resolved length doesn't change as more bytes arrive, so each start is resolved once and
+   * remembered by where its frame ends; a read that leaves a long frame incomplete costs only the
+   * starts it added, not another pass over the whole buffer.
+   *
+   * @return {@code true} if bytes were discarded.
+   */
+  private boolean skipToTrailingFrame(int available) {
+    resolveTrailingStarts();
+
+    int slot = (int) (tail & END_MASK);
+    if (trailingEnds[slot] != tail) {
+      return false;
+    }
+
+    // usually the remembered start; only if it's gone or its CRC fails are later ones tried
+    int found = -1;
+
+    for (int offset = (int) Math.max(trailingStarts[slot] - head, 1);
+        offset <= available - MIN_FRAME_LENGTH && found < 0;
+        offset++) {
+      base = offset;
+      int length = available - offset;
+
+      if (length <= MAX_FRAME_LENGTH
+          && lengthResolver.resolve(byteAt, length) == length
+          && crcMatches(length)) {
+
+        found = offset;
+      }
+    }
+    base = 0;
+
+    if (found > 0) {
+      head += found;
+      discarded += found;
+      return true;
+    } else {
+      return false;
+    }
+  }
+
+  private void resolveTrailingStarts() {
+    long from = Math.max(resolvedTo, head + 1);
+    boolean resolvedAll = true;
+
+    for (long start = from; start <= tail - MIN_FRAME_LENGTH; start++) {
+      base = (int) (start - head);
+      int length = lengthResolver.resolve(byteAt, (int) (tail - start));
+
+      if (length == NEED_MORE) {
+        // resolve it again, and everything after it, once more bytes arrive
+        resolvedAll = false;
+      } else if (length >= MIN_FRAME_LENGTH && length <= MAX_FRAME_LENGTH) {
+        long end = start + length;
+        int slot = (int) (end & END_MASK);
+        if (trailingEnds[slot] != end || start < trailingStarts[slot]) {
+          trailingStarts[slot] = start;
+          trailingEnds[slot] = end;
+        }
+      }
+
+      if (resolvedAll) {
+        resolvedTo = start + 1;
+      }
+    }
+    base = 0;
+  }
+
+  private boolean crcMatches(int length) {
+    int offset = (int) ((head + base) & MASK);
+    int first = Math.min(length - 2, CAPACITY - offset);
+
+    crc16.reset();
+    crc16.update(ring, offset, first);
+    crc16.update(ring, 0, length - 2 - first);
+    int reported = byteAt(length - 2) | (byteAt(length - 1) << 8);
+
+    return crc16.getValue() == reported;
+  }
+
+  private void slide() {
+    head++;
+    discarded++;
+  }
+
+  private int byteAt(int index) {
+    return ring[(int) ((head + base + index) & MASK)] & 0xFF;
+  }
+
+  private ModbusRtuFrame copyFrame(int length) {
+    var bytes = new byte[length];
+
+    int offset = (int) (head & MASK);
+    int first = Math.min(length, CAPACITY - offset);
+    System.arraycopy(ring, offset, bytes, 0, first);
+    System.arraycopy(ring, 0, bytes, first, length - first);
+
+    return new ModbusRtuFrame(
+        bytes[0] & 0xFF,
+        ByteBuffer.wrap(bytes, 1, length - 3).slice(),
+        ByteBuffer.wrap(bytes, length - 2, 2).slice());
+  }
+
+  /**
+   * Create a {@link ModbusRtuFrameReader} for request frames, as received by a server.
+   *
+   * @return a new {@link ModbusRtuFrameReader} for request frames.
+   */
+  public static ModbusRtuFrameReader forRequests() {
+    return forRequests(List.of());
+  }
+
+  /**
+   * Create a {@link ModbusRtuFrameReader} for request frames, as received by a server, that
+   * consults {@code resolvers} before the built-in {@link RtuFrameLengthResolver#requests()}.
+   *
+   * @param resolvers the additional {@link RtuFrameLengthResolver}s, consulted in order.
+   * @return a new {@link ModbusRtuFrameReader} for request frames.
+   */
+  public static ModbusRtuFrameReader forRequests(List<RtuFrameLengthResolver> resolvers) {
+    return new ModbusRtuFrameReader(withFallback(resolvers, RtuFrameLengthResolver.requests()));
+  }
+
+  /**
+   * Create a {@link ModbusRtuFrameReader} for response frames, as received by a client.
+   *
+   * @return a new {@link ModbusRtuFrameReader} for response frames.
+   */
+  public static ModbusRtuFrameReader forResponses() {
+    return forResponses(List.of());
+  }
+
+  /**
+   * Create a {@link ModbusRtuFrameReader} for response frames, as received by a client, that
+   * consults {@code resolvers} before the built-in {@link RtuFrameLengthResolver#responses()}.
+   *
+   * @param resolvers the additional {@link RtuFrameLengthResolver}s, consulted in order.
+   * @return a new {@link ModbusRtuFrameReader} for response frames.
+   */
+  public static ModbusRtuFrameReader forResponses(List<RtuFrameLengthResolver> resolvers) {
+    return new ModbusRtuFrameReader(withFallback(resolvers, RtuFrameLengthResolver.responses()));
+  }
+
+  static RtuFrameLengthResolver withFallback(
+      List<RtuFrameLengthResolver> resolvers, RtuFrameLengthResolver fallback) {
+
+    if (resolvers.isEmpty()) {
+      return fallback;
+    }
+
+    var all = new ArrayList<>(resolvers);
+    all.add(fallback);
+    return RtuFrameLengthResolver.firstOf(all);
+  }
+}
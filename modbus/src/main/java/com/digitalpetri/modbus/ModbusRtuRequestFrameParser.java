@@ -1,11 +1,29 @@
 package com.digitalpetri.modbus;
 
 import java.nio.ByteBuffer;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicReference;
 
 public class ModbusRtuRequestFrameParser {
 
-  private final AtomicReference<ParserState> state = new AtomicReference<>(new Idle());
+  private final RtuFrameLengthResolver resolver;
+  private final AtomicReference<ParserState> state;
+
+  /** Create a parser that knows the function codes in the Modbus specification. */
+  public ModbusRtuRequestFrameParser() {
+    this(List.of());
+  }
+
+  /**
+   * Create a parser that consults {@code resolvers} before the built-in {@link
+   * RtuFrameLengthResolver#requests()}, e.g. to support vendor specific function codes.
+   *
+   * @param resolvers the additional {@link RtuFrameLengthResolver}s, consulted in order.
+   */
+  public ModbusRtuRequestFrameParser(List<RtuFrameLengthResolver> resolvers) {
+    resolver = ModbusRtuFrameReader.withFallback(resolvers, RtuFrameLengthResolver.requests());
+    state = new AtomicReference<>(new Idle(resolver));
+  }
 
   /**
    * Parse incoming data and return the updated {@link ParserState}.
@@ -28,7 +46,7 @@ public class ModbusRtuRequestFrameParser {
 
   /** Reset this parser to the {@link Idle} state. */
   public ParserState reset() {
-    return state.getAndSet(new Idle());
+    return state.getAndSet(new Idle(resolver));
   }
 
   public sealed interface ParserState permits Idle, Accumulating, Accumulated, ParseError {
@@ -37,17 +55,26 @@ public class ModbusRtuRequestFrameParser {
   }
 
   /** Waiting to receive initial data. */
-  public record Idle() implements ParserState {
+  public record Idle(RtuFrameLengthResolver resolver) implements ParserState {
+
+    public Idle() {
+      this(RtuFrameLengthResolver.requests());
+    }
 
     @Override
     public ParserState parse(byte[] data) {
-      var accumulating = new Accumulating(ByteBuffer.allocate(256), -1);
+      var accumulating = new Accumulating(ByteBuffer.allocate(256), -1, resolver);
 
       return accumulating.parse(data);
     }
   }
 
-  public record Accumulating(ByteBuffer buffer, int expectedLength) implements ParserState {
+  public record Accumulating(ByteBuffer buffer, int expectedLength, RtuFrameLengthResolver resolver)
+      implements ParserState {
+
+    public Accumulating(ByteBuffer buffer, int expectedLength) {
+      this(buffer, expectedLength, RtuFrameLengthResolver.requests());
+    }
 
     @Override
     public ParserState parse(byte[] data) {
@@ -55,66 +82,24 @@ public class ModbusRtuRequestFrameParser {
 
       int readableBytes = buffer.position();
 
-      if (readableBytes < 3 || readableBytes < expectedLength) {
+      if (readableBytes < 4 || readableBytes < expectedLength) {
         return this;
       }
 
-      byte fcb = buffer.get(1);
-
-      switch (fcb & 0xFF) {
-        case 0x01, 0x02, 0x03, 0x04, 0x05, 0x06 -> {
-          int fixedLength = 1 + (1 + 2 + 2) + 2;
-          if (readableBytes >= fixedLength) {
-            ModbusRtuFrame frame = readFrame(buffer.flip(), fixedLength);
-            return new Accumulated(frame);
-          } else {
-            return new Accumulating(buffer, fixedLength);
-          }
-        }
-
-        case 0x0F, 0x10 -> {
-          int minimum = 1 + (1 + 2 + 2 + 1) + 2;
-          if (readableBytes >= minimum) {
-            int byteCount = buffer.get(6);
-            if (readableBytes >= minimum + byteCount) {
-              ModbusRtuFrame frame = readFrame(buffer.flip(), minimum + byteCount);
-              return new Accumulated(frame);
-            } else {
-              return new Accumulating(buffer, minimum + byteCount);
-            }
-          } else {
-            return new Accumulating(buffer, minimum);
-          }
-        }
-
-        case 0x16 -> {
-          int fixedLength = 1 + (1 + 2 + 2 + 2) + 2;
-          if (readableBytes >= fixedLength) {
-            ModbusRtuFrame frame = readFrame(buffer.flip(), fixedLength);
-            return new Accumulated(frame);
-          } else {
-            return new Accumulating(buffer, fixedLength);
-          }
-        }
-
-        case 0x17 -> {
-          int minimum = 1 + (1 + 2 + 2 + 2 + 2 + 1) + 2;
-          if (readableBytes >= minimum) {
-            int byteCount = buffer.get(10);
-            if (readableBytes >= minimum + byteCount) {
-              ModbusRtuFrame frame = readFrame(buffer.flip(), minimum + byteCount);
-              return new Accumulated(frame);
-            } else {
-              return new Accumulating(buffer, minimum + byteCount);
-            }
-          } else {
-            return new Accumulating(buffer, minimum);
-          }
-        }
-
-        default -> {
-          return new ParseError(buffer, "unsupported function code: 0x%02X".formatted(fcb));
-        }
+      int length = resolver.resolve(index -> buffer.get(index) & 0xFF, readableBytes);
+
+      if (length == RtuFrameLengthResolver.UNKNOWN) {
+        byte fcb = buffer.get(1);
+        return new ParseError(buffer, "unsupported function code: 0x%02X".formatted(fcb));
+      } else if (length == RtuFrameLengthResolver.NEED_MORE) {
+        return this;
+      } else if (length < 4 || length > buffer.capacity()) {
+        return new ParseError(buffer, "invalid frame length: " + length);
+      } else if (readableBytes >= length) {
+        ModbusRtuFrame frame = readFrame(buffer.flip(), length);
+        return new Accumulated(frame);
+      } else {
+        return new Accumulating(buffer, length, resolver);
       }
     }
 
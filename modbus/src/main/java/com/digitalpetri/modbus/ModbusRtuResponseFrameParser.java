@@ -2,12 +2,30 @@ package com.digitalpetri.modbus;
 
 import com.digitalpetri.modbus.internal.util.Hex;
 import java.nio.ByteBuffer;
+import java.util.List;
 import java.util.StringJoiner;
 import java.util.concurrent.atomic.AtomicReference;
 
 public class ModbusRtuResponseFrameParser {
 
-  private final AtomicReference<ParserState> state = new AtomicReference<>(new Idle());
+  private final RtuFrameLengthResolver resolver;
+  private final AtomicReference<ParserState> state;
+
+  /** Create a parser that knows the function codes in the Modbus specification. */
+  public ModbusRtuResponseFrameParser() {
+    this(List.of());
+  }
+
+  /**
+   * Create a parser that consults {@code resolvers} before the built-in {@link
+   * RtuFrameLengthResolver#responses()}, e.g. to support vendor specific function codes.
+   *
+   * @param resolvers the additional {@link RtuFrameLengthResolver}s, consulted in order.
+   */
+  public ModbusRtuResponseFrameParser(List<RtuFrameLengthResolver> resolvers) {
+    resolver = ModbusRtuFrameReader.withFallback(resolvers, RtuFrameLengthResolver.responses());
+    state = new AtomicReference<>(new Idle(resolver));
+  }
 
   /**
    * Parse incoming data and return the updated {@link ParserState}.
@@ -30,7 +48,7 @@ public class ModbusRtuResponseFrameParser {
 
   /** Reset this parser to the {@link Idle} state. */
   public ParserState reset() {
-    return state.getAndSet(new Idle());
+    return state.getAndSet(new Idle(resolver));
   }
 
   public sealed interface ParserState permits Idle, Accumulating, Accumulated, ParseError {
@@ -38,12 +56,20 @@ public class ModbusRtuResponseFrameParser {
     ParserState parse(byte[] data);
   }
 
-  /** Waiting to receive initial data. */
-  public record Idle() implements ParserState {
+  /**
+   * Waiting to receive initial data.
+   *
+   * @param resolver the {@link RtuFrameLengthResolver} that determines the expected total length.
+   */
+  public record Idle(RtuFrameLengthResolver resolver) implements ParserState {
+
+    public Idle() {
+      this(RtuFrameLengthResolver.responses());
+    }
 
     @Override
     public ParserState parse(byte[] data) {
-      var accumulating = new Accumulating(ByteBuffer.allocate(256), -1);
+      var accumulating = new Accumulating(ByteBuffer.allocate(256), -1, resolver);
 
       return accumulating.parse(data);
     }
@@ -54,8 +80,14 @@ public class ModbusRtuResponseFrameParser {
    *
    * @param buffer the buffer to accumulate data in.
    * @param expectedLength the expected total length; -1 if not yet known.
+   * @param resolver the {@link RtuFrameLengthResolver} that determines the expected total length.
    */
-  public record Accumulating(ByteBuffer buffer, int expectedLength) implements ParserState {
+  public record Accumulating(ByteBuffer buffer, int expectedLength, RtuFrameLengthResolver resolver)
+      implements ParserState {
+
+    public Accumulating(ByteBuffer buffer, int expectedLength) {
+      this(buffer, expectedLength, RtuFrameLengthResolver.responses());
+    }
 
     @Override
     public ParserState parse(byte[] data) {
@@ -63,56 +95,24 @@ public class ModbusRtuResponseFrameParser {
 
       int readableBytes = buffer.position();
 
-      if (readableBytes < 3 || readableBytes < expectedLength) {
+      if (readableBytes < 4 || readableBytes < expectedLength) {
         return this;
       }
 
-      byte fcb = buffer.get(1);
-
-      switch (fcb & 0xFF) {
-        case 0x01, 0x02, 0x03, 0x04, 0x17 -> {
-          int count = buffer.get(2) & 0xFF;
-          int calculatedLength = count + 5;
-
-          if (readableBytes >= calculatedLength) {
-            ModbusRtuFrame frame = readFrame(buffer.flip(), calculatedLength);
-            return new Accumulated(frame);
-          } else {
-            return new Accumulating(buffer, calculatedLength);
-          }
-        }
-        case 0x05, 0x06, 0x0F, 0x10 -> {
-          // the body of each of these is 4 bytes, so we know the total length
-          int fixedLength = 8;
-          if (readableBytes >= fixedLength) {
-            ModbusRtuFrame frame = readFrame(buffer.flip(), fixedLength);
-            return new Accumulated(frame);
-          } else {
-            return new Accumulating(buffer, fixedLength);
-          }
-        }
-        case 0x16 -> {
-          int fixedLength = 10;
-          if (readableBytes >= fixedLength) {
-            ModbusRtuFrame frame = readFrame(buffer.flip(), fixedLength);
-            return new Accumulated(frame);
-          } else {
-            return new Accumulating(buffer, fixedLength);
-          }
-        }
-        case 0x81, 0x82, 0x83, 0x84, 0x85, 0x86, 0x8F, 0x90, 0x96 -> {
-          // error response for one of the supported function codes
-          int fixedLength = 5;
-          if (readableBytes >= fixedLength) {
-            ModbusRtuFrame frame = readFrame(buffer.flip(), fixedLength);
-            return new Accumulated(frame);
-          } else {
-            return new Accumulating(buffer, fixedLength);
-          }
-        }
-        default -> {
-          return new ParseError(buffer, "unsupported function code: 0x%02X".formatted(fcb));
-        }
+      int length = resolver.resolve(index -> buffer.get(index) & 0xFF, readableBytes);
+
+      if (length == RtuFrameLengthResolver.UNKNOWN) {
+        byte fcb = buffer.get(1);
+        return new ParseError(buffer, "unsupported function code: 0x%02X".formatted(fcb));
+      } else if (length == RtuFrameLengthResolver.NEED_MORE) {
+        return this;
+      } else if (length < 4 || length > buffer.capacity()) {
+        return new ParseError(buffer, "invalid frame length: " + length);
+      } else if (readableBytes >= length) {
+        ModbusRtuFrame frame = readFrame(buffer.flip(), length);
+        return new Accumulated(frame);
+      } else {
+        return new Accumulating(buffer, length, resolver);
       }
     }
 
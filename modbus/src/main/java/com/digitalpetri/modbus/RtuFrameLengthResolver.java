@@ -0,0 +1,200 @@
+package com.digitalpetri.modbus;
+
+import java.util.List;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Determines the total length of an RTU frame, unit id through CRC, from its first bytes.
+ *
+ * <p>RTU frames carry no length field, so a receiver has to know how long the frame for each
+ * function code is. {@link #requests()} and {@link #responses()} know the function codes in the
+ * Modbus Application Protocol specification. Resolvers for other function codes, e.g. vendor
+ * specific ones, are registered with a transport and consulted before the built-in rules.
+ *
+ * @see ModbusRtuFrameReader
+ */
+@FunctionalInterface
+public interface RtuFrameLengthResolver {
+
+  /** Returned when more bytes are needed to determine the length. */
+  int NEED_MORE = 0;
+
+  /** Returned when the resolver has no length rule for the function code. */
+  int UNKNOWN = -1;
+
+  /**
+   * Determine the total length of the frame at the start of the buffered bytes.
+   *
+   * @param byteAt returns the unsigned byte at an index relative to the start of the frame; the
+   *     unit id is at index 0 and the function code at index 1.
+   * @param available the number of bytes buffered, at least 4. Indices at or beyond this must not
+   *     be read.
+   * @return the total frame length, {@link #NEED_MORE}, or {@link #UNKNOWN}.
+   */
+  int resolve(IntUnaryOperator byteAt, int available);
+
+  /**
+   * Create a resolver for frames of {@code functionCode} that are always {@code length} bytes.
+   *
+   * @param functionCode the function code.
+   * @param length the total frame length, unit id through CRC.
+   * @return a new {@link RtuFrameLengthResolver}.
+   */
+  static RtuFrameLengthResolver fixed(int functionCode, int length) {
+    checkFunctionCode(functionCode);
+    if (length < 4 || length > ModbusRtuFrameReader.MAX_FRAME_LENGTH) {
+      throw new IllegalArgumentException("length must be in [4, 256]");
+    }
+
+    return (byteAt, available) -> byteAt.applyAsInt(1) == functionCode ? length : UNKNOWN;
+  }
+
+  /**
+   * Create a resolver for frames of {@code functionCode} whose length is given by a byte count
+   * field, which counts the bytes that follow it up to the CRC.
+   *
+   * <p>For example, a Read Holding Registers response has a 1 byte count at index 2, and a Read
+   * FIFO Queue response a 2 byte count at index 2.
+   *
+   * @param functionCode the function code.
+   * @param index the index of the byte count in the frame, at least 2.
+   * @param size the size of the byte count, 1 or 2 bytes, big-endian.
+   * @return a new {@link RtuFrameLengthResolver}.
+   */
+  static RtuFrameLengthResolver byteCount(int functionCode, int index, int size) {
+    checkFunctionCode(functionCode);
+    if (index < 2 || index > ModbusRtuFrameReader.MAX_FRAME_LENGTH - 4) {
+      throw new IllegalArgumentException("index must be in [2, 252]");
+    }
+    if (size != 1 && size != 2) {
+      throw new IllegalArgumentException("size must be 1 or 2");
+    }
+
+    return (byteAt, available) -> {
+      if (byteAt.applyAsInt(1) != functionCode) {
+        return UNKNOWN;
+      } else {
+        return byteCountLength(byteAt, available, index, size);
+      }
+    };
+  }
+
+  /**
+   * Create a resolver that consults each of {@code resolvers} in order, and returns the first
+   * result that isn't {@link #UNKNOWN}.
+   *
+   * @param resolvers the resolvers to consult.
+   * @return a new {@link RtuFrameLengthResolver}.
+   */
+  static RtuFrameLengthResolver firstOf(List<RtuFrameLengthResolver> resolvers) {
+    var array = resolvers.toArray(new RtuFrameLengthResolver[0]);
+
+    return (byteAt, available) -> {
+      for (RtuFrameLengthResolver resolver : array) {
+        int length = resolver.resolve(byteAt, available);
+        if (length != UNKNOWN) {
+          return length;
+        }
+      }
+      return UNKNOWN;
+    };
+  }
+
+  /**
+   * Get a resolver for request frames of the function codes in the Modbus Application Protocol
+   * specification.
+   *
+   * <p>Encapsulated Interface Transport (0x2B) requests are resolved for Read Device Identification
+   * only.
+   *
+   * @return a resolver for request frames.
+   */
+  static RtuFrameLengthResolver requests() {
+    return (byteAt, available) ->
+        switch (byteAt.applyAsInt(1)) {
+          case 0x01, 0x02, 0x03, 0x04, 0x05, 0x06, 0x08 -> 1 + (1 + 2 + 2) + 2;
+          case 0x07, 0x0B, 0x0C, 0x11 -> 1 + 1 + 2;
+          case 0x0F, 0x10 -> byteCountLength(byteAt, available, 6, 1);
+          case 0x14, 0x15 -> byteCountLength(byteAt, available, 2, 1);
+          case 0x16 -> 1 + (1 + 2 + 2 + 2) + 2;
+          case 0x17 -> byteCountLength(byteAt, available, 10, 1);
+          case 0x18 -> 1 + (1 + 2) + 2;
+          case 0x2B -> byteAt.applyAsInt(2) == 0x0E ? 1 + (1 + 1 + 1 + 1) + 2 : UNKNOWN;
+          default -> UNKNOWN;
+        };
+  }
+
+  /**
+   * Get a resolver for response frames, including exception responses, of the function codes in the
+   * Modbus Application Protocol specification.
+   *
+   * <p>Encapsulated Interface Transport (0x2B) responses are resolved for Read Device
+   * Identification only.
+   *
+   * @return a resolver for response frames.
+   */
+  static RtuFrameLengthResolver responses() {
+    return (byteAt, available) -> {
+      int functionCode = byteAt.applyAsInt(1);
+
+      if (functionCode >= 0x80) {
+        // exception response: function code and exception code
+        return 1 + (1 + 1) + 2;
+      }
+
+      return switch (functionCode) {
+        case 0x01, 0x02, 0x03, 0x04, 0x0C, 0x11, 0x14, 0x15, 0x17 ->
+            byteCountLength(byteAt, available, 2, 1);
+        case 0x05, 0x06, 0x08, 0x0B, 0x0F, 0x10 -> 1 + (1 + 2 + 2) + 2;
+        case 0x07 -> 1 + (1 + 1) + 2;
+        case 0x16 -> 1 + (1 + 2 + 2 + 2) + 2;
+        case 0x18 -> byteCountLength(byteAt, available, 2, 2);
+        case 0x2B ->
+            byteAt.applyAsInt(2) == 0x0E ? deviceIdentificationLength(byteAt, available) : UNKNOWN;
+        default -> UNKNOWN;
+      };
+    };
+  }
+
+  private static int byteCountLength(IntUnaryOperator byteAt, int available, int index, int size) {
+    if (available < index + size) {
+      return NEED_MORE;
+    }
+
+    int count = byteAt.applyAsInt(index);
+    if (size == 2) {
+      count = (count << 8) | byteAt.applyAsInt(index + 1);
+    }
+
+    return index + size + count + 2;
+  }
+
+  /**
+   * A Read Device Identification response is a header followed by a list of objects, each an id, a
+   * length, and a value, so its length is found by walking the object headers.
+   */
+  private static int deviceIdentificationLength(IntUnaryOperator byteAt, int available) {
+    // unit id, function code, MEI type, read device id code, conformity level, more follows,
+    // next object id, number of objects
+    int index = 8;
+    if (available < index) {
+      return NEED_MORE;
+    }
+
+    int objects = byteAt.applyAsInt(7);
+    for (int i = 0; i < objects && index < ModbusRtuFrameReader.MAX_FRAME_LENGTH; i++) {
+      if (available < index + 2) {
+        return NEED_MORE;
+      }
+      index += 2 + byteAt.applyAsInt(index + 1);
+    }
+
+    return index + 2;
+  }
+
+  private static void checkFunctionCode(int functionCode) {
+    if (functionCode < 0 || functionCode > 0xFF) {
+      throw new IllegalArgumentException("functionCode must be in [0, 255]");
+    }
+  }
+}
@@ -0,0 +1,418 @@
+package com.digitalpetri.modbus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link TimeoutScheduler} backed by a hashed timing wheel.
+ *
+ * <p>Scheduling and cancelling a timeout are O(1) and lock-free: {@link #newTimeout(Task, long,
+ * TimeUnit)} appends the timeout to a concurrent queue, and {@link TimeoutHandle#cancel()} is a
+ * single compare-and-set on the timeout itself. A worker thread moves new timeouts into wheel
+ * buckets once per tick, unlinks cancelled ones, and hands every timeout that expired in the tick
+ * to the executor as one batch.
+ *
+ * <p>Timeouts fire on a tick boundary, so they may run up to one tick duration late. Timeouts
+ * longer than one revolution of the wheel wait in their bucket for the remaining rounds.
+ */
+public class WheelTimeoutScheduler implements TimeoutScheduler {
+
+  /** Maximum number of new timeouts moved into the wheel per tick, so the worker can't starve. */
+  private static final int MAX_TRANSFERS_PER_TICK = 100_000;
+
+  private static final int STATE_INIT = 0;
+  private static final int STATE_STARTED = 1;
+  private static final int STATE_STOPPED = 2;
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(WheelTimeoutScheduler.class);
+
+  private final Queue<WheelTimeout> pending = new ConcurrentLinkedQueue<>();
+  private final Queue<WheelTimeout> cancelled = new ConcurrentLinkedQueue<>();
+
+  private final AtomicInteger state = new AtomicInteger(STATE_INIT);
+  private final CountDownLatch startLatch = new CountDownLatch(1);
+
+  private volatile long startNanos = 0L;
+
+  private final List<WheelTimeout> expired = new ArrayList<>();
+
+  // only accessed by the thread advancing the wheel
+  private long tick = 0L;
+
+  private final Executor executor;
+  private final long tickNanos;
+  private final Bucket[] wheel;
+  private final int mask;
+  private final LongSupplier nanoTime;
+  private final Thread worker;
+
+  /**
+   * Create a {@link WheelTimeoutScheduler} with a 10 millisecond tick and 512 buckets.
+   *
+   * @param executor the {@link Executor} expired timeouts are run on.
+   */
+  public WheelTimeoutScheduler(Executor executor) {
+    this(executor, 10, TimeUnit.MILLISECONDS, 512);
+  }
+
+  /**
+   * Create a {@link WheelTimeoutScheduler}.
+   *
+   * @param executor the {@link Executor} expired timeouts are run on.
+   * @param tickDuration the duration of one tick.
+   * @param unit the unit of {@code tickDuration}.
+   * @param ticksPerWheel the number of buckets in the wheel, rounded up to a power of 2.
+   */
+  public WheelTimeoutScheduler(
+      Executor executor, long tickDuration, TimeUnit unit, int ticksPerWheel) {
+
+    this(executor, unit.toNanos(tickDuration), ticksPerWheel, System::nanoTime, true);
+  }
+
+  /**
+   * Create a {@link WheelTimeoutScheduler} that reads time from {@code nanoTime}.
+   *
+   * <p>Without a worker thread the wheel only moves when {@link #advanceTick()} is called, which
+   * lets tests step through ticks deterministically.
+   *
+   * @param executor the {@link Executor} expired timeouts are run on.
+   * @param tickNanos the duration of one tick, in nanoseconds.
+   * @param ticksPerWheel the number of buckets in the wheel, rounded up to a power of 2.
+   * @param nanoTime the source of the current time, in nanoseconds.
+   * @param startWorker whether to start a worker thread that advances the wheel every tick.
+   */
+  WheelTimeoutScheduler(
+      Executor executor,
+      long tickNanos,
+      int ticksPerWheel,
+      LongSupplier nanoTime,
+      boolean startWorker) {
+
+    if (executor == null) {
+      throw new NullPointerException("executor must not be null");
+    }
+    if (tickNanos <= 0) {
+      throw new IllegalArgumentException("tickDuration must be > 0");
+    }
+    if (ticksPerWheel < 1 || ticksPerWheel > 1 << 30) {
+      throw new IllegalArgumentException("ticksPerWheel must be >= 1 and <= 2^30");
+    }
+
+    this.executor = executor;
+    this.tickNanos = tickNanos;
+    this.nanoTime = nanoTime;
+
+    int size = Integer.highestOneBit(ticksPerWheel);
+    if (size < ticksPerWheel) {
+      size <<= 1;
+    }
+    this.wheel = new Bucket[size];
+    for (int i = 0; i < size; i++) {
+      wheel[i] = new Bucket();
+    }
+    this.mask = size - 1;
+
+    this.worker = startWorker ? THREAD_FACTORY.newThread(this::run) : null;
+  }
+
+  @Override
+  public TimeoutHandle newTimeout(Task task, long delay, TimeUnit unit) {
+    start();
+
+    long deadline = nanoTime.getAsLong() + unit.toNanos(delay) - startNanos;
+    if (delay > 0 && deadline < 0) {
+      deadline = Long.MAX_VALUE;
+    }
+
+    var timeout = new WheelTimeout(task, deadline);
+    pending.add(timeout);
+    return timeout;
+  }
+
+  /**
+   * Stop this scheduler. Timeouts that haven't expired yet will never run.
+   *
+   * <p>{@link #newTimeout(Task, long, TimeUnit)} throws {@link IllegalStateException} after this
+   * scheduler is stopped.
+   */
+  public void stop() {
+    int previous = state.getAndSet(STATE_STOPPED);
+
+    if (previous == STATE_STARTED && worker != null) {
+      worker.interrupt();
+    } else if (previous == STATE_INIT) {
+      startLatch.countDown();
+    }
+  }
+
+  private void start() {
+    switch (state.get()) {
+      case STATE_INIT -> {
+        if (state.compareAndSet(STATE_INIT, STATE_STARTED)) {
+          if (worker != null) {
+            worker.start();
+          } else {
+            startClock();
+          }
+        }
+      }
+      case STATE_STARTED -> {}
+      default -> throw new IllegalStateException("scheduler stopped");
+    }
+
+    while (startNanos == 0L && state.get() == STATE_STARTED) {
+      try {
+        startLatch.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      }
+    }
+  }
+
+  /**
+   * Process the current tick now, as the worker thread would at its end, and move on to the next.
+   *
+   * <p>Only for schedulers created without a worker thread.
+   */
+  void advanceTick() {
+    if (worker != null) {
+      throw new IllegalStateException("wheel is advanced by its worker thread");
+    }
+
+    start();
+    processTick(nanoTime.getAsLong() - startNanos);
+  }
+
+  private void startClock() {
+    long start = nanoTime.getAsLong();
+    startNanos = start != 0L ? start : 1L;
+    startLatch.countDown();
+  }
+
+  private void run() {
+    startClock();
+
+    while (state.get() == STATE_STARTED) {
+      long now = awaitTick(tick);
+      if (now < 0) {
+        break;
+      }
+
+      processTick(now);
+    }
+  }
+
+  private void processTick(long now) {
+    removeCancelled();
+    transferPending(tick);
+    wheel[(int) (tick & mask)].expire(now, expired);
+
+    if (!expired.isEmpty()) {
+      dispatch(new ArrayList<>(expired));
+      expired.clear();
+    }
+
+    tick++;
+  }
+
+  /**
+   * Wait for the end of {@code tick}.
+   *
+   * @return the current time relative to {@link #startNanos}, or -1 if this scheduler stopped.
+   */
+  private long awaitTick(long tick) {
+    long deadline = tickNanos * (tick + 1);
+
+    while (true) {
+      long now = nanoTime.getAsLong() - startNanos;
+      long remaining = deadline - now;
+
+      if (remaining <= 0) {
+        return now;
+      }
+      if (state.get() != STATE_STARTED) {
+        return -1;
+      }
+
+      LockSupport.parkNanos(this, remaining);
+    }
+  }
+
+  private void removeCancelled() {
+    WheelTimeout timeout;
+    while ((timeout = cancelled.poll()) != null) {
+      if (timeout.bucket != null) {
+        timeout.bucket.remove(timeout);
+      }
+    }
+  }
+
+  private void transferPending(long tick) {
+    for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+      WheelTimeout timeout = pending.poll();
+      if (timeout == null) {
+        break;
+      }
+      if (timeout.state == WheelTimeout.ST_CANCELLED) {
+        continue;
+      }
+
+      long ticks = timeout.deadline / tickNanos;
+      timeout.remainingRounds = (ticks - tick) / wheel.length;
+
+      // a deadline already in the past is expired on this tick
+      wheel[(int) (Math.max(ticks, tick) & mask)].add(timeout);
+    }
+  }
+
+  private void dispatch(List<WheelTimeout> expired) {
+    Runnable batch =
+        () -> {
+          for (WheelTimeout timeout : expired) {
+            try {
+              timeout.task.run(timeout);
+            } catch (Throwable t) {
+              LOGGER.warn("Timeout task threw an exception", t);
+            }
+          }
+        };
+
+    try {
+      executor.execute(batch);
+    } catch (RejectedExecutionException e) {
+      LOGGER.warn("Executor rejected {} expired timeouts", expired.size(), e);
+    }
+  }
+
+  private static final ThreadFactory THREAD_FACTORY =
+      new ThreadFactory() {
+        private final AtomicInteger threadNumber = new AtomicInteger(0);
+
+        @Override
+        public Thread newThread(Runnable r) {
+          Thread thread = new Thread(r, "modbus-timeout-wheel-" + threadNumber.getAndIncrement());
+          thread.setDaemon(true);
+          return thread;
+        }
+      };
+
+  private final class WheelTimeout implements TimeoutHandle {
+
+    static final int ST_PENDING = 0;
+    static final int ST_CANCELLED = 1;
+    static final int ST_EXPIRED = 2;
+
+    private static final AtomicIntegerFieldUpdater<WheelTimeout> STATE =
+        AtomicIntegerFieldUpdater.newUpdater(WheelTimeout.class, "state");
+
+    private final Task task;
+    private final long deadline;
+
+    private volatile int state = ST_PENDING;
+
+    // only accessed by the thread advancing the wheel
+    long remainingRounds;
+    Bucket bucket;
+    WheelTimeout next;
+    WheelTimeout prev;
+
+    WheelTimeout(Task task, long deadline) {
+      this.task = task;
+      this.deadline = deadline;
+    }
+
+    @Override
+    public void cancel() {
+      if (STATE.compareAndSet(this, ST_PENDING, ST_CANCELLED)) {
+        cancelled.add(this);
+      }
+    }
+
+    @Override
+    public boolean isCancelled() {
+      return state == ST_CANCELLED;
+    }
+
+    boolean expire() {
+      return STATE.compareAndSet(this, ST_PENDING, ST_EXPIRED);
+    }
+  }
+
+  /** A doubly-linked list of the timeouts in one wheel slot; only used to advance the wheel. */
+  private static final class Bucket {
+
+    private WheelTimeout head;
+    private WheelTimeout tail;
+
+    void add(WheelTimeout timeout) {
+      timeout.bucket = this;
+
+      if (head == null) {
+        head = tail = timeout;
+      } else {
+        tail.next = timeout;
+        timeout.prev = tail;
+        tail = timeout;
+      }
+    }
+
+    void remove(WheelTimeout timeout) {
+      WheelTimeout next = timeout.next;
+
+      if (timeout.prev != null) {
+        timeout.prev.next = next;
+      }
+      if (timeout.next != null) {
+        timeout.next.prev = timeout.prev;
+      }
+      if (timeout == head) {
+        head = next;
+      }
+      if (timeout == tail) {
+        tail = timeout.prev;
+      }
+
+      timeout.prev = null;
+      timeout.next = null;
+      timeout.bucket = null;
+    }
+
+    /**
+     * Remove every timeout due at {@code now} and add the ones not cancelled to {@code expired}.
+     */
+    void expire(long now, List<WheelTimeout> expired) {
+      WheelTimeout timeout = head;
+
+      while (timeout != null) {
+        WheelTimeout next = timeout.next;
+
+        if (timeout.remainingRounds <= 0 && timeout.deadline <= now) {
+          remove(timeout);
+          if (timeout.expire()) {
+            expired.add(timeout);
+          }
+        } else if (timeout.isCancelled()) {
+          remove(timeout);
+        } else {
+          timeout.remainingRounds--;
+        }
+
+        timeout = next;
+      }
+    }
+  }
+}
@@ -0,0 +1,192 @@
+package com.digitalpetri.modbus.client;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * A {@link RequestTimeoutPolicy} that derives each timeout from the measured round-trip times of
+ * earlier requests with the same unit id and function code.
+ *
+ * <p>Timeouts are computed the way TCP computes its retransmission timeout (RFC 6298): a smoothed
+ * round-trip time and round-trip time variation are updated with every response, and the timeout is
+ * the smoothed round-trip time plus four times the variation. Each timeout doubles the next timeout
+ * until a response arrives again, so a device that has become slower is not timed out forever.
+ * Timeouts are always kept between the configured floor and ceiling.
+ */
+public class AdaptiveTimeoutPolicy implements RequestTimeoutPolicy {
+
+  private final Map<Integer, Estimator> estimators = new ConcurrentHashMap<>();
+
+  private final long initialTimeoutNanos;
+  private final long minTimeoutNanos;
+  private final long maxTimeoutNanos;
+
+  private AdaptiveTimeoutPolicy(Duration initialTimeout, Duration minTimeout, Duration maxTimeout) {
+    this.initialTimeoutNanos = initialTimeout.toNanos();
+    this.minTimeoutNanos = minTimeout.toNanos();
+    this.maxTimeoutNanos = maxTimeout.toNanos();
+  }
+
+  @Override
+  public Duration getTimeout(int unitId, int functionCode) {
+    Estimator estimator = estimators.get(key(unitId, functionCode));
+
+    return Duration.ofNanos(estimator != null ? estimator.timeout() : initialTimeoutNanos);
+  }
+
+  @Override
+  public void onResponse(int unitId, int functionCode, Duration roundTripTime) {
+    estimator(unitId, functionCode).sample(roundTripTime.toNanos());
+  }
+
+  @Override
+  public void onTimeout(int unitId, int functionCode) {
+    estimator(unitId, functionCode).backOff();
+  }
+
+  private Estimator estimator(int unitId, int functionCode) {
+    return estimators.computeIfAbsent(key(unitId, functionCode), k -> new Estimator());
+  }
+
+  private static int key(int unitId, int functionCode) {
+    return (unitId & 0xFF) << 8 | (functionCode & 0xFF);
+  }
+
+  /**
+   * Create a new {@link AdaptiveTimeoutPolicy}.
+   *
+   * @param configure a callback that accepts a {@link Builder} used to configure the policy.
+   * @return a new {@link AdaptiveTimeoutPolicy}.
+   */
+  public static AdaptiveTimeoutPolicy create(Consumer<Builder> configure) {
+    var builder = new Builder();
+    configure.accept(builder);
+    return builder.build();
+  }
+
+  public static class Builder {
+
+    /**
+     * The timeout used before any response has been received from a unit id and function code.
+     *
+     * <p>Defaults to 5 seconds.
+     */
+    public Duration initialTimeout = Duration.ofSeconds(5);
+
+    /**
+     * The smallest timeout ever used.
+     *
+     * <p>Defaults to 50 milliseconds.
+     */
+    public Duration minTimeout = Duration.ofMillis(50);
+
+    /**
+     * The largest timeout ever used.
+     *
+     * <p>Defaults to 10 seconds.
+     */
+    public Duration maxTimeout = Duration.ofSeconds(10);
+
+    /**
+     * Set the timeout used before any response has been received from a unit id and function code.
+     *
+     * @param initialTimeout the initial timeout.
+     * @return this {@link Builder}.
+     */
+    public Builder setInitialTimeout(Duration initialTimeout) {
+      this.initialTimeout = initialTimeout;
+      return this;
+    }
+
+    /**
+     * Set the smallest timeout ever used.
+     *
+     * @param minTimeout the timeout floor.
+     * @return this {@link Builder}.
+     */
+    public Builder setMinTimeout(Duration minTimeout) {
+      this.minTimeout = minTimeout;
+      return this;
+    }
+
+    /**
+     * Set the largest timeout ever used.
+     *
+     * @param maxTimeout the timeout ceiling.
+     * @return this {@link Builder}.
+     */
+    public Builder setMaxTimeout(Duration maxTimeout) {
+      this.maxTimeout = maxTimeout;
+      return this;
+    }
+
+    /**
+     * Build an {@link AdaptiveTimeoutPolicy} from this builder.
+     *
+     * @return a new {@link AdaptiveTimeoutPolicy}.
+     */
+    public AdaptiveTimeoutPolicy build() {
+      if (initialTimeout == null) {
+        throw new NullPointerException("initialTimeout must not be null");
+      }
+      if (minTimeout == null) {
+        throw new NullPointerException("minTimeout must not be null");
+      }
+      if (maxTimeout == null) {
+        throw new NullPointerException("maxTimeout must not be null");
+      }
+      if (minTimeout.isZero() || minTimeout.isNegative()) {
+        throw new IllegalArgumentException("minTimeout must be > 0");
+      }
+      if (maxTimeout.compareTo(minTimeout) < 0) {
+        throw new IllegalArgumentException("maxTimeout must be >= minTimeout");
+      }
+      if (initialTimeout.compareTo(minTimeout) < 0 || initialTimeout.compareTo(maxTimeout) > 0) {
+        throw new IllegalArgumentException(
+            "initialTimeout must be >= minTimeout and <= maxTimeout");
+      }
+
+      return new AdaptiveTimeoutPolicy(initialTimeout, minTimeout, maxTimeout);
+    }
+  }
+
+  /** Round-trip time estimator for one unit id and function code. */
+  private class Estimator {
+
+    // guarded by this; smoothed round-trip time and variation
+    private boolean sampled = false;
+    private long srtt = 0L;
+    private long rttvar = 0L;
+
+    // guarded by this; the current timeout, including any backoff
+    private long timeout = initialTimeoutNanos;
+
+    synchronized long timeout() {
+      return timeout;
+    }
+
+    synchronized void sample(long rtt) {
+      if (!sampled) {
+        sampled = true;
+        srtt = rtt;
+        rttvar = rtt / 2;
+      } else {
+        // alpha = 1/8, beta = 1/4
+        rttvar += (Math.abs(srtt - rtt) - rttvar) >> 2;
+        srtt += (rtt - srtt) >> 3;
+      }
+
+      timeout = clamp(srtt + 4 * rttvar);
+    }
+
+    synchronized void backOff() {
+      timeout = clamp(timeout > maxTimeoutNanos / 2 ? maxTimeoutNanos : timeout * 2);
+    }
+
+    private long clamp(long nanos) {
+      return Math.max(minTimeoutNanos, Math.min(maxTimeoutNanos, nanos));
+    }
+  }
+}
@@ -0,0 +1,84 @@
+package com.digitalpetri.modbus.client;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+
+/**
+ * Configuration for a {@link CircuitBreakerModbusClient}.
+ *
+ * @param failureThreshold the number of consecutive failures to a unit id that opens its circuit.
+ * @param openDuration how long a circuit stays open before a probe request is let through.
+ */
+public record CircuitBreakerConfig(int failureThreshold, Duration openDuration) {
+
+  /**
+   * Create a new {@link CircuitBreakerConfig} instance.
+   *
+   * @param configure a callback that accepts a {@link Builder} used to configure the new instance.
+   * @return a new {@link CircuitBreakerConfig} instance.
+   */
+  public static CircuitBreakerConfig create(Consumer<Builder> configure) {
+    var builder = new Builder();
+    configure.accept(builder);
+    return builder.build();
+  }
+
+  public static class Builder {
+
+    /**
+     * The number of consecutive failures to a unit id that opens its circuit.
+     *
+     * <p>Timeouts and the gateway exception responses 0x0A and 0x0B count as failures. Defaults to
+     * 3.
+     */
+    public int failureThreshold = 3;
+
+    /**
+     * How long a circuit stays open before a probe request is let through.
+     *
+     * <p>Defaults to 10 seconds.
+     */
+    public Duration openDuration = Duration.ofSeconds(10);
+
+    /**
+     * Set the number of consecutive failures to a unit id that opens its circuit.
+     *
+     * @param failureThreshold the failure threshold.
+     * @return this {@link Builder}.
+     */
+    public Builder setFailureThreshold(int failureThreshold) {
+      this.failureThreshold = failureThreshold;
+      return this;
+    }
+
+    /**
+     * Set how long a circuit stays open before a probe request is let through.
+     *
+     * @param openDuration the open duration.
+     * @return this {@link Builder}.
+     */
+    public Builder setOpenDuration(Duration openDuration) {
+      this.openDuration = openDuration;
+      return this;
+    }
+
+    /**
+     * Build a {@link CircuitBreakerConfig} from this builder.
+     *
+     * @return a new {@link CircuitBreakerConfig} instance.
+     */
+    public CircuitBreakerConfig build() {
+      if (failureThreshold < 1) {
+        throw new IllegalArgumentException("failureThreshold must be >= 1");
+      }
+      if (openDuration == null) {
+        throw new NullPointerException("openDuration must not be null");
+      }
+      if (openDuration.isNegative()) {
+        throw new IllegalArgumentException("openDuration must be >= 0");
+      }
+
+      return new CircuitBreakerConfig(failureThreshold, openDuration);
+    }
+  }
+}
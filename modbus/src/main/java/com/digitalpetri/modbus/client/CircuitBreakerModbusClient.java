@@ -0,0 +1,346 @@
+package com.digitalpetri.modbus.client;
+
+import com.digitalpetri.modbus.ExceptionCode;
+import com.digitalpetri.modbus.exceptions.CircuitOpenException;
+import com.digitalpetri.modbus.exceptions.ModbusResponseException;
+import com.digitalpetri.modbus.exceptions.ModbusTimeoutException;
+import com.digitalpetri.modbus.pdu.ModbusRequestPdu;
+import com.digitalpetri.modbus.pdu.ModbusResponsePdu;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+/**
+ * A {@link ModbusClient} that stops sending requests to unit ids that have stopped responding.
+ *
+ * <p>Each unit id has its own circuit. After {@link CircuitBreakerConfig#failureThreshold()}
+ * consecutive requests to a unit id time out or fail with a gateway exception response (0x0A
+ * Gateway Path Unavailable or 0x0B Gateway Target Device Failed to Respond), its circuit opens and
+ * further requests to it fail immediately with a {@link CircuitOpenException} instead of waiting
+ * for a timeout. Once {@link CircuitBreakerConfig#openDuration()} has elapsed, the next request is
+ * sent as a probe: if it succeeds the circuit closes, if it fails the circuit opens again. Other
+ * requests to that unit id are rejected while the probe is outstanding.
+ *
+ * <p>Any other response, including other exception responses, shows the device is reachable and
+ * resets its failure count. Errors that aren't specific to a device, e.g. the transport not being
+ * connected, don't affect any circuit.
+ */
+public class CircuitBreakerModbusClient extends ModbusClient {
+
+  private final Map<Integer, Circuit> circuits = new ConcurrentHashMap<>();
+
+  private final List<CircuitListener> listeners = new CopyOnWriteArrayList<>();
+
+  private final ModbusClient client;
+  private final CircuitBreakerConfig config;
+
+  /**
+   * Create a {@link CircuitBreakerModbusClient} that sends requests using {@code client}.
+   *
+   * <p>Connecting or disconnecting this client connects or disconnects {@code client}'s transport.
+   *
+   * @param config the {@link CircuitBreakerConfig}.
+   * @param client the {@link ModbusClient} requests are sent with.
+   */
+  public CircuitBreakerModbusClient(CircuitBreakerConfig config, ModbusClient client) {
+    super(client.getTransport());
+
+    this.config = config;
+    this.client = client;
+  }
+
+  /**
+   * Get the {@link CircuitBreakerConfig} used by this client.
+   *
+   * @return the {@link CircuitBreakerConfig} used by this client.
+   */
+  public CircuitBreakerConfig getConfig() {
+    return config;
+  }
+
+  /**
+   * Get the {@link ModbusClient} requests are sent with.
+   *
+   * @return the {@link ModbusClient} requests are sent with.
+   */
+  public ModbusClient getClient() {
+    return client;
+  }
+
+  /**
+   * Add a {@link CircuitListener} to be notified when a circuit changes state.
+   *
+   * @param listener the listener to add.
+   */
+  public void addCircuitListener(CircuitListener listener) {
+    listeners.add(listener);
+  }
+
+  /**
+   * Remove a {@link CircuitListener}.
+   *
+   * @param listener the listener to remove.
+   */
+  public void removeCircuitListener(CircuitListener listener) {
+    listeners.remove(listener);
+  }
+
+  /**
+   * Get the current state of the circuit for {@code unitId}.
+   *
+   * @param unitId the unit id.
+   * @return the {@link CircuitState}.
+   */
+  public CircuitState getCircuitState(int unitId) {
+    return getCircuitMetrics(unitId).state();
+  }
+
+  /**
+   * Get a snapshot of the {@link CircuitMetrics} for {@code unitId}.
+   *
+   * @param unitId the unit id.
+   * @return the {@link CircuitMetrics}.
+   */
+  public CircuitMetrics getCircuitMetrics(int unitId) {
+    Circuit circuit = circuits.get(unitId);
+
+    return circuit != null ? circuit.metrics() : new CircuitMetrics(CircuitState.CLOSED, 0, 0L, 0L);
+  }
+
+  @Override
+  public CompletionStage<ModbusResponsePdu> sendAsync(int unitId, ModbusRequestPdu request) {
+    return sendAsync(unitId, request, RequestPriority.INTERACTIVE);
+  }
+
+  @Override
+  public CompletionStage<ModbusResponsePdu> sendAsync(
+      int unitId, ModbusRequestPdu request, RequestPriority priority) {
+
+    Circuit circuit = circuits.computeIfAbsent(unitId, Circuit::new);
+
+    Permit permit = circuit.acquire();
+
+    if (permit == Permit.REJECTED) {
+      return CompletableFuture.failedFuture(new CircuitOpenException(unitId));
+    }
+
+    CompletionStage<ModbusResponsePdu> response;
+    try {
+      response = client.sendAsync(unitId, request, priority);
+    } catch (Throwable t) {
+      circuit.release(permit, Outcome.NEUTRAL);
+      return CompletableFuture.failedFuture(t);
+    }
+
+    return response.whenComplete((r, ex) -> circuit.release(permit, classify(ex)));
+  }
+
+  private static Outcome classify(Throwable ex) {
+    if (ex == null) {
+      return Outcome.SUCCESS;
+    }
+
+    if (ex instanceof CompletionException && ex.getCause() != null) {
+      ex = ex.getCause();
+    }
+
+    if (ex instanceof TimeoutException || ex instanceof ModbusTimeoutException) {
+      return Outcome.FAILURE;
+    } else if (ex instanceof ModbusResponseException e) {
+      int exceptionCode = e.getExceptionCode();
+
+      if (exceptionCode == ExceptionCode.GATEWAY_PATH_UNAVAILABLE.getCode()
+          || exceptionCode == ExceptionCode.GATEWAY_TARGET_DEVICE_FAILED_TO_RESPONSE.getCode()) {
+        return Outcome.FAILURE;
+      } else {
+        return Outcome.SUCCESS;
+      }
+    } else {
+      return Outcome.NEUTRAL;
+    }
+  }
+
+  /**
+   * Create a new {@link CircuitBreakerModbusClient} that sends requests using {@code client} and a
+   * {@link CircuitBreakerConfig} with the default values.
+   *
+   * @param client the {@link ModbusClient} requests are sent with.
+   * @return a new {@link CircuitBreakerModbusClient}.
+   */
+  public static CircuitBreakerModbusClient create(ModbusClient client) {
+    return create(client, cfg -> {});
+  }
+
+  /**
+   * Create a new {@link CircuitBreakerModbusClient} that sends requests using {@code client} and a
+   * callback for building a {@link CircuitBreakerConfig}.
+   *
+   * @param client the {@link ModbusClient} requests are sent with.
+   * @param configure a callback used to build a {@link CircuitBreakerConfig}.
+   * @return a new {@link CircuitBreakerModbusClient}.
+   */
+  public static CircuitBreakerModbusClient create(
+      ModbusClient client, Consumer<CircuitBreakerConfig.Builder> configure) {
+
+    return new CircuitBreakerModbusClient(CircuitBreakerConfig.create(configure), client);
+  }
+
+  private enum Permit {
+    REJECTED,
+    REQUEST,
+    PROBE
+  }
+
+  private enum Outcome {
+    SUCCESS,
+    FAILURE,
+    NEUTRAL
+  }
+
+  /** The state of the circuit for one unit id. */
+  public enum CircuitState {
+
+    /** Requests are sent normally. */
+    CLOSED,
+
+    /** Requests fail immediately with a {@link CircuitOpenException}. */
+    OPEN,
+
+    /** A single probe request is let through to decide whether to close or reopen the circuit. */
+    HALF_OPEN
+  }
+
+  /**
+   * A snapshot of the circuit for one unit id.
+   *
+   * @param state the current {@link CircuitState}.
+   * @param consecutiveFailures the number of failures since the last success.
+   * @param timesOpened the number of times the circuit has opened.
+   * @param requestsRejected the number of requests failed with a {@link CircuitOpenException}.
+   */
+  public record CircuitMetrics(
+      CircuitState state, int consecutiveFailures, long timesOpened, long requestsRejected) {}
+
+  public interface CircuitListener {
+
+    /**
+     * The circuit for {@code unitId} changed state.
+     *
+     * <p>This callback is made on the thread that completed the request causing the change, or that
+     * sent the request that became a probe.
+     *
+     * @param unitId the unit id.
+     * @param from the previous {@link CircuitState}.
+     * @param to the new {@link CircuitState}.
+     */
+    void onStateChanged(int unitId, CircuitState from, CircuitState to);
+  }
+
+  private class Circuit {
+
+    private final int unitId;
+
+    // guarded by this
+    private CircuitState state = CircuitState.CLOSED;
+    private int consecutiveFailures = 0;
+    private long openedNanos = 0L;
+    private boolean probing = false;
+    private long timesOpened = 0L;
+    private long requestsRejected = 0L;
+
+    Circuit(int unitId) {
+      this.unitId = unitId;
+    }
+
+    synchronized CircuitMetrics metrics() {
+      return new CircuitMetrics(state, consecutiveFailures, timesOpened, requestsRejected);
+    }
+
+    Permit acquire() {
+      CircuitState from;
+      synchronized (this) {
+        from = state;
+
+        switch (state) {
+          case CLOSED -> {
+            return Permit.REQUEST;
+          }
+          case OPEN -> {
+            if (System.nanoTime() - openedNanos < config.openDuration().toNanos()) {
+              requestsRejected++;
+              return Permit.REJECTED;
+            }
+            state = CircuitState.HALF_OPEN;
+            probing = true;
+          }
+          case HALF_OPEN -> {
+            if (probing) {
+              requestsRejected++;
+              return Permit.REJECTED;
+            }
+            probing = true;
+            return Permit.PROBE;
+          }
+        }
+      }
+
+      notifyStateChanged(from, CircuitState.HALF_OPEN);
+      return Permit.PROBE;
+    }
+
+    void release(Permit permit, Outcome outcome) {
+      boolean probe = permit == Permit.PROBE;
+
+      CircuitState from;
+      CircuitState to;
+
+      synchronized (this) {
+        from = state;
+
+        if (probe) {
+          probing = false;
+        } else if (state != CircuitState.CLOSED) {
+          // a request let through before the circuit opened; only the probe decides what
+          // happens to an open or half-open circuit
+          return;
+        }
+
+        switch (outcome) {
+          case SUCCESS -> {
+            consecutiveFailures = 0;
+            state = CircuitState.CLOSED;
+          }
+          case FAILURE -> {
+            consecutiveFailures++;
+
+            if ((state == CircuitState.HALF_OPEN && probe)
+                || (state == CircuitState.CLOSED
+                    && consecutiveFailures >= config.failureThreshold())) {
+
+              state = CircuitState.OPEN;
+              openedNanos = System.nanoTime();
+              timesOpened++;
+            }
+          }
+          case NEUTRAL -> {}
+        }
+
+        to = state;
+      }
+
+      if (from != to) {
+        notifyStateChanged(from, to);
+      }
+    }
+
+    private void notifyStateChanged(CircuitState from, CircuitState to) {
+      listeners.forEach(l -> l.onStateChanged(unitId, from, to));
+    }
+  }
+}
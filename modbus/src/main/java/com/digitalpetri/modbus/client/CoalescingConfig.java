@@ -0,0 +1,113 @@
+package com.digitalpetri.modbus.client;
+
+import com.digitalpetri.modbus.Modbus;
+import java.time.Duration;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Consumer;
+
+/**
+ * Configuration for a {@link CoalescingModbusClient}.
+ *
+ * @param window how long read requests are collected before they are merged and sent.
+ * @param maxGap the largest number of unrequested registers or bits between two reads that are
+ *     still merged into one request.
+ * @param scheduledExecutor the {@link ScheduledExecutorService} used to end each window.
+ */
+public record CoalescingConfig(
+    Duration window, int maxGap, ScheduledExecutorService scheduledExecutor) {
+
+  /**
+   * Create a new {@link CoalescingConfig} instance.
+   *
+   * @param configure a callback that accepts a {@link Builder} used to configure the new instance.
+   * @return a new {@link CoalescingConfig} instance.
+   */
+  public static CoalescingConfig create(Consumer<Builder> configure) {
+    var builder = new Builder();
+    configure.accept(builder);
+    return builder.build();
+  }
+
+  public static class Builder {
+
+    /**
+     * How long read requests are collected before they are merged and sent.
+     *
+     * <p>Every read is delayed by up to this long. Defaults to 5 milliseconds.
+     */
+    public Duration window = Duration.ofMillis(5);
+
+    /**
+     * The largest number of unrequested registers or bits between two reads that are still merged
+     * into one request.
+     *
+     * <p>Bridged addresses are read from the device and discarded, so only set this above 0 if
+     * every address in the gaps is readable. Defaults to 0, i.e. only overlapping and adjacent
+     * reads are merged.
+     */
+    public int maxGap = 0;
+
+    /**
+     * The {@link ScheduledExecutorService} used to end each window.
+     *
+     * <p>Defaults to {@link Modbus#sharedScheduledExecutor()}.
+     */
+    public ScheduledExecutorService scheduledExecutor;
+
+    /**
+     * Set how long read requests are collected before they are merged and sent.
+     *
+     * @param window the coalescing window.
+     * @return this {@link Builder}.
+     */
+    public Builder setWindow(Duration window) {
+      this.window = window;
+      return this;
+    }
+
+    /**
+     * Set the largest number of unrequested registers or bits between two reads that are still
+     * merged into one request.
+     *
+     * @param maxGap the maximum gap.
+     * @return this {@link Builder}.
+     */
+    public Builder setMaxGap(int maxGap) {
+      this.maxGap = maxGap;
+      return this;
+    }
+
+    /**
+     * Set the {@link ScheduledExecutorService} used to end each window.
+     *
+     * @param scheduledExecutor the scheduled executor.
+     * @return this {@link Builder}.
+     */
+    public Builder setScheduledExecutor(ScheduledExecutorService scheduledExecutor) {
+      this.scheduledExecutor = scheduledExecutor;
+      return this;
+    }
+
+    /**
+     * Build a {@link CoalescingConfig} from this builder.
+     *
+     * @return a new {@link CoalescingConfig} instance.
+     */
+    public CoalescingConfig build() {
+      if (window == null) {
+        throw new NullPointerException("window must not be null");
+      }
+      if (window.isNegative()) {
+        throw new IllegalArgumentException("window must be >= 0");
+      }
+      if (maxGap < 0) {
+        throw new IllegalArgumentException("maxGap must be >= 0");
+      }
+      if (scheduledExecutor == null) {
+        scheduledExecutor = Modbus.sharedScheduledExecutor();
+      }
+
+      return new CoalescingConfig(window, maxGap, scheduledExecutor);
+    }
+  }
+}
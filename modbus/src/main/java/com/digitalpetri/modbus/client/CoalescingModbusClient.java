@@ -0,0 +1,391 @@
+package com.digitalpetri.modbus.client;
+
+import com.digitalpetri.modbus.FunctionCode;
+import com.digitalpetri.modbus.exceptions.ModbusException;
+import com.digitalpetri.modbus.exceptions.ModbusResponseException;
+import com.digitalpetri.modbus.pdu.ModbusRequestPdu;
+import com.digitalpetri.modbus.pdu.ModbusResponsePdu;
+import com.digitalpetri.modbus.pdu.ReadCoilsRequest;
+import com.digitalpetri.modbus.pdu.ReadCoilsResponse;
+import com.digitalpetri.modbus.pdu.ReadDiscreteInputsRequest;
+import com.digitalpetri.modbus.pdu.ReadDiscreteInputsResponse;
+import com.digitalpetri.modbus.pdu.ReadHoldingRegistersRequest;
+import com.digitalpetri.modbus.pdu.ReadHoldingRegistersResponse;
+import com.digitalpetri.modbus.pdu.ReadInputRegistersRequest;
+import com.digitalpetri.modbus.pdu.ReadInputRegistersResponse;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * A {@link ModbusClient} that merges read requests from concurrent callers into fewer requests on
+ * another {@link ModbusClient}.
+ *
+ * <p>Read Coils, Read Discrete Inputs, Read Holding Registers, and Read Input Registers requests
+ * are collected for {@link CoalescingConfig#window()}. Requests for the same unit id and function
+ * code whose ranges overlap, are adjacent, or are at most {@link CoalescingConfig#maxGap()} apart
+ * are then sent as one request, as long as it stays within the function code's quantity limit, and
+ * each caller is completed with its own slice of the response. All other requests are sent
+ * immediately.
+ *
+ * <p>Only reads with the same {@link RequestPriority} are merged, and merged requests are sent with
+ * that priority.
+ *
+ * <p>If a merged request fails with a Modbus exception response, each of the requests it was merged
+ * from is retried on its own, so one caller's illegal address doesn't fail the others.
+ */
+public class CoalescingModbusClient extends ModbusClient {
+
+  /** Maximum quantity of a Read Holding/Input Registers request. */
+  private static final int MAX_REGISTERS = 125;
+
+  /** Maximum quantity of a Read Coils/Discrete Inputs request. */
+  private static final int MAX_BITS = 2000;
+
+  private final List<PendingRead> pending = new ArrayList<>();
+  private boolean flushScheduled = false;
+
+  private final AtomicLong readsReceived = new AtomicLong(0);
+  private final AtomicLong readsSent = new AtomicLong(0);
+
+  private final ModbusClient client;
+  private final CoalescingConfig config;
+
+  /**
+   * Create a {@link CoalescingModbusClient} that sends requests using {@code client}.
+   *
+   * <p>Connecting or disconnecting this client connects or disconnects {@code client}'s transport.
+   *
+   * @param config the {@link CoalescingConfig}.
+   * @param client the {@link ModbusClient} merged requests are sent with.
+   */
+  public CoalescingModbusClient(CoalescingConfig config, ModbusClient client) {
+    super(client.getTransport());
+
+    this.config = config;
+    this.client = client;
+  }
+
+  /**
+   * Get the {@link CoalescingConfig} used by this client.
+   *
+   * @return the {@link CoalescingConfig} used by this client.
+   */
+  public CoalescingConfig getConfig() {
+    return config;
+  }
+
+  /**
+   * Get the {@link ModbusClient} merged requests are sent with.
+   *
+   * @return the {@link ModbusClient} merged requests are sent with.
+   */
+  public ModbusClient getClient() {
+    return client;
+  }
+
+  /**
+   * Get the number of read requests this client has received.
+   *
+   * @return the number of read requests received.
+   */
+  public long getReadsReceived() {
+    return readsReceived.get();
+  }
+
+  /**
+   * Get the number of read requests this client has sent after merging, including requests retried
+   * individually after a merged request failed.
+   *
+   * @return the number of read requests sent.
+   */
+  public long getReadsSent() {
+    return readsSent.get();
+  }
+
+  @Override
+  public CompletionStage<ModbusResponsePdu> sendAsync(int unitId, ModbusRequestPdu request) {
+    return sendAsync(unitId, request, RequestPriority.INTERACTIVE);
+  }
+
+  @Override
+  public CompletionStage<ModbusResponsePdu> sendAsync(
+      int unitId, ModbusRequestPdu request, RequestPriority priority) {
+
+    PendingRead read;
+    if (request instanceof ReadCoilsRequest r) {
+      read = new PendingRead(unitId, request, priority, r.address(), r.quantity());
+    } else if (request instanceof ReadDiscreteInputsRequest r) {
+      read = new PendingRead(unitId, request, priority, r.address(), r.quantity());
+    } else if (request instanceof ReadHoldingRegistersRequest r) {
+      read = new PendingRead(unitId, request, priority, r.address(), r.quantity());
+    } else if (request instanceof ReadInputRegistersRequest r) {
+      read = new PendingRead(unitId, request, priority, r.address(), r.quantity());
+    } else {
+      return client.sendAsync(unitId, request, priority);
+    }
+
+    readsReceived.incrementAndGet();
+
+    boolean schedule;
+    synchronized (pending) {
+      pending.add(read);
+      schedule = !flushScheduled;
+      flushScheduled = true;
+    }
+
+    if (schedule) {
+      try {
+        config
+            .scheduledExecutor()
+            .schedule(this::flush, config.window().toNanos(), TimeUnit.NANOSECONDS);
+      } catch (RejectedExecutionException e) {
+        flush();
+      }
+    }
+
+    return read.future;
+  }
+
+  private void flush() {
+    List<PendingRead> reads;
+    synchronized (pending) {
+      reads = new ArrayList<>(pending);
+      pending.clear();
+      flushScheduled = false;
+    }
+
+    var groups = new HashMap<GroupKey, List<PendingRead>>();
+    for (PendingRead read : reads) {
+      groups
+          .computeIfAbsent(
+              new GroupKey(read.unitId, read.request.getFunctionCode(), read.priority),
+              k -> new ArrayList<>())
+          .add(read);
+    }
+
+    for (Map.Entry<GroupKey, List<PendingRead>> group : groups.entrySet()) {
+      GroupKey key = group.getKey();
+      List<PendingRead> sorted = group.getValue();
+      sorted.sort(Comparator.comparingInt((PendingRead r) -> r.address));
+
+      int limit = isRegisterRead(key.functionCode) ? MAX_REGISTERS : MAX_BITS;
+
+      List<PendingRead> block = new ArrayList<>();
+      int blockStart = 0;
+      int blockEnd = 0;
+
+      for (PendingRead read : sorted) {
+        if (read.quantity < 1 || read.quantity > limit) {
+          // let the device reject it on its own
+          sendIndividually(read);
+          continue;
+        }
+
+        int end = Math.max(blockEnd, read.address + read.quantity);
+
+        if (!block.isEmpty()
+            && read.address <= blockEnd + config.maxGap()
+            && end - blockStart <= limit) {
+
+          block.add(read);
+          blockEnd = end;
+        } else {
+          if (!block.isEmpty()) {
+            sendBlock(key, block, blockStart, blockEnd - blockStart);
+          }
+          block = new ArrayList<>();
+          block.add(read);
+          blockStart = read.address;
+          blockEnd = read.address + read.quantity;
+        }
+      }
+
+      if (!block.isEmpty()) {
+        sendBlock(key, block, blockStart, blockEnd - blockStart);
+      }
+    }
+  }
+
+  private void sendBlock(GroupKey key, List<PendingRead> block, int address, int quantity) {
+    if (block.size() == 1) {
+      sendIndividually(block.get(0));
+      return;
+    }
+
+    ModbusRequestPdu request = newRequest(key.functionCode, address, quantity);
+
+    readsSent.incrementAndGet();
+
+    sendToClient(key.unitId, request, key.priority)
+        .whenComplete(
+            (response, ex) -> {
+              if (ex != null) {
+                Throwable cause = ex instanceof CompletionException ? ex.getCause() : ex;
+
+                if (cause instanceof ModbusResponseException) {
+                  block.forEach(this::sendIndividually);
+                } else {
+                  block.forEach(read -> read.future.completeExceptionally(cause));
+                }
+                return;
+              }
+
+              for (PendingRead read : block) {
+                try {
+                  read.future.complete(slice(response, read.address - address, read.quantity));
+                } catch (ModbusException e) {
+                  read.future.completeExceptionally(e);
+                }
+              }
+            });
+  }
+
+  private void sendIndividually(PendingRead read) {
+    readsSent.incrementAndGet();
+
+    sendToClient(read.unitId, read.request, read.priority)
+        .whenComplete(
+            (response, ex) -> {
+              if (ex != null) {
+                read.future.completeExceptionally(
+                    ex instanceof CompletionException ? ex.getCause() : ex);
+              } else {
+                read.future.complete(response);
+              }
+            });
+  }
+
+  private CompletionStage<ModbusResponsePdu> sendToClient(
+      int unitId, ModbusRequestPdu request, RequestPriority priority) {
+
+    try {
+      return client.sendAsync(unitId, request, priority);
+    } catch (Throwable t) {
+      return CompletableFuture.failedFuture(t);
+    }
+  }
+
+  private static boolean isRegisterRead(int functionCode) {
+    return functionCode == FunctionCode.READ_HOLDING_REGISTERS.getCode()
+        || functionCode == FunctionCode.READ_INPUT_REGISTERS.getCode();
+  }
+
+  private static ModbusRequestPdu newRequest(int functionCode, int address, int quantity) {
+    if (functionCode == FunctionCode.READ_COILS.getCode()) {
+      return new ReadCoilsRequest(address, quantity);
+    } else if (functionCode == FunctionCode.READ_DISCRETE_INPUTS.getCode()) {
+      return new ReadDiscreteInputsRequest(address, quantity);
+    } else if (functionCode == FunctionCode.READ_HOLDING_REGISTERS.getCode()) {
+      return new ReadHoldingRegistersRequest(address, quantity);
+    } else {
+      return new ReadInputRegistersRequest(address, quantity);
+    }
+  }
+
+  /**
+   * Slice {@code quantity} registers or bits, starting {@code offset} into the merged response.
+   *
+   * @throws ModbusException if the response is shorter than requested.
+   */
+  private static ModbusResponsePdu slice(ModbusResponsePdu response, int offset, int quantity)
+      throws ModbusException {
+
+    if (response instanceof ReadHoldingRegistersResponse r) {
+      return new ReadHoldingRegistersResponse(sliceRegisters(r.registers(), offset, quantity));
+    } else if (response instanceof ReadInputRegistersResponse r) {
+      return new ReadInputRegistersResponse(sliceRegisters(r.registers(), offset, quantity));
+    } else if (response instanceof ReadCoilsResponse r) {
+      return new ReadCoilsResponse(sliceBits(r.coils(), offset, quantity));
+    } else if (response instanceof ReadDiscreteInputsResponse r) {
+      return new ReadDiscreteInputsResponse(sliceBits(r.inputs(), offset, quantity));
+    } else {
+      throw new ModbusException(
+          "unexpected response: 0x%02X".formatted(response.getFunctionCode()));
+    }
+  }
+
+  private static byte[] sliceRegisters(byte[] registers, int offset, int quantity)
+      throws ModbusException {
+
+    if (registers.length < (offset + quantity) * 2) {
+      throw new ModbusException("short response: %d bytes".formatted(registers.length));
+    }
+
+    var slice = new byte[quantity * 2];
+    System.arraycopy(registers, offset * 2, slice, 0, quantity * 2);
+    return slice;
+  }
+
+  private static byte[] sliceBits(byte[] bits, int offset, int quantity) throws ModbusException {
+    if (bits.length * 8 < offset + quantity) {
+      throw new ModbusException("short response: %d bytes".formatted(bits.length));
+    }
+
+    var slice = new byte[(quantity + 7) / 8];
+    for (int i = 0; i < quantity; i++) {
+      int bit = offset + i;
+      if ((bits[bit >>> 3] & (1 << (bit & 7))) != 0) {
+        slice[i >>> 3] |= (byte) (1 << (i & 7));
+      }
+    }
+    return slice;
+  }
+
+  /**
+   * Create a new {@link CoalescingModbusClient} that sends requests using {@code client} and a
+   * {@link CoalescingConfig} with the default values.
+   *
+   * @param client the {@link ModbusClient} merged requests are sent with.
+   * @return a new {@link CoalescingModbusClient}.
+   */
+  public static CoalescingModbusClient create(ModbusClient client) {
+    return create(client, cfg -> {});
+  }
+
+  /**
+   * Create a new {@link CoalescingModbusClient} that sends requests using {@code client} and a
+   * callback for building a {@link CoalescingConfig}.
+   *
+   * @param client the {@link ModbusClient} merged requests are sent with.
+   * @param configure a callback used to build a {@link CoalescingConfig}.
+   * @return a new {@link CoalescingModbusClient}.
+   */
+  public static CoalescingModbusClient create(
+      ModbusClient client, Consumer<CoalescingConfig.Builder> configure) {
+
+    return new CoalescingModbusClient(CoalescingConfig.create(configure), client);
+  }
+
+  private record GroupKey(int unitId, int functionCode, RequestPriority priority) {}
+
+  private static final class PendingRead {
+
+    final CompletableFuture<ModbusResponsePdu> future = new CompletableFuture<>();
+
+    final int unitId;
+    final ModbusRequestPdu request;
+    final RequestPriority priority;
+    final int address;
+    final int quantity;
+
+    PendingRead(
+        int unitId, ModbusRequestPdu request, RequestPriority priority, int address, int quantity) {
+
+      this.unitId = unitId;
+      this.request = request;
+      this.priority = priority;
+      this.address = address;
+      this.quantity = quantity;
+    }
+  }
+}
@@ -25,6 +25,9 @@ import com.digitalpetri.modbus.pdu.WriteSingleCoilRequest;
 import com.digitalpetri.modbus.pdu.WriteSingleCoilResponse;
 import com.digitalpetri.modbus.pdu.WriteSingleRegisterRequest;
 import com.digitalpetri.modbus.pdu.WriteSingleRegisterResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeoutException;
@@ -160,6 +163,48 @@ public abstract class ModbusClient {
   public abstract CompletionStage<ModbusResponsePdu> sendAsync(
       int unitId, ModbusRequestPdu request);
 
+  /**
+   * Send a {@link ModbusRequestPdu} PDU to the remote device identified by {@code unitId}, with a
+   * {@link RequestPriority}.
+   *
+   * <p>Clients that queue requests send queued requests of a higher priority first. Clients that
+   * don't queue requests ignore the priority; this implementation sends the request as if by {@link
+   * #sendAsync(int, ModbusRequestPdu)}.
+   *
+   * @param unitId the remote device unit id.
+   * @param request the request PDU.
+   * @param priority the {@link RequestPriority} of the request.
+   * @return a {@link CompletionStage} that completes successfully with the {@link
+   *     ModbusResponsePdu} PDU, or completes exceptionally if an error occurs.
+   */
+  public CompletionStage<ModbusResponsePdu> sendAsync(
+      int unitId, ModbusRequestPdu request, RequestPriority priority) {
+
+    return sendAsync(unitId, request);
+  }
+
+  /**
+   * Send a batch of {@link ModbusRequestPdu} PDUs, each to the remote device identified by its unit
+   * id.
+   *
+   * <p>Clients whose transport supports it write every request before flushing once, e.g. a {@link
+   * ModbusTcpClient} without a {@link ModbusClientConfig#maxInFlight()} limit. Otherwise each
+   * request is sent as if by {@link #sendAsync(int, ModbusRequestPdu)}.
+   *
+   * @param requests the requests to send.
+   * @return a {@link BatchResponse} with a {@link CompletionStage} for each request, in the same
+   *     order.
+   */
+  public BatchResponse sendBatchAsync(List<UnitRequest> requests) {
+    var responses = new ArrayList<CompletionStage<ModbusResponsePdu>>(requests.size());
+
+    for (UnitRequest request : requests) {
+      responses.add(sendAsync(request.unitId(), request.request()));
+    }
+
+    return new BatchResponse(responses);
+  }
+
   // region Read Coils (function code 0x01)
 
   /**
@@ -594,6 +639,42 @@ public abstract class ModbusClient {
 
   // endregion
 
+  /**
+   * A request PDU and the unit id of the remote device it is sent to.
+   *
+   * @param unitId the remote device unit id.
+   * @param request the request PDU.
+   */
+  public record UnitRequest(int unitId, ModbusRequestPdu request) {}
+
+  /**
+   * The responses to a batch sent with {@link #sendBatchAsync(List)}.
+   *
+   * @param responses a {@link CompletionStage} for each request, in the order they were given.
+   */
+  public record BatchResponse(List<CompletionStage<ModbusResponsePdu>> responses) {
+
+    public BatchResponse {
+      responses = List.copyOf(responses);
+    }
+
+    /**
+     * Get a {@link CompletionStage} for every response in the batch.
+     *
+     * @return a {@link CompletionStage} that completes with every response, in request order, or
+     *     completes exceptionally if any request fails.
+     */
+    public CompletionStage<List<ModbusResponsePdu>> allResponses() {
+      CompletableFuture<?>[] futures =
+          responses.stream()
+              .map(CompletionStage::toCompletableFuture)
+              .toArray(CompletableFuture[]::new);
+
+      return CompletableFuture.allOf(futures)
+          .thenApply(v -> responses.stream().map(r -> r.toCompletableFuture().join()).toList());
+    }
+  }
+
   public interface ModbusClientAutoCloseable extends AutoCloseable {
 
     @Override
@@ -3,6 +3,8 @@ package com.digitalpetri.modbus.client;
 import static com.digitalpetri.modbus.ModbusPduSerializer.DefaultRequestSerializer;
 import static com.digitalpetri.modbus.ModbusPduSerializer.DefaultResponseSerializer;
 
+import com.digitalpetri.modbus.BufferPool;
+import com.digitalpetri.modbus.BufferPool.NoOpBufferPool;
 import com.digitalpetri.modbus.Modbus;
 import com.digitalpetri.modbus.ModbusPduSerializer;
 import com.digitalpetri.modbus.TimeoutScheduler;
@@ -13,15 +15,36 @@ import java.util.function.Consumer;
  * Configuration for a {@link ModbusClient}.
  *
  * @param requestTimeout the timeout duration for requests.
+ * @param requestTimeoutPolicy the {@link RequestTimeoutPolicy} that decides the timeout of each
+ *     request.
  * @param timeoutScheduler the {@link TimeoutScheduler} used to schedule request timeouts.
  * @param requestSerializer the {@link ModbusPduSerializer} used to encode requests.
  * @param responseSerializer the {@link ModbusPduSerializer} used to decode responses.
+ * @param maxInFlight the maximum number of requests a {@link ModbusTcpClient} has outstanding at
+ *     once, or 0 for no limit.
+ * @param maxQueuedRequests the maximum number of requests waiting for an outstanding request to
+ *     complete when {@code maxInFlight} is reached, or, for a {@link ModbusRtuClient}, while
+ *     another request is outstanding on the bus.
+ * @param queueFullPolicy the {@link QueueFullPolicy} applied when {@code maxQueuedRequests} is
+ *     reached.
+ * @param unitConcurrencyLimits the maximum number of requests a {@link ModbusTcpClient} has
+ *     outstanding at once for each unit id.
+ * @param broadcastTurnaroundDelay how long a {@link ModbusRtuClient} waits after sending a
+ *     broadcast before sending the next request.
+ * @param bufferPool the {@link BufferPool} request PDUs are encoded into.
  */
 public record ModbusClientConfig(
     Duration requestTimeout,
+    RequestTimeoutPolicy requestTimeoutPolicy,
     TimeoutScheduler timeoutScheduler,
     ModbusPduSerializer requestSerializer,
-    ModbusPduSerializer responseSerializer) {
+    ModbusPduSerializer responseSerializer,
+    int maxInFlight,
+    int maxQueuedRequests,
+    QueueFullPolicy queueFullPolicy,
+    UnitConcurrencyLimits unitConcurrencyLimits,
+    Duration broadcastTurnaroundDelay,
+    BufferPool bufferPool) {
 
   /**
    * Create a new {@link ModbusClientConfig} instance.
@@ -40,7 +63,20 @@ public record ModbusClientConfig(
     /** The timeout duration for requests. */
     public Duration requestTimeout = Duration.ofSeconds(5);
 
-    /** The {@link TimeoutScheduler} used to schedule request timeouts. */
+    /**
+     * The {@link RequestTimeoutPolicy} that decides the timeout of each request.
+     *
+     * <p>Use an {@link AdaptiveTimeoutPolicy} to derive timeouts from measured round-trip times per
+     * unit id and function code. Defaults to {@link RequestTimeoutPolicy#fixed(Duration)} with
+     * {@link #requestTimeout}.
+     */
+    public RequestTimeoutPolicy requestTimeoutPolicy;
+
+    /**
+     * The {@link TimeoutScheduler} used to schedule request timeouts.
+     *
+     * <p>Defaults to {@link Modbus#sharedTimeoutScheduler()}.
+     */
     public TimeoutScheduler timeoutScheduler;
 
     /** The {@link ModbusPduSerializer} used to encode outgoing requests. */
@@ -49,6 +85,62 @@ public record ModbusClientConfig(
     /** The {@link ModbusPduSerializer} used to decode incoming responses. */
     public ModbusPduSerializer responseSerializer = DefaultResponseSerializer.INSTANCE;
 
+    /**
+     * The maximum number of requests a {@link ModbusTcpClient} has outstanding at once, or 0 for no
+     * limit.
+     *
+     * <p>Requests beyond this limit are queued and sent, in order, as outstanding requests
+     * complete. The request timeout starts when a request is sent, not when it is queued. Defaults
+     * to 0.
+     */
+    public int maxInFlight = 0;
+
+    /**
+     * The maximum number of requests waiting for an outstanding request to complete when {@link
+     * #maxInFlight} is reached.
+     *
+     * <p>A {@link ModbusRtuClient} only has one request outstanding on the bus at a time, so its
+     * other requests are always queued and count towards this limit.
+     *
+     * <p>Defaults to {@link Integer#MAX_VALUE}.
+     */
+    public int maxQueuedRequests = Integer.MAX_VALUE;
+
+    /**
+     * The {@link QueueFullPolicy} applied when {@link #maxQueuedRequests} is reached.
+     *
+     * <p>Defaults to {@link QueueFullPolicy#REJECT}.
+     */
+    public QueueFullPolicy queueFullPolicy = QueueFullPolicy.REJECT;
+
+    /**
+     * The maximum number of requests a {@link ModbusTcpClient} has outstanding at once for each
+     * unit id.
+     *
+     * <p>Requests beyond a unit id's limit are queued, count towards {@link #maxQueuedRequests},
+     * and are sent in order as that unit id's outstanding requests complete. Unit ids with queued
+     * requests take turns as room is made. Defaults to {@link UnitConcurrencyLimits#unlimited()}.
+     */
+    public UnitConcurrencyLimits unitConcurrencyLimits = UnitConcurrencyLimits.unlimited();
+
+    /**
+     * How long a {@link ModbusRtuClient} waits after sending a broadcast before sending the next
+     * request, giving every device on the bus time to process it.
+     *
+     * <p>Defaults to 100 milliseconds.
+     */
+    public Duration broadcastTurnaroundDelay = Duration.ofMillis(100);
+
+    /**
+     * The {@link BufferPool} request PDUs are encoded into.
+     *
+     * <p>Buffers are returned to the pool once the transport has written the request. Use a {@link
+     * BufferPool.HeapBufferPool} or {@link BufferPool.DirectBufferPool} so a steady stream of
+     * requests stops allocating PDU buffers; its allocation counts show how many were allocated.
+     * Defaults to a {@link NoOpBufferPool}, which allocates a new buffer for every request.
+     */
+    public BufferPool bufferPool = new NoOpBufferPool();
+
     /**
      * Set the timeout duration for requests.
      *
@@ -60,6 +152,19 @@ public record ModbusClientConfig(
       return this;
     }
 
+    /**
+     * Set the {@link RequestTimeoutPolicy} that decides the timeout of each request.
+     *
+     * <p>When set, {@link #requestTimeout} is not used.
+     *
+     * @param requestTimeoutPolicy the request timeout policy.
+     * @return this {@link Builder}.
+     */
+    public Builder setRequestTimeoutPolicy(RequestTimeoutPolicy requestTimeoutPolicy) {
+      this.requestTimeoutPolicy = requestTimeoutPolicy;
+      return this;
+    }
+
     /**
      * Set the {@link TimeoutScheduler} used to schedule request timeouts.
      *
@@ -93,17 +198,130 @@ public record ModbusClientConfig(
       return this;
     }
 
+    /**
+     * Set the maximum number of requests a {@link ModbusTcpClient} has outstanding at once.
+     *
+     * <p>Requests beyond this limit are queued and sent, in order, as outstanding requests
+     * complete. The request timeout starts when a request is sent, not when it is queued.
+     *
+     * @param maxInFlight the maximum number of outstanding requests, or 0 for no limit.
+     * @return this {@link Builder}.
+     */
+    public Builder setMaxInFlight(int maxInFlight) {
+      this.maxInFlight = maxInFlight;
+      return this;
+    }
+
+    /**
+     * Set the maximum number of requests waiting for an outstanding request to complete when the
+     * {@link #setMaxInFlight(int) in-flight limit} is reached.
+     *
+     * @param maxQueuedRequests the maximum number of queued requests.
+     * @return this {@link Builder}.
+     */
+    public Builder setMaxQueuedRequests(int maxQueuedRequests) {
+      this.maxQueuedRequests = maxQueuedRequests;
+      return this;
+    }
+
+    /**
+     * Set the {@link QueueFullPolicy} applied when the {@link #setMaxQueuedRequests(int) queue
+     * limit} is reached.
+     *
+     * @param queueFullPolicy the queue full policy.
+     * @return this {@link Builder}.
+     */
+    public Builder setQueueFullPolicy(QueueFullPolicy queueFullPolicy) {
+      this.queueFullPolicy = queueFullPolicy;
+      return this;
+    }
+
+    /**
+     * Set the maximum number of requests a {@link ModbusTcpClient} has outstanding at once for each
+     * unit id.
+     *
+     * <p>Use this when the unit ids are devices on a serial bus behind a gateway, e.g. {@code
+     * UnitConcurrencyLimits.of(1)} to send one request at a time to each device.
+     *
+     * @param unitConcurrencyLimits the per unit id limits.
+     * @return this {@link Builder}.
+     */
+    public Builder setUnitConcurrencyLimits(UnitConcurrencyLimits unitConcurrencyLimits) {
+      this.unitConcurrencyLimits = unitConcurrencyLimits;
+      return this;
+    }
+
+    /**
+     * Set how long a {@link ModbusRtuClient} waits after sending a broadcast before sending the
+     * next request.
+     *
+     * @param broadcastTurnaroundDelay the broadcast turnaround delay.
+     * @return this {@link Builder}.
+     */
+    public Builder setBroadcastTurnaroundDelay(Duration broadcastTurnaroundDelay) {
+      this.broadcastTurnaroundDelay = broadcastTurnaroundDelay;
+      return this;
+    }
+
+    /**
+     * Set the {@link BufferPool} request PDUs are encoded into.
+     *
+     * <p>The transport must be done with a request frame's PDU once the stage returned by its
+     * {@code send} method completes; the buffer is reused after that.
+     *
+     * @param bufferPool the buffer pool.
+     * @return this {@link Builder}.
+     */
+    public Builder setBufferPool(BufferPool bufferPool) {
+      this.bufferPool = bufferPool;
+      return this;
+    }
+
     /**
      * @return a new {@link ModbusClientConfig} instance.
      */
     public ModbusClientConfig build() {
+      if (requestTimeoutPolicy == null) {
+        requestTimeoutPolicy = RequestTimeoutPolicy.fixed(requestTimeout);
+      }
       if (timeoutScheduler == null) {
-        timeoutScheduler =
-            TimeoutScheduler.create(Modbus.sharedExecutor(), Modbus.sharedScheduledExecutor());
+        timeoutScheduler = Modbus.sharedTimeoutScheduler();
+      }
+
+      if (maxInFlight < 0) {
+        throw new IllegalArgumentException("maxInFlight must be >= 0");
+      }
+      if (maxQueuedRequests < 0) {
+        throw new IllegalArgumentException("maxQueuedRequests must be >= 0");
+      }
+      if (queueFullPolicy == null) {
+        throw new NullPointerException("queueFullPolicy must not be null");
+      }
+      if (unitConcurrencyLimits == null) {
+        throw new NullPointerException("unitConcurrencyLimits must not be null");
+      }
+      if (broadcastTurnaroundDelay == null) {
+        throw new NullPointerException("broadcastTurnaroundDelay must not be null");
+      }
+      if (broadcastTurnaroundDelay.isNegative()) {
+        throw new IllegalArgumentException("broadcastTurnaroundDelay must be >= 0");
+      }
+      if (bufferPool == null) {
+        throw new NullPointerException("bufferPool must not be null");
       }
 
       return new ModbusClientConfig(
-          requestTimeout, timeoutScheduler, requestSerializer, responseSerializer);
+          requestTimeout,
+          requestTimeoutPolicy,
+          timeoutScheduler,
+          requestSerializer,
+          responseSerializer,
+          maxInFlight,
+          maxQueuedRequests,
+          queueFullPolicy,
+          unitConcurrencyLimits,
+          broadcastTurnaroundDelay,
+          bufferPool);
     }
   }
 }
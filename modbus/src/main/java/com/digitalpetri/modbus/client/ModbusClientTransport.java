@@ -1,5 +1,7 @@
 package com.digitalpetri.modbus.client;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CompletionStage;
 import java.util.function.Consumer;
 
@@ -34,6 +36,24 @@ public interface ModbusClientTransport<T> {
    */
   CompletionStage<Void> send(T frame);
 
+  /**
+   * Send several request frames to the transport.
+   *
+   * <p>Transports that buffer writes should write every frame and then flush once. The default
+   * implementation calls {@link #send(Object)} for each frame.
+   *
+   * @param frames the request frames to send, in order.
+   * @return a {@link CompletionStage} for each frame, in the same order, that completes when that
+   *     frame has been sent.
+   */
+  default List<CompletionStage<Void>> sendBatch(List<T> frames) {
+    var sent = new ArrayList<CompletionStage<Void>>(frames.size());
+    for (T frame : frames) {
+      sent.add(send(frame));
+    }
+    return sent;
+  }
+
   /**
    * Configure a callback to receive response frames from the transport.
    *
@@ -1,6 +1,7 @@
 package com.digitalpetri.modbus.client;
 
 import com.digitalpetri.modbus.Crc16;
+import com.digitalpetri.modbus.Modbus;
 import com.digitalpetri.modbus.ModbusRtuFrame;
 import com.digitalpetri.modbus.TimeoutScheduler.TimeoutHandle;
 import com.digitalpetri.modbus.exceptions.ModbusCrcException;
@@ -11,13 +12,14 @@ import com.digitalpetri.modbus.pdu.ModbusPdu;
 import com.digitalpetri.modbus.pdu.ModbusRequestPdu;
 import com.digitalpetri.modbus.pdu.ModbusResponsePdu;
 import java.nio.ByteBuffer;
+import java.time.Duration;
 import java.util.ArrayDeque;
-import java.util.ArrayList;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.function.Consumer;
@@ -29,6 +31,9 @@ public class ModbusRtuClient extends ModbusClient {
   /** The unit/slave ID used when sending broadcast messages. */
   private static final int BROADCAST_ID = 0;
 
+  /** Capacity of the buffers request PDUs are encoded into; a PDU is at most 253 bytes. */
+  private static final int PDU_BUFFER_SIZE = 256;
+
   private final Logger logger = LoggerFactory.getLogger(getClass());
 
   private final ArrayDeque<ResponsePromise> promises = new ArrayDeque<>();
@@ -39,12 +44,25 @@ public class ModbusRtuClient extends ModbusClient {
   private final ModbusClientConfig config;
   private final ModbusRtuClientTransport transport;
 
+  // one transaction outstanding on the bus at a time, the rest queued by priority
+  private final RequestWindow busArbiter;
+
+  // the System.nanoTime() before which the bus must stay silent
+  private volatile long busIdleNanos = System.nanoTime();
+
   public ModbusRtuClient(ModbusClientConfig config, ModbusRtuClientTransport transport) {
     super(transport);
 
     this.config = config;
     this.transport = transport;
 
+    busArbiter =
+        new RequestWindow(
+            1,
+            config.maxQueuedRequests(),
+            config.queueFullPolicy(),
+            UnitConcurrencyLimits.unlimited());
+
     transport.receive(this::onFrameReceived);
   }
 
@@ -67,51 +85,168 @@ public class ModbusRtuClient extends ModbusClient {
     return transport;
   }
 
+  /**
+   * Get the number of requests waiting for the bus because another request is outstanding.
+   *
+   * @return the number of queued requests.
+   */
+  public int getQueuedRequestCount() {
+    return busArbiter.queued();
+  }
+
   @Override
   public CompletionStage<ModbusResponsePdu> sendAsync(int unitId, ModbusRequestPdu request) {
-    ByteBuffer pdu = ByteBuffer.allocate(256);
+    return sendAsync(unitId, request, RequestPriority.INTERACTIVE);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>Only one request is outstanding on the bus at a time; the priority decides the order queued
+   * requests are sent in.
+   */
+  @Override
+  public CompletionStage<ModbusResponsePdu> sendAsync(
+      int unitId, ModbusRequestPdu request, RequestPriority priority) {
+
+    ByteBuffer pdu = config.bufferPool().take(PDU_BUFFER_SIZE);
 
     try {
       config.requestSerializer().encode(request, pdu);
       pdu.flip();
     } catch (Exception e) {
+      config.bufferPool().give(pdu);
       return CompletableFuture.failedFuture(e);
     }
 
     ByteBuffer crc = calculateCrc16(unitId, pdu);
 
-    var promise = new ResponsePromise(unitId, request.getFunctionCode(), new CompletableFuture<>());
+    var future = new CompletableFuture<ModbusResponsePdu>();
+
+    submit(
+        unitId,
+        priority,
+        pdu,
+        future,
+        () -> transmit(unitId, request.getFunctionCode(), pdu, crc, future));
+
+    return future;
+  }
+
+  /**
+   * Queue a transaction with the bus arbiter. Once it is this transaction's turn, and the bus has
+   * been silent for long enough, {@code transmit} is run, unless {@code future} was completed, e.g.
+   * cancelled, in the meantime.
+   *
+   * <p>{@code transmit} holds the bus until the transaction is over on the wire: a response was
+   * received, the request timed out, or it failed to send. Whoever ends it releases the bus, not
+   * the completion of {@code future}, which a caller may cancel while the request is outstanding.
+   */
+  private void submit(
+      int unitId,
+      RequestPriority priority,
+      ByteBuffer pdu,
+      CompletableFuture<?> future,
+      Runnable transmit) {
+
+    Runnable transmitUnlessDone =
+        () -> {
+          if (future.isDone()) {
+            // never reached the bus, so there is nothing to wait for
+            config.bufferPool().give(pdu);
+            busArbiter.release(unitId);
+          } else {
+            transmit.run();
+          }
+        };
+
+    Runnable dispatch =
+        () -> {
+          long waitNanos = busIdleNanos - System.nanoTime();
+
+          if (waitNanos <= 0) {
+            transmitUnlessDone.run();
+          } else {
+            try {
+              Modbus.sharedScheduledExecutor()
+                  .schedule(transmitUnlessDone, waitNanos, TimeUnit.NANOSECONDS);
+            } catch (RejectedExecutionException e) {
+              // sending now would cut the inter-frame gap short; fail rather than corrupt a frame
+              config.bufferPool().give(pdu);
+              busArbiter.release(unitId);
+              future.completeExceptionally(e);
+            }
+          }
+        };
+
+    try {
+      if (!busArbiter.submit(unitId, priority, dispatch)) {
+        config.bufferPool().give(pdu);
+        future.completeExceptionally(new ModbusException("request queue full"));
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      config.bufferPool().give(pdu);
+      future.completeExceptionally(e);
+    }
+  }
+
+  private void transmit(
+      int unitId,
+      int functionCode,
+      ByteBuffer pdu,
+      ByteBuffer crc,
+      CompletableFuture<ModbusResponsePdu> future) {
+
+    var promise = new ResponsePromise(unitId, functionCode, future, System.nanoTime());
 
     synchronized (promises) {
       promises.push(promise);
     }
 
-    long timeoutMillis = config.requestTimeout().toMillis();
-    TimeoutHandle timeout =
-        config
-            .timeoutScheduler()
-            .newTimeout(
-                t -> {
-                  boolean removed;
-                  synchronized (promises) {
-                    removed = promises.remove(promise);
-                  }
-
-                  timeouts.remove(promise);
-
-                  if (removed) {
-                    // The frame parser needs to be reset!
-                    // It could be "stuck" in Accumulating or ParseError states if the timeout was
-                    // caused by an incomplete or invalid response rather than no response.
-                    resetFrameParser();
-
-                    promise.future.completeExceptionally(
-                        new TimeoutException(
-                            "request timed out after %sms".formatted(timeoutMillis)));
-                  }
-                },
-                timeoutMillis,
-                TimeUnit.MILLISECONDS);
+    long timeoutMillis = config.requestTimeoutPolicy().getTimeout(unitId, functionCode).toMillis();
+    TimeoutHandle timeout;
+    try {
+      timeout =
+          config
+              .timeoutScheduler()
+              .newTimeout(
+                  t -> {
+                    boolean removed;
+                    synchronized (promises) {
+                      removed = promises.remove(promise);
+                    }
+
+                    timeouts.remove(promise);
+
+                    if (removed) {
+                      config.requestTimeoutPolicy().onTimeout(unitId, promise.functionCode);
+
+                      // The frame parser needs to be reset!
+                      // It could be "stuck" in Accumulating or ParseError states if the timeout
+                      // was caused by an incomplete or invalid response rather than no response.
+                      resetFrameParser();
+
+                      markBusIdle(Duration.ZERO);
+                      busArbiter.release(unitId);
+
+                      promise.future.completeExceptionally(
+                          new TimeoutException(
+                              "request timed out after %sms".formatted(timeoutMillis)));
+                    }
+                  },
+                  timeoutMillis,
+                  TimeUnit.MILLISECONDS);
+    } catch (RuntimeException e) {
+      // e.g. the scheduler was stopped by Modbus.releaseSharedResources()
+      synchronized (promises) {
+        promises.remove(promise);
+      }
+      config.bufferPool().give(pdu);
+      busArbiter.release(unitId);
+      future.completeExceptionally(e);
+      return;
+    }
 
     timeouts.put(promise, timeout);
 
@@ -119,22 +254,34 @@ public class ModbusRtuClient extends ModbusClient {
         .send(new ModbusRtuFrame(unitId, pdu, crc))
         .whenComplete(
             (v, ex) -> {
+              config.bufferPool().give(pdu);
+
               if (ex != null) {
                 boolean removed;
                 synchronized (promises) {
                   removed = promises.remove(promise);
                 }
-                if (removed) {
-                  promise.future.completeExceptionally(ex);
-                }
                 TimeoutHandle t = timeouts.remove(promise);
                 if (t != null) {
                   t.cancel();
                 }
+                if (removed) {
+                  markBusIdle(Duration.ZERO);
+                  busArbiter.release(unitId);
+                  promise.future.completeExceptionally(ex);
+                }
               }
             });
+  }
 
-    return promise.future;
+  /**
+   * Mark the bus as silent from now, so the next transaction waits the transport's {@link
+   * ModbusRtuClientTransport#getInterFrameDelay() inter-frame delay}, plus {@code extraDelay},
+   * before it is sent.
+   */
+  private void markBusIdle(Duration extraDelay) {
+    busIdleNanos =
+        System.nanoTime() + transport.getInterFrameDelay().toNanos() + extraDelay.toNanos();
   }
 
   /**
@@ -164,22 +311,51 @@ public class ModbusRtuClient extends ModbusClient {
    *
    * <p>Broadcast requests are necessarily write commands.
    *
+   * <p>Broadcasts wait for the bus like any other request, and the next request is sent no sooner
+   * than {@link ModbusClientConfig#broadcastTurnaroundDelay()} after the broadcast was sent.
+   *
    * @param request the request to broadcast. Must be a write command.
    * @return a {@link CompletionStage} that completes when the request has been sent.
    */
   public CompletionStage<Void> broadcastAsync(ModbusRequestPdu request) {
-    ByteBuffer pdu = ByteBuffer.allocate(256);
+    ByteBuffer pdu = config.bufferPool().take(PDU_BUFFER_SIZE);
 
     try {
       config.requestSerializer().encode(request, pdu);
       pdu.flip();
     } catch (Exception e) {
+      config.bufferPool().give(pdu);
       return CompletableFuture.failedFuture(e);
     }
 
     ByteBuffer crc = calculateCrc16(BROADCAST_ID, pdu);
 
-    return transport.send(new ModbusRtuFrame(BROADCAST_ID, pdu, crc));
+    var future = new CompletableFuture<Void>();
+
+    submit(
+        BROADCAST_ID,
+        RequestPriority.INTERACTIVE,
+        pdu,
+        future,
+        () ->
+            transport
+                .send(new ModbusRtuFrame(BROADCAST_ID, pdu, crc))
+                .whenComplete(
+                    (v, ex) -> {
+                      config.bufferPool().give(pdu);
+
+                      // no device responds to a broadcast; give them all time to process it
+                      markBusIdle(config.broadcastTurnaroundDelay());
+                      busArbiter.release(BROADCAST_ID);
+
+                      if (ex != null) {
+                        future.completeExceptionally(ex);
+                      } else {
+                        future.complete(null);
+                      }
+                    }));
+
+    return future;
   }
 
   private void onFrameReceived(ModbusRtuFrame frame) {
@@ -194,59 +370,63 @@ public class ModbusRtuClient extends ModbusClient {
         t.cancel();
       }
 
-      if (!verifyCrc16(frame)) {
-        resetFrameParser();
+      // Settle this transaction before giving up the bus, so the next request can't be sent
+      // while this frame is still being validated.
+      completeFromFrame(promise, frame);
 
-        promise.future.completeExceptionally(new ModbusCrcException(frame));
-        return;
-      }
+      markBusIdle(Duration.ZERO);
+      busArbiter.release(promise.slaveId);
+    } else {
+      logger.warn("No pending request for response frame: {}", frame);
+    }
+  }
 
-      int slaveId = frame.unitId();
+  private void completeFromFrame(ResponsePromise promise, ModbusRtuFrame frame) {
+    if (!verifyCrc16(frame)) {
+      resetFrameParser();
 
-      if (promise.slaveId != slaveId) {
-        promise.future.completeExceptionally(
-            new ModbusException("slave id mismatch: %s != %s".formatted(promise.slaveId, slaveId)));
-        return;
-      }
+      promise.future.completeExceptionally(new ModbusCrcException(frame));
+      return;
+    }
 
-      ByteBuffer buffer = frame.pdu();
-      int functionCode = buffer.get(buffer.position()) & 0xFF;
+    int slaveId = frame.unitId();
 
-      if (functionCode < 0x80) {
-        if (functionCode != promise.functionCode) {
-          // Response might be out of sync, e.g. the timeout elapsed in request A,
-          // we sent request B, and now we're receiving response A.
+    if (promise.slaveId != slaveId) {
+      promise.future.completeExceptionally(
+          new ModbusException("slave id mismatch: %s != %s".formatted(promise.slaveId, slaveId)));
+      return;
+    }
 
-          promise.future.completeExceptionally(
-              new ModbusException(
-                  "function code mismatch: %s != %s"
-                      .formatted(promise.functionCode, functionCode)));
+    config
+        .requestTimeoutPolicy()
+        .onResponse(
+            slaveId, promise.functionCode, Duration.ofNanos(System.nanoTime() - promise.sentNanos));
 
-          // Clear out any pending promises.
-          var pending = new ArrayList<ResponsePromise>();
-          synchronized (promises) {
-            while (!promises.isEmpty()) {
-              pending.add(promises.poll());
-            }
-          }
-          pending.forEach(
-              p -> p.future.completeExceptionally(new ModbusException("synchronization error")));
-        } else {
-          try {
-            ModbusPdu modbusPdu = config.responseSerializer().decode(functionCode, buffer);
-            promise.future.complete((ModbusResponsePdu) modbusPdu);
-          } catch (Exception e) {
-            promise.future.completeExceptionally(e);
-          }
-        }
-      } else {
-        int exceptionCode = buffer.get();
+    ByteBuffer buffer = frame.pdu();
+    int functionCode = buffer.get(buffer.position()) & 0xFF;
+
+    if (functionCode < 0x80) {
+      if (functionCode != promise.functionCode) {
+        // Response might be out of sync, e.g. the timeout elapsed in request A,
+        // we sent request B, and now we're receiving response A. The bus only ever
+        // has one request outstanding, so there are no other pending promises to clear.
 
         promise.future.completeExceptionally(
-            new ModbusResponseException(promise.functionCode, exceptionCode));
+            new ModbusException(
+                "function code mismatch: %s != %s".formatted(promise.functionCode, functionCode)));
+      } else {
+        try {
+          ModbusPdu modbusPdu = config.responseSerializer().decode(functionCode, buffer);
+          promise.future.complete((ModbusResponsePdu) modbusPdu);
+        } catch (Exception e) {
+          promise.future.completeExceptionally(e);
+        }
       }
     } else {
-      logger.warn("No pending request for response frame: {}", frame);
+      int exceptionCode = buffer.get();
+
+      promise.future.completeExceptionally(
+          new ModbusResponseException(promise.functionCode, exceptionCode));
     }
   }
 
@@ -263,14 +443,12 @@ public class ModbusRtuClient extends ModbusClient {
    * @return a {@link ByteBuffer} containing the calculated CRC-16.
    */
   protected ByteBuffer calculateCrc16(int unitId, ByteBuffer pdu) {
-    var crc16 = new Crc16();
-    crc16.update(unitId);
-    crc16.update(pdu);
+    int value = Crc16.compute(unitId, pdu);
 
     ByteBuffer crc = ByteBuffer.allocate(2);
     // write crc in little-endian order
-    crc.put((byte) (crc16.getValue() & 0xFF));
-    crc.put((byte) ((crc16.getValue() >> 8) & 0xFF));
+    crc.put((byte) (value & 0xFF));
+    crc.put((byte) ((value >> 8) & 0xFF));
 
     return crc.flip();
   }
@@ -282,17 +460,7 @@ public class ModbusRtuClient extends ModbusClient {
    * @return {@code true} if the CRC-16 matches, {@code false} otherwise.
    */
   protected boolean verifyCrc16(ModbusRtuFrame frame) {
-    var crc16 = new Crc16();
-    crc16.update(frame.unitId());
-    crc16.update(frame.pdu());
-    int expected = crc16.getValue();
-
-    int offset = frame.crc().position();
-    int low = frame.crc().get(offset) & 0xFF;
-    int high = frame.crc().get(offset + 1) & 0xFF;
-    int reported = (high << 8) | low;
-
-    return expected == reported;
+    return Crc16.verify(frame.unitId(), frame.pdu(), frame.crc());
   }
 
   /**
@@ -322,6 +490,11 @@ public class ModbusRtuClient extends ModbusClient {
     return new ModbusRtuClient(builder.build(), transport);
   }
 
+  /**
+   * A request waiting for its response.
+   *
+   * @param sentNanos the {@link System#nanoTime()} at which the request was sent.
+   */
   private record ResponsePromise(
-      int slaveId, int functionCode, CompletableFuture<ModbusResponsePdu> future) {}
+      int slaveId, int functionCode, CompletableFuture<ModbusResponsePdu> future, long sentNanos) {}
 }
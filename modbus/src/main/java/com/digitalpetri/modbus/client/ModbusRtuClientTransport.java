@@ -1,6 +1,7 @@
 package com.digitalpetri.modbus.client;
 
 import com.digitalpetri.modbus.ModbusRtuFrame;
+import java.time.Duration;
 
 public interface ModbusRtuClientTransport extends ModbusClientTransport<ModbusRtuFrame> {
 
@@ -10,4 +11,17 @@ public interface ModbusRtuClientTransport extends ModbusClientTransport<ModbusRt
    * <p>This method should be called after a timeout or CRC error to reset the parser state.
    */
   void resetFrameParser();
+
+  /**
+   * Get the silent interval the bus needs between the end of one frame and the start of the next.
+   *
+   * <p>On a serial line this is 3.5 character times at the configured baud rate and framing. A
+   * {@link ModbusRtuClient} waits at least this long after a response, timeout, or broadcast before
+   * sending its next request.
+   *
+   * @return the inter-frame delay. Defaults to {@link Duration#ZERO}.
+   */
+  default Duration getInterFrameDelay() {
+    return Duration.ZERO;
+  }
 }
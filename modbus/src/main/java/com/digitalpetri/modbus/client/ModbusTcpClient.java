@@ -12,15 +12,18 @@ import com.digitalpetri.modbus.pdu.ModbusPdu;
 import com.digitalpetri.modbus.pdu.ModbusRequestPdu;
 import com.digitalpetri.modbus.pdu.ModbusResponsePdu;
 import java.nio.ByteBuffer;
-import java.util.Map;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
 import java.util.concurrent.CompletionStage;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.function.Consumer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -30,21 +33,43 @@ public class ModbusTcpClient extends ModbusClient {
   /** Fixed protocol ID identifying the protocol as Modbus in {@link MbapHeader}. */
   private static final int MODBUS_PROTOCOL_ID = 0;
 
+  /** Capacity of the buffers request PDUs are encoded into; a PDU is at most 253 bytes. */
+  private static final int PDU_BUFFER_SIZE = 256;
+
+  /** Number of distinct transaction ids, and the size of the {@link #promises} slot table. */
+  private static final int TRANSACTION_ID_COUNT = 65536;
+
   private final Logger logger = LoggerFactory.getLogger(getClass());
 
-  private final Map<Integer, ResponsePromise> promises = new ConcurrentHashMap<>();
+  // pending requests, indexed by transaction id
+  private final AtomicReferenceArray<ResponsePromise> promises =
+      new AtomicReferenceArray<>(TRANSACTION_ID_COUNT);
 
   private final AtomicReference<TransactionSequence> transactionSequence = new AtomicReference<>();
 
   private final ModbusClientConfig config;
   private final ModbusTcpClientTransport transport;
 
+  // null when there is no in-flight limit, total or per unit id, i.e. requests are never queued
+  private final RequestWindow requestWindow;
+
   public ModbusTcpClient(ModbusClientConfig config, ModbusTcpClientTransport transport) {
     super(transport);
 
     this.config = config;
     this.transport = transport;
 
+    if (config.maxInFlight() > 0 || !config.unitConcurrencyLimits().isUnlimited()) {
+      requestWindow =
+          new RequestWindow(
+              config.maxInFlight(),
+              config.maxQueuedRequests(),
+              config.queueFullPolicy(),
+              config.unitConcurrencyLimits());
+    } else {
+      requestWindow = null;
+    }
+
     transport.receive(this::onFrameReceived);
   }
 
@@ -67,6 +92,29 @@ public class ModbusTcpClient extends ModbusClient {
     return transport;
   }
 
+  /**
+   * Get the number of requests that have been sent and are awaiting a response or timeout.
+   *
+   * <p>Requests are only tracked if {@link ModbusClientConfig#maxInFlight()} or {@link
+   * ModbusClientConfig#unitConcurrencyLimits()} sets a limit; otherwise this always returns 0.
+   *
+   * @return the number of requests in flight.
+   */
+  public int getInFlightRequestCount() {
+    return requestWindow != null ? requestWindow.inFlight() : 0;
+  }
+
+  /**
+   * Get the number of requests queued because {@link ModbusClientConfig#maxInFlight()} requests, or
+   * their unit id's {@link ModbusClientConfig#unitConcurrencyLimits() limit}, are already in
+   * flight.
+   *
+   * @return the number of queued requests.
+   */
+  public int getQueuedRequestCount() {
+    return requestWindow != null ? requestWindow.queued() : 0;
+  }
+
   /**
    * Send an already-encoded request PDU and wait for the matching Modbus/TCP response PDU.
    *
@@ -130,8 +178,15 @@ public class ModbusTcpClient extends ModbusClient {
    *     MBAP header.
    */
   public CompletionStage<byte[]> sendRawAsync(int unitId, byte[] pduBytes) {
+    int functionCode = pduBytes.length > 0 ? pduBytes[0] & 0xFF : 0;
     CompletionStage<ByteBuffer> cs =
-        sendBufferAsync(unitId, ByteBuffer.wrap(pduBytes), RawResponsePromise::new);
+        sendBufferAsync(
+            unitId,
+            ByteBuffer.wrap(pduBytes),
+            false,
+            (future, timeout, sentNanos) ->
+                new RawResponsePromise(unitId, functionCode, future, timeout, sentNanos),
+            RequestPriority.INTERACTIVE);
 
     return cs.thenApply(
         buffer -> {
@@ -143,21 +198,120 @@ public class ModbusTcpClient extends ModbusClient {
 
   @Override
   public CompletionStage<ModbusResponsePdu> sendAsync(int unitId, ModbusRequestPdu request) {
-    ByteBuffer pduBytes = ByteBuffer.allocate(256);
+    return sendAsync(unitId, request, RequestPriority.INTERACTIVE);
+  }
 
+  /**
+   * {@inheritDoc}
+   *
+   * <p>The priority decides the order queued requests are sent in when {@link
+   * ModbusClientConfig#maxInFlight()} or {@link ModbusClientConfig#unitConcurrencyLimits()} sets a
+   * limit.
+   */
+  @Override
+  public CompletionStage<ModbusResponsePdu> sendAsync(
+      int unitId, ModbusRequestPdu request, RequestPriority priority) {
+
+    ByteBuffer requestBuffer;
     try {
-      config.requestSerializer().encode(request, pduBytes);
+      requestBuffer = encode(request);
     } catch (Exception e) {
       return CompletableFuture.failedFuture(e);
     }
 
-    ByteBuffer requestBuffer = pduBytes.flip();
-    int functionCode = requestBuffer.get(requestBuffer.position()) & 0xFF;
     CompletionStage<ByteBuffer> cs =
         sendBufferAsync(
-            unitId,
-            requestBuffer,
-            (future, timeout) -> new ModbusResponsePromise(functionCode, future, timeout));
+            unitId, requestBuffer, true, modbusPromiseFactory(unitId, request), priority);
+
+    return decode(request, cs);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>Without a {@link ModbusClientConfig#maxInFlight()} or {@link
+   * ModbusClientConfig#unitConcurrencyLimits()} limit, every request is given a transaction id and
+   * then all of them are handed to {@link ModbusTcpClientTransport#sendBatch(List)} at once. With a
+   * limit, requests go through the in-flight window one at a time.
+   */
+  @Override
+  public BatchResponse sendBatchAsync(List<UnitRequest> requests) {
+    if (requestWindow != null) {
+      return super.sendBatchAsync(requests);
+    }
+
+    var responses = new ArrayList<CompletionStage<ModbusResponsePdu>>(requests.size());
+    var frames = new ArrayList<ModbusTcpFrame>(requests.size());
+    var futures = new ArrayList<CompletableFuture<ByteBuffer>>(requests.size());
+
+    for (UnitRequest request : requests) {
+      ByteBuffer requestBuffer;
+      try {
+        requestBuffer = encode(request.request());
+      } catch (Exception e) {
+        responses.add(CompletableFuture.failedFuture(e));
+        continue;
+      }
+
+      var future = new CompletableFuture<ByteBuffer>();
+
+      ModbusTcpFrame frame =
+          register(
+              request.unitId(),
+              requestBuffer,
+              true,
+              modbusPromiseFactory(request.unitId(), request.request()),
+              future);
+
+      if (frame != null) {
+        frames.add(frame);
+        futures.add(future);
+      }
+
+      responses.add(decode(request.request(), future));
+    }
+
+    if (!frames.isEmpty()) {
+      List<CompletionStage<Void>> sent = transport.sendBatch(frames);
+
+      for (int i = 0; i < frames.size(); i++) {
+        ModbusTcpFrame frame = frames.get(i);
+        CompletableFuture<ByteBuffer> future = futures.get(i);
+
+        sent.get(i).whenComplete((v, ex) -> onSendComplete(frame, true, future, ex));
+      }
+    }
+
+    return new BatchResponse(responses);
+  }
+
+  /**
+   * Encode {@code request} into a buffer taken from the configured {@link
+   * ModbusClientConfig#bufferPool()}, ready to be read.
+   */
+  private ByteBuffer encode(ModbusRequestPdu request) throws Exception {
+    ByteBuffer pduBytes = config.bufferPool().take(PDU_BUFFER_SIZE);
+
+    try {
+      config.requestSerializer().encode(request, pduBytes);
+    } catch (Exception e) {
+      config.bufferPool().give(pduBytes);
+      throw e;
+    }
+
+    return pduBytes.flip();
+  }
+
+  private static ResponsePromiseFactory modbusPromiseFactory(int unitId, ModbusRequestPdu request) {
+
+    int functionCode = request.getFunctionCode();
+
+    return (future, timeout, sentNanos) ->
+        new ModbusResponsePromise(unitId, functionCode, future, timeout, sentNanos);
+  }
+
+  private CompletionStage<ModbusResponsePdu> decode(
+      ModbusRequestPdu request, CompletionStage<ByteBuffer> cs) {
 
     return cs.thenApply(
         responseBuffer -> {
@@ -171,59 +325,202 @@ public class ModbusTcpClient extends ModbusClient {
         });
   }
 
+  /**
+   * Send an encoded request PDU and complete with its response PDU.
+   *
+   * @param pooled whether {@code buffer} was taken from the configured {@link
+   *     ModbusClientConfig#bufferPool()} and should be given back once the request has been sent or
+   *     has failed without being sent.
+   * @param priority the priority of the request if it has to be queued.
+   */
   private CompletionStage<ByteBuffer> sendBufferAsync(
-      int unitId, ByteBuffer buffer, ResponsePromiseFactory promiseFactory) {
+      int unitId,
+      ByteBuffer buffer,
+      boolean pooled,
+      ResponsePromiseFactory promiseFactory,
+      RequestPriority priority) {
+
+    var future = new CompletableFuture<ByteBuffer>();
+
+    if (requestWindow == null) {
+      dispatch(unitId, buffer, pooled, promiseFactory, future);
+      return future;
+    }
+
+    Runnable dispatch =
+        () -> {
+          future.whenComplete((r, ex) -> requestWindow.release(unitId));
+
+          dispatch(unitId, buffer, pooled, promiseFactory, future);
+        };
+
+    try {
+      if (!requestWindow.submit(unitId, priority, dispatch)) {
+        releaseBuffer(buffer, pooled);
+        future.completeExceptionally(new ModbusException("request queue full"));
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      releaseBuffer(buffer, pooled);
+      future.completeExceptionally(e);
+    }
+
+    return future;
+  }
+
+  private void dispatch(
+      int unitId,
+      ByteBuffer buffer,
+      boolean pooled,
+      ResponsePromiseFactory promiseFactory,
+      CompletableFuture<ByteBuffer> future) {
+
+    ModbusTcpFrame frame = register(unitId, buffer, pooled, promiseFactory, future);
+
+    if (frame != null) {
+      transport.send(frame).whenComplete((v, ex) -> onSendComplete(frame, pooled, future, ex));
+    }
+  }
+
+  /**
+   * Claim a transaction id for a request, start its timeout, and build its frame.
+   *
+   * @return the frame to send, or {@code null} if {@code future} was failed instead.
+   */
+  private ModbusTcpFrame register(
+      int unitId,
+      ByteBuffer buffer,
+      boolean pooled,
+      ResponsePromiseFactory promiseFactory,
+      CompletableFuture<ByteBuffer> future) {
+
     TransactionSequence sequence =
         transactionSequence.updateAndGet(ts -> ts != null ? ts : createTransactionSequence());
-    int transactionId = sequence.next();
-
-    var header = new MbapHeader(transactionId, MODBUS_PROTOCOL_ID, 1 + buffer.remaining(), unitId);
-
-    long timeoutMillis = config.requestTimeout().toMillis();
-    TimeoutHandle timeout =
-        config
-            .timeoutScheduler()
-            .newTimeout(
-                t -> {
-                  ResponsePromise promise = promises.remove(header.transactionId());
-                  if (promise != null) {
-                    promise
-                        .future()
-                        .completeExceptionally(
-                            new TimeoutException(
-                                "request timed out after %sms".formatted(timeoutMillis)));
-                  }
-                },
-                timeoutMillis,
-                TimeUnit.MILLISECONDS);
-
-    ResponsePromise pending = promiseFactory.create(new CompletableFuture<>(), timeout);
-
-    promises.put(header.transactionId(), pending);
-
-    transport
-        .send(new ModbusTcpFrame(header, buffer))
-        .whenComplete(
-            (v, ex) -> {
-              if (ex != null) {
-                ResponsePromise promise = promises.remove(header.transactionId());
-                if (promise != null) {
-                  promise.timeout().cancel();
-                  promise.future().completeExceptionally(ex);
-                }
-              }
-            });
-
-    return pending.future();
+
+    int functionCode = buffer.hasRemaining() ? buffer.get(buffer.position()) & 0xFF : 0;
+    long timeoutMillis = config.requestTimeoutPolicy().getTimeout(unitId, functionCode).toMillis();
+
+    while (true) {
+      int transactionId = nextFreeTransactionId(sequence);
+
+      if (transactionId < 0) {
+        releaseBuffer(buffer, pooled);
+        future.completeExceptionally(new ModbusException("no transaction id available"));
+        return null;
+      }
+
+      TimeoutHandle timeout;
+      try {
+        timeout =
+            config
+                .timeoutScheduler()
+                .newTimeout(
+                    t -> {
+                      ResponsePromise promise = removePromise(transactionId, future);
+                      if (promise != null) {
+                        config.requestTimeoutPolicy().onTimeout(unitId, functionCode);
+
+                        promise
+                            .future()
+                            .completeExceptionally(
+                                new TimeoutException(
+                                    "request timed out after %sms".formatted(timeoutMillis)));
+                      }
+                    },
+                    timeoutMillis,
+                    TimeUnit.MILLISECONDS);
+      } catch (RuntimeException e) {
+        // e.g. the scheduler was stopped by Modbus.releaseSharedResources()
+        releaseBuffer(buffer, pooled);
+        future.completeExceptionally(e);
+        return null;
+      }
+
+      ResponsePromise pending = promiseFactory.create(future, timeout, System.nanoTime());
+
+      if (!promises.compareAndSet(transactionId, null, pending)) {
+        // another request claimed this id since it was found free; try the next one
+        timeout.cancel();
+        continue;
+      }
+
+      var header =
+          new MbapHeader(transactionId, MODBUS_PROTOCOL_ID, 1 + buffer.remaining(), unitId);
+
+      return new ModbusTcpFrame(header, buffer);
+    }
+  }
+
+  private void onSendComplete(
+      ModbusTcpFrame frame, boolean pooled, CompletableFuture<ByteBuffer> future, Throwable ex) {
+
+    releaseBuffer(frame.pdu(), pooled);
+
+    if (ex != null) {
+      ResponsePromise promise = removePromise(frame.header().transactionId(), future);
+      if (promise != null) {
+        promise.timeout().cancel();
+        promise.future().completeExceptionally(ex);
+      }
+    }
+  }
+
+  private void releaseBuffer(ByteBuffer buffer, boolean pooled) {
+    if (pooled) {
+      config.bufferPool().give(buffer);
+    }
+  }
+
+  /**
+   * Get the next transaction id from {@code sequence} that has no pending request, so a response
+   * that arrives after the sequence wraps around can't complete the wrong request.
+   *
+   * @param sequence the {@link TransactionSequence} to take ids from.
+   * @return the next free transaction id, or -1 if every id the sequence produced is in use.
+   */
+  private int nextFreeTransactionId(TransactionSequence sequence) {
+    for (int i = 0; i < TRANSACTION_ID_COUNT; i++) {
+      int transactionId = sequence.next();
+
+      if (promises.get(transactionId) == null) {
+        return transactionId;
+      }
+    }
+
+    return -1;
+  }
+
+  /**
+   * Remove the pending request at {@code transactionId}, but only if it is the one completing
+   * {@code future}; the slot may have been reused by a newer request.
+   */
+  private ResponsePromise removePromise(int transactionId, CompletableFuture<ByteBuffer> future) {
+    ResponsePromise promise = promises.get(transactionId);
+
+    if (promise != null
+        && promise.future() == future
+        && promises.compareAndSet(transactionId, promise, null)) {
+
+      return promise;
+    } else {
+      return null;
+    }
   }
 
   private void onFrameReceived(ModbusTcpFrame frame) {
     MbapHeader header = frame.header();
-    ResponsePromise promise = promises.remove(header.transactionId());
+    ResponsePromise promise = promises.getAndSet(header.transactionId(), null);
 
     if (promise != null) {
       promise.timeout().cancel();
 
+      config
+          .requestTimeoutPolicy()
+          .onResponse(
+              promise.unitId(),
+              promise.functionCode(),
+              Duration.ofNanos(System.nanoTime() - promise.sentNanos()));
+
       ByteBuffer buffer = frame.pdu();
 
       promise.complete(buffer);
@@ -271,19 +568,34 @@ public class ModbusTcpClient extends ModbusClient {
 
   private interface ResponsePromiseFactory {
 
-    ResponsePromise create(CompletableFuture<ByteBuffer> future, TimeoutHandle timeout);
+    ResponsePromise create(
+        CompletableFuture<ByteBuffer> future, TimeoutHandle timeout, long sentNanos);
   }
 
   private sealed interface ResponsePromise permits RawResponsePromise, ModbusResponsePromise {
 
+    /** The unit id the request was sent to, which a gateway may not echo in its response. */
+    int unitId();
+
+    /** The function code of the request, or 0 for an empty raw request. */
+    int functionCode();
+
     CompletableFuture<ByteBuffer> future();
 
     TimeoutHandle timeout();
 
+    /** The {@link System#nanoTime()} at which the request was sent. */
+    long sentNanos();
+
     void complete(ByteBuffer buffer);
   }
 
-  private record RawResponsePromise(CompletableFuture<ByteBuffer> future, TimeoutHandle timeout)
+  private record RawResponsePromise(
+      int unitId,
+      int functionCode,
+      CompletableFuture<ByteBuffer> future,
+      TimeoutHandle timeout,
+      long sentNanos)
       implements ResponsePromise {
 
     @Override
@@ -293,7 +605,11 @@ public class ModbusTcpClient extends ModbusClient {
   }
 
   private record ModbusResponsePromise(
-      int functionCode, CompletableFuture<ByteBuffer> future, TimeoutHandle timeout)
+      int unitId,
+      int functionCode,
+      CompletableFuture<ByteBuffer> future,
+      TimeoutHandle timeout,
+      long sentNanos)
       implements ResponsePromise {
 
     @Override
@@ -331,6 +647,9 @@ public class ModbusTcpClient extends ModbusClient {
     /**
      * Return the next 2-byte transaction identifier. Range is [0, 65535] by default.
      *
+     * <p>Ids that still have a request pending are skipped by the client, which calls this again
+     * until it gets a free one.
+     *
      * <p>Implementations must be safe for use by multiple threads.
      *
      * @return the next 2-byte transaction identifier.
@@ -343,7 +662,7 @@ public class ModbusTcpClient extends ModbusClient {
     private final int low;
     private final int high;
 
-    private final AtomicReference<Integer> transactionId = new AtomicReference<>(0);
+    private final AtomicInteger transactionId = new AtomicInteger(0);
 
     public DefaultTransactionSequence() {
       this(0, 65535);
@@ -359,8 +678,8 @@ public class ModbusTcpClient extends ModbusClient {
     @Override
     public int next() {
       while (true) {
-        Integer id = transactionId.get();
-        Integer nextId = id >= high ? low : id + 1;
+        int id = transactionId.get();
+        int nextId = id >= high ? low : id + 1;
 
         if (transactionId.compareAndSet(id, nextId)) {
           return id;
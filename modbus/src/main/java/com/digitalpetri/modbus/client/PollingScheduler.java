@@ -0,0 +1,493 @@
+package com.digitalpetri.modbus.client;
+
+import com.digitalpetri.modbus.client.ReadPlan.Area;
+import com.digitalpetri.modbus.client.ReadPlan.Result;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Cyclically reads scan groups and publishes the values that changed.
+ *
+ * <p>Each {@link ScanGroup} reads a {@link ReadPlan} from one unit id with one {@link ModbusClient}
+ * every {@link ScanGroupConfig#period()}. Cycles are started on a fixed grid, so periods don't
+ * drift with the time a scan takes. A cycle that becomes due while the group's previous scan is
+ * still queued or in flight is skipped and counted as an overrun rather than queued behind it.
+ *
+ * <p>At most {@link PollingSchedulerConfig#maxConcurrentScans()} groups are read at the same time.
+ * Due groups wait in priority order, highest {@link ScanGroupConfig#priority()} first. Scan reads
+ * are sent with {@link RequestPriority#BULK}, so clients that queue requests send other requests
+ * ahead of them.
+ *
+ * <p>{@link ScanListener}s are called with only the requested addresses whose values changed since
+ * the group's previous successful scan; the first successful scan reports every address.
+ */
+public class PollingScheduler {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(PollingScheduler.class);
+
+  private static final Comparator<ScanGroup> DUE_ORDER =
+      Comparator.comparingInt((ScanGroup g) -> g.config.priority())
+          .reversed()
+          .thenComparingLong(g -> g.dueSequence);
+
+  private final Object lock = new Object();
+
+  private final List<ScanGroup> groups = new ArrayList<>();
+  private final PriorityQueue<ScanGroup> due = new PriorityQueue<>(DUE_ORDER);
+
+  private int scanning = 0;
+  private long dueSequence = 0L;
+  private boolean running = false;
+
+  private final PollingSchedulerConfig config;
+
+  public PollingScheduler(PollingSchedulerConfig config) {
+    this.config = config;
+  }
+
+  /**
+   * Create a new {@link PollingScheduler}.
+   *
+   * @param configure a callback that accepts a {@link PollingSchedulerConfig.Builder} used to
+   *     configure the scheduler.
+   * @return a new {@link PollingScheduler}.
+   */
+  public static PollingScheduler create(Consumer<PollingSchedulerConfig.Builder> configure) {
+    return new PollingScheduler(PollingSchedulerConfig.create(configure));
+  }
+
+  /**
+   * Get the {@link PollingSchedulerConfig} this scheduler was created with.
+   *
+   * @return the {@link PollingSchedulerConfig} this scheduler was created with.
+   */
+  public PollingSchedulerConfig getConfig() {
+    return config;
+  }
+
+  /**
+   * Add a scan group. If this scheduler is running the group starts polling immediately.
+   *
+   * @param groupConfig the {@link ScanGroupConfig}.
+   * @return the new {@link ScanGroup}.
+   */
+  public ScanGroup addGroup(ScanGroupConfig groupConfig) {
+    var group = new ScanGroup(groupConfig);
+
+    synchronized (lock) {
+      groups.add(group);
+
+      if (running) {
+        group.start();
+      }
+    }
+
+    return group;
+  }
+
+  /**
+   * Remove a scan group. A scan already in flight completes, but its values are not published.
+   *
+   * @param group the {@link ScanGroup} to remove.
+   */
+  public void removeGroup(ScanGroup group) {
+    synchronized (lock) {
+      if (groups.remove(group)) {
+        group.stop();
+      }
+    }
+  }
+
+  /**
+   * Get the scan groups in this scheduler.
+   *
+   * @return a copy of the scan groups in this scheduler.
+   */
+  public List<ScanGroup> getGroups() {
+    synchronized (lock) {
+      return List.copyOf(groups);
+    }
+  }
+
+  /** Start polling every scan group. */
+  public void start() {
+    synchronized (lock) {
+      if (!running) {
+        running = true;
+        groups.forEach(ScanGroup::start);
+      }
+    }
+  }
+
+  /** Stop polling. Scans already in flight complete, but their values are not published. */
+  public void stop() {
+    synchronized (lock) {
+      if (running) {
+        running = false;
+        groups.forEach(ScanGroup::stop);
+      }
+    }
+  }
+
+  /** Start scans for due groups, in priority order, while below the concurrency limit. */
+  private void drain() {
+    var ready = new ArrayList<ScanGroup>();
+
+    synchronized (lock) {
+      while (scanning < config.maxConcurrentScans() && !due.isEmpty()) {
+        ScanGroup group = due.poll();
+        group.state = State.SCANNING;
+        scanning++;
+        ready.add(group);
+      }
+    }
+
+    ready.forEach(ScanGroup::scan);
+  }
+
+  private enum State {
+    IDLE,
+    DUE,
+    SCANNING
+  }
+
+  /** A unit id, {@link ReadPlan}, period, and priority polled by a {@link PollingScheduler}. */
+  public final class ScanGroup {
+
+    private final List<ScanListener> listeners = new CopyOnWriteArrayList<>();
+
+    private final ScanGroupConfig config;
+    private final long periodNanos;
+    private final Map<Area, int[]> addresses = new EnumMap<>(Area.class);
+
+    // guarded by lock
+    private State state = State.IDLE;
+    private long dueSequence;
+    private long dueNanos;
+    private long generation = 0L;
+    private long anchorNanos;
+    private ScheduledFuture<?> nextCycle;
+    private long startedNanos;
+
+    // written only by the scan in flight
+    private Map<Area, int[]> values;
+    private volatile Result lastResult;
+
+    private volatile long cycles = 0L;
+    private volatile long overruns = 0L;
+    private volatile long failures = 0L;
+    private volatile long lastLatencyNanos = 0L;
+    private volatile long maxLatencyNanos = 0L;
+    private volatile long totalLatencyNanos = 0L;
+    private volatile long lastSuccessNanos = 0L;
+
+    private ScanGroup(ScanGroupConfig config) {
+      this.config = config;
+      this.periodNanos = config.period().toNanos();
+
+      for (Area area : Area.values()) {
+        int[] areaAddresses = config.plan().addresses(area);
+        if (areaAddresses.length > 0) {
+          addresses.put(area, areaAddresses);
+        }
+      }
+    }
+
+    /**
+     * Get the {@link ScanGroupConfig} this group was created with.
+     *
+     * @return the {@link ScanGroupConfig} this group was created with.
+     */
+    public ScanGroupConfig getConfig() {
+      return config;
+    }
+
+    /**
+     * Add a {@link ScanListener}. It is notified of changes detected by subsequent scans; use
+     * {@link #getLastResult()} for the current values.
+     *
+     * @param listener the listener to add.
+     */
+    public void addListener(ScanListener listener) {
+      listeners.add(listener);
+    }
+
+    /**
+     * Remove a {@link ScanListener}.
+     *
+     * @param listener the listener to remove.
+     */
+    public void removeListener(ScanListener listener) {
+      listeners.remove(listener);
+    }
+
+    /**
+     * Get the {@link Result} of the most recent successful scan.
+     *
+     * @return the {@link Result} of the most recent successful scan, or {@code null} if no scan has
+     *     succeeded yet.
+     */
+    public Result getLastResult() {
+      return lastResult;
+    }
+
+    /**
+     * Get a snapshot of this group's statistics.
+     *
+     * @return a snapshot of this group's {@link ScanGroupStats}.
+     */
+    public ScanGroupStats getStats() {
+      long now = System.nanoTime();
+      long cycles = this.cycles;
+      long lastSuccessNanos = this.lastSuccessNanos;
+      long startedNanos;
+      synchronized (lock) {
+        startedNanos = this.startedNanos;
+      }
+
+      long staleSince = lastSuccessNanos != 0L ? lastSuccessNanos : startedNanos;
+
+      return new ScanGroupStats(
+          cycles,
+          overruns,
+          failures,
+          Duration.ofNanos(lastLatencyNanos),
+          Duration.ofNanos(maxLatencyNanos),
+          Duration.ofNanos(cycles > 0 ? totalLatencyNanos / cycles : 0L),
+          staleSince != 0L ? Duration.ofNanos(now - staleSince) : Duration.ZERO);
+    }
+
+    private void start() {
+      long now = System.nanoTime();
+      long phase =
+          PollingScheduler.this.config.jitter() > 0
+              ? ThreadLocalRandom.current().nextLong(periodNanos)
+              : 0L;
+
+      startedNanos = now;
+      anchorNanos = now + phase;
+      schedule(++generation, 0L);
+    }
+
+    private void stop() {
+      generation++;
+
+      if (nextCycle != null) {
+        nextCycle.cancel(false);
+        nextCycle = null;
+      }
+      if (state == State.DUE) {
+        due.remove(this);
+        state = State.IDLE;
+      }
+    }
+
+    /** Schedule {@code cycle}, skipping cycles whose time has already passed. */
+    private void schedule(long generation, long cycle) {
+      long now = System.nanoTime();
+      long nominal = anchorNanos + cycle * periodNanos;
+
+      if (now - nominal >= periodNanos) {
+        long behind = (now - nominal) / periodNanos;
+        overruns += behind;
+        cycle += behind;
+        nominal += behind * periodNanos;
+      }
+
+      long maxJitter = (long) (periodNanos * PollingScheduler.this.config.jitter());
+      long jitter = maxJitter > 0 ? ThreadLocalRandom.current().nextLong(maxJitter + 1) : 0L;
+
+      long next = cycle;
+      nextCycle =
+          PollingScheduler.this
+              .config
+              .scheduledExecutor()
+              .schedule(
+                  () -> onCycle(generation, next),
+                  Math.max(0L, nominal - now + jitter),
+                  TimeUnit.NANOSECONDS);
+    }
+
+    private void onCycle(long generation, long cycle) {
+      synchronized (lock) {
+        if (generation != this.generation) {
+          return;
+        }
+
+        if (state == State.IDLE) {
+          state = State.DUE;
+          dueSequence = PollingScheduler.this.dueSequence++;
+          dueNanos = System.nanoTime();
+          due.add(this);
+        } else {
+          overruns++;
+        }
+
+        schedule(generation, cycle + 1);
+      }
+
+      drain();
+    }
+
+    private void scan() {
+      long generation;
+      long dueNanos;
+      synchronized (lock) {
+        generation = this.generation;
+        dueNanos = this.dueNanos;
+      }
+
+      config
+          .plan()
+          .executeAsync(config.client(), config.unitId(), RequestPriority.BULK)
+          .whenComplete(
+              (result, ex) -> {
+                long now = System.nanoTime();
+                long latency = now - dueNanos;
+
+                lastLatencyNanos = latency;
+                maxLatencyNanos = Math.max(maxLatencyNanos, latency);
+                totalLatencyNanos += latency;
+                cycles++;
+
+                boolean current;
+                synchronized (lock) {
+                  current = generation == this.generation;
+                }
+
+                if (ex != null) {
+                  failures++;
+                  if (current) {
+                    publish(l -> l.onScanFailed(this, ex));
+                  }
+                } else {
+                  lastSuccessNanos = now;
+                  lastResult = result;
+
+                  // a stale scan's values aren't published, so they mustn't be recorded either,
+                  // or the next scan wouldn't see them as changed
+                  if (current) {
+                    List<Change> changes = update(result);
+                    if (!changes.isEmpty()) {
+                      publish(l -> l.onValuesChanged(this, changes));
+                    }
+                  }
+                }
+
+                synchronized (lock) {
+                  state = State.IDLE;
+                  scanning--;
+                }
+
+                drain();
+              });
+    }
+
+    /**
+     * Notify each listener in turn; a listener that throws is logged and doesn't keep the others,
+     * or the group's next cycle, from running.
+     */
+    private void publish(Consumer<ScanListener> notification) {
+      for (ScanListener listener : listeners) {
+        try {
+          notification.accept(listener);
+        } catch (Throwable t) {
+          LOGGER.warn("ScanListener threw an exception", t);
+        }
+      }
+    }
+
+    /** Record the values in {@code result} and return the ones that changed. */
+    private List<Change> update(Result result) {
+      var changes = new ArrayList<Change>();
+      boolean first = values == null;
+
+      if (first) {
+        values = new EnumMap<>(Area.class);
+        addresses.forEach((area, a) -> values.put(area, new int[a.length]));
+      }
+
+      addresses.forEach(
+          (area, areaAddresses) -> {
+            int[] areaValues = values.get(area);
+
+            for (int i = 0; i < areaAddresses.length; i++) {
+              int value = result.value(area, areaAddresses[i]);
+
+              if (first || areaValues[i] != value) {
+                areaValues[i] = value;
+                changes.add(new Change(area, areaAddresses[i], value));
+              }
+            }
+          });
+
+      return changes;
+    }
+  }
+
+  /**
+   * A value that changed between two scans.
+   *
+   * @param area the {@link Area} of the value.
+   * @param address the address of the value.
+   * @param value the new value; 0 or 1 for coils and discrete inputs, the unsigned 16-bit value for
+   *     registers.
+   */
+  public record Change(Area area, int address, int value) {}
+
+  /**
+   * Statistics for a {@link ScanGroup}.
+   *
+   * @param cycles the number of scans completed, successfully or not.
+   * @param overruns the number of cycles skipped because the previous scan hadn't completed.
+   * @param failures the number of scans that failed.
+   * @param lastLatency the time from when the most recent completed scan became due until it
+   *     completed.
+   * @param maxLatency the largest latency of any scan.
+   * @param meanLatency the mean latency of all scans.
+   * @param staleness the time since the most recent successful scan completed, or since the group
+   *     started if no scan has succeeded yet.
+   */
+  public record ScanGroupStats(
+      long cycles,
+      long overruns,
+      long failures,
+      Duration lastLatency,
+      Duration maxLatency,
+      Duration meanLatency,
+      Duration staleness) {}
+
+  public interface ScanListener {
+
+    /**
+     * Values read by a scan differ from the previous successful scan.
+     *
+     * <p>This callback is made on the thread that completed the scan. Scans of the same group never
+     * overlap, so calls for one group are never concurrent.
+     *
+     * @param group the {@link ScanGroup} that was scanned.
+     * @param changes the requested addresses whose values changed, and their new values.
+     */
+    void onValuesChanged(ScanGroup group, List<Change> changes);
+
+    /**
+     * A scan failed.
+     *
+     * @param group the {@link ScanGroup} that was scanned.
+     * @param failure the cause of the failure.
+     */
+    default void onScanFailed(ScanGroup group, Throwable failure) {}
+  }
+}
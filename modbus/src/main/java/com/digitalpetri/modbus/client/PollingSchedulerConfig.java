@@ -0,0 +1,106 @@
+package com.digitalpetri.modbus.client;
+
+import com.digitalpetri.modbus.Modbus;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Consumer;
+
+/**
+ * Configuration for a {@link PollingScheduler}.
+ *
+ * @param jitter the largest random delay added to each cycle, as a fraction of the group's period.
+ * @param maxConcurrentScans the maximum number of scan groups being read at the same time.
+ * @param scheduledExecutor the {@link ScheduledExecutorService} used to start each cycle.
+ */
+public record PollingSchedulerConfig(
+    double jitter, int maxConcurrentScans, ScheduledExecutorService scheduledExecutor) {
+
+  /**
+   * Create a new {@link PollingSchedulerConfig} instance.
+   *
+   * @param configure a callback that accepts a {@link Builder} used to configure the new instance.
+   * @return a new {@link PollingSchedulerConfig} instance.
+   */
+  public static PollingSchedulerConfig create(Consumer<Builder> configure) {
+    var builder = new Builder();
+    configure.accept(builder);
+    return builder.build();
+  }
+
+  public static class Builder {
+
+    /**
+     * The largest random delay added to each cycle, as a fraction of the group's period.
+     *
+     * <p>When greater than 0, each group also starts at a random phase within its period, so groups
+     * with the same period don't all poll at the same instant. Defaults to 0.1.
+     */
+    public double jitter = 0.1;
+
+    /**
+     * The maximum number of scan groups being read at the same time.
+     *
+     * <p>When more groups are due than this, the groups with the highest priority are read first.
+     * Defaults to 64.
+     */
+    public int maxConcurrentScans = 64;
+
+    /**
+     * The {@link ScheduledExecutorService} used to start each cycle.
+     *
+     * <p>Defaults to {@link Modbus#sharedScheduledExecutor()}.
+     */
+    public ScheduledExecutorService scheduledExecutor;
+
+    /**
+     * Set the largest random delay added to each cycle, as a fraction of the group's period.
+     *
+     * @param jitter the jitter, in the range [0, 1].
+     * @return this {@link Builder}.
+     */
+    public Builder setJitter(double jitter) {
+      this.jitter = jitter;
+      return this;
+    }
+
+    /**
+     * Set the maximum number of scan groups being read at the same time.
+     *
+     * @param maxConcurrentScans the maximum number of concurrent scans.
+     * @return this {@link Builder}.
+     */
+    public Builder setMaxConcurrentScans(int maxConcurrentScans) {
+      this.maxConcurrentScans = maxConcurrentScans;
+      return this;
+    }
+
+    /**
+     * Set the {@link ScheduledExecutorService} used to start each cycle.
+     *
+     * @param scheduledExecutor the scheduled executor.
+     * @return this {@link Builder}.
+     */
+    public Builder setScheduledExecutor(ScheduledExecutorService scheduledExecutor) {
+      this.scheduledExecutor = scheduledExecutor;
+      return this;
+    }
+
+    /**
+     * Build a {@link PollingSchedulerConfig} from this builder.
+     *
+     * @return a new {@link PollingSchedulerConfig} instance.
+     */
+    public PollingSchedulerConfig build() {
+      if (!(jitter >= 0 && jitter <= 1)) {
+        throw new IllegalArgumentException("jitter must be >= 0 and <= 1");
+      }
+      if (maxConcurrentScans < 1) {
+        throw new IllegalArgumentException("maxConcurrentScans must be >= 1");
+      }
+      if (scheduledExecutor == null) {
+        scheduledExecutor = Modbus.sharedScheduledExecutor();
+      }
+
+      return new PollingSchedulerConfig(jitter, maxConcurrentScans, scheduledExecutor);
+    }
+  }
+}
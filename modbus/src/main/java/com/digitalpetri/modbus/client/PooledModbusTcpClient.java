@@ -0,0 +1,337 @@
+package com.digitalpetri.modbus.client;
+
+import com.digitalpetri.modbus.MbapHeader;
+import com.digitalpetri.modbus.ModbusTcpFrame;
+import com.digitalpetri.modbus.pdu.ModbusRequestPdu;
+import com.digitalpetri.modbus.pdu.ModbusResponsePdu;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A Modbus/TCP client that spreads requests across several connections to the same device.
+ *
+ * <p>Many gateways and soft-PLCs handle each connection serially but serve several connections in
+ * parallel. This client owns one {@link ModbusTcpClient} per {@link ModbusTcpClientTransport} and
+ * sends each request on the connected member with the fewest outstanding requests.
+ *
+ * <p>While the pool is connected, members that are not connected are skipped, and a reconnect is
+ * started for each one skipped, so the client keeps working in a degraded mode while some
+ * connections are down. {@link #connect()} succeeds as long as at least one member connects. After
+ * {@link #disconnect()} no member is reconnected until the pool is connected again. Requests are
+ * only sent on a member that is not connected when no member is.
+ *
+ * <p>Frames sent on {@link #getTransport()} go out on the least-loaded member the same way, with
+ * that member's transaction id, and the response is handed to the transport's receiver with the
+ * transaction id of the frame that was sent.
+ *
+ * <p>Each member applies the {@link ModbusClientConfig} on its own, so {@link
+ * ModbusClientConfig#maxInFlight()} limits each connection rather than the whole pool.
+ */
+public class PooledModbusTcpClient extends ModbusClient {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(PooledModbusTcpClient.class);
+
+  private final ModbusClientConfig config;
+  private final PoolTransport pool;
+
+  public PooledModbusTcpClient(
+      ModbusClientConfig config, List<? extends ModbusTcpClientTransport> transports) {
+
+    this(config, transports, new PoolTransport());
+  }
+
+  private PooledModbusTcpClient(
+      ModbusClientConfig config,
+      List<? extends ModbusTcpClientTransport> transports,
+      PoolTransport pool) {
+
+    super(pool);
+
+    if (transports.isEmpty()) {
+      throw new IllegalArgumentException("transports must not be empty");
+    }
+
+    this.config = config;
+    this.pool = pool;
+
+    for (ModbusTcpClientTransport transport : transports) {
+      pool.members.add(new Member(new ModbusTcpClient(config, transport)));
+    }
+  }
+
+  /**
+   * Get the {@link ModbusClientConfig} used by each member of this pool.
+   *
+   * @return the {@link ModbusClientConfig} used by each member of this pool.
+   */
+  public ModbusClientConfig getConfig() {
+    return config;
+  }
+
+  /**
+   * Get the {@link ModbusTcpClient}s this pool sends requests with, one per connection.
+   *
+   * @return the {@link ModbusTcpClient}s this pool sends requests with.
+   */
+  public List<ModbusTcpClient> getClients() {
+    return pool.members.stream().map(m -> m.client).toList();
+  }
+
+  /**
+   * Get the number of members whose transport is currently connected.
+   *
+   * @return the number of connected members.
+   */
+  public int getConnectedCount() {
+    return (int) pool.members.stream().filter(m -> m.client.isConnected()).count();
+  }
+
+  /**
+   * Send an already-encoded request PDU on the least-loaded connection.
+   *
+   * @param unitId the remote device unit id.
+   * @param pduBytes the request PDU bytes.
+   * @return a {@link CompletionStage} that completes with the response PDU bytes.
+   * @see ModbusTcpClient#sendRawAsync(int, byte[])
+   */
+  public CompletionStage<byte[]> sendRawAsync(int unitId, byte[] pduBytes) {
+    return pool.sendOnMember(client -> client.sendRawAsync(unitId, pduBytes));
+  }
+
+  @Override
+  public CompletionStage<ModbusResponsePdu> sendAsync(int unitId, ModbusRequestPdu request) {
+    return pool.sendOnMember(client -> client.sendAsync(unitId, request));
+  }
+
+  @Override
+  public CompletionStage<ModbusResponsePdu> sendAsync(
+      int unitId, ModbusRequestPdu request, RequestPriority priority) {
+
+    return pool.sendOnMember(client -> client.sendAsync(unitId, request, priority));
+  }
+
+  /**
+   * Create a new {@link PooledModbusTcpClient} with {@code connections} connections and a {@link
+   * ModbusClientConfig} with the default values.
+   *
+   * @param connections the number of connections.
+   * @param transportFactory creates the {@link ModbusTcpClientTransport} for each connection.
+   * @return a new {@link PooledModbusTcpClient}.
+   */
+  public static PooledModbusTcpClient create(
+      int connections, Supplier<? extends ModbusTcpClientTransport> transportFactory) {
+
+    return create(connections, transportFactory, cfg -> {});
+  }
+
+  /**
+   * Create a new {@link PooledModbusTcpClient} with {@code connections} connections and a callback
+   * for building a {@link ModbusClientConfig}.
+   *
+   * @param connections the number of connections.
+   * @param transportFactory creates the {@link ModbusTcpClientTransport} for each connection.
+   * @param configure a callback used to build a {@link ModbusClientConfig}.
+   * @return a new {@link PooledModbusTcpClient}.
+   */
+  public static PooledModbusTcpClient create(
+      int connections,
+      Supplier<? extends ModbusTcpClientTransport> transportFactory,
+      Consumer<ModbusClientConfig.Builder> configure) {
+
+    if (connections < 1) {
+      throw new IllegalArgumentException("connections must be >= 1");
+    }
+
+    var transports = new ArrayList<ModbusTcpClientTransport>();
+    for (int i = 0; i < connections; i++) {
+      transports.add(transportFactory.get());
+    }
+
+    return new PooledModbusTcpClient(ModbusClientConfig.create(configure), transports);
+  }
+
+  private static class Member {
+
+    final AtomicInteger outstanding = new AtomicInteger(0);
+    final AtomicBoolean reconnecting = new AtomicBoolean(false);
+
+    final ModbusTcpClient client;
+
+    Member(ModbusTcpClient client) {
+      this.client = client;
+    }
+
+    void reconnect(PoolTransport pool) {
+      if (reconnecting.compareAndSet(false, true)) {
+        client
+            .connectAsync()
+            .whenComplete(
+                (v, ex) -> {
+                  reconnecting.set(false);
+
+                  if (ex != null) {
+                    LOGGER.debug("Pool member reconnect failed: {}", ex.getMessage());
+                  } else if (!pool.connectRequested) {
+                    // the pool was disconnected while this member was reconnecting
+                    client.disconnectAsync();
+                  }
+                });
+      }
+    }
+  }
+
+  /**
+   * The transport seen by {@link ModbusClient}: connects, disconnects, and reports the state of all
+   * members, and sends each request on the least-loaded member.
+   */
+  private static class PoolTransport implements ModbusTcpClientTransport {
+
+    final List<Member> members = new ArrayList<>();
+
+    private final AtomicInteger nextMember = new AtomicInteger(0);
+
+    // set by connect() and cleared by disconnect(); members are only reconnected while it's set
+    private volatile boolean connectRequested = false;
+
+    private volatile Consumer<ModbusTcpFrame> frameReceiver;
+
+    /**
+     * Connect all members.
+     *
+     * @return a {@link CompletionStage} that completes once every member has finished connecting;
+     *     successfully if at least one member connected, otherwise with the first member's failure.
+     */
+    @Override
+    public CompletionStage<Void> connect() {
+      connectRequested = true;
+
+      List<CompletableFuture<Void>> futures =
+          members.stream().map(m -> m.client.connectAsync().toCompletableFuture()).toList();
+
+      return CompletableFuture.allOf(
+              futures.stream().map(f -> f.handle((v, ex) -> ex)).toArray(CompletableFuture[]::new))
+          .thenCompose(
+              v -> {
+                if (futures.stream().anyMatch(f -> !f.isCompletedExceptionally())) {
+                  return CompletableFuture.completedFuture(null);
+                } else {
+                  return futures.get(0);
+                }
+              });
+    }
+
+    @Override
+    public CompletionStage<Void> disconnect() {
+      connectRequested = false;
+
+      return CompletableFuture.allOf(
+          members.stream()
+              .map(m -> m.client.disconnectAsync().toCompletableFuture())
+              .toArray(CompletableFuture[]::new));
+    }
+
+    /**
+     * Check if any member is connected.
+     *
+     * @return {@code true} if any member is connected.
+     */
+    @Override
+    public boolean isConnected() {
+      return members.stream().anyMatch(m -> m.client.isConnected());
+    }
+
+    /**
+     * Send {@code frame}'s PDU on the least-loaded member and hand the response to the receiver.
+     *
+     * @param frame the request frame to send.
+     * @return a {@link CompletionStage} that completes once the response has been handed to the
+     *     receiver, or completes exceptionally if the member failed to send the request or it timed
+     *     out.
+     */
+    @Override
+    public CompletionStage<Void> send(ModbusTcpFrame frame) {
+      MbapHeader header = frame.header();
+
+      var pdu = new byte[frame.pdu().remaining()];
+      frame.pdu().duplicate().get(pdu);
+
+      return sendOnMember(client -> client.sendRawAsync(header.unitId(), pdu))
+          .thenAccept(
+              response -> {
+                Consumer<ModbusTcpFrame> receiver = frameReceiver;
+
+                if (receiver != null) {
+                  var responseHeader =
+                      new MbapHeader(
+                          header.transactionId(),
+                          header.protocolId(),
+                          response.length + 1,
+                          header.unitId());
+
+                  receiver.accept(new ModbusTcpFrame(responseHeader, ByteBuffer.wrap(response)));
+                }
+              });
+    }
+
+    @Override
+    public void receive(Consumer<ModbusTcpFrame> frameReceiver) {
+      this.frameReceiver = frameReceiver;
+    }
+
+    <T> CompletionStage<T> sendOnMember(Function<ModbusTcpClient, CompletionStage<T>> send) {
+      Member member = selectMember();
+
+      member.outstanding.incrementAndGet();
+
+      CompletionStage<T> cs;
+      try {
+        cs = send.apply(member.client);
+      } catch (Throwable t) {
+        cs = CompletableFuture.failedFuture(t);
+      }
+
+      return cs.whenComplete((r, ex) -> member.outstanding.decrementAndGet());
+    }
+
+    /**
+     * Select the connected member with the fewest outstanding requests, starting a reconnect for
+     * every member that isn't connected if the pool is connected. Falls back to the least-loaded
+     * member if none are connected.
+     */
+    private Member selectMember() {
+      // rotate the starting point so ties are spread across members
+      int start = Math.floorMod(nextMember.getAndIncrement(), members.size());
+
+      Member selected = null;
+      Member fallback = null;
+
+      for (int i = 0; i < members.size(); i++) {
+        Member member = members.get((start + i) % members.size());
+
+        if (fallback == null || member.outstanding.get() < fallback.outstanding.get()) {
+          fallback = member;
+        }
+
+        if (member.client.isConnected()) {
+          if (selected == null || member.outstanding.get() < selected.outstanding.get()) {
+            selected = member;
+          }
+        } else if (connectRequested) {
+          member.reconnect(this);
+        }
+      }
+
+      return selected != null ? selected : fallback;
+    }
+  }
+}
@@ -0,0 +1,24 @@
+package com.digitalpetri.modbus.client;
+
+/**
+ * Determines what a {@link ModbusTcpClient} does with a new request when {@link
+ * ModbusClientConfig#maxInFlight()} requests, or its unit id's {@link
+ * ModbusClientConfig#unitConcurrencyLimits() limit}, are already outstanding and {@link
+ * ModbusClientConfig#maxQueuedRequests()} requests are already waiting.
+ */
+public enum QueueFullPolicy {
+
+  /**
+   * The request fails immediately with a {@link
+   * com.digitalpetri.modbus.exceptions.ModbusException}.
+   */
+  REJECT,
+
+  /**
+   * The calling thread blocks until there is room for the request.
+   *
+   * <p>Room is only made when an outstanding request completes, so requests must not be sent with
+   * this policy from a thread that completes responses, e.g. a transport's event loop.
+   */
+  BLOCK
+}
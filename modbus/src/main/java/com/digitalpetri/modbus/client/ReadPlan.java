@@ -0,0 +1,574 @@
+package com.digitalpetri.modbus.client;
+
+import com.digitalpetri.modbus.exceptions.ModbusException;
+import com.digitalpetri.modbus.exceptions.ModbusExecutionException;
+import com.digitalpetri.modbus.exceptions.ModbusResponseException;
+import com.digitalpetri.modbus.exceptions.ModbusTimeoutException;
+import com.digitalpetri.modbus.pdu.ModbusRequestPdu;
+import com.digitalpetri.modbus.pdu.ModbusResponsePdu;
+import com.digitalpetri.modbus.pdu.ReadCoilsRequest;
+import com.digitalpetri.modbus.pdu.ReadCoilsResponse;
+import com.digitalpetri.modbus.pdu.ReadDiscreteInputsRequest;
+import com.digitalpetri.modbus.pdu.ReadDiscreteInputsResponse;
+import com.digitalpetri.modbus.pdu.ReadHoldingRegistersRequest;
+import com.digitalpetri.modbus.pdu.ReadHoldingRegistersResponse;
+import com.digitalpetri.modbus.pdu.ReadInputRegistersRequest;
+import com.digitalpetri.modbus.pdu.ReadInputRegistersResponse;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A set of block reads covering a sparse set of addresses.
+ *
+ * <p>A {@link Builder} takes the addresses to read from each {@link Area} and compiles them into
+ * the fewest {@link Block}s that cover them. Each block stays within its area's maximum quantity,
+ * only bridges gaps of at most {@link Builder#setMaxGap(int) maxGap} unrequested addresses, and
+ * never covers an address in a range marked {@link Builder#addIllegalRange(Area, int, int)
+ * illegal}.
+ *
+ * <p>A plan is immutable and can be executed any number of times against any {@link ModbusClient}.
+ * All blocks are sent at once, so how many are in flight together is up to the client, e.g. {@link
+ * ModbusClientConfig#maxInFlight()}.
+ */
+public final class ReadPlan {
+
+  private final Map<Area, List<Block>> blocks;
+  private final Map<Area, BitSet> addresses;
+
+  private ReadPlan(Map<Area, List<Block>> blocks, Map<Area, BitSet> addresses) {
+    this.blocks = blocks;
+    this.addresses = addresses;
+  }
+
+  /**
+   * Get the blocks this plan reads, ordered by area and then address.
+   *
+   * @return the blocks this plan reads.
+   */
+  public List<Block> blocks() {
+    var all = new ArrayList<Block>();
+    blocks.values().forEach(all::addAll);
+    return all;
+  }
+
+  /**
+   * Get the addresses requested from {@code area}, not including addresses only bridged by a block.
+   *
+   * @param area the {@link Area}.
+   * @return the requested addresses, in ascending order.
+   */
+  public int[] addresses(Area area) {
+    BitSet set = addresses.get(area);
+    return set == null ? new int[0] : set.stream().toArray();
+  }
+
+  /**
+   * Execute this plan, blocking until every block has been read.
+   *
+   * @param client the {@link ModbusClient} to read with.
+   * @param unitId the remote device unit id.
+   * @return the {@link Result}.
+   * @throws ModbusExecutionException if any unexpected execution error occurs.
+   * @throws ModbusResponseException if the remote device responds to any block with an error.
+   * @throws ModbusTimeoutException if any block times out.
+   */
+  public Result execute(ModbusClient client, int unitId)
+      throws ModbusExecutionException, ModbusResponseException, ModbusTimeoutException {
+
+    try {
+      return executeAsync(client, unitId).toCompletableFuture().get();
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof TimeoutException ex) {
+        throw new ModbusTimeoutException(ex);
+      } else if (cause instanceof ModbusResponseException ex) {
+        throw ex;
+      } else {
+        throw new ModbusExecutionException(cause);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ModbusExecutionException(e);
+    }
+  }
+
+  /**
+   * Execute this plan, sending every block at once.
+   *
+   * @param client the {@link ModbusClient} to read with.
+   * @param unitId the remote device unit id.
+   * @return a {@link CompletionStage} that completes with the {@link Result} once every block has
+   *     been read, or completes exceptionally with the first failure.
+   */
+  public CompletionStage<Result> executeAsync(ModbusClient client, int unitId) {
+    return executeAsync(client, unitId, RequestPriority.INTERACTIVE);
+  }
+
+  /**
+   * Execute this plan, sending every block at once with {@code priority}.
+   *
+   * @param client the {@link ModbusClient} to read with.
+   * @param unitId the remote device unit id.
+   * @param priority the {@link RequestPriority} of each block read.
+   * @return a {@link CompletionStage} that completes with the {@link Result} once every block has
+   *     been read, or completes exceptionally with the first failure.
+   */
+  public CompletionStage<Result> executeAsync(
+      ModbusClient client, int unitId, RequestPriority priority) {
+
+    var futures = new EnumMap<Area, List<CompletableFuture<byte[]>>>(Area.class);
+
+    blocks.forEach(
+        (area, areaBlocks) -> {
+          var areaFutures = new ArrayList<CompletableFuture<byte[]>>(areaBlocks.size());
+          for (Block block : areaBlocks) {
+            areaFutures.add(read(client, unitId, block, priority).toCompletableFuture());
+          }
+          futures.put(area, areaFutures);
+        });
+
+    CompletableFuture<?>[] all =
+        futures.values().stream().flatMap(List::stream).toArray(CompletableFuture[]::new);
+
+    var result = new CompletableFuture<Result>();
+
+    for (CompletableFuture<?> f : all) {
+      f.whenComplete(
+          (r, ex) -> {
+            if (ex != null) {
+              result.completeExceptionally(ex);
+            }
+          });
+    }
+
+    CompletableFuture.allOf(all)
+        .thenRun(
+            () -> {
+              var data = new EnumMap<Area, List<byte[]>>(Area.class);
+              futures.forEach(
+                  (area, areaFutures) ->
+                      data.put(area, areaFutures.stream().map(CompletableFuture::join).toList()));
+
+              result.complete(new Result(blocks, data));
+            });
+
+    return result;
+  }
+
+  private static CompletionStage<byte[]> read(
+      ModbusClient client, int unitId, Block block, RequestPriority priority) {
+
+    ModbusRequestPdu request =
+        switch (block.area()) {
+          case COILS -> new ReadCoilsRequest(block.address(), block.quantity());
+          case DISCRETE_INPUTS -> new ReadDiscreteInputsRequest(block.address(), block.quantity());
+          case HOLDING_REGISTERS ->
+              new ReadHoldingRegistersRequest(block.address(), block.quantity());
+          case INPUT_REGISTERS -> new ReadInputRegistersRequest(block.address(), block.quantity());
+        };
+
+    CompletionStage<ModbusResponsePdu> response;
+    try {
+      response = client.sendAsync(unitId, request, priority);
+    } catch (Throwable t) {
+      return CompletableFuture.failedFuture(t);
+    }
+
+    return response.thenApply(
+        pdu -> {
+          byte[] data;
+          if (pdu instanceof ReadCoilsResponse r) {
+            data = r.coils();
+          } else if (pdu instanceof ReadDiscreteInputsResponse r) {
+            data = r.inputs();
+          } else if (pdu instanceof ReadHoldingRegistersResponse r) {
+            data = r.registers();
+          } else if (pdu instanceof ReadInputRegistersResponse r) {
+            data = r.registers();
+          } else {
+            throw new CompletionException(
+                new ModbusException(
+                    "unexpected response: 0x%02X".formatted(pdu.getFunctionCode())));
+          }
+
+          if (data.length < block.area().byteCount(block.quantity())) {
+            throw new CompletionException(
+                new ModbusException("short response: %d bytes".formatted(data.length)));
+          }
+
+          return data;
+        });
+  }
+
+  /**
+   * Create a new {@link Builder}.
+   *
+   * @return a new {@link Builder}.
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /** The data areas a {@link ReadPlan} can read. */
+  public enum Area {
+
+    /** Coils, read with Read Coils (FC 0x01), at most 2000 per request. */
+    COILS(2000),
+
+    /** Discrete Inputs, read with Read Discrete Inputs (FC 0x02), at most 2000 per request. */
+    DISCRETE_INPUTS(2000),
+
+    /** Holding Registers, read with Read Holding Registers (FC 0x03), at most 125 per request. */
+    HOLDING_REGISTERS(125),
+
+    /** Input Registers, read with Read Input Registers (FC 0x04), at most 125 per request. */
+    INPUT_REGISTERS(125);
+
+    private final int maxQuantity;
+
+    Area(int maxQuantity) {
+      this.maxQuantity = maxQuantity;
+    }
+
+    /**
+     * Get the maximum quantity a single request for this area may read.
+     *
+     * @return the maximum quantity a single request for this area may read.
+     */
+    public int maxQuantity() {
+      return maxQuantity;
+    }
+
+    /**
+     * Get the number of response bytes a quantity of this area takes.
+     *
+     * @param quantity a quantity of this area.
+     * @return the number of response bytes {@code quantity} coils, inputs, or registers take.
+     */
+    int byteCount(int quantity) {
+      return this == HOLDING_REGISTERS || this == INPUT_REGISTERS
+          ? quantity * 2
+          : (quantity + 7) / 8;
+    }
+  }
+
+  /**
+   * A single read request in a {@link ReadPlan}.
+   *
+   * @param area the {@link Area} read.
+   * @param address the starting address.
+   * @param quantity the number of coils, inputs, or registers read.
+   */
+  public record Block(Area area, int address, int quantity) {}
+
+  /** The values read by executing a {@link ReadPlan}, looked up by address. */
+  public static final class Result {
+
+    private final Map<Area, List<Block>> blocks;
+    private final Map<Area, List<byte[]>> data;
+
+    private Result(Map<Area, List<Block>> blocks, Map<Area, List<byte[]>> data) {
+      this.blocks = blocks;
+      this.data = data;
+    }
+
+    /**
+     * Get the value of a coil.
+     *
+     * @param address the coil address.
+     * @return the value of the coil at {@code address}.
+     * @throws IllegalArgumentException if the plan didn't read {@code address}.
+     */
+    public boolean coil(int address) {
+      return bit(Area.COILS, address);
+    }
+
+    /**
+     * Get the value of a discrete input.
+     *
+     * @param address the discrete input address.
+     * @return the value of the discrete input at {@code address}.
+     * @throws IllegalArgumentException if the plan didn't read {@code address}.
+     */
+    public boolean discreteInput(int address) {
+      return bit(Area.DISCRETE_INPUTS, address);
+    }
+
+    /**
+     * Get the value of a holding register.
+     *
+     * @param address the holding register address.
+     * @return the unsigned 16-bit value of the holding register at {@code address}.
+     * @throws IllegalArgumentException if the plan didn't read {@code address}.
+     */
+    public int holdingRegister(int address) {
+      return register(Area.HOLDING_REGISTERS, address);
+    }
+
+    /**
+     * Get the value of an input register.
+     *
+     * @param address the input register address.
+     * @return the unsigned 16-bit value of the input register at {@code address}.
+     * @throws IllegalArgumentException if the plan didn't read {@code address}.
+     */
+    public int inputRegister(int address) {
+      return register(Area.INPUT_REGISTERS, address);
+    }
+
+    /**
+     * Get the value at an address in an area.
+     *
+     * @param area the {@link Area}.
+     * @param address the address.
+     * @return the value at {@code address}; 0 or 1 for coils and discrete inputs, the unsigned
+     *     16-bit value for registers.
+     * @throws IllegalArgumentException if the plan didn't read {@code address}.
+     */
+    public int value(Area area, int address) {
+      return switch (area) {
+        case COILS, DISCRETE_INPUTS -> bit(area, address) ? 1 : 0;
+        case HOLDING_REGISTERS, INPUT_REGISTERS -> register(area, address);
+      };
+    }
+
+    private boolean bit(Area area, int address) {
+      int index = indexOf(area, address);
+      int offset = address - blocks.get(area).get(index).address();
+      byte[] bits = data.get(area).get(index);
+
+      return (bits[offset >>> 3] & (1 << (offset & 7))) != 0;
+    }
+
+    private int register(Area area, int address) {
+      int index = indexOf(area, address);
+      int offset = (address - blocks.get(area).get(index).address()) * 2;
+      byte[] registers = data.get(area).get(index);
+
+      return ((registers[offset] & 0xFF) << 8) | (registers[offset + 1] & 0xFF);
+    }
+
+    /** Find the index of the block in {@code area} that covers {@code address}. */
+    private int indexOf(Area area, int address) {
+      List<Block> areaBlocks = blocks.getOrDefault(area, List.of());
+
+      int low = 0;
+      int high = areaBlocks.size() - 1;
+
+      while (low <= high) {
+        int mid = (low + high) >>> 1;
+        Block block = areaBlocks.get(mid);
+
+        if (address < block.address()) {
+          high = mid - 1;
+        } else if (address >= block.address() + block.quantity()) {
+          low = mid + 1;
+        } else {
+          return mid;
+        }
+      }
+
+      throw new IllegalArgumentException("address not read: %s %d".formatted(area, address));
+    }
+  }
+
+  public static class Builder {
+
+    private final Map<Area, BitSet> addresses = new EnumMap<>(Area.class);
+    private final Map<Area, BitSet> illegal = new EnumMap<>(Area.class);
+    private final Map<Area, Integer> maxQuantities = new EnumMap<>(Area.class);
+
+    private int maxGap = 0;
+
+    private Builder() {}
+
+    /**
+     * Add coil addresses to read.
+     *
+     * @param addresses the addresses.
+     * @return this {@link Builder}.
+     */
+    public Builder addCoils(int... addresses) {
+      return add(Area.COILS, addresses);
+    }
+
+    /**
+     * Add discrete input addresses to read.
+     *
+     * @param addresses the addresses.
+     * @return this {@link Builder}.
+     */
+    public Builder addDiscreteInputs(int... addresses) {
+      return add(Area.DISCRETE_INPUTS, addresses);
+    }
+
+    /**
+     * Add holding register addresses to read.
+     *
+     * @param addresses the addresses.
+     * @return this {@link Builder}.
+     */
+    public Builder addHoldingRegisters(int... addresses) {
+      return add(Area.HOLDING_REGISTERS, addresses);
+    }
+
+    /**
+     * Add input register addresses to read.
+     *
+     * @param addresses the addresses.
+     * @return this {@link Builder}.
+     */
+    public Builder addInputRegisters(int... addresses) {
+      return add(Area.INPUT_REGISTERS, addresses);
+    }
+
+    /**
+     * Add addresses to read from {@code area}. Duplicates are ignored.
+     *
+     * @param area the {@link Area}.
+     * @param addresses the addresses, each in the range [0, 65535].
+     * @return this {@link Builder}.
+     */
+    public Builder add(Area area, int... addresses) {
+      BitSet set = addresses(this.addresses, area);
+      for (int address : addresses) {
+        checkAddress(address);
+        set.set(address);
+      }
+      return this;
+    }
+
+    /**
+     * Mark a range of {@code area} as illegal; no block will read any address in it.
+     *
+     * @param area the {@link Area}.
+     * @param address the first illegal address.
+     * @param quantity the number of illegal addresses.
+     * @return this {@link Builder}.
+     */
+    public Builder addIllegalRange(Area area, int address, int quantity) {
+      checkAddress(address);
+      if (quantity < 1 || address + quantity > 65536) {
+        throw new IllegalArgumentException("quantity out of range: " + quantity);
+      }
+      addresses(illegal, area).set(address, address + quantity);
+      return this;
+    }
+
+    /**
+     * Set the largest number of unrequested addresses a block may bridge to avoid another request.
+     *
+     * <p>Defaults to 0.
+     *
+     * @param maxGap the maximum gap.
+     * @return this {@link Builder}.
+     */
+    public Builder setMaxGap(int maxGap) {
+      this.maxGap = maxGap;
+      return this;
+    }
+
+    /**
+     * Set the maximum quantity of a single request for {@code area}, for devices that support less
+     * than {@link Area#maxQuantity()}.
+     *
+     * @param area the {@link Area}.
+     * @param maxQuantity the maximum quantity.
+     * @return this {@link Builder}.
+     */
+    public Builder setMaxQuantity(Area area, int maxQuantity) {
+      maxQuantities.put(area, maxQuantity);
+      return this;
+    }
+
+    /**
+     * Build a {@link ReadPlan} from this builder.
+     *
+     * @return a new {@link ReadPlan}.
+     * @throws IllegalArgumentException if an address to read is in an illegal range.
+     */
+    public ReadPlan build() {
+      if (maxGap < 0) {
+        throw new IllegalArgumentException("maxGap must be >= 0");
+      }
+
+      var blocks = new EnumMap<Area, List<Block>>(Area.class);
+      var requested = new EnumMap<Area, BitSet>(Area.class);
+
+      for (Area area : Area.values()) {
+        BitSet set = this.addresses.get(area);
+        if (set == null || set.isEmpty()) {
+          continue;
+        }
+
+        int maxQuantity = maxQuantities.getOrDefault(area, area.maxQuantity());
+        if (maxQuantity < 1 || maxQuantity > area.maxQuantity()) {
+          throw new IllegalArgumentException(
+              "maxQuantity must be >= 1 and <= " + area.maxQuantity());
+        }
+
+        BitSet illegalSet = illegal.getOrDefault(area, new BitSet());
+        if (set.intersects(illegalSet)) {
+          var conflicts = (BitSet) set.clone();
+          conflicts.and(illegalSet);
+          throw new IllegalArgumentException(
+              "address in illegal range: %s %d".formatted(area, conflicts.nextSetBit(0)));
+        }
+
+        blocks.put(area, plan(area, set, illegalSet, maxQuantity));
+        requested.put(area, (BitSet) set.clone());
+      }
+
+      return new ReadPlan(Collections.unmodifiableMap(blocks), requested);
+    }
+
+    /**
+     * Greedily cover {@code set} left to right; extending the current block whenever possible
+     * yields the fewest blocks for these constraints.
+     */
+    private List<Block> plan(Area area, BitSet set, BitSet illegalSet, int maxQuantity) {
+      var blocks = new ArrayList<Block>();
+
+      int start = set.nextSetBit(0);
+      int last = start;
+
+      for (int next = set.nextSetBit(start + 1); next >= 0; next = set.nextSetBit(next + 1)) {
+        boolean fits = next - start + 1 <= maxQuantity;
+        boolean bridgeable = next - last - 1 <= maxGap;
+        boolean legal =
+            illegalSet.nextSetBit(last + 1) < 0 || illegalSet.nextSetBit(last + 1) > next;
+
+        if (fits && bridgeable && legal) {
+          last = next;
+        } else {
+          blocks.add(new Block(area, start, last - start + 1));
+          start = next;
+          last = next;
+        }
+      }
+
+      blocks.add(new Block(area, start, last - start + 1));
+
+      return List.copyOf(blocks);
+    }
+
+    private static BitSet addresses(Map<Area, BitSet> map, Area area) {
+      return map.computeIfAbsent(area, a -> new BitSet(65536));
+    }
+
+    private static void checkAddress(int address) {
+      if (address < 0 || address > 65535) {
+        throw new IllegalArgumentException("address out of range: " + address);
+      }
+    }
+  }
+}
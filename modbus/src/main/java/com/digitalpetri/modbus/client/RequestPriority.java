@@ -0,0 +1,24 @@
+package com.digitalpetri.modbus.client;
+
+/**
+ * The priority class of a request, used to decide which queued request is sent next.
+ *
+ * <p>Priority only matters while requests are queued, e.g. by {@link
+ * ModbusClientConfig#maxInFlight()} or {@link ModbusClientConfig#unitConcurrencyLimits()}; a
+ * request that can be sent immediately always is. Queued requests of a higher priority are sent
+ * before those of a lower priority, but a lower priority class is passed over only a limited number
+ * of times in a row, so a steady stream of higher priority requests can't starve it.
+ *
+ * <p>Requests sent without a priority are {@link #INTERACTIVE}.
+ */
+public enum RequestPriority {
+
+  /** Requests that control a process, e.g. setpoint or command writes. */
+  CONTROL,
+
+  /** Requests a user or application is waiting on. */
+  INTERACTIVE,
+
+  /** Background requests, e.g. cyclic polling. */
+  BULK
+}
@@ -0,0 +1,57 @@
+package com.digitalpetri.modbus.client;
+
+import java.time.Duration;
+
+/**
+ * Decides how long a {@link ModbusTcpClient} or {@link ModbusRtuClient} waits for the response to
+ * each request.
+ *
+ * <p>Clients ask for a timeout as each request is sent, and report the round-trip time of every
+ * response and every request that timed out, so a policy can adapt to how each unit id responds.
+ *
+ * <p>Implementations must be safe for use by multiple threads.
+ *
+ * @see AdaptiveTimeoutPolicy
+ */
+public interface RequestTimeoutPolicy {
+
+  /**
+   * Get the timeout for a request about to be sent.
+   *
+   * @param unitId the unit id the request is addressed to.
+   * @param functionCode the function code of the request.
+   * @return how long to wait for the response.
+   */
+  Duration getTimeout(int unitId, int functionCode);
+
+  /**
+   * A response, including an exception response, was received for a request.
+   *
+   * @param unitId the unit id the request was addressed to.
+   * @param functionCode the function code of the request.
+   * @param roundTripTime the time between sending the request and receiving the response.
+   */
+  default void onResponse(int unitId, int functionCode, Duration roundTripTime) {}
+
+  /**
+   * A request timed out.
+   *
+   * @param unitId the unit id the request was addressed to.
+   * @param functionCode the function code of the request.
+   */
+  default void onTimeout(int unitId, int functionCode) {}
+
+  /**
+   * Create a {@link RequestTimeoutPolicy} that uses the same timeout for every request.
+   *
+   * @param timeout the timeout.
+   * @return a fixed {@link RequestTimeoutPolicy}.
+   */
+  static RequestTimeoutPolicy fixed(Duration timeout) {
+    if (timeout == null) {
+      throw new NullPointerException("timeout must not be null");
+    }
+
+    return (unitId, functionCode) -> timeout;
+  }
+}
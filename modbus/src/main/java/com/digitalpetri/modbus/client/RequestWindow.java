@@ -0,0 +1,317 @@
+package com.digitalpetri.modbus.client;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limits the number of outstanding requests, in total and per unit id, queueing those that exceed a
+ * limit until an outstanding request completes.
+ *
+ * <p>Requests are queued per {@link RequestPriority} and unit id, and sent in order for each
+ * priority and unit id. When room is made, the highest priority with a request that can be sent
+ * goes first, and within a priority, unit ids with queued requests take turns, so one busy unit id
+ * can't hold back the others. A priority that has been passed over {@link #MAX_PASSED_OVER} times
+ * in a row goes before higher priorities once.
+ *
+ * <p>Each dispatch that is run must be matched by exactly one call to {@link #release(int)} with
+ * the same unit id once its request completes.
+ */
+final class RequestWindow {
+
+  /** The number of times in a row a priority with queued requests can be passed over. */
+  static final int MAX_PASSED_OVER = 8;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition notFull = lock.newCondition();
+
+  // indexed by RequestPriority ordinal, highest priority first
+  private final PriorityClass[] classes = new PriorityClass[RequestPriority.values().length];
+
+  // outstanding requests, indexed by unit id
+  private final int[] unitInFlight = new int[256];
+
+  private int inFlight = 0;
+  private int queued = 0;
+
+  // Set while this thread is running queued dispatches, so a dispatch that completes synchronously
+  // and releases its slot doesn't recurse into dispatching the next one.
+  private final ThreadLocal<Boolean> dispatching = new ThreadLocal<>();
+
+  private final int maxInFlight;
+  private final int maxQueued;
+  private final QueueFullPolicy queueFullPolicy;
+  private final UnitConcurrencyLimits unitLimits;
+
+  /**
+   * Create a {@link RequestWindow}.
+   *
+   * @param maxInFlight the maximum number of outstanding requests, or 0 for no limit.
+   * @param maxQueued the maximum number of queued requests.
+   * @param queueFullPolicy the {@link QueueFullPolicy} applied when {@code maxQueued} is reached.
+   * @param unitLimits the maximum number of outstanding requests per unit id.
+   */
+  RequestWindow(
+      int maxInFlight,
+      int maxQueued,
+      QueueFullPolicy queueFullPolicy,
+      UnitConcurrencyLimits unitLimits) {
+
+    this.maxInFlight = maxInFlight > 0 ? maxInFlight : Integer.MAX_VALUE;
+    this.maxQueued = maxQueued;
+    this.queueFullPolicy = queueFullPolicy;
+    this.unitLimits = unitLimits;
+
+    for (int i = 0; i < classes.length; i++) {
+      classes[i] = new PriorityClass();
+    }
+  }
+
+  /**
+   * Run {@code dispatch} now if the window has room, otherwise queue it to run, in order with other
+   * requests of the same priority for {@code unitId}, when room is made.
+   *
+   * @param unitId the unit id the request is for.
+   * @param priority the priority of the request.
+   * @param dispatch the dispatch to run.
+   * @return {@code true} if the dispatch was run or queued, {@code false} if it was rejected
+   *     because the queue is full.
+   * @throws InterruptedException if interrupted while blocked waiting for room.
+   */
+  boolean submit(int unitId, RequestPriority priority, Runnable dispatch)
+      throws InterruptedException {
+
+    int unit = unitId & 0xFF;
+    boolean runNow;
+
+    lock.lock();
+    try {
+      while (true) {
+        if (hasRoom(unit) && !hasQueued(unit, priority)) {
+          inFlight++;
+          unitInFlight[unit]++;
+          runNow = true;
+          break;
+        } else if (queued < maxQueued) {
+          classes[priority.ordinal()].add(unit, dispatch);
+          queued++;
+          runNow = false;
+          break;
+        } else if (queueFullPolicy == QueueFullPolicy.REJECT) {
+          return false;
+        } else {
+          notFull.await();
+        }
+      }
+    } finally {
+      lock.unlock();
+    }
+
+    if (runNow) {
+      dispatch.run();
+    } else {
+      dispatchQueued();
+    }
+
+    return true;
+  }
+
+  /**
+   * Release the slot held by a dispatched request for {@code unitId} and dispatch queued requests
+   * into it.
+   *
+   * @param unitId the unit id the dispatched request was for.
+   */
+  void release(int unitId) {
+    lock.lock();
+    try {
+      inFlight--;
+      unitInFlight[unitId & 0xFF]--;
+      notFull.signalAll();
+    } finally {
+      lock.unlock();
+    }
+
+    dispatchQueued();
+  }
+
+  /**
+   * Get the number of dispatched requests that have not been released.
+   *
+   * @return the number of dispatched requests that have not been released.
+   */
+  int inFlight() {
+    lock.lock();
+    try {
+      return inFlight;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Get the number of requests waiting for room in the window.
+   *
+   * @return the number of requests waiting for room in the window.
+   */
+  int queued() {
+    lock.lock();
+    try {
+      return queued;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Must be called with {@link #lock} held. */
+  private boolean hasRoom(int unit) {
+    int unitLimit = unitLimits.getLimit(unit);
+
+    return inFlight < maxInFlight && (unitLimit == 0 || unitInFlight[unit] < unitLimit);
+  }
+
+  /**
+   * Must be called with {@link #lock} held.
+   *
+   * @return {@code true} if {@code unit} has requests queued at {@code priority} or higher.
+   */
+  private boolean hasQueued(int unit, RequestPriority priority) {
+    for (int p = 0; p <= priority.ordinal(); p++) {
+      Queue<Runnable> queue = classes[p].queues.get(unit);
+      if (queue != null && !queue.isEmpty()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Take the next queued dispatch that can be sent and claim its slot.
+   *
+   * <p>Must be called with {@link #lock} held.
+   *
+   * @return the next dispatch, or {@code null} if no queued dispatch can be sent.
+   */
+  private Runnable poll() {
+    if (queued == 0 || inFlight >= maxInFlight) {
+      return null;
+    }
+
+    Runnable next = null;
+    int chosen = -1;
+
+    // a priority passed over too many times in a row goes first, lowest priority first
+    for (int p = classes.length - 1; p >= 0 && next == null; p--) {
+      if (classes[p].passedOver >= MAX_PASSED_OVER) {
+        next = classes[p].poll();
+        chosen = p;
+      }
+    }
+
+    for (int p = 0; p < classes.length && next == null; p++) {
+      next = classes[p].poll();
+      chosen = p;
+    }
+
+    if (next == null) {
+      return null;
+    }
+
+    classes[chosen].passedOver = 0;
+    for (int p = chosen + 1; p < classes.length; p++) {
+      if (classes[p].pending > 0) {
+        classes[p].passedOver++;
+      }
+    }
+
+    queued--;
+    notFull.signalAll();
+
+    return next;
+  }
+
+  private void dispatchQueued() {
+    if (dispatching.get() != null) {
+      return;
+    }
+
+    dispatching.set(Boolean.TRUE);
+    try {
+      while (true) {
+        Runnable next;
+
+        lock.lock();
+        try {
+          next = poll();
+
+          if (next == null) {
+            return;
+          }
+        } finally {
+          lock.unlock();
+        }
+
+        next.run();
+      }
+    } finally {
+      dispatching.remove();
+    }
+  }
+
+  /** The requests queued at one priority; only accessed with {@link #lock} held. */
+  private final class PriorityClass {
+
+    // per unit id, created on first use
+    final List<Queue<Runnable>> queues = new ArrayList<>(Collections.nCopies(256, null));
+
+    // unit ids with queued dispatches, in the order they take turns
+    final Queue<Integer> ready = new ArrayDeque<>();
+
+    int pending = 0;
+    int passedOver = 0;
+
+    void add(int unit, Runnable dispatch) {
+      Queue<Runnable> queue = queues.get(unit);
+      if (queue == null) {
+        queue = new ArrayDeque<>();
+        queues.set(unit, queue);
+      }
+      if (queue.isEmpty()) {
+        ready.add(unit);
+      }
+      queue.add(dispatch);
+      pending++;
+    }
+
+    /**
+     * Give each unit id with queued requests one turn, skipping those at their limit, and claim the
+     * slot of the first dispatch that can be sent.
+     */
+    Runnable poll() {
+      for (int turns = ready.size(); turns > 0; turns--) {
+        int unit = ready.poll();
+
+        if (hasRoom(unit)) {
+          pending--;
+          inFlight++;
+          unitInFlight[unit]++;
+
+          Queue<Runnable> queue = queues.get(unit);
+          Runnable next = queue.poll();
+          if (!queue.isEmpty()) {
+            ready.add(unit);
+          }
+          return next;
+        } else {
+          ready.add(unit);
+        }
+      }
+
+      return null;
+    }
+  }
+}
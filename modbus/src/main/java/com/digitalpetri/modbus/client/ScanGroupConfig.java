@@ -0,0 +1,125 @@
+package com.digitalpetri.modbus.client;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+
+/**
+ * Configuration for a scan group in a {@link PollingScheduler}.
+ *
+ * @param client the {@link ModbusClient} the group is read with.
+ * @param unitId the remote device unit id.
+ * @param plan the {@link ReadPlan} describing the ranges read each cycle.
+ * @param period the time between the starts of two cycles.
+ * @param priority the group's priority; higher priority groups are read first when more groups are
+ *     due than can be read at once.
+ */
+public record ScanGroupConfig(
+    ModbusClient client, int unitId, ReadPlan plan, Duration period, int priority) {
+
+  /**
+   * Create a new {@link ScanGroupConfig} instance.
+   *
+   * @param configure a callback that accepts a {@link Builder} used to configure the new instance.
+   * @return a new {@link ScanGroupConfig} instance.
+   */
+  public static ScanGroupConfig create(Consumer<Builder> configure) {
+    var builder = new Builder();
+    configure.accept(builder);
+    return builder.build();
+  }
+
+  public static class Builder {
+
+    /** The {@link ModbusClient} the group is read with. */
+    public ModbusClient client;
+
+    /** The remote device unit id. Defaults to 0. */
+    public int unitId = 0;
+
+    /** The {@link ReadPlan} describing the ranges read each cycle. */
+    public ReadPlan plan;
+
+    /** The time between the starts of two cycles. Defaults to 1 second. */
+    public Duration period = Duration.ofSeconds(1);
+
+    /** The group's priority; higher values are read first. Defaults to 0. */
+    public int priority = 0;
+
+    /**
+     * Set the {@link ModbusClient} the group is read with.
+     *
+     * @param client the client.
+     * @return this {@link Builder}.
+     */
+    public Builder setClient(ModbusClient client) {
+      this.client = client;
+      return this;
+    }
+
+    /**
+     * Set the remote device unit id.
+     *
+     * @param unitId the unit id.
+     * @return this {@link Builder}.
+     */
+    public Builder setUnitId(int unitId) {
+      this.unitId = unitId;
+      return this;
+    }
+
+    /**
+     * Set the {@link ReadPlan} describing the ranges read each cycle.
+     *
+     * @param plan the read plan.
+     * @return this {@link Builder}.
+     */
+    public Builder setPlan(ReadPlan plan) {
+      this.plan = plan;
+      return this;
+    }
+
+    /**
+     * Set the time between the starts of two cycles.
+     *
+     * @param period the period.
+     * @return this {@link Builder}.
+     */
+    public Builder setPeriod(Duration period) {
+      this.period = period;
+      return this;
+    }
+
+    /**
+     * Set the group's priority.
+     *
+     * @param priority the priority.
+     * @return this {@link Builder}.
+     */
+    public Builder setPriority(int priority) {
+      this.priority = priority;
+      return this;
+    }
+
+    /**
+     * Build a {@link ScanGroupConfig} from this builder.
+     *
+     * @return a new {@link ScanGroupConfig} instance.
+     */
+    public ScanGroupConfig build() {
+      if (client == null) {
+        throw new NullPointerException("client must not be null");
+      }
+      if (plan == null) {
+        throw new NullPointerException("plan must not be null");
+      }
+      if (period == null) {
+        throw new NullPointerException("period must not be null");
+      }
+      if (period.isZero() || period.isNegative()) {
+        throw new IllegalArgumentException("period must be > 0");
+      }
+
+      return new ScanGroupConfig(client, unitId, plan, period, priority);
+    }
+  }
+}
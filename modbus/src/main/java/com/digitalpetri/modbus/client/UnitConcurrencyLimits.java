@@ -0,0 +1,178 @@
+package com.digitalpetri.modbus.client;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * The maximum number of requests a {@link ModbusTcpClient} has outstanding at once for each unit
+ * id.
+ *
+ * <p>A Modbus/TCP gateway in front of a serial bus can only forward one request at a time to each
+ * device behind it; requests beyond that are queued by the gateway or rejected with exception code
+ * 0x06 (Server Device Busy). Limiting each unit id to what its device can handle keeps those
+ * requests queued in the client instead, where they are sent as earlier requests to the same unit
+ * id complete. A limit of 0 means no limit.
+ */
+public final class UnitConcurrencyLimits {
+
+  private static final UnitConcurrencyLimits UNLIMITED = new UnitConcurrencyLimits(new int[256]);
+
+  private final int[] limits;
+
+  private UnitConcurrencyLimits(int[] limits) {
+    this.limits = limits;
+  }
+
+  /**
+   * Get the limit for {@code unitId}.
+   *
+   * @param unitId the unit id.
+   * @return the maximum number of outstanding requests for {@code unitId}, or 0 for no limit.
+   */
+  public int getLimit(int unitId) {
+    return limits[unitId & 0xFF];
+  }
+
+  /**
+   * Check if no unit id has a limit.
+   *
+   * @return {@code true} if no unit id has a limit.
+   */
+  public boolean isUnlimited() {
+    for (int limit : limits) {
+      if (limit > 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    return Arrays.equals(limits, ((UnitConcurrencyLimits) o).limits);
+  }
+
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(limits);
+  }
+
+  @Override
+  public String toString() {
+    return "UnitConcurrencyLimits" + Arrays.toString(limits);
+  }
+
+  /**
+   * Get a {@link UnitConcurrencyLimits} that doesn't limit any unit id.
+   *
+   * @return a {@link UnitConcurrencyLimits} that doesn't limit any unit id.
+   */
+  public static UnitConcurrencyLimits unlimited() {
+    return UNLIMITED;
+  }
+
+  /**
+   * Create a {@link UnitConcurrencyLimits} that applies the same limit to every unit id.
+   *
+   * @param limit the maximum number of outstanding requests per unit id, or 0 for no limit.
+   * @return a new {@link UnitConcurrencyLimits}.
+   */
+  public static UnitConcurrencyLimits of(int limit) {
+    return create(b -> b.setDefaultLimit(limit));
+  }
+
+  /**
+   * Create a new {@link UnitConcurrencyLimits}.
+   *
+   * @param configure a callback that accepts a {@link Builder} used to configure the limits.
+   * @return a new {@link UnitConcurrencyLimits}.
+   */
+  public static UnitConcurrencyLimits create(Consumer<Builder> configure) {
+    var builder = new Builder();
+    configure.accept(builder);
+    return builder.build();
+  }
+
+  public static class Builder {
+
+    /**
+     * The limit for unit ids without a limit of their own, or 0 for no limit.
+     *
+     * <p>Defaults to 0.
+     */
+    public int defaultLimit = 0;
+
+    // -1 where the default limit applies
+    private final int[] limits = new int[256];
+
+    public Builder() {
+      Arrays.fill(limits, -1);
+    }
+
+    /**
+     * Set the limit for unit ids without a limit of their own.
+     *
+     * @param defaultLimit the maximum number of outstanding requests, or 0 for no limit.
+     * @return this {@link Builder}.
+     */
+    public Builder setDefaultLimit(int defaultLimit) {
+      this.defaultLimit = defaultLimit;
+      return this;
+    }
+
+    /**
+     * Set the limit for {@code unitId}.
+     *
+     * @param unitId the unit id.
+     * @param limit the maximum number of outstanding requests, or 0 for no limit.
+     * @return this {@link Builder}.
+     */
+    public Builder setLimit(int unitId, int limit) {
+      return setLimit(unitId, unitId, limit);
+    }
+
+    /**
+     * Set the limit for each unit id from {@code fromUnitId} to {@code toUnitId}, inclusive.
+     *
+     * @param fromUnitId the first unit id.
+     * @param toUnitId the last unit id.
+     * @param limit the maximum number of outstanding requests per unit id, or 0 for no limit.
+     * @return this {@link Builder}.
+     */
+    public Builder setLimit(int fromUnitId, int toUnitId, int limit) {
+      if (fromUnitId < 0 || toUnitId > 255 || fromUnitId > toUnitId) {
+        throw new IllegalArgumentException("unit id range must be within [0, 255]");
+      }
+      if (limit < 0) {
+        throw new IllegalArgumentException("limit must be >= 0");
+      }
+
+      Arrays.fill(limits, fromUnitId, toUnitId + 1, limit);
+      return this;
+    }
+
+    /**
+     * Build a {@link UnitConcurrencyLimits} from this builder.
+     *
+     * @return a new {@link UnitConcurrencyLimits}.
+     */
+    public UnitConcurrencyLimits build() {
+      if (defaultLimit < 0) {
+        throw new IllegalArgumentException("defaultLimit must be >= 0");
+      }
+
+      var resolved = new int[256];
+      for (int i = 0; i < resolved.length; i++) {
+        resolved[i] = limits[i] >= 0 ? limits[i] : defaultLimit;
+      }
+
+      return new UnitConcurrencyLimits(resolved);
+    }
+  }
+}
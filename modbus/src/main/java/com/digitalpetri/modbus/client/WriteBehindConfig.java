@@ -0,0 +1,86 @@
+package com.digitalpetri.modbus.client;
+
+import com.digitalpetri.modbus.Modbus;
+import java.time.Duration;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Consumer;
+
+/**
+ * Configuration for a {@link WriteBehindModbusClient}.
+ *
+ * @param window how long write requests are collected before they are merged and sent.
+ * @param scheduledExecutor the {@link ScheduledExecutorService} used to end each window.
+ */
+public record WriteBehindConfig(Duration window, ScheduledExecutorService scheduledExecutor) {
+
+  /**
+   * Create a new {@link WriteBehindConfig} instance.
+   *
+   * @param configure a callback that accepts a {@link Builder} used to configure the new instance.
+   * @return a new {@link WriteBehindConfig} instance.
+   */
+  public static WriteBehindConfig create(Consumer<Builder> configure) {
+    var builder = new Builder();
+    configure.accept(builder);
+    return builder.build();
+  }
+
+  public static class Builder {
+
+    /**
+     * How long write requests are collected before they are merged and sent.
+     *
+     * <p>Every write is delayed by up to this long, and only writes made within the same window
+     * replace each other. Defaults to 10 milliseconds.
+     */
+    public Duration window = Duration.ofMillis(10);
+
+    /**
+     * The {@link ScheduledExecutorService} used to end each window.
+     *
+     * <p>Defaults to {@link Modbus#sharedScheduledExecutor()}.
+     */
+    public ScheduledExecutorService scheduledExecutor;
+
+    /**
+     * Set how long write requests are collected before they are merged and sent.
+     *
+     * @param window the write-behind window.
+     * @return this {@link Builder}.
+     */
+    public Builder setWindow(Duration window) {
+      this.window = window;
+      return this;
+    }
+
+    /**
+     * Set the {@link ScheduledExecutorService} used to end each window.
+     *
+     * @param scheduledExecutor the scheduled executor.
+     * @return this {@link Builder}.
+     */
+    public Builder setScheduledExecutor(ScheduledExecutorService scheduledExecutor) {
+      this.scheduledExecutor = scheduledExecutor;
+      return this;
+    }
+
+    /**
+     * Build a {@link WriteBehindConfig} from this builder.
+     *
+     * @return a new {@link WriteBehindConfig} instance.
+     */
+    public WriteBehindConfig build() {
+      if (window == null) {
+        throw new NullPointerException("window must not be null");
+      }
+      if (window.isNegative()) {
+        throw new IllegalArgumentException("window must be >= 0");
+      }
+      if (scheduledExecutor == null) {
+        scheduledExecutor = Modbus.sharedScheduledExecutor();
+      }
+
+      return new WriteBehindConfig(window, scheduledExecutor);
+    }
+  }
+}
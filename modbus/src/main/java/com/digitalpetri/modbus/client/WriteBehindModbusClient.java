@@ -0,0 +1,492 @@
+package com.digitalpetri.modbus.client;
+
+import com.digitalpetri.modbus.exceptions.ModbusResponseException;
+import com.digitalpetri.modbus.pdu.ModbusRequestPdu;
+import com.digitalpetri.modbus.pdu.ModbusResponsePdu;
+import com.digitalpetri.modbus.pdu.WriteMultipleCoilsRequest;
+import com.digitalpetri.modbus.pdu.WriteMultipleCoilsResponse;
+import com.digitalpetri.modbus.pdu.WriteMultipleRegistersRequest;
+import com.digitalpetri.modbus.pdu.WriteMultipleRegistersResponse;
+import com.digitalpetri.modbus.pdu.WriteSingleCoilRequest;
+import com.digitalpetri.modbus.pdu.WriteSingleCoilResponse;
+import com.digitalpetri.modbus.pdu.WriteSingleRegisterRequest;
+import com.digitalpetri.modbus.pdu.WriteSingleRegisterResponse;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * A {@link ModbusClient} that holds write requests back for a short window and sends the values
+ * they leave behind in as few requests as possible on another {@link ModbusClient}.
+ *
+ * <p>Write Single Coil, Write Multiple Coils, Write Single Register, and Write Multiple Registers
+ * requests are collected for {@link WriteBehindConfig#window()}. A later write to an address
+ * replaces the value of an earlier one in the same window, so only the last value is ever sent. The
+ * remaining values for the same unit id are then written in runs of contiguous addresses, as Write
+ * Multiple Coils or Write Multiple Registers requests within the function code's quantity limit. A
+ * run is only ever cut between the writes it was merged from, never inside one; overlapping writes
+ * that together exceed the limit are sent as they were received, in order. A run of one address
+ * written only by single write requests is sent as a single write.
+ *
+ * <p>A merged request is sent with the highest {@link RequestPriority} of the writes it was merged
+ * from.
+ *
+ * <p>Each caller is completed, with the response its own request would have received, once every
+ * address it wrote has been written, even if its value was replaced by a later one. If a merged
+ * request fails with a Modbus exception response, each write it was merged from is sent again as it
+ * was received, in order, so one caller's illegal address doesn't fail the others. All other
+ * requests are sent immediately.
+ */
+public class WriteBehindModbusClient extends ModbusClient {
+
+  /** Maximum quantity of a Write Multiple Registers request. */
+  private static final int MAX_REGISTERS = 123;
+
+  /** Maximum quantity of a Write Multiple Coils request. */
+  private static final int MAX_COILS = 1968;
+
+  private final Map<GroupKey, TreeMap<Integer, Slot>> pending = new HashMap<>();
+  private boolean flushScheduled = false;
+  private long sequence = 0L;
+
+  private final AtomicLong writesReceived = new AtomicLong(0);
+  private final AtomicLong writesSent = new AtomicLong(0);
+
+  private final ModbusClient client;
+  private final WriteBehindConfig config;
+
+  /**
+   * Create a {@link WriteBehindModbusClient} that sends requests using {@code client}.
+   *
+   * <p>Connecting or disconnecting this client connects or disconnects {@code client}'s transport.
+   *
+   * @param config the {@link WriteBehindConfig}.
+   * @param client the {@link ModbusClient} merged requests are sent with.
+   */
+  public WriteBehindModbusClient(WriteBehindConfig config, ModbusClient client) {
+    super(client.getTransport());
+
+    this.config = config;
+    this.client = client;
+  }
+
+  /**
+   * Get the {@link WriteBehindConfig} used by this client.
+   *
+   * @return the {@link WriteBehindConfig} used by this client.
+   */
+  public WriteBehindConfig getConfig() {
+    return config;
+  }
+
+  /**
+   * Get the {@link ModbusClient} merged requests are sent with.
+   *
+   * @return the {@link ModbusClient} merged requests are sent with.
+   */
+  public ModbusClient getClient() {
+    return client;
+  }
+
+  /**
+   * Get the number of write requests this client has received.
+   *
+   * @return the number of write requests received.
+   */
+  public long getWritesReceived() {
+    return writesReceived.get();
+  }
+
+  /**
+   * Get the number of write requests this client has sent after merging, including writes sent
+   * again as they were received after a merged request failed.
+   *
+   * @return the number of write requests sent.
+   */
+  public long getWritesSent() {
+    return writesSent.get();
+  }
+
+  @Override
+  public CompletionStage<ModbusResponsePdu> sendAsync(int unitId, ModbusRequestPdu request) {
+    return sendAsync(unitId, request, RequestPriority.INTERACTIVE);
+  }
+
+  @Override
+  public CompletionStage<ModbusResponsePdu> sendAsync(
+      int unitId, ModbusRequestPdu request, RequestPriority priority) {
+
+    PendingWrite write = PendingWrite.of(request);
+
+    if (write == null) {
+      return client.sendAsync(unitId, request, priority);
+    }
+
+    writesReceived.incrementAndGet();
+
+    var key = new GroupKey(unitId, write.coils);
+
+    boolean schedule;
+    synchronized (pending) {
+      TreeMap<Integer, Slot> slots = pending.computeIfAbsent(key, k -> new TreeMap<>());
+      write.priority = priority;
+      write.sequence = sequence++;
+
+      for (int i = 0; i < write.values.length; i++) {
+        Slot slot = slots.computeIfAbsent(write.address + i, a -> new Slot());
+        slot.value = write.values[i];
+        slot.multiple |= !write.single;
+        slot.writers.add(write);
+      }
+
+      schedule = !flushScheduled;
+      flushScheduled = true;
+    }
+
+    if (schedule) {
+      try {
+        config
+            .scheduledExecutor()
+            .schedule(this::flush, config.window().toNanos(), TimeUnit.NANOSECONDS);
+      } catch (RejectedExecutionException e) {
+        flush();
+      }
+    }
+
+    return write.future;
+  }
+
+  private void flush() {
+    Map<GroupKey, TreeMap<Integer, Slot>> groups;
+    synchronized (pending) {
+      groups = new HashMap<>(pending);
+      pending.clear();
+      flushScheduled = false;
+    }
+
+    for (Map.Entry<GroupKey, TreeMap<Integer, Slot>> group : groups.entrySet()) {
+      var runs = new RunBuilder(group.getKey());
+
+      // a cluster is a range of addresses no request can be cut inside of, because a write spans
+      // each address and the next
+      int clusterStart = 0;
+      int clusterEnd = 0;
+      List<Slot> cluster = new ArrayList<>();
+
+      for (Map.Entry<Integer, Slot> entry : group.getValue().entrySet()) {
+        int address = entry.getKey();
+
+        if (!cluster.isEmpty() && address >= clusterEnd) {
+          runs.add(clusterStart, cluster);
+          cluster = new ArrayList<>();
+        }
+        if (cluster.isEmpty()) {
+          clusterStart = address;
+        }
+        cluster.add(entry.getValue());
+
+        for (PendingWrite write : entry.getValue().writers) {
+          clusterEnd = Math.max(clusterEnd, write.address + write.values.length);
+        }
+      }
+
+      if (!cluster.isEmpty()) {
+        runs.add(clusterStart, cluster);
+      }
+      runs.send();
+    }
+  }
+
+  private void sendRun(GroupKey key, int address, List<Slot> run) {
+    ModbusRequestPdu request = newRequest(key.coils, address, run);
+    List<PendingWrite> writes = writers(run);
+
+    RequestPriority priority = RequestPriority.BULK;
+    for (PendingWrite write : writes) {
+      if (write.priority.compareTo(priority) < 0) {
+        priority = write.priority;
+      }
+    }
+
+    writesSent.incrementAndGet();
+
+    sendToClient(key.unitId, request, priority)
+        .whenComplete(
+            (response, ex) -> {
+              if (ex != null) {
+                Throwable cause = ex instanceof CompletionException ? ex.getCause() : ex;
+
+                if (cause instanceof ModbusResponseException && writes.size() > 1) {
+                  sendOriginals(key.unitId, writes);
+                } else {
+                  writes.forEach(w -> w.future.completeExceptionally(cause));
+                }
+                return;
+              }
+
+              writes.forEach(w -> w.future.complete(w.response()));
+            });
+  }
+
+  /**
+   * Send each of {@code writes} as it was received, one at a time and in the order received, so
+   * overlapping writes still leave the last value behind.
+   */
+  private void sendOriginals(int unitId, List<PendingWrite> writes) {
+    CompletionStage<?> previous = CompletableFuture.completedFuture(null);
+
+    for (PendingWrite write : writes) {
+      previous =
+          previous
+              .handle((r, ex) -> null)
+              .thenCompose(
+                  v -> {
+                    writesSent.incrementAndGet();
+
+                    return sendToClient(unitId, write.request, write.priority)
+                        .whenComplete(
+                            (response, ex) -> {
+                              if (ex != null) {
+                                write.future.completeExceptionally(
+                                    ex instanceof CompletionException ? ex.getCause() : ex);
+                              } else {
+                                write.future.complete(response);
+                              }
+                            });
+                  });
+    }
+  }
+
+  /** Get the writes that wrote to any address in {@code run}, in the order they were received. */
+  private static List<PendingWrite> writers(List<Slot> run) {
+    var writes = new ArrayList<PendingWrite>();
+    var seen = new HashSet<PendingWrite>();
+
+    for (Slot slot : run) {
+      for (PendingWrite write : slot.writers) {
+        if (seen.add(write)) {
+          writes.add(write);
+        }
+      }
+    }
+
+    writes.sort(Comparator.comparingLong(w -> w.sequence));
+
+    return writes;
+  }
+
+  private CompletionStage<ModbusResponsePdu> sendToClient(
+      int unitId, ModbusRequestPdu request, RequestPriority priority) {
+
+    try {
+      return client.sendAsync(unitId, request, priority);
+    } catch (Throwable t) {
+      return CompletableFuture.failedFuture(t);
+    }
+  }
+
+  private static ModbusRequestPdu newRequest(boolean coils, int address, List<Slot> run) {
+    boolean single = run.size() == 1 && !run.get(0).multiple;
+
+    if (coils) {
+      if (single) {
+        return new WriteSingleCoilRequest(address, run.get(0).value != 0);
+      }
+
+      var values = new byte[(run.size() + 7) / 8];
+      for (int i = 0; i < run.size(); i++) {
+        if (run.get(i).value != 0) {
+          values[i >>> 3] |= (byte) (1 << (i & 7));
+        }
+      }
+      return new WriteMultipleCoilsRequest(address, run.size(), values);
+    } else {
+      if (single) {
+        return new WriteSingleRegisterRequest(address, run.get(0).value);
+      }
+
+      var values = new byte[run.size() * 2];
+      for (int i = 0; i < run.size(); i++) {
+        values[i * 2] = (byte) (run.get(i).value >> 8);
+        values[i * 2 + 1] = (byte) run.get(i).value;
+      }
+      return new WriteMultipleRegistersRequest(address, run.size(), values);
+    }
+  }
+
+  /**
+   * Create a new {@link WriteBehindModbusClient} that sends requests using {@code client} and a
+   * {@link WriteBehindConfig} with the default values.
+   *
+   * @param client the {@link ModbusClient} merged requests are sent with.
+   * @return a new {@link WriteBehindModbusClient}.
+   */
+  public static WriteBehindModbusClient create(ModbusClient client) {
+    return create(client, cfg -> {});
+  }
+
+  /**
+   * Create a new {@link WriteBehindModbusClient} that sends requests using {@code client} and a
+   * callback for building a {@link WriteBehindConfig}.
+   *
+   * @param client the {@link ModbusClient} merged requests are sent with.
+   * @param configure a callback used to build a {@link WriteBehindConfig}.
+   * @return a new {@link WriteBehindModbusClient}.
+   */
+  public static WriteBehindModbusClient create(
+      ModbusClient client, Consumer<WriteBehindConfig.Builder> configure) {
+
+    return new WriteBehindModbusClient(WriteBehindConfig.create(configure), client);
+  }
+
+  /**
+   * Packs the clusters of one group into runs of contiguous addresses within the function code's
+   * quantity limit.
+   */
+  private final class RunBuilder {
+
+    private final GroupKey key;
+    private final int limit;
+
+    private int runStart = 0;
+    private List<Slot> run = new ArrayList<>();
+
+    RunBuilder(GroupKey key) {
+      this.key = key;
+      this.limit = key.coils ? MAX_COILS : MAX_REGISTERS;
+    }
+
+    void add(int address, List<Slot> cluster) {
+      if (cluster.size() > limit) {
+        // only overlapping writes get here; none of them can be split, so they go as they came
+        send();
+        sendOriginals(key.unitId, writers(cluster));
+        return;
+      }
+
+      if (!run.isEmpty()
+          && (address != runStart + run.size() || run.size() + cluster.size() > limit)) {
+        send();
+      }
+      if (run.isEmpty()) {
+        runStart = address;
+      }
+      run.addAll(cluster);
+    }
+
+    void send() {
+      if (!run.isEmpty()) {
+        sendRun(key, runStart, run);
+        run = new ArrayList<>();
+      }
+    }
+  }
+
+  private record GroupKey(int unitId, boolean coils) {}
+
+  /** The latest value written to one address, and every write waiting for it. */
+  private static final class Slot {
+
+    final List<PendingWrite> writers = new ArrayList<>();
+
+    int value;
+    boolean multiple;
+  }
+
+  private static final class PendingWrite {
+
+    final CompletableFuture<ModbusResponsePdu> future = new CompletableFuture<>();
+
+    final ModbusRequestPdu request;
+    final boolean coils;
+    final boolean single;
+    final int address;
+    final int[] values;
+
+    // set when added to a window, with the pending lock held
+    RequestPriority priority = RequestPriority.INTERACTIVE;
+    long sequence;
+
+    PendingWrite(
+        ModbusRequestPdu request, boolean coils, boolean single, int address, int[] values) {
+
+      this.request = request;
+      this.coils = coils;
+      this.single = single;
+      this.address = address;
+      this.values = values;
+    }
+
+    ModbusResponsePdu response() {
+      if (request instanceof WriteSingleCoilRequest r) {
+        return new WriteSingleCoilResponse(r.address(), r.value());
+      } else if (request instanceof WriteMultipleCoilsRequest r) {
+        return new WriteMultipleCoilsResponse(r.address(), r.quantity());
+      } else if (request instanceof WriteSingleRegisterRequest r) {
+        return new WriteSingleRegisterResponse(r.address(), r.value());
+      } else {
+        var r = (WriteMultipleRegistersRequest) request;
+        return new WriteMultipleRegistersResponse(r.address(), r.quantity());
+      }
+    }
+
+    /**
+     * Create a {@link PendingWrite} for {@code request}, or return {@code null} if it isn't a write
+     * this client merges or isn't well-formed, in which case it's sent as is and the device gets to
+     * reject it.
+     */
+    static PendingWrite of(ModbusRequestPdu request) {
+      if (request instanceof WriteSingleCoilRequest r) {
+        if (!inRange(r.address(), 1) || (r.value() != 0xFF00 && r.value() != 0x0000)) {
+          return null;
+        }
+        return new PendingWrite(
+            request, true, true, r.address(), new int[] {r.value() == 0xFF00 ? 1 : 0});
+      } else if (request instanceof WriteMultipleCoilsRequest r) {
+        if (!inRange(r.address(), r.quantity())
+            || r.quantity() > MAX_COILS
+            || r.values().length < (r.quantity() + 7) / 8) {
+          return null;
+        }
+        var values = new int[r.quantity()];
+        for (int i = 0; i < values.length; i++) {
+          values[i] = (r.values()[i >>> 3] >> (i & 7)) & 1;
+        }
+        return new PendingWrite(request, true, false, r.address(), values);
+      } else if (request instanceof WriteSingleRegisterRequest r) {
+        if (!inRange(r.address(), 1)) {
+          return null;
+        }
+        return new PendingWrite(request, false, true, r.address(), new int[] {r.value() & 0xFFFF});
+      } else if (request instanceof WriteMultipleRegistersRequest r) {
+        if (!inRange(r.address(), r.quantity())
+            || r.quantity() > MAX_REGISTERS
+            || r.values().length < r.quantity() * 2) {
+          return null;
+        }
+        var values = new int[r.quantity()];
+        for (int i = 0; i < values.length; i++) {
+          values[i] = (r.values()[i * 2] & 0xFF) << 8 | (r.values()[i * 2 + 1] & 0xFF);
+        }
+        return new PendingWrite(request, false, false, r.address(), values);
+      } else {
+        return null;
+      }
+    }
+
+    private static boolean inRange(int address, int quantity) {
+      return address >= 0 && quantity >= 1 && address + quantity <= 0x10000;
+    }
+  }
+}
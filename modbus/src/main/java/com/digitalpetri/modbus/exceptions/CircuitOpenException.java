@@ -0,0 +1,30 @@
+package com.digitalpetri.modbus.exceptions;
+
+import java.io.Serial;
+
+/**
+ * A request was not sent because the circuit breaker for its unit id is open.
+ *
+ * @see com.digitalpetri.modbus.client.CircuitBreakerModbusClient
+ */
+public class CircuitOpenException extends ModbusException {
+
+  @Serial private static final long serialVersionUID = 3308561407211960467L;
+
+  private final int unitId;
+
+  public CircuitOpenException(int unitId) {
+    super("circuit open for unit id: " + unitId);
+
+    this.unitId = unitId;
+  }
+
+  /**
+   * Get the unit id whose circuit is open.
+   *
+   * @return the unit id whose circuit is open.
+   */
+  public int getUnitId() {
+    return unitId;
+  }
+}
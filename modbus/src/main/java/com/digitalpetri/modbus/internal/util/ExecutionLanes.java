@@ -0,0 +1,67 @@
+package com.digitalpetri.modbus.internal.util;
+
+import java.util.concurrent.Executor;
+
+/**
+ * A fixed number of serial {@link ExecutionQueue}s ("lanes") sharing one {@link Executor}.
+ *
+ * <p>Submitted {@link Runnable}s are assigned to a lane by key. Runnables submitted with the same
+ * key are guaranteed to run serially and in the order submitted. Runnables submitted with keys that
+ * map to different lanes may run concurrently.
+ */
+public class ExecutionLanes {
+
+  /**
+   * Number of lanes a server transport hashes requests onto by unit id when none are configured;
+   * one per possible unit id.
+   */
+  public static final int UNIT_ID_LANES = 256;
+
+  private final ExecutionQueue[] lanes;
+
+  /**
+   * Create a new {@link ExecutionLanes}.
+   *
+   * @param executor the {@link Executor} lanes execute on.
+   * @param laneCount the number of lanes; must be at least 1.
+   */
+  public ExecutionLanes(Executor executor, int laneCount) {
+    if (laneCount < 1) {
+      throw new IllegalArgumentException("laneCount must be >= 1: " + laneCount);
+    }
+
+    lanes = new ExecutionQueue[laneCount];
+    for (int i = 0; i < laneCount; i++) {
+      lanes[i] = new ExecutionQueue(executor, 1);
+    }
+  }
+
+  /**
+   * Submit a {@link Runnable} to be executed on the lane selected by {@code key}.
+   *
+   * @param key the key used to select a lane.
+   * @param runnable the {@link Runnable} to be executed.
+   */
+  public void submit(int key, Runnable runnable) {
+    lane(key).submit(runnable);
+  }
+
+  /**
+   * Get the {@link ExecutionQueue} backing the lane selected by {@code key}.
+   *
+   * @param key the key used to select a lane.
+   * @return the {@link ExecutionQueue} backing the selected lane.
+   */
+  public ExecutionQueue lane(int key) {
+    return lanes[Math.floorMod(key, lanes.length)];
+  }
+
+  /**
+   * Get the number of lanes.
+   *
+   * @return the number of lanes.
+   */
+  public int size() {
+    return lanes.length;
+  }
+}
@@ -0,0 +1,201 @@
+package com.digitalpetri.modbus.server;
+
+import com.digitalpetri.modbus.ExceptionCode;
+import com.digitalpetri.modbus.exceptions.ModbusResponseException;
+import com.digitalpetri.modbus.exceptions.UnknownUnitIdException;
+import com.digitalpetri.modbus.pdu.MaskWriteRegisterRequest;
+import com.digitalpetri.modbus.pdu.MaskWriteRegisterResponse;
+import com.digitalpetri.modbus.pdu.ReadCoilsRequest;
+import com.digitalpetri.modbus.pdu.ReadCoilsResponse;
+import com.digitalpetri.modbus.pdu.ReadDiscreteInputsRequest;
+import com.digitalpetri.modbus.pdu.ReadDiscreteInputsResponse;
+import com.digitalpetri.modbus.pdu.ReadHoldingRegistersRequest;
+import com.digitalpetri.modbus.pdu.ReadHoldingRegistersResponse;
+import com.digitalpetri.modbus.pdu.ReadInputRegistersRequest;
+import com.digitalpetri.modbus.pdu.ReadInputRegistersResponse;
+import com.digitalpetri.modbus.pdu.ReadWriteMultipleRegistersRequest;
+import com.digitalpetri.modbus.pdu.ReadWriteMultipleRegistersResponse;
+import com.digitalpetri.modbus.pdu.WriteMultipleCoilsRequest;
+import com.digitalpetri.modbus.pdu.WriteMultipleCoilsResponse;
+import com.digitalpetri.modbus.pdu.WriteMultipleRegistersRequest;
+import com.digitalpetri.modbus.pdu.WriteMultipleRegistersResponse;
+import com.digitalpetri.modbus.pdu.WriteSingleCoilRequest;
+import com.digitalpetri.modbus.pdu.WriteSingleCoilResponse;
+import com.digitalpetri.modbus.pdu.WriteSingleRegisterRequest;
+import com.digitalpetri.modbus.pdu.WriteSingleRegisterResponse;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Asynchronous Modbus service extension.
+ *
+ * <p>Implement this interface when handling a request requires waiting on something slow, e.g. a
+ * database or an upstream device, and the handler should not occupy a transport thread while it
+ * waits. {@link ModbusTcpServer} and {@link ModbusRtuServer} detect this interface and call the
+ * {@code *Async} methods instead of their synchronous counterparts; the response frame is written
+ * when the returned {@link CompletionStage} completes.
+ *
+ * <p>Errors are reported by completing the stage exceptionally. A {@link ModbusResponseException}
+ * is sent to the client as an exception response. An {@link UnknownUnitIdException} preserves the
+ * existing transport behavior for unknown unit ids. Any other exception is treated as
+ * unrecoverable, and the transport closes the connection.
+ *
+ * <p>Each {@code *Async} method defaults to calling its synchronous counterpart and returning the
+ * result as a completed stage, so handlers can be made asynchronous one at a time; a function code
+ * with neither implemented fails with {@link ExceptionCode#ILLEGAL_FUNCTION}.
+ *
+ * <p>The transport's {@link ServerExecutionModel} only orders the invocation of these methods; it
+ * does not wait for the returned stages to complete before handling the next request.
+ */
+public interface AsyncModbusServices extends ModbusServices {
+
+  /**
+   * Handle an incoming {@link ReadCoilsRequest} targeting {@code unitId}.
+   *
+   * @param context the {@link ModbusRequestContext} for the request.
+   * @param unitId the unit id being targeted.
+   * @param request the {@link ReadCoilsRequest} to handle.
+   * @return a {@link CompletionStage} that completes with a {@link ReadCoilsResponse}.
+   */
+  default CompletionStage<ReadCoilsResponse> readCoilsAsync(
+      ModbusRequestContext context, int unitId, ReadCoilsRequest request) {
+
+    return complete(() -> readCoils(context, unitId, request));
+  }
+
+  /**
+   * Handle an incoming {@link ReadDiscreteInputsRequest} targeting {@code unitId}.
+   *
+   * @param context the {@link ModbusRequestContext} for the request.
+   * @param unitId the unit id being targeted.
+   * @param request the {@link ReadDiscreteInputsRequest} to handle.
+   * @return a {@link CompletionStage} that completes with a {@link ReadDiscreteInputsResponse}.
+   */
+  default CompletionStage<ReadDiscreteInputsResponse> readDiscreteInputsAsync(
+      ModbusRequestContext context, int unitId, ReadDiscreteInputsRequest request) {
+
+    return complete(() -> readDiscreteInputs(context, unitId, request));
+  }
+
+  /**
+   * Handle an incoming {@link ReadHoldingRegistersRequest} targeting {@code unitId}.
+   *
+   * @param context the {@link ModbusRequestContext} for the request.
+   * @param unitId the unit id being targeted.
+   * @param request the {@link ReadHoldingRegistersRequest} to handle.
+   * @return a {@link CompletionStage} that completes with a {@link ReadHoldingRegistersResponse}.
+   */
+  default CompletionStage<ReadHoldingRegistersResponse> readHoldingRegistersAsync(
+      ModbusRequestContext context, int unitId, ReadHoldingRegistersRequest request) {
+
+    return complete(() -> readHoldingRegisters(context, unitId, request));
+  }
+
+  /**
+   * Handle an incoming {@link ReadInputRegistersRequest} targeting {@code unitId}.
+   *
+   * @param context the {@link ModbusRequestContext} for the request.
+   * @param unitId the unit id being targeted.
+   * @param request the {@link ReadInputRegistersRequest} to handle.
+   * @return a {@link CompletionStage} that completes with a {@link ReadInputRegistersResponse}.
+   */
+  default CompletionStage<ReadInputRegistersResponse> readInputRegistersAsync(
+      ModbusRequestContext context, int unitId, ReadInputRegistersRequest request) {
+
+    return complete(() -> readInputRegisters(context, unitId, request));
+  }
+
+  /**
+   * Handle an incoming {@link WriteSingleCoilRequest} targeting {@code unitId}.
+   *
+   * @param context the {@link ModbusRequestContext} for the request.
+   * @param unitId the unit id being targeted.
+   * @param request the {@link WriteSingleCoilRequest} to handle.
+   * @return a {@link CompletionStage} that completes with a {@link WriteSingleCoilResponse}.
+   */
+  default CompletionStage<WriteSingleCoilResponse> writeSingleCoilAsync(
+      ModbusRequestContext context, int unitId, WriteSingleCoilRequest request) {
+
+    return complete(() -> writeSingleCoil(context, unitId, request));
+  }
+
+  /**
+   * Handle an incoming {@link WriteSingleRegisterRequest} targeting {@code unitId}.
+   *
+   * @param context the {@link ModbusRequestContext} for the request.
+   * @param unitId the unit id being targeted.
+   * @param request the {@link WriteSingleRegisterRequest} to handle.
+   * @return a {@link CompletionStage} that completes with a {@link WriteSingleRegisterResponse}.
+   */
+  default CompletionStage<WriteSingleRegisterResponse> writeSingleRegisterAsync(
+      ModbusRequestContext context, int unitId, WriteSingleRegisterRequest request) {
+
+    return complete(() -> writeSingleRegister(context, unitId, request));
+  }
+
+  /**
+   * Handle an incoming {@link WriteMultipleCoilsRequest} targeting {@code unitId}.
+   *
+   * @param context the {@link ModbusRequestContext} for the request.
+   * @param unitId the unit id being targeted.
+   * @param request the {@link WriteMultipleCoilsRequest} to handle.
+   * @return a {@link CompletionStage} that completes with a {@link WriteMultipleCoilsResponse}.
+   */
+  default CompletionStage<WriteMultipleCoilsResponse> writeMultipleCoilsAsync(
+      ModbusRequestContext context, int unitId, WriteMultipleCoilsRequest request) {
+
+    return complete(() -> writeMultipleCoils(context, unitId, request));
+  }
+
+  /**
+   * Handle an incoming {@link WriteMultipleRegistersRequest} targeting {@code unitId}.
+   *
+   * @param context the {@link ModbusRequestContext} for the request.
+   * @param unitId the unit id being targeted.
+   * @param request the {@link WriteMultipleRegistersRequest} to handle.
+   * @return a {@link CompletionStage} that completes with a {@link WriteMultipleRegistersResponse}.
+   */
+  default CompletionStage<WriteMultipleRegistersResponse> writeMultipleRegistersAsync(
+      ModbusRequestContext context, int unitId, WriteMultipleRegistersRequest request) {
+
+    return complete(() -> writeMultipleRegisters(context, unitId, request));
+  }
+
+  /**
+   * Handle an incoming {@link MaskWriteRegisterRequest} targeting {@code unitId}.
+   *
+   * @param context the {@link ModbusRequestContext} for the request.
+   * @param unitId the unit id being targeted.
+   * @param request the {@link MaskWriteRegisterRequest} to handle.
+   * @return a {@link CompletionStage} that completes with a {@link MaskWriteRegisterResponse}.
+   */
+  default CompletionStage<MaskWriteRegisterResponse> maskWriteRegisterAsync(
+      ModbusRequestContext context, int unitId, MaskWriteRegisterRequest request) {
+
+    return complete(() -> maskWriteRegister(context, unitId, request));
+  }
+
+  /**
+   * Handle an incoming {@link ReadWriteMultipleRegistersRequest} targeting {@code unitId}.
+   *
+   * @param context the {@link ModbusRequestContext} for the request.
+   * @param unitId the unit id being targeted.
+   * @param request the {@link ReadWriteMultipleRegistersRequest} to handle.
+   * @return a {@link CompletionStage} that completes with a {@link
+   *     ReadWriteMultipleRegistersResponse}.
+   */
+  default CompletionStage<ReadWriteMultipleRegistersResponse> readWriteMultipleRegistersAsync(
+      ModbusRequestContext context, int unitId, ReadWriteMultipleRegistersRequest request) {
+
+    return complete(() -> readWriteMultipleRegisters(context, unitId, request));
+  }
+
+  private static <T> CompletionStage<T> complete(Callable<T> service) {
+    try {
+      return CompletableFuture.completedFuture(service.call());
+    } catch (Exception e) {
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+}
@@ -0,0 +1,125 @@
+package com.digitalpetri.modbus.server;
+
+import com.digitalpetri.modbus.ExceptionCode;
+import com.digitalpetri.modbus.FunctionCode;
+import com.digitalpetri.modbus.exceptions.ModbusResponseException;
+import com.digitalpetri.modbus.pdu.MaskWriteRegisterRequest;
+import com.digitalpetri.modbus.pdu.ModbusRequestPdu;
+import com.digitalpetri.modbus.pdu.ModbusResponsePdu;
+import com.digitalpetri.modbus.pdu.ReadCoilsRequest;
+import com.digitalpetri.modbus.pdu.ReadDiscreteInputsRequest;
+import com.digitalpetri.modbus.pdu.ReadHoldingRegistersRequest;
+import com.digitalpetri.modbus.pdu.ReadInputRegistersRequest;
+import com.digitalpetri.modbus.pdu.ReadWriteMultipleRegistersRequest;
+import com.digitalpetri.modbus.pdu.WriteMultipleCoilsRequest;
+import com.digitalpetri.modbus.pdu.WriteMultipleRegistersRequest;
+import com.digitalpetri.modbus.pdu.WriteSingleCoilRequest;
+import com.digitalpetri.modbus.pdu.WriteSingleRegisterRequest;
+import java.util.concurrent.CompletionStage;
+
+/** Dispatches decoded requests to the matching method of an {@link AsyncModbusServices}. */
+final class AsyncServiceDispatcher {
+
+  private AsyncServiceDispatcher() {}
+
+  /**
+   * Call the {@link AsyncModbusServices} method for {@code fcb}.
+   *
+   * @param services the {@link AsyncModbusServices} to call.
+   * @param context the {@link ModbusRequestContext} for the request.
+   * @param unitId the unit id being targeted.
+   * @param fcb the function code of the request.
+   * @param requestPdu the decoded request PDU.
+   * @return the service's {@link CompletionStage}.
+   * @throws ModbusResponseException with {@link ExceptionCode#ILLEGAL_FUNCTION} if there is no
+   *     service method for {@code fcb}.
+   */
+  static CompletionStage<? extends ModbusResponsePdu> dispatch(
+      AsyncModbusServices services,
+      ModbusRequestContext context,
+      int unitId,
+      int fcb,
+      ModbusRequestPdu requestPdu)
+      throws ModbusResponseException {
+
+    FunctionCode functionCode = FunctionCode.from(fcb).orElse(null);
+
+    if (functionCode == null) {
+      throw new ModbusResponseException(fcb, ExceptionCode.ILLEGAL_FUNCTION.getCode());
+    }
+
+    return switch (functionCode) {
+      case READ_COILS -> {
+        if (requestPdu instanceof ReadCoilsRequest request) {
+          yield services.readCoilsAsync(context, unitId, request);
+        } else {
+          throw new IllegalArgumentException("expected ReadCoilsRequest");
+        }
+      }
+      case READ_DISCRETE_INPUTS -> {
+        if (requestPdu instanceof ReadDiscreteInputsRequest request) {
+          yield services.readDiscreteInputsAsync(context, unitId, request);
+        } else {
+          throw new IllegalArgumentException("expected ReadDiscreteInputsRequest");
+        }
+      }
+      case READ_HOLDING_REGISTERS -> {
+        if (requestPdu instanceof ReadHoldingRegistersRequest request) {
+          yield services.readHoldingRegistersAsync(context, unitId, request);
+        } else {
+          throw new IllegalArgumentException("expected ReadHoldingRegistersRequest");
+        }
+      }
+      case READ_INPUT_REGISTERS -> {
+        if (requestPdu instanceof ReadInputRegistersRequest request) {
+          yield services.readInputRegistersAsync(context, unitId, request);
+        } else {
+          throw new IllegalArgumentException("expected ReadInputRegistersRequest");
+        }
+      }
+      case WRITE_SINGLE_COIL -> {
+        if (requestPdu instanceof WriteSingleCoilRequest request) {
+          yield services.writeSingleCoilAsync(context, unitId, request);
+        } else {
+          throw new IllegalArgumentException("expected WriteSingleCoilRequest");
+        }
+      }
+      case WRITE_SINGLE_REGISTER -> {
+        if (requestPdu instanceof WriteSingleRegisterRequest request) {
+          yield services.writeSingleRegisterAsync(context, unitId, request);
+        } else {
+          throw new IllegalArgumentException("expected WriteSingleRegisterRequest");
+        }
+      }
+      case WRITE_MULTIPLE_COILS -> {
+        if (requestPdu instanceof WriteMultipleCoilsRequest request) {
+          yield services.writeMultipleCoilsAsync(context, unitId, request);
+        } else {
+          throw new IllegalArgumentException("expected WriteMultipleCoilsRequest");
+        }
+      }
+      case WRITE_MULTIPLE_REGISTERS -> {
+        if (requestPdu instanceof WriteMultipleRegistersRequest request) {
+          yield services.writeMultipleRegistersAsync(context, unitId, request);
+        } else {
+          throw new IllegalArgumentException("expected WriteMultipleRegistersRequest");
+        }
+      }
+      case MASK_WRITE_REGISTER -> {
+        if (requestPdu instanceof MaskWriteRegisterRequest request) {
+          yield services.maskWriteRegisterAsync(context, unitId, request);
+        } else {
+          throw new IllegalArgumentException("expected MaskWriteRegisterRequest");
+        }
+      }
+      case READ_WRITE_MULTIPLE_REGISTERS -> {
+        if (requestPdu instanceof ReadWriteMultipleRegistersRequest request) {
+          yield services.readWriteMultipleRegistersAsync(context, unitId, request);
+        } else {
+          throw new IllegalArgumentException("expected ReadWriteMultipleRegistersRequest");
+        }
+      }
+      default -> throw new ModbusResponseException(fcb, ExceptionCode.ILLEGAL_FUNCTION.getCode());
+    };
+  }
+}
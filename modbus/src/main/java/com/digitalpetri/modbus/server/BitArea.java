@@ -0,0 +1,255 @@
+package com.digitalpetri.modbus.server;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Storage for a bit area (Coils or Discrete Inputs) of a {@link ProcessImage}.
+ *
+ * <p>Implementations are not thread-safe; {@link ProcessImage} guards access with its per-area
+ * locks.
+ */
+interface BitArea {
+
+  /**
+   * Get a live, mutable {@link Map} view of this area.
+   *
+   * @return a live, mutable {@link Map} view of this area. Addresses that are not present read as
+   *     {@code false}.
+   */
+  Map<Integer, Boolean> view();
+
+  /**
+   * Read {@code quantity} bits starting at {@code address}, packed LSB-first into {@code dst}.
+   *
+   * @param address the starting address.
+   * @param quantity the number of bits to read.
+   * @param dst the destination; must be at least {@code (quantity + 7) / 8} bytes long.
+   */
+  void read(int address, int quantity, byte[] dst);
+
+  /**
+   * Set the value of a single bit.
+   *
+   * @param address the address of the bit.
+   * @param value the value to set.
+   */
+  void set(int address, boolean value);
+
+  /**
+   * Whether {@code read} is safe to call while another thread is writing, i.e. it may return a torn
+   * result but never throws or fails to terminate. {@link ProcessImage} only reads such areas
+   * optimistically, validating the result afterwards.
+   *
+   * @return {@code true} if this area supports optimistic reads.
+   */
+  default boolean supportsOptimisticReads() {
+    return false;
+  }
+
+  /**
+   * {@link BitArea} backed by a {@link HashMap}; only addresses holding {@code true} are stored.
+   */
+  final class MapBitArea implements BitArea {
+
+    private final Map<Integer, Boolean> map = new HashMap<>();
+
+    @Override
+    public Map<Integer, Boolean> view() {
+      return map;
+    }
+
+    @Override
+    public void read(int address, int quantity, byte[] dst) {
+      for (int i = 0; i < quantity; i++) {
+        if (map.getOrDefault(address + i, false)) {
+          dst[i >>> 3] |= (byte) (1 << (i & 7));
+        } else {
+          dst[i >>> 3] &= (byte) ~(1 << (i & 7));
+        }
+      }
+    }
+
+    @Override
+    public void set(int address, boolean value) {
+      if (value) {
+        map.put(address, true);
+      } else {
+        map.remove(address);
+      }
+    }
+  }
+
+  /** {@link BitArea} backed by a {@code long[]} bitset covering all 65536 addresses. */
+  final class DenseBitArea implements BitArea {
+
+    static final int SIZE = 65536;
+
+    private final long[] words = new long[SIZE / 64];
+
+    private final Map<Integer, Boolean> view = new View();
+
+    @Override
+    public boolean supportsOptimisticReads() {
+      return true;
+    }
+
+    @Override
+    public Map<Integer, Boolean> view() {
+      return view;
+    }
+
+    @Override
+    public void read(int address, int quantity, byte[] dst) {
+      int byteCount = (quantity + 7) / 8;
+
+      for (int i = 0; i < byteCount; i++) {
+        int bitIndex = address + i * 8;
+        int w = bitIndex >>> 6;
+        int offset = bitIndex & 63;
+
+        long bits = words[w] >>> offset;
+        if (offset > 56 && w + 1 < words.length) {
+          bits |= words[w + 1] << (64 - offset);
+        }
+
+        dst[i] = (byte) bits;
+      }
+
+      int remainder = quantity & 7;
+      if (remainder != 0) {
+        dst[byteCount - 1] &= (byte) ((1 << remainder) - 1);
+      }
+    }
+
+    @Override
+    public void set(int address, boolean value) {
+      checkAddress(address);
+
+      if (value) {
+        words[address >>> 6] |= 1L << address;
+      } else {
+        words[address >>> 6] &= ~(1L << address);
+      }
+    }
+
+    boolean isSet(int address) {
+      return (words[address >>> 6] & (1L << address)) != 0;
+    }
+
+    private static void checkAddress(int address) {
+      if (address < 0 || address >= SIZE) {
+        throw new IllegalArgumentException("address out of range: " + address);
+      }
+    }
+
+    /** Map view; addresses holding {@code false} are not present. */
+    private class View extends AbstractMap<Integer, Boolean> {
+
+      @Override
+      public Boolean get(Object key) {
+        if (key instanceof Integer address && address >= 0 && address < SIZE && isSet(address)) {
+          return Boolean.TRUE;
+        } else {
+          return null;
+        }
+      }
+
+      @Override
+      public boolean containsKey(Object key) {
+        return get(key) != null;
+      }
+
+      @Override
+      public Boolean put(Integer key, Boolean value) {
+        Boolean previous = get(key);
+        set(key, value);
+        return previous;
+      }
+
+      @Override
+      public Boolean remove(Object key) {
+        Boolean previous = get(key);
+        if (previous != null) {
+          set((Integer) key, false);
+        }
+        return previous;
+      }
+
+      @Override
+      public int size() {
+        int size = 0;
+        for (long word : words) {
+          size += Long.bitCount(word);
+        }
+        return size;
+      }
+
+      @Override
+      public Set<Entry<Integer, Boolean>> entrySet() {
+        return new AbstractSet<>() {
+          @Override
+          public Iterator<Entry<Integer, Boolean>> iterator() {
+            return new Iterator<>() {
+              int next = nextSetBit(0);
+              int last = -1;
+
+              @Override
+              public boolean hasNext() {
+                return next >= 0;
+              }
+
+              @Override
+              public Entry<Integer, Boolean> next() {
+                if (next < 0) {
+                  throw new NoSuchElementException();
+                }
+                last = next;
+                next = nextSetBit(next + 1);
+                return new SimpleImmutableEntry<>(last, Boolean.TRUE);
+              }
+
+              @Override
+              public void remove() {
+                if (last < 0) {
+                  throw new IllegalStateException();
+                }
+                set(last, false);
+                last = -1;
+              }
+            };
+          }
+
+          @Override
+          public int size() {
+            return View.this.size();
+          }
+        };
+      }
+
+      private int nextSetBit(int from) {
+        if (from >= SIZE) {
+          return -1;
+        }
+
+        int w = from >>> 6;
+        long word = words[w] & (-1L << from);
+
+        while (true) {
+          if (word != 0) {
+            return w * 64 + Long.numberOfTrailingZeros(word);
+          }
+          if (++w == words.length) {
+            return -1;
+          }
+          word = words[w];
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,26 @@
+package com.digitalpetri.modbus.server;
+
+import com.digitalpetri.modbus.server.BitArea.DenseBitArea;
+import com.digitalpetri.modbus.server.RegisterArea.DenseRegisterArea;
+
+/**
+ * A {@link ProcessImage} that stores every area in primitive arrays covering the full 65536 address
+ * space, rather than in a {@link java.util.Map}.
+ *
+ * <p>Coils and Discrete Inputs are stored as {@code long[]} bitsets, Holding Registers and Input
+ * Registers as big-endian register arrays. Roughly 272 KiB is allocated up front, but reads and
+ * writes do not box or allocate per address. The bulk range methods on {@link
+ * ProcessImage.Transaction}, e.g. {@link ProcessImage.Transaction#readHoldingRegisters(int, int)},
+ * copy a whole range at once.
+ *
+ * <p>The {@link java.util.Map} views passed to the callback-based {@link ProcessImage.Transaction}
+ * methods remain available for compatibility. Addresses holding {@code false} or 0 are not present
+ * in those views, keys must be in the range 0 to 65535, and register values must be 2 bytes long.
+ */
+public class DenseProcessImage extends ProcessImage {
+
+  /** Create a new, zeroed {@link DenseProcessImage}. */
+  public DenseProcessImage() {
+    super(new DenseBitArea(), new DenseBitArea(), new DenseRegisterArea(), new DenseRegisterArea());
+  }
+}
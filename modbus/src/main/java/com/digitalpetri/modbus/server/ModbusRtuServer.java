@@ -18,7 +18,11 @@ import com.digitalpetri.modbus.pdu.WriteMultipleRegistersRequest;
 import com.digitalpetri.modbus.pdu.WriteSingleCoilRequest;
 import com.digitalpetri.modbus.pdu.WriteSingleRegisterRequest;
 import com.digitalpetri.modbus.server.ModbusRequestContext.ModbusRtuRequestContext;
+import com.digitalpetri.modbus.server.ModbusServerTransport.FrameReceiver;
 import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
@@ -60,14 +64,36 @@ public class ModbusRtuServer implements ModbusServer {
   @Override
   public void start() throws ExecutionException, InterruptedException {
     transport.receive(
-        (context, frame) -> {
-          int unitId = frame.unitId();
-          ByteBuffer pdu = frame.pdu();
-          int fcb = pdu.get(pdu.position()) & 0xFF;
-          ModbusRequestPdu requestPdu =
-              (ModbusRequestPdu) config.requestSerializer().decode(fcb, pdu);
-
-          return handleModbusRtuFrame(context, unitId, fcb, requestPdu);
+        new FrameReceiver<>() {
+          @Override
+          public ModbusRtuFrame receive(ModbusRtuRequestContext context, ModbusRtuFrame frame)
+              throws Exception {
+
+            int unitId = frame.unitId();
+            ByteBuffer pdu = frame.pdu();
+            int fcb = pdu.get(pdu.position()) & 0xFF;
+            ModbusRequestPdu requestPdu =
+                (ModbusRequestPdu) config.requestSerializer().decode(fcb, pdu);
+
+            return handleModbusRtuFrame(context, unitId, fcb, requestPdu);
+          }
+
+          @Override
+          public CompletionStage<ModbusRtuFrame> receiveAsync(
+              ModbusRtuRequestContext context, ModbusRtuFrame frame) {
+
+            try {
+              int unitId = frame.unitId();
+              ByteBuffer pdu = frame.pdu();
+              int fcb = pdu.get(pdu.position()) & 0xFF;
+              ModbusRequestPdu requestPdu =
+                  (ModbusRequestPdu) config.requestSerializer().decode(fcb, pdu);
+
+              return handleModbusRtuFrameAsync(context, unitId, fcb, requestPdu);
+            } catch (Exception e) {
+              return CompletableFuture.failedFuture(e);
+            }
+          }
         });
 
     transport.bind().toCompletableFuture().get();
@@ -90,6 +116,20 @@ public class ModbusRtuServer implements ModbusServer {
       ModbusRtuRequestContext context, int unitId, int fcb, ModbusRequestPdu requestPdu)
       throws Exception {
 
+    if (this.services.get() instanceof AsyncModbusServices asyncServices) {
+      try {
+        return handleModbusRtuFrameAsync(context, unitId, fcb, requestPdu, asyncServices)
+            .toCompletableFuture()
+            .get();
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof Exception cause) {
+          throw cause;
+        } else {
+          throw e;
+        }
+      }
+    }
+
     try {
       FunctionCode functionCode = FunctionCode.from(fcb).orElse(null);
 
@@ -177,35 +217,107 @@ public class ModbusRtuServer implements ModbusServer {
                     requestPdu.getFunctionCode(), ExceptionCode.ILLEGAL_FUNCTION.getCode());
           };
 
-      ByteBuffer pdu = ByteBuffer.allocate(256);
-      config.responseSerializer().encode(response, pdu);
-      pdu.flip();
+      return encodeResponse(unitId, response);
+    } catch (ModbusResponseException e) {
+      return encodeExceptionResponse(unitId, fcb, e);
+    }
+  }
 
-      ByteBuffer crc = calculateCrc16(unitId, pdu);
-      crc.flip();
+  /**
+   * Handle an incoming request asynchronously.
+   *
+   * <p>If the configured services are {@link AsyncModbusServices} the returned stage completes when
+   * the service's stage completes, otherwise the request is handled synchronously by {@link
+   * #handleModbusRtuFrame(ModbusRtuRequestContext, int, int, ModbusRequestPdu)}.
+   *
+   * @param context the {@link ModbusRtuRequestContext} for the request.
+   * @param unitId the unit id being targeted.
+   * @param fcb the function code of the request.
+   * @param requestPdu the decoded request PDU.
+   * @return a {@link CompletionStage} that completes with the response frame.
+   */
+  protected CompletionStage<ModbusRtuFrame> handleModbusRtuFrameAsync(
+      ModbusRtuRequestContext context, int unitId, int fcb, ModbusRequestPdu requestPdu) {
 
-      return new ModbusRtuFrame(unitId, pdu, crc);
-    } catch (ModbusResponseException e) {
-      int fc = fcb + 0x80;
-      int ec = e.getExceptionCode();
+    ModbusServices services = this.services.get();
+    assert services != null;
 
-      ByteBuffer pdu = ByteBuffer.allocate(2).put((byte) fc).put((byte) ec);
+    if (services instanceof AsyncModbusServices asyncServices) {
+      return handleModbusRtuFrameAsync(context, unitId, fcb, requestPdu, asyncServices);
+    } else {
+      try {
+        return CompletableFuture.completedFuture(
+            handleModbusRtuFrame(context, unitId, fcb, requestPdu));
+      } catch (Exception e) {
+        return CompletableFuture.failedFuture(e);
+      }
+    }
+  }
 
-      ByteBuffer crc = calculateCrc16(unitId, pdu);
+  private CompletionStage<ModbusRtuFrame> handleModbusRtuFrameAsync(
+      ModbusRtuRequestContext context,
+      int unitId,
+      int fcb,
+      ModbusRequestPdu requestPdu,
+      AsyncModbusServices services) {
 
-      return new ModbusRtuFrame(unitId, pdu.flip(), crc.flip());
+    CompletionStage<? extends ModbusResponsePdu> response;
+    try {
+      response = AsyncServiceDispatcher.dispatch(services, context, unitId, fcb, requestPdu);
+    } catch (Exception e) {
+      response = CompletableFuture.failedFuture(e);
     }
+
+    return response.handle(
+        (responsePdu, ex) -> {
+          if (ex == null) {
+            try {
+              return encodeResponse(unitId, responsePdu);
+            } catch (Exception e) {
+              throw new CompletionException(e);
+            }
+          }
+
+          Throwable cause = ex instanceof CompletionException ? ex.getCause() : ex;
+
+          if (cause instanceof ModbusResponseException e) {
+            return encodeExceptionResponse(unitId, fcb, e);
+          } else {
+            throw new CompletionException(cause);
+          }
+        });
+  }
+
+  private ModbusRtuFrame encodeResponse(int unitId, ModbusResponsePdu response) throws Exception {
+
+    ByteBuffer pdu = ByteBuffer.allocate(256);
+    config.responseSerializer().encode(response, pdu);
+    pdu.flip();
+
+    ByteBuffer crc = calculateCrc16(unitId, pdu);
+    crc.flip();
+
+    return new ModbusRtuFrame(unitId, pdu, crc);
+  }
+
+  private ModbusRtuFrame encodeExceptionResponse(int unitId, int fcb, ModbusResponseException e) {
+    int fc = fcb + 0x80;
+    int ec = e.getExceptionCode();
+
+    ByteBuffer pdu = ByteBuffer.allocate(2).put((byte) fc).put((byte) ec).flip();
+
+    ByteBuffer crc = calculateCrc16(unitId, pdu);
+
+    return new ModbusRtuFrame(unitId, pdu, crc.flip());
   }
 
   private ByteBuffer calculateCrc16(int unitId, ByteBuffer pdu) {
-    var crc16 = new Crc16();
-    crc16.update(unitId);
-    crc16.update(pdu);
+    int value = Crc16.compute(unitId, pdu);
 
     ByteBuffer crc = ByteBuffer.allocate(2);
     // write crc in little-endian order
-    crc.put((byte) (crc16.getValue() & 0xFF));
-    crc.put((byte) ((crc16.getValue() >> 8) & 0xFF));
+    crc.put((byte) (value & 0xFF));
+    crc.put((byte) ((value >> 8) & 0xFF));
 
     return crc;
   }
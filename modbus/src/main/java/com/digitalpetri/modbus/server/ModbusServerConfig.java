@@ -3,6 +3,8 @@ package com.digitalpetri.modbus.server;
 import static com.digitalpetri.modbus.ModbusPduSerializer.DefaultRequestSerializer;
 import static com.digitalpetri.modbus.ModbusPduSerializer.DefaultResponseSerializer;
 
+import com.digitalpetri.modbus.BufferPool;
+import com.digitalpetri.modbus.BufferPool.NoOpBufferPool;
 import com.digitalpetri.modbus.ModbusPduSerializer;
 import java.util.function.Consumer;
 
@@ -11,9 +13,12 @@ import java.util.function.Consumer;
  *
  * @param requestSerializer the {@link ModbusPduSerializer} used to decode incoming requests.
  * @param responseSerializer the {@link ModbusPduSerializer} used to encode outgoing responses.
+ * @param bufferPool the {@link BufferPool} response PDUs are encoded into.
  */
 public record ModbusServerConfig(
-    ModbusPduSerializer requestSerializer, ModbusPduSerializer responseSerializer) {
+    ModbusPduSerializer requestSerializer,
+    ModbusPduSerializer responseSerializer,
+    BufferPool bufferPool) {
 
   /**
    * Create a new {@link ModbusServerConfig} instance.
@@ -35,6 +40,18 @@ public record ModbusServerConfig(
     /** The {@link ModbusPduSerializer} used to encode outgoing responses. */
     public ModbusPduSerializer responseSerializer = DefaultResponseSerializer.INSTANCE;
 
+    /**
+     * The {@link BufferPool} response PDUs are encoded into.
+     *
+     * <p>Buffers are returned to the pool when the transport reports the response as sent (see
+     * {@link ModbusServerTransport.FrameReceiver#onResponseSent(Object, Object)}). The pool is only
+     * used with transports that report every response ({@link
+     * ModbusServerTransport#reportsResponsesSent()}); with any other transport a new buffer is
+     * allocated for every response. Defaults to a {@link NoOpBufferPool}, which allocates a new
+     * buffer for every response.
+     */
+    public BufferPool bufferPool = new NoOpBufferPool();
+
     /**
      * Set the {@link ModbusPduSerializer} used to decode incoming requests.
      *
@@ -57,11 +74,26 @@ public record ModbusServerConfig(
       return this;
     }
 
+    /**
+     * Set the {@link BufferPool} response PDUs are encoded into.
+     *
+     * @param bufferPool the buffer pool.
+     * @return this {@link Builder}.
+     */
+    public Builder setBufferPool(BufferPool bufferPool) {
+      this.bufferPool = bufferPool;
+      return this;
+    }
+
     /**
      * @return a new {@link ModbusServerConfig} instance.
      */
     public ModbusServerConfig build() {
-      return new ModbusServerConfig(requestSerializer, responseSerializer);
+      if (bufferPool == null) {
+        throw new NullPointerException("bufferPool must not be null");
+      }
+
+      return new ModbusServerConfig(requestSerializer, responseSerializer, bufferPool);
     }
   }
 }
@@ -1,5 +1,6 @@
 package com.digitalpetri.modbus.server;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
 
 public interface ModbusServerTransport<C extends ModbusRequestContext, T> {
@@ -25,6 +26,20 @@ public interface ModbusServerTransport<C extends ModbusRequestContext, T> {
    */
   void receive(FrameReceiver<C, T> frameReceiver);
 
+  /**
+   * Whether this transport calls {@link FrameReceiver#onResponseSent(Object, Object)} for every
+   * response frame it's given.
+   *
+   * <p>Servers only encode responses into buffers taken from a pool when this returns {@code true},
+   * since a buffer that's never reported sent is never given back. The default implementation
+   * returns {@code false}.
+   *
+   * @return {@code true} if every response frame is reported sent.
+   */
+  default boolean reportsResponsesSent() {
+    return false;
+  }
+
   interface FrameReceiver<C, T> {
 
     /**
@@ -35,5 +50,38 @@ public interface ModbusServerTransport<C extends ModbusRequestContext, T> {
      * @throws Exception if there is an unrecoverable error and the channel should be closed.
      */
     T receive(C context, T frame) throws Exception;
+
+    /**
+     * Receive a request frame from the transport and respond to it asynchronously.
+     *
+     * <p>Transports should prefer this method over {@link #receive(Object, Object)}. The default
+     * implementation delegates to {@link #receive(Object, Object)}.
+     *
+     * @param frame the request frame.
+     * @return a {@link CompletionStage} that completes with the corresponding response frame, or
+     *     completes exceptionally if there is an unrecoverable error and the channel should be
+     *     closed.
+     */
+    default CompletionStage<T> receiveAsync(C context, T frame) {
+      try {
+        return CompletableFuture.completedFuture(receive(context, frame));
+      } catch (Exception e) {
+        return CompletableFuture.failedFuture(e);
+      }
+    }
+
+    /**
+     * Called once a response frame returned by this receiver has been written, or has failed to be
+     * written, after which the transport no longer uses the frame's buffers.
+     *
+     * <p>Transports that return {@code true} from {@link
+     * ModbusServerTransport#reportsResponsesSent()} must call this once for every response frame;
+     * others are not required to call it at all. Receivers must not rely on it for anything other
+     * than reusing buffers. The default implementation does nothing.
+     *
+     * @param context the request context the response was for.
+     * @param frame the response frame.
+     */
+    default void onResponseSent(C context, T frame) {}
   }
 }
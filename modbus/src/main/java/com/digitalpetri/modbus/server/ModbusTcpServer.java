@@ -1,5 +1,6 @@
 package com.digitalpetri.modbus.server;
 
+import com.digitalpetri.modbus.BufferPool.NoOpBufferPool;
 import com.digitalpetri.modbus.ExceptionCode;
 import com.digitalpetri.modbus.FunctionCode;
 import com.digitalpetri.modbus.MbapHeader;
@@ -18,14 +19,38 @@ import com.digitalpetri.modbus.pdu.WriteMultipleRegistersRequest;
 import com.digitalpetri.modbus.pdu.WriteSingleCoilRequest;
 import com.digitalpetri.modbus.pdu.WriteSingleRegisterRequest;
 import com.digitalpetri.modbus.server.ModbusRequestContext.ModbusTcpRequestContext;
+import com.digitalpetri.modbus.server.ModbusServerTransport.FrameReceiver;
 import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 
 public class ModbusTcpServer implements ModbusServer {
 
+  /** Capacity of the buffers responses are encoded into. A PDU is at most 253 bytes. */
+  private static final int PDU_BUFFER_SIZE = 256;
+
+  /**
+   * Buffers taken from the {@link ModbusServerConfig#bufferPool()} for responses that haven't been
+   * sent yet. Only these are given back to the pool once the response is sent; nothing is recorded
+   * unless {@link #pooling}.
+   */
+  private final Set<ByteBuffer> pooledPdus =
+      Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+
+  /**
+   * Whether responses are encoded into buffers from the pool: the pool isn't a {@link
+   * NoOpBufferPool} and the transport reports every response sent, so each buffer comes back.
+   */
+  private final boolean pooling;
+
   private final ModbusServerConfig config;
   private final ModbusTcpServerTransport transport;
   private final AtomicReference<ModbusServices> services =
@@ -37,6 +62,9 @@ public class ModbusTcpServer implements ModbusServer {
     this.config = config;
     this.transport = transport;
 
+    this.pooling =
+        transport.reportsResponsesSent() && !(config.bufferPool() instanceof NoOpBufferPool);
+
     this.services.set(services);
   }
 
@@ -60,7 +88,31 @@ public class ModbusTcpServer implements ModbusServer {
 
   @Override
   public void start() throws ExecutionException, InterruptedException {
-    transport.receive((context, frame) -> handleModbusTcpFrame(frame, context));
+    transport.receive(
+        new FrameReceiver<>() {
+          @Override
+          public ModbusTcpFrame receive(ModbusTcpRequestContext context, ModbusTcpFrame frame)
+              throws Exception {
+
+            return handleModbusTcpFrame(frame, context);
+          }
+
+          @Override
+          public CompletionStage<ModbusTcpFrame> receiveAsync(
+              ModbusTcpRequestContext context, ModbusTcpFrame frame) {
+
+            return handleModbusTcpFrameAsync(frame, context);
+          }
+
+          @Override
+          public void onResponseSent(ModbusTcpRequestContext context, ModbusTcpFrame frame) {
+            ByteBuffer pdu = frame.pdu();
+
+            if (pooledPdus.remove(pdu)) {
+              config.bufferPool().give(pdu);
+            }
+          }
+        });
 
     transport.bind().toCompletableFuture().get();
   }
@@ -87,6 +139,18 @@ public class ModbusTcpServer implements ModbusServer {
     ModbusServices services = this.services.get();
     assert services != null;
 
+    if (services instanceof AsyncModbusServices asyncServices) {
+      try {
+        return handleModbusTcpFrameAsync(frame, context, asyncServices).toCompletableFuture().get();
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof Exception cause) {
+          throw cause;
+        } else {
+          throw e;
+        }
+      }
+    }
+
     if (services instanceof RawModbusTcpServices rawServices) {
       Optional<RawModbusTcpResponse> rawResponse =
           rawServices.handleRawTcpRequest(context, toRawRequest(header.unitId(), pdu));
@@ -103,6 +167,84 @@ public class ModbusTcpServer implements ModbusServer {
     return handleModbusRequestPdu(context, header.transactionId(), header.unitId(), requestPdu);
   }
 
+  /**
+   * Handle an incoming {@link ModbusTcpFrame} asynchronously.
+   *
+   * <p>If the configured services are {@link AsyncModbusServices} the returned stage completes when
+   * the service's stage completes, otherwise the frame is handled synchronously by {@link
+   * #handleModbusTcpFrame(ModbusTcpFrame, ModbusTcpRequestContext)}.
+   *
+   * @param frame the request frame.
+   * @param context the {@link ModbusTcpRequestContext} for the request.
+   * @return a {@link CompletionStage} that completes with the response frame.
+   */
+  protected CompletionStage<ModbusTcpFrame> handleModbusTcpFrameAsync(
+      ModbusTcpFrame frame, ModbusTcpRequestContext context) {
+
+    ModbusServices services = this.services.get();
+    assert services != null;
+
+    if (services instanceof AsyncModbusServices asyncServices) {
+      return handleModbusTcpFrameAsync(frame, context, asyncServices);
+    } else {
+      try {
+        return CompletableFuture.completedFuture(handleModbusTcpFrame(frame, context));
+      } catch (Exception e) {
+        return CompletableFuture.failedFuture(e);
+      }
+    }
+  }
+
+  private CompletionStage<ModbusTcpFrame> handleModbusTcpFrameAsync(
+      ModbusTcpFrame frame, ModbusTcpRequestContext context, AsyncModbusServices services) {
+
+    MbapHeader header = frame.header();
+    ByteBuffer pdu = frame.pdu();
+    int transactionId = header.transactionId();
+    int unitId = header.unitId();
+
+    CompletionStage<? extends ModbusResponsePdu> response;
+    try {
+      if (services instanceof RawModbusTcpServices rawServices) {
+        Optional<RawModbusTcpResponse> rawResponse =
+            rawServices.handleRawTcpRequest(context, toRawRequest(unitId, pdu));
+
+        if (rawResponse.isPresent()) {
+          return CompletableFuture.completedFuture(
+              toTcpFrame(transactionId, unitId, rawResponse.get()));
+        }
+      }
+
+      int functionCode = pdu.get(pdu.position()) & 0xFF;
+      ModbusRequestPdu requestPdu =
+          (ModbusRequestPdu) config.requestSerializer().decode(functionCode, pdu);
+
+      response =
+          AsyncServiceDispatcher.dispatch(services, context, unitId, functionCode, requestPdu);
+    } catch (Exception e) {
+      response = CompletableFuture.failedFuture(e);
+    }
+
+    return response.handle(
+        (responsePdu, ex) -> {
+          if (ex == null) {
+            try {
+              return encodeResponse(transactionId, unitId, responsePdu);
+            } catch (Exception e) {
+              throw new CompletionException(e);
+            }
+          }
+
+          Throwable cause = ex instanceof CompletionException ? ex.getCause() : ex;
+
+          if (cause instanceof ModbusResponseException e) {
+            return encodeExceptionResponse(transactionId, unitId, e);
+          } else {
+            throw new CompletionException(cause);
+          }
+        });
+  }
+
   private static RawModbusTcpRequest toRawRequest(int unitId, ByteBuffer pdu) {
     ByteBuffer buffer = pdu.slice();
     byte[] bytes = new byte[buffer.remaining()];
@@ -117,7 +259,7 @@ public class ModbusTcpServer implements ModbusServer {
     byte[] pdu = response.pdu();
     var header = new MbapHeader(transactionId, 0, pdu.length + 1, unitId);
 
-    return new ModbusTcpFrame(header, ByteBuffer.wrap(pdu));
+    return new ModbusTcpFrame(header, ByteBuffer.wrap(pdu).asReadOnlyBuffer());
   }
 
   protected ModbusTcpFrame handleModbusRequestPdu(
@@ -213,21 +355,47 @@ public class ModbusTcpServer implements ModbusServer {
                     requestPdu.getFunctionCode(), ExceptionCode.ILLEGAL_FUNCTION.getCode());
           };
 
-      ByteBuffer pdu = ByteBuffer.allocate(256);
+      return encodeResponse(transactionId, unitId, response);
+    } catch (ModbusResponseException e) {
+      return encodeExceptionResponse(transactionId, unitId, e);
+    }
+  }
 
-      config.responseSerializer().encode(response, pdu);
+  private ModbusTcpFrame encodeResponse(int transactionId, int unitId, ModbusResponsePdu response)
+      throws Exception {
 
-      var header = new MbapHeader(transactionId, 0, pdu.position() + 1, unitId);
+    ByteBuffer pdu;
 
-      return new ModbusTcpFrame(header, pdu.flip());
-    } catch (ModbusResponseException e) {
-      var header = new MbapHeader(transactionId, 0, 3, unitId);
-      int fc = e.getFunctionCode() + 0x80;
-      int ec = e.getExceptionCode();
-      ByteBuffer pdu = ByteBuffer.allocate(2).put((byte) fc).put((byte) ec).flip();
+    if (pooling) {
+      pdu = config.bufferPool().take(PDU_BUFFER_SIZE);
+
+      try {
+        config.responseSerializer().encode(response, pdu);
+      } catch (Exception e) {
+        config.bufferPool().give(pdu);
+        throw e;
+      }
 
-      return new ModbusTcpFrame(header, pdu);
+      pooledPdus.add(pdu);
+    } else {
+      pdu = ByteBuffer.allocate(PDU_BUFFER_SIZE);
+      config.responseSerializer().encode(response, pdu);
     }
+
+    var header = new MbapHeader(transactionId, 0, pdu.position() + 1, unitId);
+
+    return new ModbusTcpFrame(header, pdu.flip());
+  }
+
+  private static ModbusTcpFrame encodeExceptionResponse(
+      int transactionId, int unitId, ModbusResponseException e) {
+
+    var header = new MbapHeader(transactionId, 0, 3, unitId);
+    int fc = e.getFunctionCode() + 0x80;
+    int ec = e.getExceptionCode();
+    ByteBuffer pdu = ByteBuffer.allocate(2).put((byte) fc).put((byte) ec).flip();
+
+    return new ModbusTcpFrame(header, pdu);
   }
 
   /**
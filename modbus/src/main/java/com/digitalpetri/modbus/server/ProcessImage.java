@@ -1,21 +1,23 @@
 package com.digitalpetri.modbus.server;
 
 import com.digitalpetri.modbus.internal.util.Hex;
+import com.digitalpetri.modbus.server.BitArea.MapBitArea;
 import com.digitalpetri.modbus.server.ProcessImage.Modification.CoilModification;
 import com.digitalpetri.modbus.server.ProcessImage.Modification.DiscreteInputModification;
 import com.digitalpetri.modbus.server.ProcessImage.Modification.HoldingRegisterModification;
 import com.digitalpetri.modbus.server.ProcessImage.Modification.InputRegisterModification;
+import com.digitalpetri.modbus.server.RegisterArea.MapRegisterArea;
+import java.lang.invoke.VarHandle;
 import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.StringJoiner;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
-import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -24,22 +26,44 @@ public class ProcessImage {
 
   private static final ThreadLocal<Object> IN_TRANSACTION = new ThreadLocal<>();
 
-  private final ReadWriteLock exclusiveLock = new ReentrantReadWriteLock();
+  private final ReentrantReadWriteLock exclusiveLock = new ReentrantReadWriteLock();
+  private final AtomicLong exclusiveVersion = new AtomicLong();
 
-  private final ReadWriteLock coilLock = new ReentrantReadWriteLock();
-  private final Map<Integer, Boolean> coilMap = new HashMap<>();
+  private final ReentrantReadWriteLock coilLock = new ReentrantReadWriteLock();
+  private final AtomicLong coilVersion = new AtomicLong();
+  private final BitArea coils;
 
-  private final ReadWriteLock discreteInputLock = new ReentrantReadWriteLock();
-  private final Map<Integer, Boolean> discreteInputMap = new HashMap<>();
+  private final ReentrantReadWriteLock discreteInputLock = new ReentrantReadWriteLock();
+  private final AtomicLong discreteInputVersion = new AtomicLong();
+  private final BitArea discreteInputs;
 
-  private final ReadWriteLock holdingRegisterLock = new ReentrantReadWriteLock();
-  private final Map<Integer, byte[]> holdingRegisterMap = new HashMap<>();
+  private final ReentrantReadWriteLock holdingRegisterLock = new ReentrantReadWriteLock();
+  private final AtomicLong holdingRegisterVersion = new AtomicLong();
+  private final RegisterArea holdingRegisters;
 
-  private final ReadWriteLock inputRegisterLock = new ReentrantReadWriteLock();
-  private final Map<Integer, byte[]> inputRegisterMap = new HashMap<>();
+  private final ReentrantReadWriteLock inputRegisterLock = new ReentrantReadWriteLock();
+  private final AtomicLong inputRegisterVersion = new AtomicLong();
+  private final RegisterArea inputRegisters;
 
   private final List<ModificationListener> modificationListeners = new CopyOnWriteArrayList<>();
 
+  /** Create a new {@link ProcessImage} that stores each area in a {@link Map}. */
+  public ProcessImage() {
+    this(new MapBitArea(), new MapBitArea(), new MapRegisterArea(), new MapRegisterArea());
+  }
+
+  ProcessImage(
+      BitArea coils,
+      BitArea discreteInputs,
+      RegisterArea holdingRegisters,
+      RegisterArea inputRegisters) {
+
+    this.coils = coils;
+    this.discreteInputs = discreteInputs;
+    this.holdingRegisters = holdingRegisters;
+    this.inputRegisters = inputRegisters;
+  }
+
   /**
    * Perform an action using a {@link Transaction} that does not return value.
    *
@@ -106,6 +130,7 @@ public class ProcessImage {
 
     if (exclusive) {
       exclusiveLock.writeLock().lock();
+      exclusiveVersion.incrementAndGet();
     } else {
       exclusiveLock.readLock().lock();
     }
@@ -115,6 +140,7 @@ public class ProcessImage {
       }
     } finally {
       if (exclusive) {
+        exclusiveVersion.incrementAndGet();
         exclusiveLock.writeLock().unlock();
       } else {
         exclusiveLock.readLock().unlock();
@@ -123,6 +149,66 @@ public class ProcessImage {
     }
   }
 
+  /**
+   * Read a snapshot of a range of Coils without starting a {@link Transaction}.
+   *
+   * <p>See {@link #readHoldingRegisters(int, int)} for the consistency guarantees.
+   *
+   * @param address the starting address.
+   * @param quantity the number of Coils to read.
+   * @return the Coil values, packed 8 per byte, least significant bit first.
+   */
+  public byte[] readCoils(int address, int quantity) {
+    return snapshotBits(coilLock, coilVersion, coils, address, quantity);
+  }
+
+  /**
+   * Read a snapshot of a range of Discrete Inputs without starting a {@link Transaction}.
+   *
+   * <p>See {@link #readHoldingRegisters(int, int)} for the consistency guarantees.
+   *
+   * @param address the starting address.
+   * @param quantity the number of Discrete Inputs to read.
+   * @return the Discrete Input values, packed 8 per byte, least significant bit first.
+   */
+  public byte[] readDiscreteInputs(int address, int quantity) {
+    return snapshotBits(discreteInputLock, discreteInputVersion, discreteInputs, address, quantity);
+  }
+
+  /**
+   * Read a snapshot of a range of Holding Registers without starting a {@link Transaction}.
+   *
+   * <p>The snapshot never observes a partially applied area write or exclusive transaction. When
+   * the storage allows it, e.g. {@link DenseProcessImage}, the range is copied optimistically
+   * without taking any lock and validated afterwards against the area and exclusive transaction
+   * versions; only if a write overlapped does the read fall back to taking the locks an ordinary
+   * transaction would. Map-backed storage always reads under the locks.
+   *
+   * <p>Unlike {@link #get(Function)}, this may be called from within a transaction.
+   *
+   * @param address the starting address.
+   * @param quantity the number of Holding Registers to read.
+   * @return the Holding Register values, 2 bytes per register, big-endian.
+   */
+  public byte[] readHoldingRegisters(int address, int quantity) {
+    return snapshotRegisters(
+        holdingRegisterLock, holdingRegisterVersion, holdingRegisters, address, quantity);
+  }
+
+  /**
+   * Read a snapshot of a range of Input Registers without starting a {@link Transaction}.
+   *
+   * <p>See {@link #readHoldingRegisters(int, int)} for the consistency guarantees.
+   *
+   * @param address the starting address.
+   * @param quantity the number of Input Registers to read.
+   * @return the Input Register values, 2 bytes per register, big-endian.
+   */
+  public byte[] readInputRegisters(int address, int quantity) {
+    return snapshotRegisters(
+        inputRegisterLock, inputRegisterVersion, inputRegisters, address, quantity);
+  }
+
   /**
    * Add a {@link ModificationListener} to be notified when the ProcessImage is modified.
    *
@@ -141,6 +227,117 @@ public class ProcessImage {
     modificationListeners.remove(listener);
   }
 
+  private byte[] snapshotBits(
+      ReentrantReadWriteLock lock, AtomicLong version, BitArea area, int address, int quantity) {
+
+    checkRange(address, quantity);
+
+    var bits = new byte[(quantity + 7) / 8];
+
+    if (area.supportsOptimisticReads()) {
+      long exclusiveStamp = exclusiveVersion.get();
+      long stamp = version.get();
+
+      if (((exclusiveStamp | stamp) & 1) == 0) {
+        area.read(address, quantity, bits);
+
+        VarHandle.acquireFence();
+        if (version.get() == stamp && exclusiveVersion.get() == exclusiveStamp) {
+          return bits;
+        }
+      }
+    }
+
+    exclusiveLock.readLock().lock();
+    try {
+      lock.readLock().lock();
+      try {
+        area.read(address, quantity, bits);
+      } finally {
+        lock.readLock().unlock();
+      }
+    } finally {
+      exclusiveLock.readLock().unlock();
+    }
+
+    return bits;
+  }
+
+  private byte[] snapshotRegisters(
+      ReentrantReadWriteLock lock,
+      AtomicLong version,
+      RegisterArea area,
+      int address,
+      int quantity) {
+
+    checkRange(address, quantity);
+
+    var registers = new byte[quantity * 2];
+
+    if (area.supportsOptimisticReads()) {
+      long exclusiveStamp = exclusiveVersion.get();
+      long stamp = version.get();
+
+      if (((exclusiveStamp | stamp) & 1) == 0) {
+        area.read(address, quantity, registers, 0);
+
+        VarHandle.acquireFence();
+        if (version.get() == stamp && exclusiveVersion.get() == exclusiveStamp) {
+          return registers;
+        }
+      }
+    }
+
+    exclusiveLock.readLock().lock();
+    try {
+      lock.readLock().lock();
+      try {
+        area.read(address, quantity, registers, 0);
+      } finally {
+        lock.readLock().unlock();
+      }
+    } finally {
+      exclusiveLock.readLock().unlock();
+    }
+
+    return registers;
+  }
+
+  /**
+   * Mark the start of a write to an area. Must be called while holding the area's write lock.
+   *
+   * <p>The version is odd while a write is in progress. Only the outermost write on a thread bumps
+   * it, so re-entrant writes to the same area keep it consistent.
+   */
+  private static void beginWrite(ReentrantReadWriteLock lock, AtomicLong version) {
+    if (lock.getWriteHoldCount() == 1) {
+      version.incrementAndGet();
+    }
+  }
+
+  /**
+   * Mark the end of a write started with {@link #beginWrite(ReentrantReadWriteLock, AtomicLong)}.
+   */
+  private static void endWrite(ReentrantReadWriteLock lock, AtomicLong version) {
+    if (lock.getWriteHoldCount() == 1) {
+      version.incrementAndGet();
+    }
+  }
+
+  private static void checkRange(int address, int quantity) {
+    if (address < 0 || quantity < 0 || address + quantity > 65536) {
+      throw new IllegalArgumentException(
+          "invalid range: address=%d, quantity=%d".formatted(address, quantity));
+    }
+  }
+
+  private static void checkLength(int length, byte[] values) {
+    if (values.length < length) {
+      throw new IllegalArgumentException(
+          "values too short: length=%d, required=%d".formatted(values.length, length));
+    }
+  }
+
   public class Transaction implements AutoCloseable {
 
     private enum State {
@@ -164,12 +361,23 @@ public class ProcessImage {
 
       coilLock.readLock().lock();
       try {
-        return read.apply(Collections.unmodifiableMap(coilMap));
+        return read.apply(Collections.unmodifiableMap(coils.view()));
       } finally {
         coilLock.readLock().unlock();
       }
     }
 
+    /**
+     * Read a range of Coils.
+     *
+     * @param address the starting address.
+     * @param quantity the number of Coils to read.
+     * @return the Coil values, packed 8 per byte, least significant bit first.
+     */
+    public byte[] readCoils(int address, int quantity) {
+      return readBits(coilLock, coils, address, quantity);
+    }
+
     /**
      * Provide a function that reads from an unmodifiable view of the Discrete Inputs in the
      * ProcessImage.
@@ -185,12 +393,23 @@ public class ProcessImage {
 
       discreteInputLock.readLock().lock();
       try {
-        return read.apply(Collections.unmodifiableMap(discreteInputMap));
+        return read.apply(Collections.unmodifiableMap(discreteInputs.view()));
       } finally {
         discreteInputLock.readLock().unlock();
       }
     }
 
+    /**
+     * Read a range of Discrete Inputs.
+     *
+     * @param address the starting address.
+     * @param quantity the number of Discrete Inputs to read.
+     * @return the Discrete Input values, packed 8 per byte, least significant bit first.
+     */
+    public byte[] readDiscreteInputs(int address, int quantity) {
+      return readBits(discreteInputLock, discreteInputs, address, quantity);
+    }
+
     /**
      * Provide a function that reads from an unmodifiable view of the Holding Registers in the
      * ProcessImage.
@@ -206,12 +425,23 @@ public class ProcessImage {
 
       holdingRegisterLock.readLock().lock();
       try {
-        return read.apply(Collections.unmodifiableMap(holdingRegisterMap));
+        return read.apply(Collections.unmodifiableMap(holdingRegisters.view()));
       } finally {
         holdingRegisterLock.readLock().unlock();
       }
     }
 
+    /**
+     * Read a range of Holding Registers.
+     *
+     * @param address the starting address.
+     * @param quantity the number of Holding Registers to read.
+     * @return the Holding Register values, 2 bytes per register, big-endian.
+     */
+    public byte[] readHoldingRegisters(int address, int quantity) {
+      return readRegisters(holdingRegisterLock, holdingRegisters, address, quantity);
+    }
+
     /**
      * Provide a function that reads from an unmodifiable view of the Input Registers in the
      * ProcessImage.
@@ -227,12 +457,23 @@ public class ProcessImage {
 
       inputRegisterLock.readLock().lock();
       try {
-        return read.apply(Collections.unmodifiableMap(inputRegisterMap));
+        return read.apply(Collections.unmodifiableMap(inputRegisters.view()));
       } finally {
         inputRegisterLock.readLock().unlock();
       }
     }
 
+    /**
+     * Read a range of Input Registers.
+     *
+     * @param address the starting address.
+     * @param quantity the number of Input Registers to read.
+     * @return the Input Register values, 2 bytes per register, big-endian.
+     */
+    public byte[] readInputRegisters(int address, int quantity) {
+      return readRegisters(inputRegisterLock, inputRegisters, address, quantity);
+    }
+
     /**
      * Provide a callback that can write to mutable view of the Coils in the ProcessImage.
      *
@@ -246,9 +487,10 @@ public class ProcessImage {
       var modifications = new ArrayList<CoilModification>();
 
       coilLock.writeLock().lock();
+      beginWrite(coilLock, coilVersion);
       try {
         write.accept(
-            new TransactionScopedMap<>(coilMap, state) {
+            new TransactionScopedMap<>(coils.view(), state) {
               @Override
               protected void recordPut(Integer key, Boolean value) {
                 modifications.add(new CoilModification(key, value));
@@ -264,6 +506,40 @@ public class ProcessImage {
 
         notifyCoilsModified(modifications);
       } finally {
+        endWrite(coilLock, coilVersion);
+        coilLock.writeLock().unlock();
+      }
+    }
+
+    /**
+     * Write a range of Coils.
+     *
+     * @param address the starting address.
+     * @param quantity the number of Coils to write.
+     * @param values the Coil values, packed 8 per byte, least significant bit first.
+     */
+    public void writeCoils(int address, int quantity, byte[] values) {
+      checkOpen();
+      checkRange(address, quantity);
+      checkLength((quantity + 7) / 8, values);
+
+      var modifications = new ArrayList<CoilModification>();
+
+      coilLock.writeLock().lock();
+      beginWrite(coilLock, coilVersion);
+      try {
+        for (int i = 0; i < quantity; i++) {
+          boolean value = (values[i >>> 3] & (1 << (i & 7))) != 0;
+          coils.set(address + i, value);
+
+          if (!modificationListeners.isEmpty()) {
+            modifications.add(new CoilModification(address + i, value));
+          }
+        }
+
+        notifyCoilsModified(modifications);
+      } finally {
+        endWrite(coilLock, coilVersion);
         coilLock.writeLock().unlock();
       }
     }
@@ -281,9 +557,10 @@ public class ProcessImage {
       var modifications = new ArrayList<DiscreteInputModification>();
 
       discreteInputLock.writeLock().lock();
+      beginWrite(discreteInputLock, discreteInputVersion);
       try {
         write.accept(
-            new TransactionScopedMap<>(discreteInputMap, state) {
+            new TransactionScopedMap<>(discreteInputs.view(), state) {
               @Override
               protected void recordPut(Integer key, Boolean value) {
                 modifications.add(new DiscreteInputModification(key, value));
@@ -299,6 +576,40 @@ public class ProcessImage {
 
         notifyDiscreteInputsModified(modifications);
       } finally {
+        endWrite(discreteInputLock, discreteInputVersion);
+        discreteInputLock.writeLock().unlock();
+      }
+    }
+
+    /**
+     * Write a range of Discrete Inputs.
+     *
+     * @param address the starting address.
+     * @param quantity the number of Discrete Inputs to write.
+     * @param values the Discrete Input values, packed 8 per byte, least significant bit first.
+     */
+    public void writeDiscreteInputs(int address, int quantity, byte[] values) {
+      checkOpen();
+      checkRange(address, quantity);
+      checkLength((quantity + 7) / 8, values);
+
+      var modifications = new ArrayList<DiscreteInputModification>();
+
+      discreteInputLock.writeLock().lock();
+      beginWrite(discreteInputLock, discreteInputVersion);
+      try {
+        for (int i = 0; i < quantity; i++) {
+          boolean value = (values[i >>> 3] & (1 << (i & 7))) != 0;
+          discreteInputs.set(address + i, value);
+
+          if (!modificationListeners.isEmpty()) {
+            modifications.add(new DiscreteInputModification(address + i, value));
+          }
+        }
+
+        notifyDiscreteInputsModified(modifications);
+      } finally {
+        endWrite(discreteInputLock, discreteInputVersion);
         discreteInputLock.writeLock().unlock();
       }
     }
@@ -317,9 +628,10 @@ public class ProcessImage {
       var modifications = new ArrayList<HoldingRegisterModification>();
 
       holdingRegisterLock.writeLock().lock();
+      beginWrite(holdingRegisterLock, holdingRegisterVersion);
       try {
         write.accept(
-            new TransactionScopedMap<>(holdingRegisterMap, state) {
+            new TransactionScopedMap<>(holdingRegisters.view(), state) {
               @Override
               protected void recordPut(Integer key, byte[] value) {
                 modifications.add(new HoldingRegisterModification(key, value));
@@ -335,6 +647,40 @@ public class ProcessImage {
 
         notifyHoldingRegistersModified(modifications);
       } finally {
+        endWrite(holdingRegisterLock, holdingRegisterVersion);
+        holdingRegisterLock.writeLock().unlock();
+      }
+    }
+
+    /**
+     * Write a range of Holding Registers.
+     *
+     * @param address the starting address.
+     * @param quantity the number of Holding Registers to write.
+     * @param values the Holding Register values, 2 bytes per register, big-endian.
+     */
+    public void writeHoldingRegisters(int address, int quantity, byte[] values) {
+      checkOpen();
+      checkRange(address, quantity);
+      checkLength(quantity * 2, values);
+
+      var modifications = new ArrayList<HoldingRegisterModification>();
+
+      holdingRegisterLock.writeLock().lock();
+      beginWrite(holdingRegisterLock, holdingRegisterVersion);
+      try {
+        holdingRegisters.write(address, quantity, values, 0);
+
+        if (!modificationListeners.isEmpty()) {
+          for (int i = 0; i < quantity; i++) {
+            byte[] value = new byte[] {values[i * 2], values[i * 2 + 1]};
+            modifications.add(new HoldingRegisterModification(address + i, value));
+          }
+        }
+
+        notifyHoldingRegistersModified(modifications);
+      } finally {
+        endWrite(holdingRegisterLock, holdingRegisterVersion);
         holdingRegisterLock.writeLock().unlock();
       }
     }
@@ -352,9 +698,10 @@ public class ProcessImage {
       var modifications = new ArrayList<InputRegisterModification>();
 
       inputRegisterLock.writeLock().lock();
+      beginWrite(inputRegisterLock, inputRegisterVersion);
       try {
         write.accept(
-            new TransactionScopedMap<>(inputRegisterMap, state) {
+            new TransactionScopedMap<>(inputRegisters.view(), state) {
               @Override
               protected void recordPut(Integer key, byte[] value) {
                 modifications.add(new InputRegisterModification(key, value));
@@ -370,6 +717,40 @@ public class ProcessImage {
 
         notifyInputRegistersModified(modifications);
       } finally {
+        endWrite(inputRegisterLock, inputRegisterVersion);
+        inputRegisterLock.writeLock().unlock();
+      }
+    }
+
+    /**
+     * Write a range of Input Registers.
+     *
+     * @param address the starting address.
+     * @param quantity the number of Input Registers to write.
+     * @param values the Input Register values, 2 bytes per register, big-endian.
+     */
+    public void writeInputRegisters(int address, int quantity, byte[] values) {
+      checkOpen();
+      checkRange(address, quantity);
+      checkLength(quantity * 2, values);
+
+      var modifications = new ArrayList<InputRegisterModification>();
+
+      inputRegisterLock.writeLock().lock();
+      beginWrite(inputRegisterLock, inputRegisterVersion);
+      try {
+        inputRegisters.write(address, quantity, values, 0);
+
+        if (!modificationListeners.isEmpty()) {
+          for (int i = 0; i < quantity; i++) {
+            byte[] value = new byte[] {values[i * 2], values[i * 2 + 1]};
+            modifications.add(new InputRegisterModification(address + i, value));
+          }
+        }
+
+        notifyInputRegistersModified(modifications);
+      } finally {
+        endWrite(inputRegisterLock, inputRegisterVersion);
         inputRegisterLock.writeLock().unlock();
       }
     }
@@ -379,6 +760,45 @@ public class ProcessImage {
       state.set(State.CLOSED);
     }
 
+    private byte[] readBits(ReentrantReadWriteLock lock, BitArea area, int address, int quantity) {
+      checkOpen();
+      checkRange(address, quantity);
+
+      var bits = new byte[(quantity + 7) / 8];
+
+      lock.readLock().lock();
+      try {
+        area.read(address, quantity, bits);
+      } finally {
+        lock.readLock().unlock();
+      }
+
+      return bits;
+    }
+
+    private byte[] readRegisters(
+        ReentrantReadWriteLock lock, RegisterArea area, int address, int quantity) {
+      checkOpen();
+      checkRange(address, quantity);
+
+      var registers = new byte[quantity * 2];
+
+      lock.readLock().lock();
+      try {
+        area.read(address, quantity, registers, 0);
+      } finally {
+        lock.readLock().unlock();
+      }
+
+      return registers;
+    }
+
+    private void checkOpen() {
+      if (state.get() != State.OPEN) {
+        throw new IllegalStateException("transaction closed");
+      }
+    }
+
     private void notifyCoilsModified(List<CoilModification> modifications) {
       if (!modifications.isEmpty()) {
         modificationListeners.forEach(listener -> listener.onCoilsModified(modifications));
@@ -404,6 +824,13 @@ public class ProcessImage {
       }
     }
 
+    /**
+     * A writable view of an area that is only usable while the {@link Transaction} is open and
+     * records every put and remove.
+     *
+     * <p>Lookups and removals go straight to the area's own view rather than through {@link
+     * AbstractMap}'s scan of {@link #entrySet()}.
+     */
     private abstract static class TransactionScopedMap<K, V> extends AbstractMap<K, V> {
 
       private final Map<K, V> delegate;
@@ -416,17 +843,31 @@ public class ProcessImage {
 
       @Override
       public Set<Entry<K, V>> entrySet() {
-        if (state.get() != State.OPEN) {
-          throw new IllegalStateException("transaction closed");
-        }
+        checkOpen();
         return delegate.entrySet();
       }
 
+      @Override
+      public int size() {
+        checkOpen();
+        return delegate.size();
+      }
+
+      @Override
+      public V get(Object key) {
+        checkOpen();
+        return delegate.get(key);
+      }
+
+      @Override
+      public boolean containsKey(Object key) {
+        checkOpen();
+        return delegate.containsKey(key);
+      }
+
       @Override
       public V put(K key, V value) {
-        if (state.get() != State.OPEN) {
-          throw new IllegalStateException("transaction closed");
-        }
+        checkOpen();
         try {
           return delegate.put(key, value);
         } finally {
@@ -436,11 +877,9 @@ public class ProcessImage {
 
       @Override
       public V remove(Object key) {
-        if (state.get() != State.OPEN) {
-          throw new IllegalStateException("transaction closed");
-        }
+        checkOpen();
         try {
-          return super.remove(key);
+          return delegate.remove(key);
         } finally {
           recordRemove(key);
         }
@@ -449,6 +888,12 @@ public class ProcessImage {
       protected abstract void recordPut(K key, V value);
 
       protected abstract void recordRemove(Object key);
+
+      private void checkOpen() {
+        if (state.get() != State.OPEN) {
+          throw new IllegalStateException("transaction closed");
+        }
+      }
     }
   }
 
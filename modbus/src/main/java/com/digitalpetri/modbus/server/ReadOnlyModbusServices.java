@@ -31,7 +31,7 @@ public abstract class ReadOnlyModbusServices implements ModbusServices {
     final int address = request.address();
     final int quantity = request.quantity();
 
-    byte[] coils = processImage.get(tx -> tx.readCoils(readBits(address, quantity)));
+    byte[] coils = processImage.readCoils(address, quantity);
 
     return new ReadCoilsResponse(coils);
   }
@@ -49,7 +49,7 @@ public abstract class ReadOnlyModbusServices implements ModbusServices {
     final int address = request.address();
     final int quantity = request.quantity();
 
-    byte[] inputs = processImage.get(tx -> tx.readDiscreteInputs(readBits(address, quantity)));
+    byte[] inputs = processImage.readDiscreteInputs(address, quantity);
 
     return new ReadDiscreteInputsResponse(inputs);
   }
@@ -68,8 +68,7 @@ public abstract class ReadOnlyModbusServices implements ModbusServices {
     final int address = request.address();
     final int quantity = request.quantity();
 
-    byte[] registers =
-        processImage.get(tx -> tx.readHoldingRegisters(readRegisters(address, quantity)));
+    byte[] registers = processImage.readHoldingRegisters(address, quantity);
 
     return new ReadHoldingRegistersResponse(registers);
   }
@@ -88,44 +87,22 @@ public abstract class ReadOnlyModbusServices implements ModbusServices {
     final int address = request.address();
     final int quantity = request.quantity();
 
-    byte[] registers =
-        processImage.get(tx -> tx.readInputRegisters(readRegisters(address, quantity)));
+    byte[] registers = processImage.readInputRegisters(address, quantity);
 
     return new ReadInputRegistersResponse(registers);
   }
 
-  private static Function<Map<Integer, Boolean>, byte[]> readBits(int address, int quantity) {
-    final var bytes = new byte[(quantity + 7) / 8];
-
-    return bitMap -> {
-      for (int i = 0; i < quantity; i++) {
-        int bitIndex = i % 8;
-        int byteIndex = i / 8;
-
-        boolean value = bitMap.getOrDefault(address + i, false);
-
-        int b = bytes[byteIndex];
-        if (value) {
-          b |= (1 << bitIndex);
-        } else {
-          b &= ~(1 << bitIndex);
-        }
-        bytes[byteIndex] = (byte) (b & 0xFF);
-      }
-
-      return bytes;
-    };
-  }
-
   protected static Function<Map<Integer, byte[]>, byte[]> readRegisters(int address, int quantity) {
     final var registers = new byte[quantity * 2];
 
     return registerMap -> {
       for (int i = 0; i < quantity; i++) {
-        byte[] value = registerMap.getOrDefault(address + i, new byte[2]);
+        byte[] value = registerMap.get(address + i);
 
-        registers[i * 2] = value[0];
-        registers[i * 2 + 1] = value[1];
+        if (value != null) {
+          registers[i * 2] = value[0];
+          registers[i * 2 + 1] = value[1];
+        }
       }
 
       return registers;
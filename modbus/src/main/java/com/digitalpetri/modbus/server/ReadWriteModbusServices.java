@@ -28,16 +28,7 @@ public abstract class ReadWriteModbusServices extends ReadOnlyModbusServices
     final int address = request.address();
     final int value = request.value();
 
-    processImage.with(
-        tx ->
-            tx.writeCoils(
-                coilMap -> {
-                  if (value == 0) {
-                    coilMap.remove(address);
-                  } else {
-                    coilMap.put(address, true);
-                  }
-                }));
+    processImage.with(tx -> tx.writeCoils(address, 1, new byte[] {(byte) (value == 0 ? 0 : 1)}));
 
     return new WriteSingleCoilResponse(address, value);
   }
@@ -54,21 +45,7 @@ public abstract class ReadWriteModbusServices extends ReadOnlyModbusServices
     final int quantity = request.quantity();
     final byte[] values = request.values();
 
-    processImage.with(
-        tx ->
-            tx.writeCoils(
-                coilMap -> {
-                  for (int i = 0; i < quantity; i++) {
-                    int vi = i / 8;
-                    int bi = i % 8;
-                    boolean value = (values[vi] & (1 << bi)) != 0;
-                    if (!value) {
-                      coilMap.remove(address + i);
-                    } else {
-                      coilMap.put(address + i, true);
-                    }
-                  }
-                }));
+    processImage.with(tx -> tx.writeCoils(address, quantity, values));
 
     return new WriteMultipleCoilsResponse(address, quantity);
   }
@@ -84,19 +61,10 @@ public abstract class ReadWriteModbusServices extends ReadOnlyModbusServices
     final int address = request.address();
     final int value = request.value();
 
-    processImage.with(
-        tx ->
-            tx.writeHoldingRegisters(
-                registerMap -> {
-                  if (value == 0) {
-                    registerMap.remove(address);
-                  } else {
-                    byte high = (byte) ((value >> 8) & 0xFF);
-                    byte low = (byte) (value & 0xFF);
-                    byte[] bs = new byte[] {high, low};
-                    registerMap.put(address, bs);
-                  }
-                }));
+    byte high = (byte) ((value >> 8) & 0xFF);
+    byte low = (byte) (value & 0xFF);
+
+    processImage.with(tx -> tx.writeHoldingRegisters(address, 1, new byte[] {high, low}));
 
     return new WriteSingleRegisterResponse(address, value);
   }
@@ -113,22 +81,7 @@ public abstract class ReadWriteModbusServices extends ReadOnlyModbusServices
     final int quantity = request.quantity();
     final byte[] values = request.values();
 
-    processImage.with(
-        tx ->
-            tx.writeHoldingRegisters(
-                registerMap -> {
-                  for (int i = 0; i < quantity; i++) {
-                    byte high = values[i * 2];
-                    byte low = values[i * 2 + 1];
-
-                    if (high == 0 && low == 0) {
-                      registerMap.remove(address + i);
-                    } else {
-                      byte[] value = new byte[] {high, low};
-                      registerMap.put(address + i, value);
-                    }
-                  }
-                }));
+    processImage.with(tx -> tx.writeHoldingRegisters(address, quantity, values));
 
     return new WriteMultipleRegistersResponse(address, quantity);
   }
@@ -146,12 +99,13 @@ public abstract class ReadWriteModbusServices extends ReadOnlyModbusServices
     final int andMask = request.andMask();
     final int orMask = request.orMask();
 
+    // the read and write-back both happen under the Holding Register write lock
     processImage.with(
         tx ->
             tx.writeHoldingRegisters(
                 registerMap -> {
                   byte[] value = registerMap.getOrDefault(address, new byte[2]);
-                  int currentValue = (value[0] << 8) | (value[1] & 0xFF);
+                  int currentValue = ((value[0] & 0xFF) << 8) | (value[1] & 0xFF);
                   int result = (currentValue & andMask) | (orMask & ~andMask);
 
                   if (result == 0) {
@@ -159,8 +113,7 @@ public abstract class ReadWriteModbusServices extends ReadOnlyModbusServices
                   } else {
                     byte high = (byte) ((result >> 8) & 0xFF);
                     byte low = (byte) (result & 0xFF);
-                    byte[] bs = new byte[] {high, low};
-                    registerMap.put(address, bs);
+                    registerMap.put(address, new byte[] {high, low});
                   }
                 }));
 
@@ -184,22 +137,9 @@ public abstract class ReadWriteModbusServices extends ReadOnlyModbusServices
     byte[] registers =
         processImage.get(
             tx -> {
-              tx.writeHoldingRegisters(
-                  registerMap -> {
-                    for (int i = 0; i < writeQuantity; i++) {
-                      byte high = values[i * 2];
-                      byte low = values[i * 2 + 1];
-
-                      if (high == 0 && low == 0) {
-                        registerMap.remove(writeAddress + i);
-                      } else {
-                        byte[] value = new byte[] {high, low};
-                        registerMap.put(writeAddress + i, value);
-                      }
-                    }
-                  });
-
-              return tx.readHoldingRegisters(readRegisters(readAddress, readQuantity));
+              tx.writeHoldingRegisters(writeAddress, writeQuantity, values);
+
+              return tx.readHoldingRegisters(readAddress, readQuantity);
             });
 
     return new ReadWriteMultipleRegistersResponse(registers);
@@ -0,0 +1,245 @@
+package com.digitalpetri.modbus.server;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Storage for a register area (Holding Registers or Input Registers) of a {@link ProcessImage}.
+ *
+ * <p>Implementations are not thread-safe; {@link ProcessImage} guards access with its per-area
+ * locks.
+ */
+interface RegisterArea {
+
+  /**
+   * Get a live, mutable {@link Map} view of this area.
+   *
+   * @return a live, mutable {@link Map} view of this area. Values are 2-byte, big-endian register
+   *     values; addresses that are not present read as 0.
+   */
+  Map<Integer, byte[]> view();
+
+  /**
+   * Read {@code quantity} registers starting at {@code address} into {@code dst}, 2 bytes per
+   * register in big-endian order.
+   *
+   * @param address the starting address.
+   * @param quantity the number of registers to read.
+   * @param dst the destination.
+   * @param offset the offset into {@code dst} to start writing at.
+   */
+  void read(int address, int quantity, byte[] dst, int offset);
+
+  /**
+   * Write {@code quantity} registers starting at {@code address} from {@code src}, 2 bytes per
+   * register in big-endian order.
+   *
+   * @param address the starting address.
+   * @param quantity the number of registers to write.
+   * @param src the source.
+   * @param offset the offset into {@code src} to start reading from.
+   */
+  void write(int address, int quantity, byte[] src, int offset);
+
+  /**
+   * Whether {@code read} is safe to call while another thread is writing, i.e. it may return a torn
+   * result but never throws or fails to terminate. {@link ProcessImage} only reads such areas
+   * optimistically, validating the result afterwards.
+   *
+   * @return {@code true} if this area supports optimistic reads.
+   */
+  default boolean supportsOptimisticReads() {
+    return false;
+  }
+
+  /**
+   * {@link RegisterArea} backed by a {@link HashMap}; only addresses holding a non-zero value are
+   * stored.
+   */
+  final class MapRegisterArea implements RegisterArea {
+
+    private final Map<Integer, byte[]> map = new HashMap<>();
+
+    @Override
+    public Map<Integer, byte[]> view() {
+      return map;
+    }
+
+    @Override
+    public void read(int address, int quantity, byte[] dst, int offset) {
+      for (int i = 0; i < quantity; i++) {
+        byte[] value = map.get(address + i);
+
+        if (value != null) {
+          dst[offset + i * 2] = value[0];
+          dst[offset + i * 2 + 1] = value[1];
+        } else {
+          dst[offset + i * 2] = 0;
+          dst[offset + i * 2 + 1] = 0;
+        }
+      }
+    }
+
+    @Override
+    public void write(int address, int quantity, byte[] src, int offset) {
+      for (int i = 0; i < quantity; i++) {
+        byte high = src[offset + i * 2];
+        byte low = src[offset + i * 2 + 1];
+
+        if (high == 0 && low == 0) {
+          map.remove(address + i);
+        } else {
+          map.put(address + i, new byte[] {high, low});
+        }
+      }
+    }
+  }
+
+  /**
+   * {@link RegisterArea} backed by a single array covering all 65536 addresses.
+   *
+   * <p>Registers are stored in wire order, 2 bytes per register, big-endian, so a range read is a
+   * single array copy.
+   */
+  final class DenseRegisterArea implements RegisterArea {
+
+    static final int SIZE = 65536;
+
+    private final byte[] registers = new byte[SIZE * 2];
+
+    private final Map<Integer, byte[]> view = new View();
+
+    @Override
+    public boolean supportsOptimisticReads() {
+      return true;
+    }
+
+    @Override
+    public Map<Integer, byte[]> view() {
+      return view;
+    }
+
+    @Override
+    public void read(int address, int quantity, byte[] dst, int offset) {
+      System.arraycopy(registers, address * 2, dst, offset, quantity * 2);
+    }
+
+    @Override
+    public void write(int address, int quantity, byte[] src, int offset) {
+      System.arraycopy(src, offset, registers, address * 2, quantity * 2);
+    }
+
+    private boolean isZero(int address) {
+      return registers[address * 2] == 0 && registers[address * 2 + 1] == 0;
+    }
+
+    /** Map view; addresses holding 0 are not present. */
+    private class View extends AbstractMap<Integer, byte[]> {
+
+      @Override
+      public byte[] get(Object key) {
+        if (key instanceof Integer address && address >= 0 && address < SIZE && !isZero(address)) {
+          return new byte[] {registers[address * 2], registers[address * 2 + 1]};
+        } else {
+          return null;
+        }
+      }
+
+      @Override
+      public boolean containsKey(Object key) {
+        return key instanceof Integer address && address >= 0 && address < SIZE && !isZero(address);
+      }
+
+      @Override
+      public byte[] put(Integer key, byte[] value) {
+        if (key < 0 || key >= SIZE) {
+          throw new IllegalArgumentException("address out of range: " + key);
+        }
+        if (value.length != 2) {
+          throw new IllegalArgumentException("value must be 2 bytes: " + value.length);
+        }
+
+        byte[] previous = get(key);
+        write(key, 1, value, 0);
+        return previous;
+      }
+
+      @Override
+      public byte[] remove(Object key) {
+        byte[] previous = get(key);
+        if (previous != null) {
+          write((Integer) key, 1, new byte[2], 0);
+        }
+        return previous;
+      }
+
+      @Override
+      public int size() {
+        int size = 0;
+        for (int i = 0; i < SIZE; i++) {
+          if (!isZero(i)) {
+            size++;
+          }
+        }
+        return size;
+      }
+
+      @Override
+      public Set<Entry<Integer, byte[]>> entrySet() {
+        return new AbstractSet<>() {
+          @Override
+          public Iterator<Entry<Integer, byte[]>> iterator() {
+            return new Iterator<>() {
+              int next = nextNonZero(0);
+              int last = -1;
+
+              @Override
+              public boolean hasNext() {
+                return next >= 0;
+              }
+
+              @Override
+              public Entry<Integer, byte[]> next() {
+                if (next < 0) {
+                  throw new NoSuchElementException();
+                }
+                last = next;
+                next = nextNonZero(next + 1);
+                return new SimpleImmutableEntry<>(
+                    last, new byte[] {registers[last * 2], registers[last * 2 + 1]});
+              }
+
+              @Override
+              public void remove() {
+                if (last < 0) {
+                  throw new IllegalStateException();
+                }
+                write(last, 1, new byte[2], 0);
+                last = -1;
+              }
+            };
+          }
+
+          @Override
+          public int size() {
+            return View.this.size();
+          }
+        };
+      }
+
+      private int nextNonZero(int from) {
+        for (int i = from; i < SIZE; i++) {
+          if (!isZero(i)) {
+            return i;
+          }
+        }
+        return -1;
+      }
+    }
+  }
+}
@@ -0,0 +1,41 @@
+package com.digitalpetri.modbus.server;
+
+/**
+ * Determines how a {@link ModbusServerTransport} orders the execution of received request frames.
+ *
+ * <p>Each model assigns requests to one or more ordered execution lanes. Requests assigned to the
+ * same lane are handled serially, in the order they were received; requests assigned to different
+ * lanes may be handled concurrently.
+ */
+public enum ServerExecutionModel {
+
+  /** All requests, from all connections, are handled serially on a single lane. */
+  SERIAL,
+
+  /**
+   * Requests are assigned to a lane by connection. Requests received on the same connection are
+   * handled serially; requests received on different connections may be handled concurrently.
+   *
+   * <p>Transports that only ever have a single connection, e.g. a serial port, behave as if {@link
+   * #SERIAL} were configured.
+   */
+  PER_CONNECTION,
+
+  /**
+   * Requests are assigned to a lane by unit id. Requests targeting the same unit id are handled
+   * serially; requests targeting different unit ids may be handled concurrently, even when they
+   * were received on the same connection.
+   */
+  PER_UNIT_ID,
+
+  /**
+   * Requests received on the same connection are handled concurrently, up to a transport-specific
+   * pipeline depth, and each response is written as soon as it is ready. Responses may therefore be
+   * written in a different order than the requests were received; clients match them by transaction
+   * id.
+   *
+   * <p>Only meaningful for transports whose frames carry a transaction id, i.e. Modbus/TCP.
+   * Transports without one, e.g. RTU, behave as if {@link #SERIAL} were configured.
+   */
+  PIPELINED
+}
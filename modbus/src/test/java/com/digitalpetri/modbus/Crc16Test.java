@@ -1,8 +1,12 @@
 package com.digitalpetri.modbus;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
 import org.junit.jupiter.api.Test;
 
 class Crc16Test {
@@ -38,4 +42,55 @@ class Crc16Test {
 
     assertEquals(0xFFFF, crc.getValue());
   }
+
+  @Test
+  void bulkUpdatesMatchSingleByteUpdates() {
+    var random = new Random(0);
+
+    for (int length = 0; length <= 256; length++) {
+      var data = new byte[length + 3];
+      random.nextBytes(data);
+
+      var expected = new Crc16();
+      for (int i = 3; i < data.length; i++) {
+        expected.update(data[i]);
+      }
+
+      var array = new Crc16();
+      array.update(data, 3, length);
+      assertEquals(expected.getValue(), array.getValue(), "byte[] length=" + length);
+
+      assertEquals(expected.getValue(), Crc16.compute(data, 3, length));
+
+      ByteBuffer heap = ByteBuffer.wrap(data).position(3);
+      assertEquals(expected.getValue(), crcOf(heap.slice()), "heap length=" + length);
+
+      for (ByteOrder order : new ByteOrder[] {ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN}) {
+        ByteBuffer direct = ByteBuffer.allocateDirect(data.length).order(order);
+        direct.put(data).position(3);
+        assertEquals(expected.getValue(), crcOf(direct), "direct " + order + " length=" + length);
+        assertEquals(3, direct.position());
+      }
+    }
+  }
+
+  @Test
+  void computeAndVerifyFrame() {
+    ByteBuffer pdu = ByteBuffer.wrap(new byte[] {0x03, 0x00, 0x00, 0x00, 0x0A});
+
+    // 01 03 00 00 00 0A C5 CD
+    int value = Crc16.compute(0x01, pdu);
+    assertEquals(0xCDC5, value);
+
+    assertTrue(Crc16.verify(0x01, pdu, ByteBuffer.wrap(new byte[] {(byte) 0xC5, (byte) 0xCD})));
+    assertFalse(Crc16.verify(0x01, pdu, ByteBuffer.wrap(new byte[] {(byte) 0xCD, (byte) 0xC5})));
+    assertFalse(Crc16.verify(0x02, pdu, ByteBuffer.wrap(new byte[] {(byte) 0xC5, (byte) 0xCD})));
+    assertEquals(0, pdu.position());
+  }
+
+  private static int crcOf(ByteBuffer buffer) {
+    var crc = new Crc16();
+    crc.update(buffer);
+    return crc.getValue();
+  }
 }
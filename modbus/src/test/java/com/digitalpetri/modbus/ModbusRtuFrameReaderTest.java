@@ -0,0 +1,261 @@
+package com.digitalpetri.modbus;
+
+import static com.digitalpetri.modbus.Util.partitions;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class ModbusRtuFrameReaderTest {
+
+  private static final byte[] READ_HOLDING_REGISTERS_RESPONSE =
+      withCrc(0x01, 0x03, 0x04, 0x01, 0x02, 0x03, 0x04);
+
+  private static final byte[] WRITE_SINGLE_REGISTER_RESPONSE =
+      withCrc(0x02, 0x06, 0x00, 0x01, 0x00, 0x2A);
+
+  private static final byte[] EXCEPTION_RESPONSE = withCrc(0x03, 0x83, 0x02);
+
+  private static final byte[] WRITE_MULTIPLE_REGISTERS_REQUEST =
+      withCrc(0x01, 0x10, 0x00, 0x00, 0x00, 0x02, 0x04, 0x00, 0x01, 0x00, 0x02);
+
+  @Test
+  void framesSplitAcrossReads() {
+    var reader = ModbusRtuFrameReader.forResponses();
+
+    for (int i = 1; i <= READ_HOLDING_REGISTERS_RESPONSE.length; i++) {
+      var frames = new ArrayList<ModbusRtuFrame>();
+
+      partitions(READ_HOLDING_REGISTERS_RESPONSE, i)
+          .forEach(data -> reader.read(ByteBuffer.wrap(data), frames::add));
+
+      assertEquals(1, frames.size());
+      assertFrame(READ_HOLDING_REGISTERS_RESPONSE, frames.get(0));
+      assertEquals(0, reader.getBufferedByteCount());
+    }
+  }
+
+  @Test
+  void severalFramesInOneRead() {
+    var reader = ModbusRtuFrameReader.forResponses();
+    var frames = new ArrayList<ModbusRtuFrame>();
+
+    reader.read(
+        ByteBuffer.wrap(
+            concat(
+                READ_HOLDING_REGISTERS_RESPONSE,
+                WRITE_SINGLE_REGISTER_RESPONSE,
+                EXCEPTION_RESPONSE)),
+        frames::add);
+
+    assertEquals(3, frames.size());
+    assertFrame(READ_HOLDING_REGISTERS_RESPONSE, frames.get(0));
+    assertFrame(WRITE_SINGLE_REGISTER_RESPONSE, frames.get(1));
+    assertFrame(EXCEPTION_RESPONSE, frames.get(2));
+  }
+
+  @Test
+  void resynchronizesAfterGarbage() {
+    var reader = ModbusRtuFrameReader.forResponses();
+    var frames = new ArrayList<ModbusRtuFrame>();
+
+    byte[] corrupted = READ_HOLDING_REGISTERS_RESPONSE.clone();
+    corrupted[4] ^= 0x40;
+
+    reader.read(
+        ByteBuffer.wrap(concat(new byte[] {0x7F, 0x03}, corrupted, WRITE_SINGLE_REGISTER_RESPONSE)),
+        frames::add);
+
+    assertEquals(List.of(2), frames.stream().map(ModbusRtuFrame::unitId).toList());
+    assertFrame(WRITE_SINGLE_REGISTER_RESPONSE, frames.get(0));
+    assertEquals(2 + corrupted.length, reader.getDiscardedByteCount());
+  }
+
+  @Test
+  void frameAfterNoiseImplyingALongFrameIsNotHeldBack() {
+    // 0x01 0x03 0xFA reads as the start of a 255-byte Read Holding Registers response
+    byte[] data =
+        concat(
+            new byte[] {0x01, 0x03, (byte) 0xFA},
+            READ_HOLDING_REGISTERS_RESPONSE,
+            WRITE_SINGLE_REGISTER_RESPONSE);
+
+    for (int chunk : new int[] {1, 3}) {
+      var reader = ModbusRtuFrameReader.forResponses();
+      var frames = new ArrayList<ModbusRtuFrame>();
+
+      partitions(data, chunk).forEach(c -> reader.read(ByteBuffer.wrap(c), frames::add));
+
+      assertEquals(2, frames.size());
+      assertFrame(READ_HOLDING_REGISTERS_RESPONSE, frames.get(0));
+      assertFrame(WRITE_SINGLE_REGISTER_RESPONSE, frames.get(1));
+      assertEquals(3, reader.getDiscardedByteCount());
+      assertEquals(0, reader.getBufferedByteCount());
+    }
+  }
+
+  @Test
+  void unknownFunctionCodeIsDelimitedByCrc() {
+    var reader = ModbusRtuFrameReader.forRequests();
+    var frames = new ArrayList<ModbusRtuFrame>();
+
+    byte[] unknown = withCrc(0x01, 0x41, 0x00, 0x01);
+
+    reader.read(ByteBuffer.wrap(concat(unknown, WRITE_MULTIPLE_REGISTERS_REQUEST)), frames::add);
+
+    assertEquals(2, frames.size());
+    assertFrame(unknown, frames.get(0));
+    assertFrame(WRITE_MULTIPLE_REGISTERS_REQUEST, frames.get(1));
+  }
+
+  @Test
+  void standardFunctionCodesParseInOnePass() {
+    var reader = ModbusRtuFrameReader.forResponses();
+    var frames = new ArrayList<ModbusRtuFrame>();
+
+    byte[][] responses = {
+      withCrc(0x01, 0x07, 0x6D),
+      withCrc(0x01, 0x08, 0x00, 0x00, 0xA5, 0x37),
+      withCrc(0x01, 0x11, 0x03, 0x2A, 0xFF, 0x01),
+      withCrc(0x01, 0x14, 0x04, 0x03, 0x06, 0x0D, 0xFE),
+      withCrc(0x01, 0x18, 0x00, 0x06, 0x00, 0x02, 0x01, 0xB8, 0x12, 0x84),
+      withCrc(
+          0x01, 0x2B, 0x0E, 0x01, 0x01, 0x00, 0x00, 0x02, 0x00, 0x02, 0x41, 0x42, 0x01, 0x01, 0x43)
+    };
+
+    reader.read(ByteBuffer.wrap(concat(responses)), frames::add);
+
+    assertEquals(responses.length, frames.size());
+    for (int i = 0; i < responses.length; i++) {
+      assertFrame(responses[i], frames.get(i));
+    }
+    assertEquals(0, reader.getDiscardedByteCount());
+  }
+
+  @Test
+  void registeredResolversAreConsultedFirst() {
+    var reader =
+        ModbusRtuFrameReader.forResponses(
+            List.of(
+                RtuFrameLengthResolver.fixed(0x41, 6),
+                RtuFrameLengthResolver.byteCount(0x42, 3, 2),
+                // a vendor variant of Read Holding Registers with a trailing status byte
+                (byteAt, available) ->
+                    byteAt.applyAsInt(1) == 0x03 && byteAt.applyAsInt(0) == 0x09
+                        ? 1 + (1 + 1) + byteAt.applyAsInt(2) + 1 + 2
+                        : RtuFrameLengthResolver.UNKNOWN));
+    var frames = new ArrayList<ModbusRtuFrame>();
+
+    byte[] fixed = withCrc(0x01, 0x41, 0x12, 0x34);
+    byte[] byteCount = withCrc(0x01, 0x42, 0x00, 0x00, 0x03, 0x01, 0x02, 0x03);
+    byte[] custom = withCrc(0x09, 0x03, 0x02, 0x00, 0x2A, 0x01);
+
+    // one byte at a time, so each frame is resolved from its first bytes
+    partitions(concat(fixed, byteCount, custom, READ_HOLDING_REGISTERS_RESPONSE), 1)
+        .forEach(data -> reader.read(ByteBuffer.wrap(data), frames::add));
+
+    assertEquals(4, frames.size());
+    assertFrame(fixed, frames.get(0));
+    assertFrame(byteCount, frames.get(1));
+    assertFrame(custom, frames.get(2));
+    assertFrame(READ_HOLDING_REGISTERS_RESPONSE, frames.get(3));
+    assertEquals(0, reader.getDiscardedByteCount());
+  }
+
+  @Test
+  void ringBufferWrapsAround() {
+    var reader = ModbusRtuFrameReader.forResponses();
+    var frames = new ArrayList<ModbusRtuFrame>();
+
+    // 9-byte frames in 4-byte reads leave frames straddling the end of the ring
+    byte[] data = new byte[READ_HOLDING_REGISTERS_RESPONSE.length * 200];
+    for (int i = 0; i < 200; i++) {
+      System.arraycopy(
+          READ_HOLDING_REGISTERS_RESPONSE,
+          0,
+          data,
+          i * READ_HOLDING_REGISTERS_RESPONSE.length,
+          READ_HOLDING_REGISTERS_RESPONSE.length);
+    }
+    partitions(data, 4).forEach(chunk -> reader.read(ByteBuffer.wrap(chunk), frames::add));
+
+    assertEquals(200, frames.size());
+    frames.forEach(frame -> assertFrame(READ_HOLDING_REGISTERS_RESPONSE, frame));
+    assertEquals(0, reader.getDiscardedByteCount());
+  }
+
+  @Test
+  void resolverThatAlwaysNeedsMoreCannotStallTheReader() {
+    var data = new byte[1000];
+    for (int i = 0; i < data.length; i++) {
+      data[i] = (byte) i;
+    }
+
+    assertTimeoutPreemptively(
+        Duration.ofSeconds(5),
+        () -> {
+          for (int chunk : new int[] {1, 7, data.length}) {
+            var reader =
+                ModbusRtuFrameReader.forResponses(
+                    List.of((byteAt, available) -> RtuFrameLengthResolver.NEED_MORE));
+            var frames = new ArrayList<ModbusRtuFrame>();
+
+            partitions(data, chunk).forEach(c -> reader.read(ByteBuffer.wrap(c), frames::add));
+
+            assertEquals(0, frames.size());
+            assertEquals(ModbusRtuFrameReader.MAX_FRAME_LENGTH - 1, reader.getBufferedByteCount());
+            assertEquals(
+                data.length - reader.getBufferedByteCount(), reader.getDiscardedByteCount());
+          }
+        });
+  }
+
+  @Test
+  void flushClosesBufferedBytes() {
+    var reader = ModbusRtuFrameReader.forResponses();
+    var frames = new ArrayList<ModbusRtuFrame>();
+
+    reader.read(ByteBuffer.wrap(new byte[] {0x01, 0x03, 0x04, 0x01, 0x02}), frames::add);
+    assertEquals(0, frames.size());
+
+    ModbusRtuFrame frame = reader.flush();
+    assertEquals(1, frame.unitId());
+    assertEquals(ByteBuffer.wrap(new byte[] {0x03, 0x04}), frame.pdu());
+    assertEquals(ByteBuffer.wrap(new byte[] {0x01, 0x02}), frame.crc());
+
+    assertEquals(0, reader.getBufferedByteCount());
+    assertNull(reader.flush());
+  }
+
+  private static void assertFrame(byte[] expected, ModbusRtuFrame frame) {
+    assertEquals(expected[0] & 0xFF, frame.unitId());
+    assertEquals(ByteBuffer.wrap(expected, 1, expected.length - 3), frame.pdu());
+    assertEquals(ByteBuffer.wrap(expected, expected.length - 2, 2), frame.crc());
+  }
+
+  private static byte[] withCrc(int... data) {
+    var crc16 = new Crc16();
+    var frame = new byte[data.length + 2];
+    for (int i = 0; i < data.length; i++) {
+      crc16.update(data[i]);
+      frame[i] = (byte) data[i];
+    }
+    frame[data.length] = (byte) (crc16.getValue() & 0xFF);
+    frame[data.length + 1] = (byte) ((crc16.getValue() >> 8) & 0xFF);
+    return frame;
+  }
+
+  private static byte[] concat(byte[]... arrays) {
+    var buffer = ByteBuffer.allocate(Arrays.stream(arrays).mapToInt(a -> a.length).sum());
+    for (byte[] a : arrays) {
+      buffer.put(a);
+    }
+    return buffer.array();
+  }
+}
@@ -7,9 +7,11 @@ import static org.junit.jupiter.api.Assertions.fail;
 
 import com.digitalpetri.modbus.ModbusRtuResponseFrameParser.Accumulated;
 import com.digitalpetri.modbus.ModbusRtuResponseFrameParser.Accumulating;
+import com.digitalpetri.modbus.ModbusRtuResponseFrameParser.ParseError;
 import com.digitalpetri.modbus.ModbusRtuResponseFrameParser.ParserState;
 import java.nio.ByteBuffer;
 import java.util.Arrays;
+import java.util.List;
 import java.util.stream.Stream;
 import org.junit.jupiter.api.Test;
 
@@ -50,8 +52,47 @@ class ModbusRtuResponseFrameParserTest {
     parseInvalidLengthResponse(invalidLengthResponse);
   }
 
+  @Test
+  void reportServerId() {
+    parseValidResponse(new byte[] {0x01, 0x11, 0x02, 0x2A, (byte) 0xFF, (byte) 0xCA, (byte) 0xFE});
+  }
+
+  @Test
+  void readDeviceIdentification() {
+    parseValidResponse(
+        new byte[] {
+          0x01,
+          0x2B,
+          0x0E,
+          0x01,
+          0x01,
+          0x00,
+          0x00,
+          0x01,
+          0x00,
+          0x02,
+          0x41,
+          0x42,
+          (byte) 0xCA,
+          (byte) 0xFE
+        });
+  }
+
+  @Test
+  void customFunctionCode() {
+    byte[] response = new byte[] {0x01, 0x41, 0x12, 0x34, (byte) 0xCA, (byte) 0xFE};
+
+    assertInstanceOf(ParseError.class, new ModbusRtuResponseFrameParser().parse(response));
+
+    parseValidResponse(
+        new ModbusRtuResponseFrameParser(List.of(RtuFrameLengthResolver.fixed(0x41, 6))), response);
+  }
+
   private void parseValidResponse(byte[] validResponseData) {
-    var parser = new ModbusRtuResponseFrameParser();
+    parseValidResponse(new ModbusRtuResponseFrameParser(), validResponseData);
+  }
+
+  private void parseValidResponse(ModbusRtuResponseFrameParser parser, byte[] validResponseData) {
 
     for (int i = 1; i <= validResponseData.length; i++) {
       parser.reset();
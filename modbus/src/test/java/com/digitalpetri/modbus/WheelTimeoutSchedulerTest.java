@@ -0,0 +1,172 @@
+package com.digitalpetri.modbus;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.digitalpetri.modbus.TimeoutScheduler.TimeoutHandle;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class WheelTimeoutSchedulerTest {
+
+  private final AtomicInteger batches = new AtomicInteger();
+
+  private final Executor executor =
+      command -> {
+        batches.incrementAndGet();
+        command.run();
+      };
+
+  private final WheelTimeoutScheduler scheduler =
+      new WheelTimeoutScheduler(executor, 1, TimeUnit.MILLISECONDS, 8);
+
+  @AfterEach
+  void stopScheduler() {
+    scheduler.stop();
+  }
+
+  @Test
+  void timeoutsExpireAfterDelay() throws Exception {
+    var latch = new CountDownLatch(1);
+    long start = System.nanoTime();
+
+    TimeoutHandle handle = scheduler.newTimeout(t -> latch.countDown(), 20, TimeUnit.MILLISECONDS);
+
+    assertTrue(latch.await(1, TimeUnit.SECONDS));
+    assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(20));
+    assertFalse(handle.isCancelled());
+  }
+
+  @Test
+  void timeoutsLongerThanOneRevolutionWaitForRemainingRounds() throws Exception {
+    var latch = new CountDownLatch(1);
+    long start = System.nanoTime();
+
+    // 8 buckets of 1ms; 50ms is several revolutions
+    scheduler.newTimeout(t -> latch.countDown(), 50, TimeUnit.MILLISECONDS);
+
+    assertTrue(latch.await(1, TimeUnit.SECONDS));
+    assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+  }
+
+  @Test
+  void cancelledTimeoutsNeverRun() {
+    var clock = new AtomicLong(1_000_000L);
+    var manual =
+        new WheelTimeoutScheduler(executor, TimeUnit.MILLISECONDS.toNanos(1), 8, clock::get, false);
+
+    var ran = new AtomicInteger();
+    var fired = new AtomicInteger();
+
+    // cancelled while still pending, before the first tick
+    var pending = new ArrayList<TimeoutHandle>();
+    for (int i = 0; i < 500; i++) {
+      pending.add(manual.newTimeout(t -> ran.incrementAndGet(), 20, TimeUnit.MILLISECONDS));
+    }
+    pending.forEach(TimeoutHandle::cancel);
+
+    // cancelled after the first tick moved them into their bucket
+    var bucketed = new ArrayList<TimeoutHandle>();
+    for (int i = 0; i < 500; i++) {
+      bucketed.add(manual.newTimeout(t -> ran.incrementAndGet(), 20, TimeUnit.MILLISECONDS));
+    }
+    manual.newTimeout(t -> fired.incrementAndGet(), 25, TimeUnit.MILLISECONDS);
+    advance(manual, clock, 1);
+    bucketed.forEach(TimeoutHandle::cancel);
+
+    advance(manual, clock, 24);
+    assertEquals(0, fired.get());
+
+    advance(manual, clock, 1);
+    assertEquals(1, fired.get());
+    assertEquals(0, ran.get());
+    assertTrue(pending.get(0).isCancelled());
+    assertTrue(bucketed.get(0).isCancelled());
+
+    // a full revolution later nothing cancelled has come back around
+    advance(manual, clock, 16);
+    assertEquals(0, ran.get());
+    assertEquals(1, batches.get());
+  }
+
+  @Test
+  void expiredTimeoutsAreDispatchedInBatches() throws Exception {
+    var latch = new CountDownLatch(100);
+
+    var handles = new ArrayList<TimeoutHandle>();
+    for (int i = 0; i < 100; i++) {
+      handles.add(scheduler.newTimeout(t -> latch.countDown(), 5, TimeUnit.MILLISECONDS));
+    }
+
+    assertTrue(latch.await(1, TimeUnit.SECONDS));
+    assertTrue(batches.get() < 100, () -> "batches: " + batches.get());
+
+    // cancelling after expiry has no effect
+    handles.get(0).cancel();
+    assertFalse(handles.get(0).isCancelled());
+  }
+
+  @Test
+  void taskExceptionsDoNotStopTheBatch() {
+    var clock = new AtomicLong(1_000_000L);
+    var manual =
+        new WheelTimeoutScheduler(executor, TimeUnit.MILLISECONDS.toNanos(1), 8, clock::get, false);
+    var order = new ArrayList<Integer>();
+
+    manual.newTimeout(
+        t -> {
+          throw new RuntimeException("boom");
+        },
+        0,
+        TimeUnit.MILLISECONDS);
+    manual.newTimeout(t -> order.add(1), 0, TimeUnit.MILLISECONDS);
+
+    var log = new ByteArrayOutputStream();
+    PrintStream err = System.err;
+    System.setErr(new PrintStream(log, true, StandardCharsets.UTF_8));
+    try {
+      advance(manual, clock, 1);
+    } finally {
+      System.setErr(err);
+    }
+
+    assertEquals(List.of(1), order);
+    assertEquals(1, batches.get());
+
+    String logged = log.toString(StandardCharsets.UTF_8);
+    assertTrue(logged.contains("Timeout task threw an exception"), logged);
+    assertTrue(logged.contains("boom"), logged);
+  }
+
+  @Test
+  void advanceTickRequiresManualScheduler() {
+    assertThrows(IllegalStateException.class, scheduler::advanceTick);
+  }
+
+  @Test
+  void newTimeoutFailsOnceStopped() {
+    scheduler.stop();
+
+    assertThrows(
+        IllegalStateException.class, () -> scheduler.newTimeout(t -> {}, 1, TimeUnit.MILLISECONDS));
+  }
+
+  private static void advance(WheelTimeoutScheduler scheduler, AtomicLong clock, int ticks) {
+    for (int i = 0; i < ticks; i++) {
+      clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+      scheduler.advanceTick();
+    }
+  }
+}
@@ -0,0 +1,74 @@
+package com.digitalpetri.modbus.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+class AdaptiveTimeoutPolicyTest {
+
+  private final AdaptiveTimeoutPolicy policy =
+      AdaptiveTimeoutPolicy.create(
+          cfg -> {
+            cfg.setInitialTimeout(Duration.ofSeconds(1));
+            cfg.setMinTimeout(Duration.ofMillis(20));
+            cfg.setMaxTimeout(Duration.ofSeconds(2));
+          });
+
+  @Test
+  void initialTimeoutIsUsedUntilFirstResponse() {
+    assertEquals(Duration.ofSeconds(1), policy.getTimeout(1, 0x03));
+  }
+
+  @Test
+  void timeoutFollowsRoundTripTimes() {
+    // first sample: srtt = 100ms, rttvar = 50ms, timeout = 100 + 4 * 50
+    policy.onResponse(1, 0x03, Duration.ofMillis(100));
+    assertEquals(Duration.ofMillis(300), policy.getTimeout(1, 0x03));
+
+    for (int i = 0; i < 50; i++) {
+      policy.onResponse(1, 0x03, Duration.ofMillis(100));
+    }
+    Duration timeout = policy.getTimeout(1, 0x03);
+    assertTrue(timeout.compareTo(Duration.ofMillis(100)) >= 0, timeout::toString);
+    assertTrue(timeout.compareTo(Duration.ofMillis(110)) < 0, timeout::toString);
+
+    // other unit ids and function codes are estimated separately
+    assertEquals(Duration.ofSeconds(1), policy.getTimeout(2, 0x03));
+    assertEquals(Duration.ofSeconds(1), policy.getTimeout(1, 0x04));
+  }
+
+  @Test
+  void timeoutIsKeptBetweenFloorAndCeiling() {
+    policy.onResponse(1, 0x03, Duration.ofMillis(1));
+    assertEquals(Duration.ofMillis(20), policy.getTimeout(1, 0x03));
+
+    policy.onResponse(2, 0x03, Duration.ofSeconds(5));
+    assertEquals(Duration.ofSeconds(2), policy.getTimeout(2, 0x03));
+  }
+
+  @Test
+  void timeoutsBackOffUntilNextResponse() {
+    policy.onResponse(1, 0x03, Duration.ofMillis(100));
+    policy.onTimeout(1, 0x03);
+    assertEquals(Duration.ofMillis(600), policy.getTimeout(1, 0x03));
+    policy.onTimeout(1, 0x03);
+    policy.onTimeout(1, 0x03);
+    assertEquals(Duration.ofSeconds(2), policy.getTimeout(1, 0x03));
+
+    policy.onResponse(1, 0x03, Duration.ofMillis(100));
+    assertTrue(policy.getTimeout(1, 0x03).compareTo(Duration.ofMillis(300)) <= 0);
+  }
+
+  @Test
+  void invalidBoundsAreRejected() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> AdaptiveTimeoutPolicy.create(cfg -> cfg.setMinTimeout(Duration.ZERO)));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> AdaptiveTimeoutPolicy.create(cfg -> cfg.setMaxTimeout(Duration.ofSeconds(1))));
+  }
+}
@@ -0,0 +1,153 @@
+package com.digitalpetri.modbus.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.digitalpetri.modbus.client.CircuitBreakerModbusClient.CircuitMetrics;
+import com.digitalpetri.modbus.client.CircuitBreakerModbusClient.CircuitState;
+import com.digitalpetri.modbus.exceptions.CircuitOpenException;
+import com.digitalpetri.modbus.exceptions.ModbusResponseException;
+import com.digitalpetri.modbus.pdu.ModbusResponsePdu;
+import com.digitalpetri.modbus.pdu.ReadHoldingRegistersRequest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import org.junit.jupiter.api.Test;
+
+class CircuitBreakerModbusClientTest {
+
+  private static final ReadHoldingRegistersRequest REQUEST = new ReadHoldingRegistersRequest(0, 1);
+
+  @Test
+  void consecutiveTimeoutsOpenCircuit() {
+    var device = new TestClient();
+    device.failure = new TimeoutException();
+    var client = CircuitBreakerModbusClient.create(device, cfg -> cfg.setFailureThreshold(3));
+
+    for (int i = 0; i < 3; i++) {
+      Throwable cause = failure(client.sendAsync(1, REQUEST));
+      assertInstanceOf(TimeoutException.class, cause);
+    }
+
+    CircuitOpenException cause =
+        assertInstanceOf(CircuitOpenException.class, failure(client.sendAsync(1, REQUEST)));
+    assertEquals(1, cause.getUnitId());
+    assertEquals(3, device.unitIds().size());
+
+    assertEquals(new CircuitMetrics(CircuitState.OPEN, 3, 1, 1), client.getCircuitMetrics(1));
+
+    // other unit ids are unaffected
+    device.failure = null;
+    assertTrue(client.sendAsync(2, REQUEST).toCompletableFuture().isDone());
+    assertEquals(CircuitState.CLOSED, client.getCircuitState(2));
+  }
+
+  @Test
+  void onlyGatewayExceptionResponsesCountAsFailures() {
+    var device = new TestClient();
+    var client = CircuitBreakerModbusClient.create(device, cfg -> cfg.setFailureThreshold(2));
+
+    device.failure = new ModbusResponseException(0x03, 0x0B);
+    failure(client.sendAsync(1, REQUEST));
+    assertEquals(1, client.getCircuitMetrics(1).consecutiveFailures());
+
+    // an illegal data address response shows the device is there
+    device.failure = new ModbusResponseException(0x03, 0x02);
+    failure(client.sendAsync(1, REQUEST));
+    assertEquals(0, client.getCircuitMetrics(1).consecutiveFailures());
+
+    // errors that aren't about the device are ignored
+    device.failure = new Exception("not connected");
+    failure(client.sendAsync(1, REQUEST));
+    failure(client.sendAsync(1, REQUEST));
+    assertEquals(CircuitState.CLOSED, client.getCircuitState(1));
+
+    device.failure = new ModbusResponseException(0x03, 0x0A);
+    failure(client.sendAsync(1, REQUEST));
+    failure(client.sendAsync(1, REQUEST));
+    assertEquals(CircuitState.OPEN, client.getCircuitState(1));
+  }
+
+  @Test
+  void probeClosesOrReopensCircuit() throws Exception {
+    var device = new TestClient();
+    device.failure = new TimeoutException();
+    var client =
+        CircuitBreakerModbusClient.create(
+            device,
+            cfg -> {
+              cfg.setFailureThreshold(1);
+              cfg.setOpenDuration(Duration.ofMillis(20));
+            });
+
+    var transitions = new ArrayList<String>();
+    client.addCircuitListener(
+        (unitId, from, to) -> transitions.add("%d: %s -> %s".formatted(unitId, from, to)));
+
+    failure(client.sendAsync(1, REQUEST));
+    Thread.sleep(40);
+
+    // failed probe
+    assertInstanceOf(TimeoutException.class, failure(client.sendAsync(1, REQUEST)));
+    assertInstanceOf(CircuitOpenException.class, failure(client.sendAsync(1, REQUEST)));
+    Thread.sleep(40);
+
+    // successful probe; requests are rejected while it is outstanding
+    device.failure = null;
+    device.blocking = true;
+    CompletionStage<ModbusResponsePdu> probe = client.sendAsync(1, REQUEST);
+    assertEquals(CircuitState.HALF_OPEN, client.getCircuitState(1));
+    assertInstanceOf(CircuitOpenException.class, failure(client.sendAsync(1, REQUEST)));
+
+    device.release();
+    probe.toCompletableFuture().get();
+    assertEquals(CircuitState.CLOSED, client.getCircuitState(1));
+
+    assertEquals(
+        List.of(
+            "1: CLOSED -> OPEN",
+            "1: OPEN -> HALF_OPEN",
+            "1: HALF_OPEN -> OPEN",
+            "1: OPEN -> HALF_OPEN",
+            "1: HALF_OPEN -> CLOSED"),
+        transitions);
+    assertEquals(2, client.getCircuitMetrics(1).timesOpened());
+  }
+
+  @Test
+  void stragglerSuccessDoesNotCloseOpenCircuit() throws Exception {
+    var device = new TestClient();
+    var client =
+        CircuitBreakerModbusClient.create(
+            device,
+            cfg -> {
+              cfg.setFailureThreshold(1);
+              cfg.setOpenDuration(Duration.ofMinutes(1));
+            });
+
+    // sent while the circuit was still closed, answered after it opened
+    device.blocking = true;
+    CompletionStage<ModbusResponsePdu> straggler = client.sendAsync(1, REQUEST);
+
+    device.failure = new TimeoutException();
+    failure(client.sendAsync(1, REQUEST));
+    assertEquals(CircuitState.OPEN, client.getCircuitState(1));
+
+    device.failure = null;
+    device.release();
+    straggler.toCompletableFuture().get();
+
+    assertEquals(new CircuitMetrics(CircuitState.OPEN, 1, 1, 0), client.getCircuitMetrics(1));
+  }
+
+  private static Throwable failure(CompletionStage<?> cs) {
+    ExecutionException ex =
+        assertThrows(ExecutionException.class, () -> cs.toCompletableFuture().get());
+    return ex.getCause();
+  }
+}
@@ -0,0 +1,130 @@
+package com.digitalpetri.modbus.client;
+
+import static com.digitalpetri.modbus.client.TestClient.coils;
+import static com.digitalpetri.modbus.client.TestClient.registers;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.digitalpetri.modbus.client.TestClient.Sent;
+import com.digitalpetri.modbus.exceptions.ModbusResponseException;
+import com.digitalpetri.modbus.pdu.ModbusResponsePdu;
+import com.digitalpetri.modbus.pdu.ReadCoilsRequest;
+import com.digitalpetri.modbus.pdu.ReadHoldingRegistersRequest;
+import com.digitalpetri.modbus.pdu.ReadInputRegistersRequest;
+import com.digitalpetri.modbus.pdu.WriteSingleRegisterRequest;
+import com.digitalpetri.modbus.pdu.WriteSingleRegisterResponse;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class CoalescingModbusClientTest {
+
+  @Test
+  void overlappingAndAdjacentReadsAreMerged() throws Exception {
+    var device = new TestClient();
+    var client = CoalescingModbusClient.create(device, cfg -> cfg.setWindow(Duration.ofMillis(50)));
+
+    var a = client.readHoldingRegistersAsync(1, new ReadHoldingRegistersRequest(10, 5));
+    var b = client.readHoldingRegistersAsync(1, new ReadHoldingRegistersRequest(12, 10));
+    var c = client.readHoldingRegistersAsync(1, new ReadHoldingRegistersRequest(22, 3));
+
+    assertArrayEquals(registers(10, 5), get(a).registers());
+    assertArrayEquals(registers(12, 10), get(b).registers());
+    assertArrayEquals(registers(22, 3), get(c).registers());
+
+    assertEquals(List.of(new Sent(1, new ReadHoldingRegistersRequest(10, 15))), device.sent);
+    assertEquals(3, client.getReadsReceived());
+    assertEquals(1, client.getReadsSent());
+  }
+
+  @Test
+  void readsAreOnlyMergedWithinLimitsAndGap() throws Exception {
+    var device = new TestClient();
+    var client =
+        CoalescingModbusClient.create(
+            device,
+            cfg -> {
+              cfg.setWindow(Duration.ofMillis(50));
+              cfg.setMaxGap(2);
+            });
+
+    var reads =
+        List.of(
+            client.sendAsync(1, new ReadHoldingRegistersRequest(0, 100)),
+            client.sendAsync(1, new ReadHoldingRegistersRequest(102, 20)),
+            client.sendAsync(1, new ReadHoldingRegistersRequest(125, 10)),
+            client.sendAsync(1, new ReadHoldingRegistersRequest(138, 1)),
+            client.sendAsync(2, new ReadHoldingRegistersRequest(0, 1)),
+            client.sendAsync(1, new ReadInputRegistersRequest(0, 1)));
+
+    for (CompletionStage<ModbusResponsePdu> read : reads) {
+      get(read);
+    }
+
+    // [0, 122) bridges a 2 register gap within the 125 register limit; 125 and 138 are each 3
+    // registers past the end of the block before them
+    assertEquals(
+        Set.of(
+            new Sent(1, new ReadHoldingRegistersRequest(0, 122)),
+            new Sent(1, new ReadHoldingRegistersRequest(125, 10)),
+            new Sent(1, new ReadHoldingRegistersRequest(138, 1)),
+            new Sent(2, new ReadHoldingRegistersRequest(0, 1)),
+            new Sent(1, new ReadInputRegistersRequest(0, 1))),
+        new HashSet<>(device.sent));
+    assertEquals(5, device.sent.size());
+  }
+
+  @Test
+  void coilReadsAreSlicedByBit() throws Exception {
+    var device = new TestClient();
+    var client = CoalescingModbusClient.create(device, cfg -> cfg.setWindow(Duration.ofMillis(50)));
+
+    var a = client.readCoilsAsync(1, new ReadCoilsRequest(3, 10));
+    var b = client.readCoilsAsync(1, new ReadCoilsRequest(13, 9));
+
+    assertArrayEquals(coils(3, 10), get(a).coils());
+    assertArrayEquals(coils(13, 9), get(b).coils());
+    assertEquals(List.of(new Sent(1, new ReadCoilsRequest(3, 19))), device.sent);
+  }
+
+  @Test
+  void exceptionResponseRetriesReadsIndividually() throws Exception {
+    var device = new TestClient();
+    device.illegalAddress = 20;
+    var client = CoalescingModbusClient.create(device, cfg -> cfg.setWindow(Duration.ofMillis(50)));
+
+    var a = client.readHoldingRegistersAsync(1, new ReadHoldingRegistersRequest(10, 5));
+    var b = client.readHoldingRegistersAsync(1, new ReadHoldingRegistersRequest(15, 10));
+
+    assertArrayEquals(registers(10, 5), get(a).registers());
+    ExecutionException ex =
+        assertThrows(
+            ExecutionException.class, () -> b.toCompletableFuture().get(1, TimeUnit.SECONDS));
+    assertInstanceOf(ModbusResponseException.class, ex.getCause());
+
+    assertEquals(3, device.sent.size());
+    assertEquals(3, client.getReadsSent());
+  }
+
+  @Test
+  void otherRequestsAreNotDelayed() throws Exception {
+    var device = new TestClient();
+    var client = CoalescingModbusClient.create(device, cfg -> cfg.setWindow(Duration.ofHours(1)));
+
+    CompletionStage<WriteSingleRegisterResponse> cs =
+        client.writeSingleRegisterAsync(1, new WriteSingleRegisterRequest(1, 2));
+
+    assertEquals(new WriteSingleRegisterResponse(1, 2), cs.toCompletableFuture().getNow(null));
+  }
+
+  private static <T> T get(CompletionStage<T> cs) throws Exception {
+    return cs.toCompletableFuture().get(1, TimeUnit.SECONDS);
+  }
+}
@@ -1,15 +1,27 @@
 package com.digitalpetri.modbus.client;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import com.digitalpetri.modbus.BufferPool.HeapBufferPool;
 import com.digitalpetri.modbus.ModbusRtuFrame;
 import com.digitalpetri.modbus.exceptions.ModbusExecutionException;
 import com.digitalpetri.modbus.exceptions.ModbusTimeoutException;
+import com.digitalpetri.modbus.pdu.ModbusResponsePdu;
 import com.digitalpetri.modbus.pdu.ReadHoldingRegistersRequest;
+import com.digitalpetri.modbus.pdu.ReadHoldingRegistersResponse;
+import com.digitalpetri.modbus.pdu.WriteSingleRegisterRequest;
+import java.nio.ByteBuffer;
 import java.time.Duration;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import org.junit.jupiter.api.Test;
 
@@ -30,6 +42,239 @@ public class ModbusRtuClientTest {
     assertEquals(0, client.timeouts.size());
   }
 
+  @Test
+  void requestsAreSentSequentially() throws Exception {
+    var transport = new BusRtuTransport(Duration.ZERO);
+    var client = ModbusRtuClient.create(transport);
+
+    List<CompletionStage<ModbusResponsePdu>> responses =
+        List.of(
+            client.sendAsync(1, new ReadHoldingRegistersRequest(0, 1)),
+            client.sendAsync(2, new ReadHoldingRegistersRequest(0, 1)),
+            client.sendAsync(3, new ReadHoldingRegistersRequest(0, 1)));
+
+    assertEquals(List.of(1), transport.sentUnitIds());
+    assertEquals(2, client.getQueuedRequestCount());
+
+    transport.respond(client, 1);
+    assertEquals(List.of(1, 2), transport.sentUnitIds());
+
+    transport.respond(client, 2);
+    transport.respond(client, 3);
+    assertEquals(List.of(1, 2, 3), transport.sentUnitIds());
+    assertEquals(0, client.getQueuedRequestCount());
+
+    for (CompletionStage<ModbusResponsePdu> response : responses) {
+      assertEquals(
+          new ReadHoldingRegistersResponse(new byte[] {0x00, 0x2A}),
+          response.toCompletableFuture().get(1, TimeUnit.SECONDS));
+    }
+  }
+
+  @Test
+  void functionCodeMismatchLeavesTheNextRequestOutstanding() throws Exception {
+    var transport = new BusRtuTransport(Duration.ZERO);
+    var client = ModbusRtuClient.create(transport);
+
+    CompletionStage<ModbusResponsePdu> first =
+        client.sendAsync(1, new ReadHoldingRegistersRequest(0, 1));
+    CompletionStage<ModbusResponsePdu> second =
+        client.sendAsync(2, new ReadHoldingRegistersRequest(0, 1));
+
+    // a stray Write Single Register response arrives for the first request
+    transport.respond(client, 1, new byte[] {0x06, 0x00, 0x00, 0x00, 0x2A});
+
+    assertTrue(first.toCompletableFuture().isCompletedExceptionally());
+    assertEquals(List.of(1, 2), transport.sentUnitIds());
+    assertFalse(second.toCompletableFuture().isDone());
+
+    transport.respond(client, 2);
+    assertEquals(
+        new ReadHoldingRegistersResponse(new byte[] {0x00, 0x2A}),
+        second.toCompletableFuture().get(1, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void failingTimeoutSchedulerDoesNotStrandTheBus() {
+    var pool = new HeapBufferPool();
+    var transport = new BusRtuTransport(Duration.ZERO);
+    var client =
+        ModbusRtuClient.create(
+            transport,
+            cfg ->
+                cfg.setBufferPool(pool)
+                    .setTimeoutScheduler(
+                        (task, delay, unit) -> {
+                          throw new IllegalStateException("scheduler stopped");
+                        }));
+
+    List<CompletionStage<ModbusResponsePdu>> responses =
+        List.of(
+            client.sendAsync(1, new ReadHoldingRegistersRequest(0, 1)),
+            client.sendAsync(2, new ReadHoldingRegistersRequest(0, 1)));
+
+    for (CompletionStage<ModbusResponsePdu> response : responses) {
+      ExecutionException ex =
+          assertThrows(ExecutionException.class, () -> response.toCompletableFuture().get());
+      assertInstanceOf(IllegalStateException.class, ex.getCause());
+    }
+
+    assertEquals(List.of(), transport.sentUnitIds());
+    assertEquals(0, client.getQueuedRequestCount());
+    assertEquals(1, pool.getAllocationCounts().get(256).get());
+  }
+
+  @Test
+  void interFrameDelayIsHonored() throws Exception {
+    var transport = new BusRtuTransport(Duration.ofMillis(50));
+    var client = ModbusRtuClient.create(transport);
+
+    client.sendAsync(1, new ReadHoldingRegistersRequest(0, 1));
+    var second = client.sendAsync(2, new ReadHoldingRegistersRequest(0, 1));
+
+    long respondedNanos = System.nanoTime();
+    transport.respond(client, 1);
+
+    transport.awaitSent(2);
+    assertTrue(transport.sent.get(1).sentNanos - respondedNanos >= 50_000_000L);
+
+    transport.respond(client, 2);
+    second.toCompletableFuture().get(1, TimeUnit.SECONDS);
+  }
+
+  @Test
+  void broadcastTurnaroundDelayIsHonored() throws Exception {
+    var transport = new BusRtuTransport(Duration.ZERO);
+    var client =
+        ModbusRtuClient.create(
+            transport, cfg -> cfg.setBroadcastTurnaroundDelay(Duration.ofMillis(100)));
+
+    client.broadcastAsync(new WriteSingleRegisterRequest(0, 1)).toCompletableFuture().get();
+    client.sendAsync(1, new ReadHoldingRegistersRequest(0, 1));
+
+    transport.awaitSent(2);
+    assertEquals(List.of(0, 1), transport.sentUnitIds());
+    assertTrue(transport.sent.get(1).sentNanos - transport.sent.get(0).sentNanos >= 100_000_000L);
+  }
+
+  @Test
+  void queuedRequestsAreSentInPriorityOrder() throws Exception {
+    var transport = new BusRtuTransport(Duration.ZERO);
+    var client = ModbusRtuClient.create(transport);
+
+    var request = new ReadHoldingRegistersRequest(0, 1);
+    client.sendAsync(1, request, RequestPriority.BULK);
+    client.sendAsync(2, request, RequestPriority.BULK);
+    client.sendAsync(3, request, RequestPriority.INTERACTIVE);
+    client.sendAsync(4, request, RequestPriority.CONTROL);
+
+    transport.respond(client, 1);
+    transport.respond(client, 4);
+    transport.respond(client, 3);
+    transport.respond(client, 2);
+
+    assertEquals(List.of(1, 4, 3, 2), transport.sentUnitIds());
+  }
+
+  @Test
+  void cancelledRequestHoldsTheBusUntilResponse() throws Exception {
+    var transport = new BusRtuTransport(Duration.ZERO);
+    var client = ModbusRtuClient.create(transport);
+
+    var request = new ReadHoldingRegistersRequest(0, 1);
+    var first = client.sendAsync(1, request);
+    var second = client.sendAsync(2, request);
+    var third = client.sendAsync(3, request);
+
+    first.toCompletableFuture().cancel(false);
+    third.toCompletableFuture().cancel(false);
+    assertEquals(List.of(1), transport.sentUnitIds());
+
+    // the late response to the cancelled request ends its transaction
+    transport.respond(client, 1);
+    assertEquals(List.of(1, 2), transport.sentUnitIds());
+
+    // the request cancelled while queued never reaches the bus
+    transport.respond(client, 2);
+    assertEquals(List.of(1, 2), transport.sentUnitIds());
+    assertEquals(0, client.getQueuedRequestCount());
+
+    second.toCompletableFuture().get(1, TimeUnit.SECONDS);
+  }
+
+  @Test
+  void cancelledRequestHoldsTheBusUntilTimeout() throws Exception {
+    var transport = new BusRtuTransport(Duration.ZERO);
+    var client =
+        ModbusRtuClient.create(transport, cfg -> cfg.requestTimeout = Duration.ofMillis(100));
+
+    var request = new ReadHoldingRegistersRequest(0, 1);
+    client.sendAsync(1, request).toCompletableFuture().cancel(false);
+    var second = client.sendAsync(2, request);
+
+    transport.awaitSent(2);
+    assertEquals(List.of(1, 2), transport.sentUnitIds());
+    assertTrue(transport.sent.get(1).sentNanos - transport.sent.get(0).sentNanos >= 100_000_000L);
+
+    transport.respond(client, 2);
+    second.toCompletableFuture().get(1, TimeUnit.SECONDS);
+  }
+
+  private record Sent(int unitId, long sentNanos) {}
+
+  /** Records the frames sent and lets the test play the device. */
+  private static class BusRtuTransport extends TimeoutRtuTransport {
+
+    final List<Sent> sent = new CopyOnWriteArrayList<>();
+
+    private final Duration interFrameDelay;
+    private Consumer<ModbusRtuFrame> frameReceiver;
+
+    BusRtuTransport(Duration interFrameDelay) {
+      this.interFrameDelay = interFrameDelay;
+    }
+
+    @Override
+    public Duration getInterFrameDelay() {
+      return interFrameDelay;
+    }
+
+    @Override
+    public CompletionStage<Void> send(ModbusRtuFrame frame) {
+      sent.add(new Sent(frame.unitId(), System.nanoTime()));
+      return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public void receive(Consumer<ModbusRtuFrame> frameReceiver) {
+      this.frameReceiver = frameReceiver;
+    }
+
+    List<Integer> sentUnitIds() {
+      return sent.stream().map(Sent::unitId).toList();
+    }
+
+    void awaitSent(int count) throws InterruptedException {
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+      while (sent.size() < count && System.nanoTime() < deadline) {
+        Thread.sleep(1);
+      }
+      assertEquals(count, sent.size());
+    }
+
+    /** Respond to a Read Holding Registers request for {@code unitId} with one register. */
+    void respond(ModbusRtuClient client, int unitId) {
+      respond(client, unitId, new byte[] {0x03, 0x02, 0x00, 0x2A});
+    }
+
+    void respond(ModbusRtuClient client, int unitId, byte[] response) {
+      ByteBuffer pdu = ByteBuffer.wrap(response);
+      ByteBuffer crc = client.calculateCrc16(unitId, pdu);
+
+      frameReceiver.accept(new ModbusRtuFrame(unitId, pdu, crc));
+    }
+  }
+
   private static class TimeoutRtuTransport implements ModbusRtuClientTransport {
     boolean connected = false;
 
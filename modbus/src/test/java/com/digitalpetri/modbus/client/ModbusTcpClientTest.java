@@ -2,19 +2,32 @@ package com.digitalpetri.modbus.client;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import com.digitalpetri.modbus.BufferPool.HeapBufferPool;
 import com.digitalpetri.modbus.MbapHeader;
 import com.digitalpetri.modbus.ModbusTcpFrame;
+import com.digitalpetri.modbus.WheelTimeoutScheduler;
+import com.digitalpetri.modbus.client.ModbusClient.BatchResponse;
+import com.digitalpetri.modbus.client.ModbusClient.UnitRequest;
 import com.digitalpetri.modbus.exceptions.ModbusException;
 import com.digitalpetri.modbus.exceptions.ModbusResponseException;
+import com.digitalpetri.modbus.pdu.ModbusResponsePdu;
 import com.digitalpetri.modbus.pdu.ReadHoldingRegistersRequest;
+import com.digitalpetri.modbus.pdu.ReadHoldingRegistersResponse;
 import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
 import java.util.function.Consumer;
 import org.junit.jupiter.api.Test;
 
@@ -158,11 +171,413 @@ public class ModbusTcpClientTest {
     assertEquals("unexpected function code: 0x22", cause.getMessage());
   }
 
+  @Test
+  void maxInFlightQueuesRequests() throws Exception {
+    var transport = new TestTransport();
+    var client = ModbusTcpClient.create(transport, cfg -> cfg.setMaxInFlight(2));
+
+    var responses = new ArrayList<CompletableFuture<byte[]>>();
+    for (int i = 0; i < 4; i++) {
+      responses.add(client.sendRawAsync(1, new byte[] {0x03, (byte) i}).toCompletableFuture());
+    }
+
+    assertEquals(2, transport.framesSent.size());
+    assertEquals(2, client.getInFlightRequestCount());
+    assertEquals(2, client.getQueuedRequestCount());
+
+    respond(transport, transport.framesSent.get(0));
+
+    assertArrayEquals(new byte[] {0x03, 0x00}, responses.get(0).get());
+    assertEquals(3, transport.framesSent.size());
+    assertEquals(1, client.getQueuedRequestCount());
+
+    // queued requests are sent in order
+    assertEquals(2, transport.framesSent.get(2).pdu().get(1));
+
+    for (int i = 1; i < 4; i++) {
+      respond(transport, transport.framesSent.get(i));
+    }
+
+    for (int i = 0; i < 4; i++) {
+      assertArrayEquals(new byte[] {0x03, (byte) i}, responses.get(i).get());
+    }
+    assertEquals(0, client.getInFlightRequestCount());
+    assertEquals(0, client.getQueuedRequestCount());
+  }
+
+  @Test
+  void unitConcurrencyLimitsQueueRequestsPerUnitId() throws Exception {
+    var limits =
+        UnitConcurrencyLimits.create(
+            b -> {
+              b.setDefaultLimit(1);
+              b.setLimit(10, 19, 2);
+              b.setLimit(15, 0);
+            });
+    assertEquals(1, limits.getLimit(1));
+    assertEquals(2, limits.getLimit(10));
+    assertEquals(0, limits.getLimit(15));
+
+    var transport = new TestTransport();
+    var client = ModbusTcpClient.create(transport, cfg -> cfg.setUnitConcurrencyLimits(limits));
+
+    for (int unitId : new int[] {1, 1, 10, 10, 10, 2}) {
+      client.sendRawAsync(unitId, new byte[] {0x03});
+    }
+
+    assertEquals(List.of(1, 10, 10, 2), sentUnitIds(transport));
+    assertEquals(2, client.getQueuedRequestCount());
+
+    respond(transport, transport.framesSent.get(1));
+    assertEquals(List.of(1, 10, 10, 2, 10), sentUnitIds(transport));
+
+    respond(transport, transport.framesSent.get(0));
+    assertEquals(List.of(1, 10, 10, 2, 10, 1), sentUnitIds(transport));
+    assertEquals(0, client.getQueuedRequestCount());
+  }
+
+  @Test
+  void queuedUnitIdsTakeTurns() throws Exception {
+    var transport = new TestTransport();
+    var client = ModbusTcpClient.create(transport, cfg -> cfg.setMaxInFlight(1));
+
+    for (int unitId : new int[] {1, 1, 1, 1, 2, 2}) {
+      client.sendRawAsync(unitId, new byte[] {0x03});
+    }
+
+    for (int i = 0; i < 5; i++) {
+      respond(transport, transport.framesSent.get(i));
+    }
+
+    assertEquals(List.of(1, 1, 2, 1, 2, 1), sentUnitIds(transport));
+  }
+
+  @Test
+  void queuedRequestsAreSentInPriorityOrder() {
+    var transport = new TestTransport();
+    var client = ModbusTcpClient.create(transport, cfg -> cfg.setMaxInFlight(1));
+
+    client.sendAsync(1, new ReadHoldingRegistersRequest(0, 1), RequestPriority.BULK);
+    client.sendAsync(1, new ReadHoldingRegistersRequest(1, 1), RequestPriority.BULK);
+    client.sendAsync(1, new ReadHoldingRegistersRequest(2, 1), RequestPriority.BULK);
+    client.sendAsync(1, new ReadHoldingRegistersRequest(3, 1));
+    client.sendAsync(1, new ReadHoldingRegistersRequest(4, 1), RequestPriority.CONTROL);
+
+    for (int i = 0; i < 4; i++) {
+      respond(transport, transport.framesSent.get(i));
+    }
+
+    assertEquals(List.of(0, 4, 3, 1, 2), sentAddresses(transport));
+  }
+
+  @Test
+  void lowPriorityRequestsAreNotStarved() {
+    var transport = new TestTransport();
+    var client = ModbusTcpClient.create(transport, cfg -> cfg.setMaxInFlight(1));
+
+    client.sendAsync(1, new ReadHoldingRegistersRequest(0, 1), RequestPriority.CONTROL);
+    client.sendAsync(1, new ReadHoldingRegistersRequest(100, 1), RequestPriority.BULK);
+    for (int i = 1; i <= 20; i++) {
+      client.sendAsync(1, new ReadHoldingRegistersRequest(i, 1), RequestPriority.CONTROL);
+    }
+
+    for (int i = 0; i < 10; i++) {
+      respond(transport, transport.framesSent.get(i));
+    }
+
+    // the bulk request goes after being passed over the maximum number of times
+    assertEquals(100, sentAddresses(transport).get(1 + RequestWindow.MAX_PASSED_OVER));
+  }
+
+  private static List<Integer> sentAddresses(TestTransport transport) {
+    return transport.framesSent.stream()
+        .map(f -> f.pdu().getShort(f.pdu().position() + 1) & 0xFFFF)
+        .toList();
+  }
+
+  private static List<Integer> sentUnitIds(TestTransport transport) {
+    return transport.framesSent.stream().map(f -> f.header().unitId()).toList();
+  }
+
+  @Test
+  void queueFullRejectsRequest() {
+    var transport = new TestTransport();
+    var client =
+        ModbusTcpClient.create(
+            transport,
+            cfg -> {
+              cfg.setMaxInFlight(1);
+              cfg.setMaxQueuedRequests(1);
+            });
+
+    client.sendRawAsync(1, new byte[] {0x03});
+    client.sendRawAsync(1, new byte[] {0x03});
+    CompletionStage<byte[]> cs = client.sendRawAsync(1, new byte[] {0x03});
+
+    ExecutionException ex =
+        assertThrows(ExecutionException.class, () -> cs.toCompletableFuture().get());
+    assertEquals("request queue full", ex.getCause().getMessage());
+    assertEquals(1, transport.framesSent.size());
+    assertEquals(1, client.getQueuedRequestCount());
+  }
+
+  @Test
+  void queueFullBlocksCaller() throws Exception {
+    var transport = new TestTransport();
+    var client =
+        ModbusTcpClient.create(
+            transport,
+            cfg -> {
+              cfg.setMaxInFlight(1);
+              cfg.setMaxQueuedRequests(0);
+              cfg.setQueueFullPolicy(QueueFullPolicy.BLOCK);
+            });
+
+    client.sendRawAsync(1, new byte[] {0x03});
+
+    var second = new CompletableFuture<CompletionStage<byte[]>>();
+    var thread = new Thread(() -> second.complete(client.sendRawAsync(1, new byte[] {0x04})));
+    thread.start();
+
+    thread.join(100);
+    assertFalse(second.isDone());
+    assertEquals(1, transport.framesSent.size());
+
+    respond(transport, transport.framesSent.get(0));
+
+    thread.join(1000);
+    assertTrue(second.isDone());
+    assertEquals(2, transport.framesSent.size());
+    assertEquals(1, client.getInFlightRequestCount());
+  }
+
+  @Test
+  void queuedRequestsFailWithoutRecursingWhenSendsFailSynchronously() throws Exception {
+    var transport = new TestTransport();
+    var client = ModbusTcpClient.create(transport, cfg -> cfg.setMaxInFlight(1));
+
+    client.sendRawAsync(1, new byte[] {0x03});
+
+    var queued = new ArrayList<CompletableFuture<byte[]>>();
+    for (int i = 0; i < 10_000; i++) {
+      queued.add(client.sendRawAsync(1, new byte[] {0x03}).toCompletableFuture());
+    }
+
+    transport.failSends = true;
+    respond(transport, transport.framesSent.get(0));
+
+    for (CompletableFuture<byte[]> f : queued) {
+      assertTrue(f.isCompletedExceptionally());
+    }
+    assertEquals(0, client.getInFlightRequestCount());
+    assertEquals(0, client.getQueuedRequestCount());
+  }
+
+  @Test
+  void occupiedTransactionIdsAreSkipped() throws Exception {
+    var transport = new TestTransport();
+    var client = new SmallSequenceClient(transport);
+
+    CompletableFuture<byte[]> first =
+        client.sendRawAsync(1, new byte[] {0x03, 0x00}).toCompletableFuture();
+    client.sendRawAsync(1, new byte[] {0x03, 0x01});
+    respond(transport, transport.framesSent.get(1));
+
+    // the sequence wraps back to 0, which is still pending, so 1 is used instead
+    CompletableFuture<byte[]> third =
+        client.sendRawAsync(1, new byte[] {0x03, 0x02}).toCompletableFuture();
+    assertEquals(1, transport.framesSent.get(2).header().transactionId());
+
+    respond(transport, transport.framesSent.get(0));
+    respond(transport, transport.framesSent.get(2));
+    assertArrayEquals(new byte[] {0x03, 0x00}, first.get());
+    assertArrayEquals(new byte[] {0x03, 0x02}, third.get());
+  }
+
+  @Test
+  void requestFailsWhenNoTransactionIdIsFree() {
+    var transport = new TestTransport();
+    var client = new SmallSequenceClient(transport);
+
+    client.sendRawAsync(1, new byte[] {0x03});
+    client.sendRawAsync(1, new byte[] {0x03});
+    CompletionStage<byte[]> cs = client.sendRawAsync(1, new byte[] {0x03});
+
+    ExecutionException ex =
+        assertThrows(ExecutionException.class, () -> cs.toCompletableFuture().get());
+    assertEquals("no transaction id available", ex.getCause().getMessage());
+    assertEquals(2, transport.framesSent.size());
+  }
+
+  @Test
+  void pooledRequestBuffersAreReused() throws Exception {
+    var pool = new HeapBufferPool();
+    var transport = new TestTransport();
+    var client = ModbusTcpClient.create(transport, cfg -> cfg.setBufferPool(pool));
+
+    for (int i = 0; i < 10; i++) {
+      CompletionStage<ReadHoldingRegistersResponse> cs =
+          client.readHoldingRegistersAsync(1, new ReadHoldingRegistersRequest(i, 1));
+
+      MbapHeader header = transport.lastFrameSent.header();
+      transport.frameReceiver.accept(
+          new ModbusTcpFrame(
+              new MbapHeader(header.transactionId(), 0, 5, 1),
+              ByteBuffer.wrap(new byte[] {0x03, 0x02, 0x00, (byte) i})));
+
+      assertArrayEquals(new byte[] {0x00, (byte) i}, cs.toCompletableFuture().get().registers());
+    }
+
+    assertEquals(1, pool.getAllocationCounts().get(256).get());
+  }
+
+  @Test
+  void stoppedTimeoutSchedulerFailsRequestsAndFreesTheirResources() {
+    var scheduler = new WheelTimeoutScheduler(Runnable::run);
+    scheduler.stop();
+
+    var pool = new HeapBufferPool();
+    var transport = new TestTransport();
+    var client =
+        ModbusTcpClient.create(
+            transport,
+            cfg -> cfg.setTimeoutScheduler(scheduler).setMaxInFlight(1).setBufferPool(pool));
+
+    for (int i = 0; i < 2; i++) {
+      CompletionStage<ReadHoldingRegistersResponse> cs =
+          client.readHoldingRegistersAsync(1, new ReadHoldingRegistersRequest(i, 1));
+
+      ExecutionException ex =
+          assertThrows(ExecutionException.class, () -> cs.toCompletableFuture().get());
+      assertInstanceOf(IllegalStateException.class, ex.getCause());
+    }
+
+    assertEquals(0, transport.framesSent.size());
+    assertEquals(0, client.getInFlightRequestCount());
+    assertEquals(1, pool.getAllocationCounts().get(256).get());
+  }
+
+  @Test
+  void requestTimeoutPolicyIsAppliedPerRequest() throws Exception {
+    var policy = new RecordingTimeoutPolicy();
+    var transport = new TestTransport();
+    var client = ModbusTcpClient.create(transport, cfg -> cfg.setRequestTimeoutPolicy(policy));
+
+    CompletableFuture<byte[]> slow =
+        client.sendRawAsync(1, new byte[] {0x03, 0x00}).toCompletableFuture();
+    CompletableFuture<byte[]> fast =
+        client.sendRawAsync(2, new byte[] {0x04, 0x00}).toCompletableFuture();
+
+    ExecutionException ex = assertThrows(ExecutionException.class, fast::get);
+    assertInstanceOf(TimeoutException.class, ex.getCause());
+    assertEquals(List.of("timeout 2/4"), policy.events);
+    assertFalse(slow.isDone());
+
+    respond(transport, transport.framesSent.get(0));
+
+    assertArrayEquals(new byte[] {0x03, 0x00}, slow.get());
+    assertEquals(List.of("timeout 2/4", "response 1/3"), policy.events);
+  }
+
+  @Test
+  void roundTripTimeIsRecordedUnderTheRequestUnitId() throws Exception {
+    var policy = new RecordingTimeoutPolicy();
+    var transport = new TestTransport();
+    var client = ModbusTcpClient.create(transport, cfg -> cfg.setRequestTimeoutPolicy(policy));
+
+    CompletableFuture<byte[]> response =
+        client.sendRawAsync(1, new byte[] {0x03, 0x00}).toCompletableFuture();
+
+    // a gateway that answers with its own unit id rather than the device's
+    MbapHeader header = transport.lastFrameSent.header();
+    transport.frameReceiver.accept(
+        new ModbusTcpFrame(
+            new MbapHeader(header.transactionId(), 0, 3, 0xFF),
+            ByteBuffer.wrap(new byte[] {0x03, 0x00})));
+
+    assertArrayEquals(new byte[] {0x03, 0x00}, response.get());
+    assertEquals(List.of("response 1/3"), policy.events);
+  }
+
+  @Test
+  void sendBatchAsyncSendsAllFramesInOneBatch() throws Exception {
+    var transport = new TestTransport();
+    var client = ModbusTcpClient.create(transport);
+
+    BatchResponse batch =
+        client.sendBatchAsync(
+            List.of(
+                new UnitRequest(1, new ReadHoldingRegistersRequest(0, 1)),
+                new UnitRequest(2, new ReadHoldingRegistersRequest(0, 1)),
+                new UnitRequest(3, new ReadHoldingRegistersRequest(0, 1))));
+
+    assertEquals(1, transport.batchesSent);
+    assertEquals(3, transport.framesSent.size());
+
+    // respond out of order
+    for (int i : new int[] {2, 0, 1}) {
+      MbapHeader header = transport.framesSent.get(i).header();
+      transport.frameReceiver.accept(
+          new ModbusTcpFrame(
+              new MbapHeader(header.transactionId(), 0, 5, header.unitId()),
+              ByteBuffer.wrap(new byte[] {0x03, 0x02, 0x00, (byte) i})));
+    }
+
+    List<ModbusResponsePdu> responses = batch.allResponses().toCompletableFuture().get();
+    assertEquals(3, responses.size());
+    for (int i = 0; i < 3; i++) {
+      var response = (ReadHoldingRegistersResponse) responses.get(i);
+      assertArrayEquals(new byte[] {0x00, (byte) i}, response.registers());
+    }
+  }
+
+  /** Times out requests to unit id 2 after 20ms and records what the client reports. */
+  private static class RecordingTimeoutPolicy implements RequestTimeoutPolicy {
+
+    final List<String> events = new CopyOnWriteArrayList<>();
+
+    @Override
+    public Duration getTimeout(int unitId, int functionCode) {
+      return unitId == 2 ? Duration.ofMillis(20) : Duration.ofSeconds(10);
+    }
+
+    @Override
+    public void onResponse(int unitId, int functionCode, Duration roundTripTime) {
+      events.add("response %d/%d".formatted(unitId, functionCode));
+    }
+
+    @Override
+    public void onTimeout(int unitId, int functionCode) {
+      events.add("timeout %d/%d".formatted(unitId, functionCode));
+    }
+  }
+
+  /** A client whose transaction ids are limited to 0 and 1. */
+  private static class SmallSequenceClient extends ModbusTcpClient {
+
+    SmallSequenceClient(TestTransport transport) {
+      super(ModbusClientConfig.create(cfg -> {}), transport);
+    }
+
+    @Override
+    protected TransactionSequence createTransactionSequence() {
+      return new DefaultTransactionSequence(0, 1);
+    }
+  }
+
+  /** Respond to {@code request} by echoing its PDU back. */
+  private static void respond(TestTransport transport, ModbusTcpFrame request) {
+    transport.frameReceiver.accept(new ModbusTcpFrame(request.header(), request.pdu().duplicate()));
+  }
+
   private static class TestTransport implements ModbusTcpClientTransport {
 
     boolean connected = false;
+    boolean failSends = false;
     ModbusTcpFrame lastFrameSent;
+    final List<ModbusTcpFrame> framesSent = new ArrayList<>();
     Consumer<ModbusTcpFrame> frameReceiver;
+    int batchesSent = 0;
 
     @Override
     public CompletionStage<Void> connect() {
@@ -183,10 +598,20 @@ public class ModbusTcpClientTest {
 
     @Override
     public CompletionStage<Void> send(ModbusTcpFrame frame) {
+      if (failSends) {
+        return CompletableFuture.failedFuture(new Exception("not connected"));
+      }
       lastFrameSent = frame;
+      framesSent.add(frame);
       return CompletableFuture.completedFuture(null);
     }
 
+    @Override
+    public List<CompletionStage<Void>> sendBatch(List<ModbusTcpFrame> frames) {
+      batchesSent++;
+      return ModbusTcpClientTransport.super.sendBatch(frames);
+    }
+
     @Override
     public void receive(Consumer<ModbusTcpFrame> frameReceiver) {
       this.frameReceiver = frameReceiver;
@@ -0,0 +1,242 @@
+package com.digitalpetri.modbus.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.digitalpetri.modbus.client.PollingScheduler.Change;
+import com.digitalpetri.modbus.client.PollingScheduler.ScanGroup;
+import com.digitalpetri.modbus.client.PollingScheduler.ScanGroupStats;
+import com.digitalpetri.modbus.client.PollingScheduler.ScanListener;
+import com.digitalpetri.modbus.client.ReadPlan.Area;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class PollingSchedulerTest {
+
+  @Test
+  void onlyChangedValuesArePublished() throws Exception {
+    var device = new TestClient();
+    var scheduler = PollingScheduler.create(cfg -> cfg.setJitter(0));
+
+    ScanGroup group =
+        scheduler.addGroup(
+            ScanGroupConfig.create(
+                cfg ->
+                    cfg.setClient(device)
+                        .setUnitId(1)
+                        .setPlan(ReadPlan.builder().addHoldingRegisters(0, 1, 2).build())
+                        .setPeriod(Duration.ofMillis(10))));
+
+    var published = new LinkedBlockingQueue<List<Change>>();
+    group.addListener((g, changes) -> published.add(changes));
+
+    scheduler.start();
+    try {
+      assertEquals(
+          List.of(
+              new Change(Area.HOLDING_REGISTERS, 0, 0),
+              new Change(Area.HOLDING_REGISTERS, 1, 1),
+              new Change(Area.HOLDING_REGISTERS, 2, 2)),
+          published.poll(1, TimeUnit.SECONDS));
+
+      device.registers[1] = 42;
+
+      assertEquals(
+          List.of(new Change(Area.HOLDING_REGISTERS, 1, 42)), published.poll(1, TimeUnit.SECONDS));
+
+      Thread.sleep(50);
+      assertTrue(published.isEmpty());
+    } finally {
+      scheduler.stop();
+    }
+
+    ScanGroupStats stats = group.getStats();
+    assertTrue(stats.cycles() > 2);
+    assertEquals(0, stats.failures());
+    assertTrue(stats.staleness().compareTo(Duration.ofSeconds(1)) < 0);
+    assertNotNull(group.getLastResult());
+  }
+
+  @Test
+  void scansFinishingAfterStopDoNotHideChanges() throws Exception {
+    var device = new TestClient();
+    device.blocking = true;
+    var scheduler = PollingScheduler.create(cfg -> cfg.setJitter(0));
+
+    ScanGroup group =
+        scheduler.addGroup(
+            ScanGroupConfig.create(
+                cfg ->
+                    cfg.setClient(device)
+                        .setPlan(ReadPlan.builder().addHoldingRegisters(0).build())
+                        .setPeriod(Duration.ofMillis(10))));
+
+    var published = new LinkedBlockingQueue<List<Change>>();
+    group.addListener((g, changes) -> published.add(changes));
+
+    scheduler.start();
+    while (device.requests().isEmpty()) {
+      Thread.sleep(1);
+    }
+    scheduler.stop();
+
+    // the scan started before stop() completes with the new value, but isn't published
+    device.registers[0] = 42;
+    device.release();
+    device.blocking = false;
+
+    scheduler.start();
+    try {
+      assertEquals(
+          List.of(new Change(Area.HOLDING_REGISTERS, 0, 42)), published.poll(1, TimeUnit.SECONDS));
+    } finally {
+      scheduler.stop();
+    }
+  }
+
+  @Test
+  void overrunningCyclesAreSkipped() throws Exception {
+    var device = new TestClient();
+    device.blocking = true;
+    var scheduler = PollingScheduler.create(cfg -> cfg.setJitter(0));
+
+    ScanGroup group =
+        scheduler.addGroup(
+            ScanGroupConfig.create(
+                cfg ->
+                    cfg.setClient(device)
+                        .setPlan(ReadPlan.builder().addHoldingRegisters(0).build())
+                        .setPeriod(Duration.ofMillis(10))));
+
+    scheduler.start();
+    try {
+      Thread.sleep(100);
+
+      assertEquals(1, device.requests().size());
+      assertTrue(group.getStats().overruns() >= 5);
+      assertEquals(0, group.getStats().cycles());
+
+      device.release();
+
+      assertEquals(1, group.getStats().cycles());
+      assertTrue(group.getStats().lastLatency().compareTo(Duration.ofMillis(50)) >= 0);
+    } finally {
+      scheduler.stop();
+    }
+  }
+
+  @Test
+  void higherPriorityGroupsAreScannedFirst() throws Exception {
+    var device = new TestClient();
+    device.blocking = true;
+    var scheduler = PollingScheduler.create(cfg -> cfg.setJitter(0).setMaxConcurrentScans(1));
+
+    var order = new CopyOnWriteArrayList<Integer>();
+    ScanListener listener = (g, changes) -> order.add(g.getConfig().unitId());
+
+    scheduler.start();
+    try {
+      scheduler.addGroup(group(device, 0, 0)).addListener(listener);
+      Thread.sleep(50);
+      scheduler.addGroup(group(device, 1, 1)).addListener(listener);
+      scheduler.addGroup(group(device, 2, 10)).addListener(listener);
+      Thread.sleep(50);
+
+      device.blocking = false;
+      device.release();
+
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+      while (order.size() < 3 && System.nanoTime() < deadline) {
+        Thread.sleep(10);
+      }
+
+      assertEquals(List.of(0, 2, 1), order.subList(0, 3));
+    } finally {
+      scheduler.stop();
+    }
+  }
+
+  @Test
+  void failedScansAreReported() throws Exception {
+    var device = new TestClient();
+    device.illegalAddress = 0;
+    var scheduler = PollingScheduler.create(cfg -> cfg.setJitter(0));
+
+    ScanGroup group =
+        scheduler.addGroup(
+            ScanGroupConfig.create(
+                cfg ->
+                    cfg.setClient(device)
+                        .setPlan(ReadPlan.builder().addHoldingRegisters(0).build())
+                        .setPeriod(Duration.ofMillis(10))));
+
+    var failures = new LinkedBlockingQueue<Throwable>();
+    group.addListener(
+        new ScanListener() {
+          @Override
+          public void onValuesChanged(ScanGroup group, List<Change> changes) {}
+
+          @Override
+          public void onScanFailed(ScanGroup group, Throwable failure) {
+            failures.add(failure);
+          }
+        });
+
+    scheduler.start();
+    try {
+      assertNotNull(failures.poll(1, TimeUnit.SECONDS));
+    } finally {
+      scheduler.stop();
+    }
+
+    assertTrue(group.getStats().failures() > 0);
+  }
+
+  @Test
+  void throwingListenerDoesNotStallTheGroup() throws Exception {
+    var device = new TestClient();
+    var scheduler = PollingScheduler.create(cfg -> cfg.setJitter(0));
+
+    ScanGroup group =
+        scheduler.addGroup(
+            ScanGroupConfig.create(
+                cfg ->
+                    cfg.setClient(device)
+                        .setPlan(ReadPlan.builder().addHoldingRegisters(0).build())
+                        .setPeriod(Duration.ofMillis(10))));
+
+    var published = new LinkedBlockingQueue<List<Change>>();
+    group.addListener(
+        (g, changes) -> {
+          throw new RuntimeException("listener failed");
+        });
+    group.addListener((g, changes) -> published.add(changes));
+
+    scheduler.start();
+    try {
+      assertNotNull(published.poll(1, TimeUnit.SECONDS));
+
+      device.registers[0] = 42;
+
+      assertEquals(
+          List.of(new Change(Area.HOLDING_REGISTERS, 0, 42)), published.poll(1, TimeUnit.SECONDS));
+    } finally {
+      scheduler.stop();
+    }
+  }
+
+  private static ScanGroupConfig group(TestClient device, int unitId, int priority) {
+    return ScanGroupConfig.create(
+        cfg ->
+            cfg.setClient(device)
+                .setUnitId(unitId)
+                .setPlan(ReadPlan.builder().addHoldingRegisters(0).build())
+                .setPeriod(Duration.ofMillis(10))
+                .setPriority(priority));
+  }
+}
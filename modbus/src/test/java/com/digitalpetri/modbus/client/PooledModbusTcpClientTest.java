@@ -0,0 +1,227 @@
+package com.digitalpetri.modbus.client;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.digitalpetri.modbus.MbapHeader;
+import com.digitalpetri.modbus.ModbusTcpFrame;
+import com.digitalpetri.modbus.exceptions.ModbusExecutionException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.Test;
+
+class PooledModbusTcpClientTest {
+
+  @Test
+  void requestsAreSpreadAcrossConnections() throws Exception {
+    List<TestTransport> transports = transports(3);
+    var client = new PooledModbusTcpClient(ModbusClientConfig.create(cfg -> {}), transports);
+    client.connect();
+
+    for (int i = 0; i < 6; i++) {
+      client.sendRawAsync(1, new byte[] {0x03});
+    }
+
+    for (TestTransport transport : transports) {
+      assertEquals(2, transport.framesSent.size());
+    }
+  }
+
+  @Test
+  void requestsGoToLeastLoadedConnection() throws Exception {
+    List<TestTransport> transports = transports(2);
+    var client = new PooledModbusTcpClient(ModbusClientConfig.create(cfg -> {}), transports);
+    client.connect();
+
+    CompletionStage<byte[]> first = client.sendRawAsync(1, new byte[] {0x03});
+    client.sendRawAsync(1, new byte[] {0x03});
+    assertEquals(1, transports.get(0).framesSent.size());
+    assertEquals(1, transports.get(1).framesSent.size());
+
+    respond(transports.get(0));
+    first.toCompletableFuture().get();
+
+    // transport 0 is idle again, transport 1 still has one outstanding request
+    for (int i = 0; i < 3; i++) {
+      client.sendRawAsync(1, new byte[] {0x03});
+      respond(transports.get(0));
+    }
+
+    assertEquals(4, transports.get(0).framesSent.size());
+    assertEquals(1, transports.get(1).framesSent.size());
+  }
+
+  @Test
+  void disconnectedConnectionsAreSkippedAndReconnected() throws Exception {
+    List<TestTransport> transports = transports(3);
+    var client = new PooledModbusTcpClient(ModbusClientConfig.create(cfg -> {}), transports);
+    client.connect();
+
+    transports.get(1).connected = false;
+    transports.get(1).connectAttempts = 0;
+    transports.get(1).failConnect = true;
+
+    for (int i = 0; i < 4; i++) {
+      client.sendRawAsync(1, new byte[] {0x03});
+    }
+
+    assertEquals(2, transports.get(0).framesSent.size());
+    assertEquals(0, transports.get(1).framesSent.size());
+    assertEquals(2, transports.get(2).framesSent.size());
+    assertTrue(transports.get(1).connectAttempts > 0);
+    assertEquals(2, client.getConnectedCount());
+    assertTrue(client.isConnected());
+
+    transports.get(1).failConnect = false;
+    client.sendRawAsync(1, new byte[] {0x03});
+    client.sendRawAsync(1, new byte[] {0x03});
+
+    assertTrue(transports.get(1).connected);
+    assertEquals(1, transports.get(1).framesSent.size());
+  }
+
+  @Test
+  void disconnectedPoolDoesNotReconnect() throws Exception {
+    List<TestTransport> transports = transports(2);
+    var client = new PooledModbusTcpClient(ModbusClientConfig.create(cfg -> {}), transports);
+    client.connect();
+    client.disconnect();
+
+    client.sendRawAsync(1, new byte[] {0x03});
+
+    for (TestTransport transport : transports) {
+      assertFalse(transport.connected);
+      assertEquals(1, transport.connectAttempts);
+    }
+
+    client.connect();
+    transports.get(0).connected = false;
+    client.sendRawAsync(1, new byte[] {0x03});
+
+    assertTrue(transports.get(0).connected);
+  }
+
+  @Test
+  void framesSentOnThePoolTransportAreRoutedToMembers() throws Exception {
+    List<TestTransport> transports = transports(2);
+    var client = new PooledModbusTcpClient(ModbusClientConfig.create(cfg -> {}), transports);
+    client.connect();
+
+    var transport = (ModbusTcpClientTransport) client.getTransport();
+    var received = new ArrayList<ModbusTcpFrame>();
+    transport.receive(received::add);
+
+    CompletionStage<Void> sent =
+        transport.send(
+            new ModbusTcpFrame(new MbapHeader(42, 0, 3, 1), ByteBuffer.wrap(new byte[] {3, 10})));
+
+    TestTransport member =
+        transports.get(0).framesSent.isEmpty() ? transports.get(1) : transports.get(0);
+    respond(member);
+    sent.toCompletableFuture().get();
+
+    assertEquals(1, received.size());
+    assertEquals(new MbapHeader(42, 0, 3, 1), received.get(0).header());
+    assertEquals(ByteBuffer.wrap(new byte[] {3, 10}), received.get(0).pdu());
+  }
+
+  @Test
+  void connectSucceedsIfAnyConnectionSucceeds() throws Exception {
+    List<TestTransport> transports = transports(2);
+    transports.get(0).failConnect = true;
+
+    var client = new PooledModbusTcpClient(ModbusClientConfig.create(cfg -> {}), transports);
+    client.connect();
+
+    assertTrue(client.isConnected());
+    assertEquals(1, client.getConnectedCount());
+
+    transports.get(1).failConnect = true;
+    client.disconnect();
+    assertFalse(client.isConnected());
+    assertThrows(ModbusExecutionException.class, client::connect);
+  }
+
+  @Test
+  void responsesAreCorrelatedPerConnection() throws Exception {
+    List<TestTransport> transports = transports(2);
+    var client = new PooledModbusTcpClient(ModbusClientConfig.create(cfg -> {}), transports);
+    client.connect();
+
+    CompletableFuture<byte[]> a =
+        client.sendRawAsync(1, new byte[] {0x03, 0x0A}).toCompletableFuture();
+    CompletableFuture<byte[]> b =
+        client.sendRawAsync(1, new byte[] {0x03, 0x0B}).toCompletableFuture();
+
+    respond(transports.get(1));
+    respond(transports.get(0));
+
+    byte[] ra = a.get();
+    byte[] rb = b.get();
+    assertArrayEquals(new byte[] {0x03, 0x0A}, ra);
+    assertArrayEquals(new byte[] {0x03, 0x0B}, rb);
+  }
+
+  private static List<TestTransport> transports(int n) {
+    var transports = new ArrayList<TestTransport>();
+    for (int i = 0; i < n; i++) {
+      transports.add(new TestTransport());
+    }
+    return transports;
+  }
+
+  /** Respond to the oldest unanswered request sent on {@code transport} by echoing its PDU. */
+  private static void respond(TestTransport transport) {
+    ModbusTcpFrame request = transport.framesSent.get(transport.responded++);
+    transport.frameReceiver.accept(new ModbusTcpFrame(request.header(), request.pdu().duplicate()));
+  }
+
+  private static class TestTransport implements ModbusTcpClientTransport {
+
+    boolean connected = false;
+    boolean failConnect = false;
+    int connectAttempts = 0;
+    int responded = 0;
+    final List<ModbusTcpFrame> framesSent = new ArrayList<>();
+    Consumer<ModbusTcpFrame> frameReceiver;
+
+    @Override
+    public CompletionStage<Void> connect() {
+      connectAttempts++;
+      if (failConnect) {
+        return CompletableFuture.failedFuture(new Exception("connection refused"));
+      }
+      connected = true;
+      return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public CompletionStage<Void> disconnect() {
+      connected = false;
+      return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public boolean isConnected() {
+      return connected;
+    }
+
+    @Override
+    public CompletionStage<Void> send(ModbusTcpFrame frame) {
+      framesSent.add(frame);
+      return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public void receive(Consumer<ModbusTcpFrame> frameReceiver) {
+      this.frameReceiver = frameReceiver;
+    }
+  }
+}
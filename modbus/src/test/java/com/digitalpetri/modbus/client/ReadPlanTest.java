@@ -0,0 +1,148 @@
+package com.digitalpetri.modbus.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.digitalpetri.modbus.client.ReadPlan.Area;
+import com.digitalpetri.modbus.client.ReadPlan.Block;
+import com.digitalpetri.modbus.exceptions.ModbusResponseException;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class ReadPlanTest {
+
+  @Test
+  void blocksCoverAddressesWithinGap() {
+    ReadPlan plan = ReadPlan.builder().addHoldingRegisters(6, 0, 1, 2, 5, 200, 201, 330, 1).build();
+
+    assertEquals(
+        List.of(
+            new Block(Area.HOLDING_REGISTERS, 0, 3),
+            new Block(Area.HOLDING_REGISTERS, 5, 2),
+            new Block(Area.HOLDING_REGISTERS, 200, 2),
+            new Block(Area.HOLDING_REGISTERS, 330, 1)),
+        plan.blocks());
+
+    plan =
+        ReadPlan.builder().addHoldingRegisters(0, 1, 2, 5, 6, 200, 201, 330).setMaxGap(2).build();
+
+    assertEquals(
+        List.of(
+            new Block(Area.HOLDING_REGISTERS, 0, 7),
+            new Block(Area.HOLDING_REGISTERS, 200, 2),
+            new Block(Area.HOLDING_REGISTERS, 330, 1)),
+        plan.blocks());
+  }
+
+  @Test
+  void blocksRespectQuantityLimits() {
+    ReadPlan plan =
+        ReadPlan.builder()
+            .addHoldingRegisters(0, 124, 125)
+            .addCoils(0, 1999, 2000)
+            .setMaxGap(2000)
+            .build();
+
+    assertEquals(
+        List.of(
+            new Block(Area.COILS, 0, 2000),
+            new Block(Area.COILS, 2000, 1),
+            new Block(Area.HOLDING_REGISTERS, 0, 125),
+            new Block(Area.HOLDING_REGISTERS, 125, 1)),
+        plan.blocks());
+
+    plan =
+        ReadPlan.builder()
+            .addInputRegisters(0, 9, 10)
+            .setMaxGap(100)
+            .setMaxQuantity(Area.INPUT_REGISTERS, 10)
+            .build();
+
+    assertEquals(
+        List.of(new Block(Area.INPUT_REGISTERS, 0, 10), new Block(Area.INPUT_REGISTERS, 10, 1)),
+        plan.blocks());
+
+    assertThrows(
+        IllegalArgumentException.class,
+        () ->
+            ReadPlan.builder()
+                .addInputRegisters(0)
+                .setMaxQuantity(Area.INPUT_REGISTERS, 126)
+                .build());
+  }
+
+  @Test
+  void blocksNeverCoverIllegalRanges() {
+    ReadPlan plan =
+        ReadPlan.builder()
+            .addHoldingRegisters(0, 10, 20)
+            .addIllegalRange(Area.HOLDING_REGISTERS, 5, 1)
+            .addIllegalRange(Area.INPUT_REGISTERS, 15, 1)
+            .setMaxGap(20)
+            .build();
+
+    assertEquals(
+        List.of(new Block(Area.HOLDING_REGISTERS, 0, 1), new Block(Area.HOLDING_REGISTERS, 10, 11)),
+        plan.blocks());
+
+    assertThrows(
+        IllegalArgumentException.class,
+        () ->
+            ReadPlan.builder()
+                .addHoldingRegisters(5)
+                .addIllegalRange(Area.HOLDING_REGISTERS, 0, 10)
+                .build());
+  }
+
+  @Test
+  void invalidAddressesAreRejected() {
+    assertThrows(IllegalArgumentException.class, () -> ReadPlan.builder().addCoils(-1));
+    assertThrows(IllegalArgumentException.class, () -> ReadPlan.builder().addCoils(65536));
+    assertThrows(
+        IllegalArgumentException.class, () -> ReadPlan.builder().addCoils(0).setMaxGap(-1).build());
+  }
+
+  @Test
+  void executeReturnsIndexedResult() throws Exception {
+    var client = new TestClient();
+    ReadPlan plan =
+        ReadPlan.builder()
+            .addHoldingRegisters(1, 2, 12, 300, 65535)
+            .addInputRegisters(7)
+            .addCoils(3, 4, 5, 17)
+            .setMaxGap(20)
+            .build();
+
+    ReadPlan.Result result = plan.execute(client, 1);
+
+    assertEquals(5, client.requests().size());
+    assertEquals(1, result.holdingRegister(1));
+    assertEquals(2, result.holdingRegister(2));
+    assertEquals(300, result.holdingRegister(300));
+    assertEquals(65535, result.holdingRegister(65535));
+    assertEquals(7, result.inputRegister(7));
+    assertTrue(result.coil(3));
+    assertFalse(result.coil(4));
+    assertFalse(result.coil(5));
+    assertFalse(result.coil(17));
+
+    // addresses bridged by a block can be read too
+    assertEquals(10, result.holdingRegister(10));
+    assertTrue(result.coil(6));
+
+    assertThrows(IllegalArgumentException.class, () -> result.holdingRegister(3000));
+    assertThrows(IllegalArgumentException.class, () -> result.discreteInput(0));
+  }
+
+  @Test
+  void executeFailsIfAnyBlockFails() {
+    var client = new TestClient();
+    client.illegalAddress = 300;
+    ReadPlan plan = ReadPlan.builder().addHoldingRegisters(1, 300).build();
+
+    assertThrows(ModbusResponseException.class, () -> plan.execute(client, 1));
+    assertEquals(2, client.requests().size());
+  }
+}
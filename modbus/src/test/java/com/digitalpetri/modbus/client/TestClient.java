@@ -0,0 +1,182 @@
+package com.digitalpetri.modbus.client;
+
+import com.digitalpetri.modbus.exceptions.ModbusResponseException;
+import com.digitalpetri.modbus.pdu.ModbusRequestPdu;
+import com.digitalpetri.modbus.pdu.ModbusResponsePdu;
+import com.digitalpetri.modbus.pdu.ReadCoilsRequest;
+import com.digitalpetri.modbus.pdu.ReadCoilsResponse;
+import com.digitalpetri.modbus.pdu.ReadHoldingRegistersRequest;
+import com.digitalpetri.modbus.pdu.ReadHoldingRegistersResponse;
+import com.digitalpetri.modbus.pdu.ReadInputRegistersRequest;
+import com.digitalpetri.modbus.pdu.ReadInputRegistersResponse;
+import com.digitalpetri.modbus.pdu.WriteMultipleCoilsRequest;
+import com.digitalpetri.modbus.pdu.WriteMultipleCoilsResponse;
+import com.digitalpetri.modbus.pdu.WriteMultipleRegistersRequest;
+import com.digitalpetri.modbus.pdu.WriteMultipleRegistersResponse;
+import com.digitalpetri.modbus.pdu.WriteSingleCoilRequest;
+import com.digitalpetri.modbus.pdu.WriteSingleCoilResponse;
+import com.digitalpetri.modbus.pdu.WriteSingleRegisterRequest;
+import com.digitalpetri.modbus.pdu.WriteSingleRegisterResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A {@link ModbusClient} that plays the device for tests of the clients that wrap another client.
+ *
+ * <p>Holding and input registers share one set of values, and register {@code n} starts out holding
+ * {@code n}; coil {@code n} is set if {@code n} is divisible by 3. Register writes are stored, coil
+ * writes are only acknowledged, and any other request fails.
+ */
+class TestClient extends ModbusClient {
+
+  record Sent(int unitId, ModbusRequestPdu request) {}
+
+  /** Every request received, in order. */
+  final List<Sent> sent = new CopyOnWriteArrayList<>();
+
+  final int[] registers = new int[0x10000];
+
+  /** An address that reads and writes covering it fail with ILLEGAL_DATA_ADDRESS, or -1. */
+  volatile int illegalAddress = -1;
+
+  /** A failure every request completes with, if not {@code null}. */
+  volatile Throwable failure;
+
+  /** Whether responses are held back until {@link #release()}. */
+  volatile boolean blocking = false;
+
+  private final List<Runnable> blocked = new ArrayList<>();
+
+  TestClient() {
+    super(null);
+
+    for (int i = 0; i < registers.length; i++) {
+      registers[i] = i;
+    }
+  }
+
+  @Override
+  public CompletionStage<ModbusResponsePdu> sendAsync(int unitId, ModbusRequestPdu request) {
+    sent.add(new Sent(unitId, request));
+
+    Throwable failure = this.failure;
+    if (failure != null) {
+      return CompletableFuture.failedFuture(failure);
+    }
+
+    var future = new CompletableFuture<ModbusResponsePdu>();
+    Runnable respond =
+        () -> {
+          try {
+            future.complete(respond(request));
+          } catch (Exception e) {
+            future.completeExceptionally(e);
+          }
+        };
+
+    if (blocking) {
+      synchronized (blocked) {
+        blocked.add(respond);
+      }
+    } else {
+      respond.run();
+    }
+
+    return future;
+  }
+
+  /** Send the responses held back while {@link #blocking}. */
+  void release() {
+    List<Runnable> responses;
+    synchronized (blocked) {
+      responses = new ArrayList<>(blocked);
+      blocked.clear();
+    }
+    responses.forEach(Runnable::run);
+  }
+
+  /** Get the requests received, in order. */
+  List<ModbusRequestPdu> requests() {
+    return sent.stream().map(Sent::request).toList();
+  }
+
+  /** Get the unit id of each request received, in order. */
+  List<Integer> unitIds() {
+    return sent.stream().map(Sent::unitId).toList();
+  }
+
+  private synchronized ModbusResponsePdu respond(ModbusRequestPdu request)
+      throws ModbusResponseException {
+
+    if (request instanceof ReadCoilsRequest r) {
+      checkAddress(r, r.address(), r.quantity());
+      return new ReadCoilsResponse(coils(r.address(), r.quantity()));
+    } else if (request instanceof ReadHoldingRegistersRequest r) {
+      checkAddress(r, r.address(), r.quantity());
+      return new ReadHoldingRegistersResponse(read(r.address(), r.quantity()));
+    } else if (request instanceof ReadInputRegistersRequest r) {
+      checkAddress(r, r.address(), r.quantity());
+      return new ReadInputRegistersResponse(read(r.address(), r.quantity()));
+    } else if (request instanceof WriteSingleCoilRequest r) {
+      checkAddress(r, r.address(), 1);
+      return new WriteSingleCoilResponse(r.address(), r.value());
+    } else if (request instanceof WriteMultipleCoilsRequest r) {
+      checkAddress(r, r.address(), r.quantity());
+      return new WriteMultipleCoilsResponse(r.address(), r.quantity());
+    } else if (request instanceof WriteSingleRegisterRequest r) {
+      checkAddress(r, r.address(), 1);
+      registers[r.address()] = r.value() & 0xFFFF;
+      return new WriteSingleRegisterResponse(r.address(), r.value());
+    } else if (request instanceof WriteMultipleRegistersRequest r) {
+      checkAddress(r, r.address(), r.quantity());
+      for (int i = 0; i < r.quantity(); i++) {
+        registers[r.address() + i] =
+            (r.values()[i * 2] & 0xFF) << 8 | (r.values()[i * 2 + 1] & 0xFF);
+      }
+      return new WriteMultipleRegistersResponse(r.address(), r.quantity());
+    } else {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  private void checkAddress(ModbusRequestPdu request, int address, int quantity)
+      throws ModbusResponseException {
+
+    if (illegalAddress >= address && illegalAddress < address + quantity) {
+      throw new ModbusResponseException(request.getFunctionCode(), 0x02);
+    }
+  }
+
+  private byte[] read(int address, int quantity) {
+    var bytes = new byte[quantity * 2];
+    for (int i = 0; i < quantity; i++) {
+      bytes[i * 2] = (byte) (registers[address + i] >> 8);
+      bytes[i * 2 + 1] = (byte) registers[address + i];
+    }
+    return bytes;
+  }
+
+  /** Get the register bytes a device that hasn't been written to holds at {@code address}. */
+  static byte[] registers(int address, int quantity) {
+    var registers = new byte[quantity * 2];
+    for (int i = 0; i < quantity; i++) {
+      registers[i * 2] = (byte) ((address + i) >> 8);
+      registers[i * 2 + 1] = (byte) (address + i);
+    }
+    return registers;
+  }
+
+  /** Get the coil bytes the device holds at {@code address}. */
+  static byte[] coils(int address, int quantity) {
+    var coils = new byte[(quantity + 7) / 8];
+    for (int i = 0; i < quantity; i++) {
+      if ((address + i) % 3 == 0) {
+        coils[i / 8] |= (byte) (1 << (i % 8));
+      }
+    }
+    return coils;
+  }
+}
@@ -0,0 +1,190 @@
+package com.digitalpetri.modbus.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.digitalpetri.modbus.client.TestClient.Sent;
+import com.digitalpetri.modbus.exceptions.ModbusResponseException;
+import com.digitalpetri.modbus.pdu.ModbusResponsePdu;
+import com.digitalpetri.modbus.pdu.ReadHoldingRegistersRequest;
+import com.digitalpetri.modbus.pdu.ReadHoldingRegistersResponse;
+import com.digitalpetri.modbus.pdu.WriteMultipleCoilsRequest;
+import com.digitalpetri.modbus.pdu.WriteMultipleCoilsResponse;
+import com.digitalpetri.modbus.pdu.WriteMultipleRegistersRequest;
+import com.digitalpetri.modbus.pdu.WriteMultipleRegistersResponse;
+import com.digitalpetri.modbus.pdu.WriteSingleCoilRequest;
+import com.digitalpetri.modbus.pdu.WriteSingleCoilResponse;
+import com.digitalpetri.modbus.pdu.WriteSingleRegisterRequest;
+import com.digitalpetri.modbus.pdu.WriteSingleRegisterResponse;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class WriteBehindModbusClientTest {
+
+  @Test
+  void adjacentWritesAreMergedAndLastValueWins() throws Exception {
+    var device = new TestClient();
+    var client =
+        WriteBehindModbusClient.create(device, cfg -> cfg.setWindow(Duration.ofMillis(50)));
+
+    var a = client.writeSingleRegisterAsync(1, new WriteSingleRegisterRequest(10, 1));
+    var b = client.writeSingleRegisterAsync(1, new WriteSingleRegisterRequest(11, 2));
+    var c = client.writeSingleRegisterAsync(1, new WriteSingleRegisterRequest(10, 3));
+    var d =
+        client.writeMultipleRegistersAsync(
+            1, new WriteMultipleRegistersRequest(12, 2, new byte[] {0, 4, 0, 5}));
+
+    assertEquals(new WriteSingleRegisterResponse(10, 1), get(a));
+    assertEquals(new WriteSingleRegisterResponse(11, 2), get(b));
+    assertEquals(new WriteSingleRegisterResponse(10, 3), get(c));
+    assertEquals(new WriteMultipleRegistersResponse(12, 2), get(d));
+
+    assertEquals(
+        List.of(
+            new Sent(
+                1, new WriteMultipleRegistersRequest(10, 4, new byte[] {0, 3, 0, 2, 0, 4, 0, 5}))),
+        device.sent);
+    assertEquals(4, client.getWritesReceived());
+    assertEquals(1, client.getWritesSent());
+  }
+
+  @Test
+  void writesAreSplitByUnitIdGapAndLimit() throws Exception {
+    var device = new TestClient();
+    var client =
+        WriteBehindModbusClient.create(device, cfg -> cfg.setWindow(Duration.ofMillis(50)));
+
+    var writes =
+        List.of(
+            client.sendAsync(1, new WriteMultipleRegistersRequest(0, 123, new byte[246])),
+            client.sendAsync(1, new WriteSingleRegisterRequest(123, 7)),
+            client.sendAsync(1, new WriteSingleRegisterRequest(200, 8)),
+            client.sendAsync(2, new WriteSingleRegisterRequest(0, 9)),
+            client.sendAsync(1, new WriteSingleCoilRequest(0, true)),
+            client.sendAsync(1, new WriteMultipleCoilsRequest(1, 3, new byte[] {0b101})));
+
+    assertEquals(new WriteSingleCoilResponse(0, 0xFF00), get(writes.get(4)));
+    assertEquals(new WriteMultipleCoilsResponse(1, 3), get(writes.get(5)));
+    for (CompletionStage<ModbusResponsePdu> write : writes) {
+      get(write);
+    }
+
+    // a run is cut at the 123 register limit, and a lone single write stays a single write
+    assertEquals(
+        Set.of(
+            new Sent(1, new WriteMultipleRegistersRequest(0, 123, new byte[246])),
+            new Sent(1, new WriteSingleRegisterRequest(123, 7)),
+            new Sent(1, new WriteSingleRegisterRequest(200, 8)),
+            new Sent(2, new WriteSingleRegisterRequest(0, 9)),
+            new Sent(1, new WriteMultipleCoilsRequest(0, 4, new byte[] {0b1011}))),
+        new HashSet<>(device.sent));
+    assertEquals(5, device.sent.size());
+  }
+
+  @Test
+  void runsAreNeverCutInsideWrites() throws Exception {
+    var device = new TestClient();
+    var client =
+        WriteBehindModbusClient.create(device, cfg -> cfg.setWindow(Duration.ofMillis(50)));
+
+    var a = client.sendAsync(1, new WriteMultipleRegistersRequest(0, 100, new byte[200]));
+    var b = client.sendAsync(1, new WriteMultipleRegistersRequest(100, 100, new byte[200]));
+
+    assertEquals(new WriteMultipleRegistersResponse(0, 100), get(a));
+    assertEquals(new WriteMultipleRegistersResponse(100, 100), get(b));
+
+    assertEquals(
+        Set.of(
+            new Sent(1, new WriteMultipleRegistersRequest(0, 100, new byte[200])),
+            new Sent(1, new WriteMultipleRegistersRequest(100, 100, new byte[200]))),
+        new HashSet<>(device.sent));
+    assertEquals(2, device.sent.size());
+  }
+
+  @Test
+  void overlappingWritesOverTheLimitAreSentAsReceived() throws Exception {
+    var device = new TestClient();
+    var client =
+        WriteBehindModbusClient.create(device, cfg -> cfg.setWindow(Duration.ofMillis(50)));
+
+    var first = new WriteMultipleRegistersRequest(0, 100, new byte[200]);
+    var second = new WriteMultipleRegistersRequest(50, 100, new byte[200]);
+    var a = client.sendAsync(1, first);
+    var b = client.sendAsync(1, second);
+
+    assertEquals(new WriteMultipleRegistersResponse(0, 100), get(a));
+    assertEquals(new WriteMultipleRegistersResponse(50, 100), get(b));
+
+    assertEquals(List.of(new Sent(1, first), new Sent(1, second)), device.sent);
+  }
+
+  @Test
+  void exceptionResponseResendsOriginalWrites() throws Exception {
+    var device = new TestClient();
+    device.illegalAddress = 13;
+    var client =
+        WriteBehindModbusClient.create(device, cfg -> cfg.setWindow(Duration.ofMillis(50)));
+
+    var multiple = new WriteMultipleRegistersRequest(10, 3, new byte[] {0, 1, 0, 2, 0, 3});
+    var a = client.sendAsync(1, multiple);
+    var b = client.writeSingleRegisterAsync(1, new WriteSingleRegisterRequest(13, 4));
+
+    assertEquals(new WriteMultipleRegistersResponse(10, 3), get(a));
+    ExecutionException ex =
+        assertThrows(
+            ExecutionException.class, () -> b.toCompletableFuture().get(1, TimeUnit.SECONDS));
+    assertInstanceOf(ModbusResponseException.class, ex.getCause());
+
+    assertEquals(
+        List.of(
+            new Sent(
+                1, new WriteMultipleRegistersRequest(10, 4, new byte[] {0, 1, 0, 2, 0, 3, 0, 4})),
+            new Sent(1, multiple),
+            new Sent(1, new WriteSingleRegisterRequest(13, 4))),
+        device.sent);
+    assertEquals(3, client.getWritesSent());
+  }
+
+  @Test
+  void exceptionResponseRetriesAddressesIndividually() throws Exception {
+    var device = new TestClient();
+    device.illegalAddress = 20;
+    var client =
+        WriteBehindModbusClient.create(device, cfg -> cfg.setWindow(Duration.ofMillis(50)));
+
+    var a = client.writeSingleRegisterAsync(1, new WriteSingleRegisterRequest(19, 1));
+    var b = client.writeSingleRegisterAsync(1, new WriteSingleRegisterRequest(20, 2));
+
+    assertEquals(new WriteSingleRegisterResponse(19, 1), get(a));
+    ExecutionException ex =
+        assertThrows(
+            ExecutionException.class, () -> b.toCompletableFuture().get(1, TimeUnit.SECONDS));
+    assertInstanceOf(ModbusResponseException.class, ex.getCause());
+
+    assertEquals(3, device.sent.size());
+    assertEquals(3, client.getWritesSent());
+  }
+
+  @Test
+  void otherRequestsAreNotDelayed() throws Exception {
+    var device = new TestClient();
+    var client = WriteBehindModbusClient.create(device, cfg -> cfg.setWindow(Duration.ofHours(1)));
+
+    CompletionStage<ReadHoldingRegistersResponse> cs =
+        client.readHoldingRegistersAsync(1, new ReadHoldingRegistersRequest(0, 1));
+
+    assertEquals(
+        new ReadHoldingRegistersResponse(new byte[2]), cs.toCompletableFuture().getNow(null));
+  }
+
+  private static <T> T get(CompletionStage<T> cs) throws Exception {
+    return cs.toCompletableFuture().get(1, TimeUnit.SECONDS);
+  }
+}
@@ -0,0 +1,85 @@
+package com.digitalpetri.modbus.internal.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class ExecutionLanesTest {
+
+  private final ExecutorService executor = Executors.newCachedThreadPool();
+
+  @AfterEach
+  void shutdown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  void sameKeyRunsInOrder() throws Exception {
+    var lanes = new ExecutionLanes(executor, 4);
+    var results = Collections.synchronizedList(new ArrayList<Integer>());
+    var done = new CountDownLatch(1000);
+
+    for (int i = 0; i < 1000; i++) {
+      final int n = i;
+      lanes.submit(
+          7,
+          () -> {
+            results.add(n);
+            done.countDown();
+          });
+    }
+
+    assertTrue(done.await(5, TimeUnit.SECONDS));
+
+    List<Integer> expected = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      expected.add(i);
+    }
+    assertEquals(expected, results);
+  }
+
+  @Test
+  void differentLanesRunConcurrently() throws Exception {
+    var lanes = new ExecutionLanes(executor, 2);
+    var blocked = new CountDownLatch(1);
+    var ran = new CountDownLatch(1);
+
+    // lane 0 is blocked until lane 1 has run
+    lanes.submit(
+        0,
+        () -> {
+          try {
+            blocked.await(5, TimeUnit.SECONDS);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        });
+    lanes.submit(1, ran::countDown);
+
+    assertTrue(ran.await(5, TimeUnit.SECONDS));
+    blocked.countDown();
+  }
+
+  @Test
+  void negativeKeysSelectValidLane() {
+    var lanes = new ExecutionLanes(executor, 3);
+
+    assertEquals(lanes.lane(2), lanes.lane(-1));
+    assertEquals(lanes.lane(0), lanes.lane(-3));
+  }
+
+  @Test
+  void laneCountMustBePositive() {
+    assertThrows(IllegalArgumentException.class, () -> new ExecutionLanes(executor, 0));
+  }
+}
@@ -0,0 +1,342 @@
+package com.digitalpetri.modbus.server;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.digitalpetri.modbus.pdu.MaskWriteRegisterRequest;
+import com.digitalpetri.modbus.pdu.ReadCoilsRequest;
+import com.digitalpetri.modbus.pdu.ReadHoldingRegistersRequest;
+import com.digitalpetri.modbus.pdu.WriteMultipleCoilsRequest;
+import com.digitalpetri.modbus.pdu.WriteMultipleRegistersRequest;
+import com.digitalpetri.modbus.pdu.WriteSingleCoilRequest;
+import com.digitalpetri.modbus.pdu.WriteSingleRegisterRequest;
+import com.digitalpetri.modbus.server.ProcessImage.Modification.CoilModification;
+import com.digitalpetri.modbus.server.ProcessImage.Modification.DiscreteInputModification;
+import com.digitalpetri.modbus.server.ProcessImage.Modification.HoldingRegisterModification;
+import com.digitalpetri.modbus.server.ProcessImage.Modification.InputRegisterModification;
+import com.digitalpetri.modbus.server.ReadOnlyModbusServicesTest.TestModbusRequestContext;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class DenseProcessImageTest {
+
+  private final Random random = new Random();
+
+  @Test
+  void bulkReadsMatchMapProcessImage() {
+    var mapImage = new ProcessImage();
+    var denseImage = new DenseProcessImage();
+
+    for (ProcessImage image : List.of(mapImage, denseImage)) {
+      image.with(
+          tx -> {
+            for (int i = 0; i < 65536; i += 997) {
+              tx.writeCoils(i, 1, new byte[] {1});
+              tx.writeDiscreteInputs(i + 1, 1, new byte[] {1});
+              tx.writeHoldingRegisters(i, 1, new byte[] {(byte) (i >> 8), (byte) i});
+              tx.writeInputRegisters(i + 1, 1, new byte[] {0x7F, (byte) i});
+            }
+          });
+    }
+
+    for (int n = 0; n < 1000; n++) {
+      int bitQuantity = random.nextInt(2000) + 1;
+      int bitAddress = random.nextInt(65536 - bitQuantity + 1);
+      int registerQuantity = random.nextInt(125) + 1;
+      int registerAddress = random.nextInt(65536 - registerQuantity + 1);
+
+      assertArrayEquals(
+          mapImage.<byte[]>get(tx -> tx.readCoils(bitAddress, bitQuantity)),
+          denseImage.<byte[]>get(tx -> tx.readCoils(bitAddress, bitQuantity)));
+      assertArrayEquals(
+          mapImage.<byte[]>get(tx -> tx.readDiscreteInputs(bitAddress, bitQuantity)),
+          denseImage.<byte[]>get(tx -> tx.readDiscreteInputs(bitAddress, bitQuantity)));
+      assertArrayEquals(
+          mapImage.<byte[]>get(tx -> tx.readHoldingRegisters(registerAddress, registerQuantity)),
+          denseImage.<byte[]>get(tx -> tx.readHoldingRegisters(registerAddress, registerQuantity)));
+      assertArrayEquals(
+          mapImage.<byte[]>get(tx -> tx.readInputRegisters(registerAddress, registerQuantity)),
+          denseImage.<byte[]>get(tx -> tx.readInputRegisters(registerAddress, registerQuantity)));
+    }
+  }
+
+  @Test
+  void bulkWritesRoundTrip() {
+    var image = new DenseProcessImage();
+
+    byte[] coils = new byte[250];
+    random.nextBytes(coils);
+    byte[] registers = new byte[250];
+    random.nextBytes(registers);
+
+    image.with(
+        tx -> {
+          tx.writeCoils(65536 - 2000, 2000, coils);
+          tx.writeHoldingRegisters(65536 - 125, 125, registers);
+        });
+
+    assertArrayEquals(coils, image.<byte[]>get(tx -> tx.readCoils(65536 - 2000, 2000)));
+    assertArrayEquals(
+        registers, image.<byte[]>get(tx -> tx.readHoldingRegisters(65536 - 125, 125)));
+  }
+
+  @Test
+  void partialBitReadsMaskUnusedBits() {
+    var image = new DenseProcessImage();
+
+    image.with(tx -> tx.writeCoils(0, 16, new byte[] {(byte) 0xFF, (byte) 0xFF}));
+
+    assertArrayEquals(new byte[] {(byte) 0xFF, 0x07}, image.<byte[]>get(tx -> tx.readCoils(0, 11)));
+    assertArrayEquals(new byte[] {0x1F}, image.<byte[]>get(tx -> tx.readCoils(11, 8)));
+  }
+
+  @Test
+  void mapViewsReflectArrays() {
+    var image = new DenseProcessImage();
+
+    image.with(
+        tx -> {
+          tx.writeCoils(
+              coils -> {
+                assertNull(coils.put(10, true));
+                coils.put(20, true);
+                coils.put(30, false);
+              });
+          tx.writeHoldingRegisters(
+              registers -> {
+                registers.put(1, new byte[] {0x12, 0x34});
+                registers.put(2, new byte[] {0x00, 0x00});
+                registers.put(3, new byte[] {0x00, 0x01});
+                registers.remove(3);
+              });
+        });
+
+    image.with(
+        tx -> {
+          tx.readCoils(
+              coils -> {
+                assertEquals(Map.of(10, true, 20, true), new HashMap<>(coils));
+                assertFalse(coils.containsKey(30));
+                return null;
+              });
+          tx.readHoldingRegisters(
+              registers -> {
+                assertEquals(1, registers.size());
+                assertArrayEquals(new byte[] {0x12, 0x34}, registers.get(1));
+                assertNull(registers.get(2));
+                return null;
+              });
+        });
+
+    assertArrayEquals(
+        new byte[] {0x12, 0x34, 0x00, 0x00},
+        image.<byte[]>get(tx -> tx.readHoldingRegisters(1, 2)));
+  }
+
+  @Test
+  void writeViewsLookUpAndRemoveByAddress() {
+    var image = new DenseProcessImage();
+    var modifications = new ArrayList<HoldingRegisterModification>();
+    image.addModificationListener(
+        new ProcessImage.ModificationListener() {
+          @Override
+          public void onCoilsModified(List<CoilModification> m) {}
+
+          @Override
+          public void onDiscreteInputsModified(List<DiscreteInputModification> m) {}
+
+          @Override
+          public void onHoldingRegistersModified(List<HoldingRegisterModification> m) {
+            modifications.addAll(m);
+          }
+
+          @Override
+          public void onInputRegistersModified(List<InputRegisterModification> m) {}
+        });
+
+    image.with(tx -> tx.writeHoldingRegisters(5, 1, new byte[] {0x12, 0x34}));
+
+    image.with(
+        tx ->
+            tx.writeHoldingRegisters(
+                registers -> {
+                  assertTrue(registers.containsKey(5));
+                  assertFalse(registers.containsKey(6));
+                  assertArrayEquals(new byte[] {0x12, 0x34}, registers.get(5));
+                  assertArrayEquals(new byte[2], registers.getOrDefault(6, new byte[2]));
+                  assertEquals(1, registers.size());
+
+                  assertArrayEquals(new byte[] {0x12, 0x34}, registers.remove(5));
+                  assertNull(registers.remove(6));
+                  assertTrue(registers.isEmpty());
+                }));
+
+    assertArrayEquals(new byte[2], image.<byte[]>get(tx -> tx.readHoldingRegisters(5, 1)));
+    assertEquals(3, modifications.size());
+    assertEquals(5, modifications.get(1).address());
+    assertArrayEquals(new byte[2], modifications.get(1).value());
+  }
+
+  @Test
+  void mapViewsRejectInvalidEntries() {
+    var image = new DenseProcessImage();
+
+    image.with(
+        tx -> {
+          assertThrows(
+              IllegalArgumentException.class, () -> tx.writeCoils(coils -> coils.put(65536, true)));
+          assertThrows(
+              IllegalArgumentException.class,
+              () -> tx.writeHoldingRegisters(registers -> registers.put(0, new byte[3])));
+        });
+  }
+
+  @Test
+  void bulkMethodsRejectInvalidRanges() {
+    for (ProcessImage image : List.of(new ProcessImage(), new DenseProcessImage())) {
+      image.with(
+          tx -> {
+            assertThrows(IllegalArgumentException.class, () -> tx.readCoils(-1, 1));
+            assertThrows(IllegalArgumentException.class, () -> tx.readHoldingRegisters(65535, 2));
+            assertThrows(
+                IllegalArgumentException.class,
+                () -> tx.writeInputRegisters(65536, 1, new byte[2]));
+          });
+    }
+  }
+
+  @Test
+  void bulkWritesRejectShortValuesWithoutWriting() {
+    for (ProcessImage image : List.of(new ProcessImage(), new DenseProcessImage())) {
+      image.with(
+          tx -> {
+            assertThrows(
+                IllegalArgumentException.class, () -> tx.writeCoils(0, 9, new byte[] {-1}));
+            assertThrows(
+                IllegalArgumentException.class,
+                () -> tx.writeDiscreteInputs(0, 17, new byte[] {-1, -1}));
+            assertThrows(
+                IllegalArgumentException.class,
+                () -> tx.writeHoldingRegisters(0, 2, new byte[] {0x12, 0x34, 0x56}));
+            assertThrows(
+                IllegalArgumentException.class,
+                () -> tx.writeInputRegisters(0, 3, new byte[] {0x12, 0x34}));
+          });
+
+      assertArrayEquals(new byte[2], image.readCoils(0, 9));
+      assertArrayEquals(new byte[3], image.readDiscreteInputs(0, 17));
+      assertArrayEquals(new byte[4], image.readHoldingRegisters(0, 2));
+      assertArrayEquals(new byte[6], image.readInputRegisters(0, 3));
+    }
+  }
+
+  @Test
+  void bulkWritesNotifyListeners() {
+    var image = new DenseProcessImage();
+    var modifications = new ArrayList<Object>();
+
+    image.addModificationListener(
+        new ProcessImage.ModificationListener() {
+          @Override
+          public void onCoilsModified(List<CoilModification> m) {
+            modifications.addAll(m);
+          }
+
+          @Override
+          public void onDiscreteInputsModified(List<DiscreteInputModification> m) {
+            modifications.addAll(m);
+          }
+
+          @Override
+          public void onHoldingRegistersModified(List<HoldingRegisterModification> m) {
+            modifications.addAll(m);
+          }
+
+          @Override
+          public void onInputRegistersModified(List<InputRegisterModification> m) {
+            modifications.addAll(m);
+          }
+        });
+
+    image.with(
+        tx -> {
+          tx.writeCoils(5, 2, new byte[] {0x02});
+          tx.writeInputRegisters(7, 1, new byte[] {0x01, 0x02});
+        });
+
+    assertEquals(3, modifications.size());
+    assertEquals(new CoilModification(5, false), modifications.get(0));
+    assertEquals(new CoilModification(6, true), modifications.get(1));
+    var registerModification = (InputRegisterModification) modifications.get(2);
+    assertEquals(7, registerModification.address());
+    assertArrayEquals(new byte[] {0x01, 0x02}, registerModification.value());
+  }
+
+  @Test
+  void servicesUseDenseProcessImage() throws Exception {
+    var image = new DenseProcessImage();
+    var services =
+        new ReadWriteModbusServices() {
+          @Override
+          protected Optional<ProcessImage> getProcessImage(int unitId) {
+            return Optional.of(image);
+          }
+        };
+
+    byte[] registers = new byte[250];
+    random.nextBytes(registers);
+
+    services.writeMultipleRegisters(
+        new TestModbusRequestContext(), 0, new WriteMultipleRegistersRequest(100, 125, registers));
+    services.writeMultipleCoils(
+        new TestModbusRequestContext(),
+        0,
+        new WriteMultipleCoilsRequest(3, 10, new byte[] {(byte) 0xA5, 0x03}));
+
+    assertArrayEquals(
+        registers,
+        services
+            .readHoldingRegisters(
+                new TestModbusRequestContext(), 0, new ReadHoldingRegistersRequest(100, 125))
+            .registers());
+    assertArrayEquals(
+        new byte[] {(byte) 0xA5, 0x03},
+        services.readCoils(new TestModbusRequestContext(), 0, new ReadCoilsRequest(3, 10)).coils());
+    assertTrue(image.<Boolean>get(tx -> tx.readCoils(coils -> coils.containsKey(3))));
+  }
+
+  @Test
+  void singleWriteServicesUseDenseProcessImage() throws Exception {
+    var image = new DenseProcessImage();
+    var services =
+        new ReadWriteModbusServices() {
+          @Override
+          protected Optional<ProcessImage> getProcessImage(int unitId) {
+            return Optional.of(image);
+          }
+        };
+    var context = new TestModbusRequestContext();
+
+    services.writeSingleCoil(context, 0, new WriteSingleCoilRequest(7, 0xFF00));
+    services.writeSingleCoil(context, 0, new WriteSingleCoilRequest(8, 0xFF00));
+    services.writeSingleCoil(context, 0, new WriteSingleCoilRequest(8, 0x0000));
+    services.writeSingleRegister(context, 0, new WriteSingleRegisterRequest(10, 0x8001));
+    services.writeSingleRegister(context, 0, new WriteSingleRegisterRequest(11, 0x00F0));
+    services.maskWriteRegister(context, 0, new MaskWriteRegisterRequest(11, 0x00F2, 0x0025));
+
+    assertArrayEquals(new byte[] {0x01}, image.<byte[]>get(tx -> tx.readCoils(7, 2)));
+    // (0x00F0 AND 0x00F2) OR (0x0025 AND NOT 0x00F2) = 0x00F5
+    assertArrayEquals(
+        new byte[] {(byte) 0x80, 0x01, 0x00, (byte) 0xF5},
+        image.<byte[]>get(tx -> tx.readHoldingRegisters(10, 2)));
+  }
+}
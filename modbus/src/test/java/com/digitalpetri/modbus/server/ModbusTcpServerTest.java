@@ -2,19 +2,31 @@ package com.digitalpetri.modbus.server;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import com.digitalpetri.modbus.BufferPool.HeapBufferPool;
+import com.digitalpetri.modbus.ExceptionCode;
+import com.digitalpetri.modbus.FunctionCode;
 import com.digitalpetri.modbus.MbapHeader;
 import com.digitalpetri.modbus.ModbusTcpFrame;
+import com.digitalpetri.modbus.exceptions.ModbusResponseException;
+import com.digitalpetri.modbus.exceptions.UnknownUnitIdException;
 import com.digitalpetri.modbus.pdu.ReadHoldingRegistersRequest;
 import com.digitalpetri.modbus.pdu.ReadHoldingRegistersResponse;
+import com.digitalpetri.modbus.pdu.WriteSingleRegisterRequest;
+import com.digitalpetri.modbus.pdu.WriteSingleRegisterResponse;
 import com.digitalpetri.modbus.server.ModbusRequestContext.ModbusTcpRequestContext;
+import com.digitalpetri.modbus.server.ModbusServerTransport.FrameReceiver;
 import java.net.SocketAddress;
 import java.nio.ByteBuffer;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 import org.junit.jupiter.api.Test;
@@ -142,6 +154,263 @@ class ModbusTcpServerTest {
     assertTypedReadHoldingRegistersResponse(response);
   }
 
+  @Test
+  void asyncServicesCompleteResponseLater() throws Exception {
+    var pending = new CompletableFuture<ReadHoldingRegistersResponse>();
+    AsyncModbusServices services =
+        new AsyncModbusServices() {
+
+          @Override
+          public CompletionStage<ReadHoldingRegistersResponse> readHoldingRegistersAsync(
+              ModbusRequestContext context, int unitId, ReadHoldingRegistersRequest request) {
+
+            assertEquals(3, unitId);
+            assertEquals(0x0010, request.address());
+            assertEquals(2, request.quantity());
+            return pending;
+          }
+        };
+    var server = new TestServer(services);
+
+    CompletableFuture<ModbusTcpFrame> response =
+        server.handleAsync(readHoldingRegistersFrame(7, 3), new TestContext());
+
+    assertFalse(response.isDone());
+
+    pending.complete(new ReadHoldingRegistersResponse(new byte[] {0x11, 0x22, 0x33, 0x44}));
+
+    assertTypedReadHoldingRegistersResponse(response.get());
+  }
+
+  @Test
+  void asyncServicesExceptionalCompletionBecomesExceptionResponse() throws Exception {
+    AsyncModbusServices services =
+        new AsyncModbusServices() {
+
+          @Override
+          public CompletionStage<ReadHoldingRegistersResponse> readHoldingRegistersAsync(
+              ModbusRequestContext context, int unitId, ReadHoldingRegistersRequest request) {
+
+            return CompletableFuture.failedFuture(
+                new ModbusResponseException(
+                    FunctionCode.READ_HOLDING_REGISTERS, ExceptionCode.ILLEGAL_DATA_ADDRESS));
+          }
+        };
+    var server = new TestServer(services);
+
+    ModbusTcpFrame response =
+        server.handleAsync(readHoldingRegistersFrame(7, 3), new TestContext()).get();
+
+    assertEquals(7, response.header().transactionId());
+    assertEquals(3, response.header().length());
+    assertArrayEquals(new byte[] {(byte) 0x83, 0x02}, bytes(response.pdu()));
+  }
+
+  @Test
+  void asyncServicesUnknownUnitIdPropagates() {
+    AsyncModbusServices services =
+        new AsyncModbusServices() {
+
+          @Override
+          public CompletionStage<ReadHoldingRegistersResponse> readHoldingRegistersAsync(
+              ModbusRequestContext context, int unitId, ReadHoldingRegistersRequest request) {
+
+            return CompletableFuture.failedFuture(new UnknownUnitIdException(unitId));
+          }
+        };
+    var server = new TestServer(services);
+
+    ExecutionException e =
+        assertThrows(
+            ExecutionException.class,
+            () -> server.handleAsync(readHoldingRegistersFrame(7, 3), new TestContext()).get());
+    assertInstanceOf(UnknownUnitIdException.class, e.getCause());
+
+    assertThrows(
+        UnknownUnitIdException.class,
+        () -> server.handle(readHoldingRegistersFrame(7, 3), new TestContext()));
+  }
+
+  @Test
+  void asyncServicesAreUsedBySynchronousPath() throws Exception {
+    AsyncModbusServices services =
+        new AsyncModbusServices() {
+
+          @Override
+          public CompletionStage<ReadHoldingRegistersResponse> readHoldingRegistersAsync(
+              ModbusRequestContext context, int unitId, ReadHoldingRegistersRequest request) {
+
+            return CompletableFuture.supplyAsync(
+                () -> new ReadHoldingRegistersResponse(new byte[] {0x11, 0x22, 0x33, 0x44}));
+          }
+        };
+    var server = new TestServer(services);
+
+    ModbusTcpFrame response = server.handle(readHoldingRegistersFrame(7, 3), new TestContext());
+
+    assertTypedReadHoldingRegistersResponse(response);
+  }
+
+  @Test
+  void asyncServicesDefaultToIllegalFunction() throws Exception {
+    var server = new TestServer(new AsyncModbusServices() {});
+
+    ModbusTcpFrame response =
+        server.handleAsync(readHoldingRegistersFrame(7, 3), new TestContext()).get();
+
+    assertArrayEquals(new byte[] {(byte) 0x83, 0x01}, bytes(response.pdu()));
+  }
+
+  @Test
+  void asyncServicesDefaultToSyncServices() throws Exception {
+    AsyncModbusServices services =
+        new AsyncModbusServices() {
+
+          @Override
+          public ReadHoldingRegistersResponse readHoldingRegisters(
+              ModbusRequestContext context, int unitId, ReadHoldingRegistersRequest request) {
+
+            return new ReadHoldingRegistersResponse(new byte[] {0x11, 0x22, 0x33, 0x44});
+          }
+
+          @Override
+          public WriteSingleRegisterResponse writeSingleRegister(
+              ModbusRequestContext context, int unitId, WriteSingleRegisterRequest request)
+              throws ModbusResponseException {
+
+            throw new ModbusResponseException(
+                FunctionCode.WRITE_SINGLE_REGISTER, ExceptionCode.ILLEGAL_DATA_VALUE);
+          }
+        };
+    var server = new TestServer(services);
+
+    ModbusTcpFrame response =
+        server.handleAsync(readHoldingRegistersFrame(7, 3), new TestContext()).get();
+    assertTypedReadHoldingRegistersResponse(response);
+
+    ModbusTcpFrame exception =
+        server
+            .handleAsync(
+                requestFrame(7, 3, new byte[] {0x06, 0x00, 0x01, 0x00, 0x2A}), new TestContext())
+            .get();
+    assertArrayEquals(new byte[] {(byte) 0x86, 0x03}, bytes(exception.pdu()));
+  }
+
+  @Test
+  void responseBuffersAreReturnedToPoolOnceSent() throws Exception {
+    var pool = new HeapBufferPool();
+    ModbusServices services =
+        new ModbusServices() {
+
+          @Override
+          public ReadHoldingRegistersResponse readHoldingRegisters(
+              ModbusRequestContext context, int unitId, ReadHoldingRegistersRequest request) {
+
+            return new ReadHoldingRegistersResponse(new byte[] {0x11, 0x22, 0x33, 0x44});
+          }
+        };
+    var server = new TestServer(ModbusServerConfig.create(b -> b.setBufferPool(pool)), services);
+    server.start();
+
+    FrameReceiver<ModbusTcpRequestContext, ModbusTcpFrame> receiver =
+        ((TestTransport) server.getTransport()).frameReceiver;
+    var context = new TestContext();
+
+    for (int i = 0; i < 10; i++) {
+      ModbusTcpFrame response = receiver.receive(context, readHoldingRegistersFrame(7, 3));
+      assertTypedReadHoldingRegistersResponse(response);
+      receiver.onResponseSent(context, response);
+    }
+
+    assertEquals(1, pool.getAllocationCounts().get(256).get());
+  }
+
+  @Test
+  void poolIsUnusedWhenTheTransportDoesNotReportResponsesSent() throws Exception {
+    var pool = new HeapBufferPool();
+    ModbusServices services =
+        new ModbusServices() {
+
+          @Override
+          public ReadHoldingRegistersResponse readHoldingRegisters(
+              ModbusRequestContext context, int unitId, ReadHoldingRegistersRequest request) {
+
+            return new ReadHoldingRegistersResponse(new byte[] {0x11, 0x22, 0x33, 0x44});
+          }
+        };
+    var transport = new TestTransport();
+    transport.reportsResponsesSent = false;
+    var server =
+        new TestServer(ModbusServerConfig.create(b -> b.setBufferPool(pool)), transport, services);
+    server.start();
+
+    var context = new TestContext();
+
+    for (int i = 0; i < 10; i++) {
+      ModbusTcpFrame response =
+          transport.frameReceiver.receive(context, readHoldingRegistersFrame(7, 3));
+      assertTypedReadHoldingRegistersResponse(response);
+    }
+
+    assertTrue(pool.getAllocationCounts().isEmpty());
+  }
+
+  @Test
+  void rawResponseBuffersAreNotPooled() throws Exception {
+    var pool = new HeapBufferPool();
+    RawModbusTcpServices services =
+        (context, request) -> Optional.of(new RawModbusTcpResponse(new byte[256]));
+    var server = new TestServer(ModbusServerConfig.create(b -> b.setBufferPool(pool)), services);
+    server.start();
+
+    FrameReceiver<ModbusTcpRequestContext, ModbusTcpFrame> receiver =
+        ((TestTransport) server.getTransport()).frameReceiver;
+    var context = new TestContext();
+
+    ModbusTcpFrame response = receiver.receive(context, requestFrame(7, 3, new byte[] {0x5A}));
+    receiver.onResponseSent(context, response);
+
+    pool.take(256);
+    assertEquals(1, pool.getAllocationCounts().get(256).get());
+  }
+
+  @Test
+  void onlyBuffersTakenFromThePoolAreGivenBack() throws Exception {
+    var pool = new HeapBufferPool();
+    ModbusServices services =
+        new ModbusServices() {
+
+          @Override
+          public ReadHoldingRegistersResponse readHoldingRegisters(
+              ModbusRequestContext context, int unitId, ReadHoldingRegistersRequest request) {
+
+            return new ReadHoldingRegistersResponse(new byte[] {0x11, 0x22, 0x33, 0x44});
+          }
+        };
+    var server = new TestServer(ModbusServerConfig.create(b -> b.setBufferPool(pool)), services);
+    server.start();
+
+    FrameReceiver<ModbusTcpRequestContext, ModbusTcpFrame> receiver =
+        ((TestTransport) server.getTransport()).frameReceiver;
+    var context = new TestContext();
+
+    // a writable buffer of the pooled capacity the server didn't take
+    ByteBuffer foreign = ByteBuffer.allocate(256);
+    receiver.onResponseSent(context, new ModbusTcpFrame(new MbapHeader(7, 0, 1, 3), foreign));
+
+    ModbusTcpFrame response = receiver.receive(context, readHoldingRegistersFrame(7, 3));
+    assertTypedReadHoldingRegistersResponse(response);
+    assertEquals(1, pool.getAllocationCounts().get(256).get());
+
+    receiver.onResponseSent(context, response);
+    receiver.onResponseSent(context, response);
+
+    // only the server's own buffer was given back, and only once
+    assertSame(response.pdu(), pool.take(256));
+    pool.take(256);
+    assertEquals(2, pool.getAllocationCounts().get(256).get());
+  }
+
   private static ModbusTcpFrame requestFrame(int transactionId, int unitId, byte[] pdu) {
     return new ModbusTcpFrame(
         new MbapHeader(transactionId, 0, pdu.length + 1, unitId), ByteBuffer.wrap(pdu));
@@ -169,18 +438,39 @@ class ModbusTcpServerTest {
   private static class TestServer extends ModbusTcpServer {
 
     TestServer(ModbusServices services) {
-      super(ModbusServerConfig.create(b -> {}), new TestTransport(), services);
+      this(ModbusServerConfig.create(b -> {}), services);
+    }
+
+    TestServer(ModbusServerConfig config, ModbusServices services) {
+      this(config, new TestTransport(), services);
+    }
+
+    TestServer(ModbusServerConfig config, TestTransport transport, ModbusServices services) {
+      super(config, transport, services);
     }
 
     ModbusTcpFrame handle(ModbusTcpFrame frame, ModbusTcpRequestContext context) throws Exception {
       return handleModbusTcpFrame(frame, context);
     }
+
+    CompletableFuture<ModbusTcpFrame> handleAsync(
+        ModbusTcpFrame frame, ModbusTcpRequestContext context) {
+
+      return handleModbusTcpFrameAsync(frame, context).toCompletableFuture();
+    }
   }
 
   private static class TestTransport implements ModbusTcpServerTransport {
 
     FrameReceiver<ModbusTcpRequestContext, ModbusTcpFrame> frameReceiver;
 
+    boolean reportsResponsesSent = true;
+
+    @Override
+    public boolean reportsResponsesSent() {
+      return reportsResponsesSent;
+    }
+
     @Override
     public CompletionStage<Void> bind() {
       return CompletableFuture.completedFuture(null);
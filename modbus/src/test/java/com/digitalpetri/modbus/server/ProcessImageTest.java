@@ -1,8 +1,15 @@
 package com.digitalpetri.modbus.server;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntConsumer;
 import org.junit.jupiter.api.Test;
 
 class ProcessImageTest {
@@ -184,4 +191,121 @@ class ProcessImageTest {
               });
         });
   }
+
+  @Test
+  void snapshotReadsObserveOnlyCompleteWrites() throws Exception {
+    for (ProcessImage processImage : List.of(new ProcessImage(), new DenseProcessImage())) {
+      assertSnapshotsConsistent(
+          processImage,
+          n -> {
+            var registers = new byte[250];
+            Arrays.fill(registers, (byte) n);
+            var coils = new byte[250];
+            Arrays.fill(coils, (byte) ((n & 1) == 0 ? 0x00 : 0xFF));
+
+            processImage.with(
+                tx -> {
+                  tx.writeHoldingRegisters(0, 125, registers);
+                  tx.writeCoils(0, 2000, coils);
+                });
+          });
+    }
+  }
+
+  @Test
+  void snapshotReadsDoNotObservePartialExclusiveTransactions() throws Exception {
+    for (ProcessImage processImage : List.of(new ProcessImage(), new DenseProcessImage())) {
+      assertSnapshotsConsistent(
+          processImage,
+          n -> {
+            var registers = new byte[250];
+            Arrays.fill(registers, (byte) n);
+            var coils = new byte[125];
+            Arrays.fill(coils, (byte) ((n & 1) == 0 ? 0x00 : 0xFF));
+
+            processImage.with(
+                true,
+                tx -> {
+                  tx.writeHoldingRegisters(0, 62, registers);
+                  tx.writeHoldingRegisters(62, 63, Arrays.copyOfRange(registers, 124, 250));
+                  tx.writeCoils(0, 1000, coils);
+                  tx.writeCoils(1000, 1000, coils);
+                });
+          });
+    }
+  }
+
+  @Test
+  void snapshotReadsWithinTransactions() {
+    for (ProcessImage processImage : List.of(new ProcessImage(), new DenseProcessImage())) {
+      processImage.with(
+          true,
+          tx ->
+              tx.writeHoldingRegisters(
+                  registers -> {
+                    registers.put(0, new byte[] {0x12, 0x34});
+
+                    assertArrayEquals(
+                        new byte[] {0x12, 0x34}, processImage.readHoldingRegisters(0, 1));
+                  }));
+
+      assertArrayEquals(
+          new byte[] {0x12, 0x34, 0x00, 0x00}, processImage.readHoldingRegisters(0, 2));
+      assertArrayEquals(new byte[] {0x00}, processImage.readCoils(0, 1));
+    }
+  }
+
+  @Test
+  void snapshotReadsRejectInvalidRanges() {
+    var processImage = new DenseProcessImage();
+
+    assertThrows(IllegalArgumentException.class, () -> processImage.readCoils(65535, 2));
+    assertThrows(IllegalArgumentException.class, () -> processImage.readDiscreteInputs(-1, 1));
+    assertThrows(IllegalArgumentException.class, () -> processImage.readInputRegisters(0, -1));
+  }
+
+  /**
+   * Run {@code writer} repeatedly on one thread while snapshots are read on another, asserting that
+   * every snapshot of Holding Registers 0-124 and Coils 0-1999 is uniform, i.e. no write was
+   * observed half-applied.
+   */
+  private static void assertSnapshotsConsistent(ProcessImage processImage, IntConsumer writer)
+      throws Exception {
+
+    var done = new AtomicBoolean(false);
+    var failure = new AtomicReference<Throwable>();
+
+    var reader =
+        new Thread(
+            () -> {
+              try {
+                while (!done.get()) {
+                  byte[] registers = processImage.readHoldingRegisters(0, 125);
+                  for (byte b : registers) {
+                    assertEquals(registers[0], b);
+                  }
+                  byte[] coils = processImage.readCoils(0, 2000);
+                  for (byte b : coils) {
+                    assertEquals(coils[0], b);
+                  }
+                }
+              } catch (Throwable t) {
+                failure.set(t);
+              }
+            });
+    reader.start();
+
+    try {
+      for (int n = 0; n < 20_000 && failure.get() == null; n++) {
+        writer.accept(n);
+      }
+    } finally {
+      done.set(true);
+      reader.join();
+    }
+
+    if (failure.get() != null) {
+      throw new AssertionError(failure.get());
+    }
+  }
 }
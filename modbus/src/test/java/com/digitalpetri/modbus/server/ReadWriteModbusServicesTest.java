@@ -1,5 +1,7 @@
 package com.digitalpetri.modbus.server;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 import com.digitalpetri.modbus.pdu.MaskWriteRegisterRequest;
@@ -12,6 +14,9 @@ import com.digitalpetri.modbus.pdu.WriteSingleRegisterRequest;
 import com.digitalpetri.modbus.server.ReadOnlyModbusServicesTest.TestModbusRequestContext;
 import java.util.Optional;
 import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.Test;
 
 public class ReadWriteModbusServicesTest {
@@ -203,6 +208,29 @@ public class ReadWriteModbusServicesTest {
                 }));
   }
 
+  @Test
+  void maskWriteRegisterDoesNotWaitForOtherTransactions() throws Exception {
+    var maskWrite =
+        CompletableFuture.runAsync(
+            () -> {
+              try {
+                services.maskWriteRegister(
+                    new TestModbusRequestContext(), 0, new MaskWriteRegisterRequest(0, 0, 0x1234));
+              } catch (Exception e) {
+                throw new CompletionException(e);
+              }
+            });
+
+    // a transaction reading the Coils stays open until the mask write completes
+    processImage.with(
+        tx -> {
+          tx.readCoils(0, 1);
+          assertDoesNotThrow(() -> maskWrite.get(5, TimeUnit.SECONDS));
+        });
+
+    assertArrayEquals(new byte[] {0x12, 0x34}, processImage.readHoldingRegisters(0, 1));
+  }
+
   @Test
   void readWriteMultipleRegisters() throws Exception {
     var randomBytes = new byte[65536 * 2];